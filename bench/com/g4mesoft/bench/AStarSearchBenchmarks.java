@@ -0,0 +1,51 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+
+import com.g4mesoft.math.Vec2f;
+import com.g4mesoft.search.AStarSearch;
+import com.g4mesoft.search.CardinalDirection;
+import com.g4mesoft.search.IPositionFilter;
+
+public class AStarSearchBenchmarks implements IBenchmarkSuite {
+
+	private static final int MAP_SIZE = 64;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new Benchmark("AStarSearch.findPath") {
+			private AStarSearch search;
+			private IPositionFilter filter;
+			private Vec2f start;
+			
+			@Override
+			public void setup() {
+				search = new AStarSearch(1.0f, true);
+				search.setGoal(new Vec2f(MAP_SIZE - 2, MAP_SIZE - 2));
+				
+				// A bounded map with a series of walls,
+				// which the path has to go around.
+				filter = new IPositionFilter() {
+					@Override
+					public boolean isValidPos(Vec2f pos, CardinalDirection dir, int step) {
+						int x = (int)pos.x;
+						int y = (int)pos.y;
+						if (x < 0 || y < 0 || x >= MAP_SIZE || y >= MAP_SIZE)
+							return false;
+						
+						if (x % 16 == 8)
+							return (x / 16) % 2 == 0 ? (y >= MAP_SIZE - 4) : (y < 4);
+						return true;
+					}
+				};
+				
+				start = new Vec2f(1.0f, 1.0f);
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				blackhole.consume(search.findPath(start, filter));
+			}
+		});
+	}
+}
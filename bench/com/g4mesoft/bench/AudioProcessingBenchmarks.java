@@ -0,0 +1,65 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+
+import com.g4mesoft.math.MathUtils;
+import com.g4mesoft.sound.analysis.FastFourierTransform;
+import com.g4mesoft.sound.processor.AudioChannel;
+import com.g4mesoft.sound.processor.PitchAudioProcessor;
+
+public class AudioProcessingBenchmarks implements IBenchmarkSuite {
+
+	private static final float SAMPLE_RATE = 44100.0f;
+	private static final float TONE_FREQUENCY = 440.0f;
+	
+	private static final int FFT_SIZE = 4096;
+	private static final int SAMPLES_PER_BLOCK = 1024;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new Benchmark("FastFourierTransform.transform") {
+			private float[] source;
+			private float[] data;
+			
+			@Override
+			public void setup() {
+				source = createTone(FFT_SIZE);
+				data = new float[FFT_SIZE];
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				System.arraycopy(source, 0, data, 0, FFT_SIZE);
+				FastFourierTransform.transform(data, false);
+				blackhole.consume(data[2]);
+			}
+		});
+		
+		benchmarks.add(new Benchmark("PitchAudioProcessor.process") {
+			private PitchAudioProcessor processor;
+			private float[] source;
+			private float[] samples;
+			
+			@Override
+			public void setup() {
+				processor = new PitchAudioProcessor(1.5f, SAMPLE_RATE);
+				source = createTone(SAMPLES_PER_BLOCK);
+				samples = new float[SAMPLES_PER_BLOCK];
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				System.arraycopy(source, 0, samples, 0, SAMPLES_PER_BLOCK);
+				processor.process(samples, SAMPLES_PER_BLOCK, AudioChannel.LEFT);
+				blackhole.consume(samples[0]);
+			}
+		});
+	}
+	
+	private static float[] createTone(int numSamples) {
+		float[] samples = new float[numSamples];
+		for (int i = 0; i < numSamples; i++)
+			samples[i] = MathUtils.sin(2.0f * MathUtils.PI * TONE_FREQUENCY * i / SAMPLE_RATE);
+		return samples;
+	}
+}
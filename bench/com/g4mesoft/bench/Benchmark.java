@@ -0,0 +1,42 @@
+package com.g4mesoft.bench;
+
+/**
+ * A single benchmark measured by the {@link BenchmarkRunner}. The runner
+ * invokes {@link #setup()} once, followed by a series of warmup and
+ * measurement iterations, each of which invokes {@link #run(Blackhole)} as
+ * many times as possible within the iteration time. Finally the runner
+ * invokes {@link #tearDown()}.
+ * <br><br>
+ * A single invocation of {@link #run(Blackhole)} is counted as one operation.
+ * Any result of the operation should be consumed by the supplied blackhole.
+ */
+public abstract class Benchmark {
+
+	private final String name;
+	
+	protected Benchmark(String name) {
+		if (name == null)
+			throw new NullPointerException("name is null!");
+		
+		this.name = name;
+	}
+	
+	/**
+	 * Prepares the state used by the benchmark. If the benchmark is unable to
+	 * run on the current system, this function should throw an exception
+	 * explaining why, and the benchmark will be skipped.
+	 * 
+	 * @throws Exception if the benchmark could not be prepared.
+	 */
+	public void setup() throws Exception {
+	}
+	
+	public abstract void run(Blackhole blackhole) throws Exception;
+
+	public void tearDown() {
+	}
+	
+	public final String getName() {
+		return name;
+	}
+}
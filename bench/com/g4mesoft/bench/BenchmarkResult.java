@@ -0,0 +1,41 @@
+package com.g4mesoft.bench;
+
+import com.g4mesoft.math.MathUtils;
+
+public class BenchmarkResult {
+
+	private final String name;
+	private final double[] opsPerSecond;
+	
+	public BenchmarkResult(String name, double[] opsPerSecond) {
+		this.name = name;
+		this.opsPerSecond = opsPerSecond;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public double getMeanOpsPerSecond() {
+		double sum = 0.0;
+		for (double ops : opsPerSecond)
+			sum += ops;
+		return sum / opsPerSecond.length;
+	}
+
+	public double getStandardDeviation() {
+		if (opsPerSecond.length <= 1)
+			return 0.0;
+		
+		double mean = getMeanOpsPerSecond();
+		
+		double sum = 0.0;
+		for (double ops : opsPerSecond)
+			sum += (ops - mean) * (ops - mean);
+		return MathUtils.sqrt(sum / (opsPerSecond.length - 1));
+	}
+	
+	public double getNanosPerOp() {
+		return 1.0e9 / getMeanOpsPerSecond();
+	}
+}
@@ -0,0 +1,149 @@
+package com.g4mesoft.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A simple benchmark runner measuring the throughput of the engine hot paths.
+ * The runner does not depend on any external libraries. Each benchmark is
+ * run in the same JVM for a number of timed warmup iterations, followed by
+ * a number of timed measurement iterations. The result of each benchmark is
+ * printed as the mean operations per second, the standard deviation between
+ * the measurement iterations and the mean time per operation.
+ * <br><br>
+ * The runner is configured using the following system properties:
+ * <pre>
+ *   bench.warmupIterations      (default 3)
+ *   bench.measureIterations     (default 5)
+ *   bench.iterationMillis       (default 1000)
+ * </pre>
+ * The program arguments are regular expressions, and only benchmarks with a
+ * name matching at least one of them are run. If no arguments are given, all
+ * benchmarks are run. For reproducible results the benchmarks should be run
+ * on an otherwise idle machine with a fixed heap size, e.g.
+ * {@code -Xms1g -Xmx1g}.
+ */
+public final class BenchmarkRunner {
+
+	private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+	private static final int DEFAULT_MEASURE_ITERATIONS = 5;
+	private static final long DEFAULT_ITERATION_MILLIS = 1000L;
+	
+	private static final long NS_PER_MS = 1000000L;
+	
+	private final int warmupIterations;
+	private final int measureIterations;
+	private final long iterationNs;
+	
+	private final Blackhole blackhole;
+	
+	public BenchmarkRunner(int warmupIterations, int measureIterations, long iterationMillis) {
+		if (measureIterations <= 0)
+			throw new IllegalArgumentException("measureIterations <= 0");
+		
+		this.warmupIterations = warmupIterations;
+		this.measureIterations = measureIterations;
+		this.iterationNs = iterationMillis * NS_PER_MS;
+		
+		blackhole = new Blackhole();
+	}
+	
+	public BenchmarkResult runBenchmark(Benchmark benchmark) throws Exception {
+		benchmark.setup();
+		
+		try {
+			for (int i = 0; i < warmupIterations; i++)
+				runIteration(benchmark);
+
+			double[] opsPerSecond = new double[measureIterations];
+			for (int i = 0; i < measureIterations; i++)
+				opsPerSecond[i] = runIteration(benchmark);
+			
+			return new BenchmarkResult(benchmark.getName(), opsPerSecond);
+		} finally {
+			benchmark.tearDown();
+		}
+	}
+	
+	private double runIteration(Benchmark benchmark) throws Exception {
+		long ops = 0L;
+		
+		long startNs = System.nanoTime();
+		long elapsedNs;
+		do {
+			benchmark.run(blackhole);
+			ops++;
+			
+			elapsedNs = System.nanoTime() - startNs;
+		} while (elapsedNs < iterationNs);
+		
+		return ops * 1.0e9 / elapsedNs;
+	}
+	
+	private static List<Benchmark> getAllBenchmarks() {
+		IBenchmarkSuite[] suites = new IBenchmarkSuite[] {
+			new PixelRenderer2DBenchmarks(),
+			new PixelRenderer3DBenchmarks(),
+			new PixelFilterBenchmarks(),
+			new MPEGDecoderBenchmarks(),
+			new AudioProcessingBenchmarks(),
+			new AStarSearchBenchmarks(),
+			new PacketByteBufferBenchmarks(),
+			new WorldBenchmarks()
+		};
+		
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		for (IBenchmarkSuite suite : suites)
+			suite.addBenchmarks(benchmarks);
+		return benchmarks;
+	}
+	
+	private static boolean matchesAny(String name, List<Pattern> patterns) {
+		if (patterns.isEmpty())
+			return true;
+		
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(name).find())
+				return true;
+		}
+		
+		return false;
+	}
+	
+	public static void main(String[] args) {
+		List<Pattern> patterns = new ArrayList<Pattern>();
+		for (String arg : args)
+			patterns.add(Pattern.compile(arg));
+		
+		BenchmarkRunner runner = new BenchmarkRunner(
+				Integer.getInteger("bench.warmupIterations", DEFAULT_WARMUP_ITERATIONS),
+				Integer.getInteger("bench.measureIterations", DEFAULT_MEASURE_ITERATIONS),
+				Long.getLong("bench.iterationMillis", DEFAULT_ITERATION_MILLIS));
+		
+		System.out.println(String.format("%-48s %16s %12s %14s", 
+				"benchmark", "ops/s", "error", "ns/op"));
+
+		for (Benchmark benchmark : getAllBenchmarks()) {
+			if (!matchesAny(benchmark.getName(), patterns))
+				continue;
+			
+			try {
+				BenchmarkResult result = runner.runBenchmark(benchmark);
+				
+				System.out.println(String.format("%-48s %16.1f %12.1f %14.1f", 
+						result.getName(), 
+						result.getMeanOpsPerSecond(),
+						result.getStandardDeviation(),
+						result.getNanosPerOp()));
+			} catch (Exception e) {
+				System.out.println(String.format("%-48s skipped: %s", 
+						benchmark.getName(), e.getMessage()));
+			}
+		}
+		
+		// Make sure the blackhole is not optimized away.
+		if (runner.blackhole.getHash() == 42)
+			System.out.println();
+	}
+}
@@ -0,0 +1,49 @@
+package com.g4mesoft.bench;
+
+/**
+ * A sink for values computed by a benchmark. Consuming the results of a
+ * benchmark ensures that the JIT compiler is unable to eliminate the
+ * computation as dead code.
+ */
+public final class Blackhole {
+
+	private volatile int intSink;
+	private volatile long longSink;
+	private volatile float floatSink;
+	private volatile double doubleSink;
+	private volatile Object objectSink;
+	
+	Blackhole() {
+	}
+	
+	public void consume(int value) {
+		intSink = value;
+	}
+
+	public void consume(long value) {
+		longSink = value;
+	}
+	
+	public void consume(float value) {
+		floatSink = value;
+	}
+
+	public void consume(double value) {
+		doubleSink = value;
+	}
+	
+	public void consume(boolean value) {
+		intSink = value ? 1 : 0;
+	}
+	
+	public void consume(Object value) {
+		objectSink = value;
+	}
+	
+	/* Used to avoid warnings about unused sinks */
+	int getHash() {
+		return intSink ^ (int)longSink ^ Float.floatToIntBits(floatSink) ^
+		       (int)Double.doubleToLongBits(doubleSink) ^ 
+		       (objectSink == null ? 0 : objectSink.hashCode());
+	}
+}
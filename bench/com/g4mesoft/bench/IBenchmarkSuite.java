@@ -0,0 +1,9 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+
+public interface IBenchmarkSuite {
+
+	public void addBenchmarks(List<Benchmark> benchmarks);
+	
+}
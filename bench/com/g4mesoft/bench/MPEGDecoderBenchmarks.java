@@ -0,0 +1,53 @@
+package com.g4mesoft.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.List;
+
+import com.g4mesoft.sound.format.AudioBitInputStream;
+import com.g4mesoft.sound.format.mpeg.MPEGFrameDecoder;
+import com.g4mesoft.util.FileUtil;
+
+/**
+ * Benchmarks decoding of an entire MPEG audio file. Since the engine does not
+ * ship with any audio files, the path of the file to decode has to be given
+ * by the system property {@code bench.mpegFile}. If the property is not set,
+ * the benchmark is skipped.
+ */
+public class MPEGDecoderBenchmarks implements IBenchmarkSuite {
+
+	private static final String MPEG_FILE_PROPERTY = "bench.mpegFile";
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new Benchmark("MPEGFrameDecoder.readNextFrame") {
+			private byte[] data;
+			
+			@Override
+			public void setup() throws Exception {
+				String path = System.getProperty(MPEG_FILE_PROPERTY);
+				if (path == null)
+					throw new IllegalStateException("-D" + MPEG_FILE_PROPERTY + " not set");
+
+				data = FileUtil.readAsBytes(new File(path));
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) throws Exception {
+				MPEGFrameDecoder decoder = new MPEGFrameDecoder();
+
+				try (AudioBitInputStream abis = new AudioBitInputStream(new ByteArrayInputStream(data))) {
+					while (decoder.readNextFrame(abis));
+				}
+				
+				decoder.flushCachedSamples();
+				blackhole.consume(decoder.getNumValidFrames());
+			}
+			
+			@Override
+			public void tearDown() {
+				data = null;
+			}
+		});
+	}
+}
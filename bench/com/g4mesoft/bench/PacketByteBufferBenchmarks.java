@@ -0,0 +1,74 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.g4mesoft.net.PacketByteBuffer;
+
+public class PacketByteBufferBenchmarks implements IBenchmarkSuite {
+
+	private static final int VALUES_PER_PACKET = 64;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new Benchmark("PacketByteBuffer.encode") {
+			private PacketByteBuffer buffer;
+			private UUID uuid;
+			
+			@Override
+			public void setup() {
+				buffer = new PacketByteBuffer();
+				uuid = new UUID(0x0123456789ABCDEFL, 0xFEDCBA9876543210L);
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				buffer.clear();
+				encodePacket(buffer, uuid);
+				blackhole.consume(buffer.getSize());
+			}
+		});
+
+		benchmarks.add(new Benchmark("PacketByteBuffer.decode") {
+			private byte[] data;
+			
+			@Override
+			public void setup() {
+				PacketByteBuffer buffer = new PacketByteBuffer();
+				encodePacket(buffer, new UUID(0x0123456789ABCDEFL, 0xFEDCBA9876543210L));
+				
+				data = new byte[buffer.getSize()];
+				System.arraycopy(buffer.getData(), 0, data, 0, data.length);
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				PacketByteBuffer buffer = new PacketByteBuffer(data);
+				
+				long acc = buffer.getUUID().getLeastSignificantBits();
+				for (int i = 0; i < VALUES_PER_PACKET; i++) {
+					acc += buffer.getInt();
+					acc += buffer.getLong();
+					acc += buffer.getShort();
+					acc += (long)buffer.getFloat();
+					acc += (long)buffer.getDouble();
+					acc += buffer.getBoolean() ? 1L : 0L;
+				}
+				
+				blackhole.consume(acc);
+			}
+		});
+	}
+	
+	private static void encodePacket(PacketByteBuffer buffer, UUID uuid) {
+		buffer.putUUID(uuid);
+		for (int i = 0; i < VALUES_PER_PACKET; i++) {
+			buffer.putInt(i * 31);
+			buffer.putLong(i * 0x10001L);
+			buffer.putShort((short)i);
+			buffer.putFloat(i * 0.5f);
+			buffer.putDouble(i * 0.25);
+			buffer.putBoolean((i & 1) != 0);
+		}
+	}
+}
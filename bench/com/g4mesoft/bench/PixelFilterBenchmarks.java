@@ -0,0 +1,66 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+import java.util.Random;
+
+import com.g4mesoft.graphic.filter.BoxBlurPixelFilter;
+import com.g4mesoft.graphic.filter.ContrastPixelFilter;
+import com.g4mesoft.graphic.filter.FastGaussianBlurPixelFilter;
+import com.g4mesoft.graphic.filter.GaussianBlurPixelFilter;
+import com.g4mesoft.graphic.filter.IPixelFilter;
+
+public class PixelFilterBenchmarks implements IBenchmarkSuite {
+
+	private static final int WIDTH = 640;
+	private static final int HEIGHT = 360;
+	private static final long SEED = 0x4D3L;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new FilterBenchmark("BoxBlurPixelFilter", new BoxBlurPixelFilter(4)));
+		benchmarks.add(new FilterBenchmark("GaussianBlurPixelFilter", new GaussianBlurPixelFilter(9)));
+		benchmarks.add(new FilterBenchmark("FastGaussianBlurPixelFilter", new FastGaussianBlurPixelFilter(4.0f)));
+		benchmarks.add(new FilterBenchmark("ContrastPixelFilter", new ContrastPixelFilter(1.5f)));
+	}
+	
+	private static class FilterBenchmark extends Benchmark {
+		
+		private final IPixelFilter filter;
+		
+		private int[] source;
+		private int[] pixels;
+		
+		public FilterBenchmark(String name, IPixelFilter filter) {
+			super(name + ".filterPixels");
+			
+			this.filter = filter;
+		}
+		
+		@Override
+		public void setup() {
+			Random random = new Random(SEED);
+			
+			source = new int[WIDTH * HEIGHT];
+			for (int i = 0; i < source.length; i++)
+				source[i] = random.nextInt() & 0xFFFFFF;
+			
+			pixels = new int[WIDTH * HEIGHT];
+		}
+		
+		@Override
+		public void run(Blackhole blackhole) {
+			// Restore the pixels to make sure every
+			// operation filters the same input.
+			System.arraycopy(source, 0, pixels, 0, pixels.length);
+			
+			filter.filterPixels(pixels, WIDTH, HEIGHT);
+			blackhole.consume(pixels[WIDTH * HEIGHT / 2]);
+		}
+		
+		@Override
+		public void tearDown() {
+			source = null;
+			pixels = null;
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package com.g4mesoft.bench;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import com.g4mesoft.graphic.BasicViewport;
+import com.g4mesoft.graphic.GColor;
+import com.g4mesoft.graphic.ParallelPixelRenderer2D;
+import com.g4mesoft.graphic.PixelRasterizer;
+import com.g4mesoft.graphic.PixelRenderer2D;
+import com.g4mesoft.graphic.RenderLayer;
+import com.g4mesoft.graphic.ScaledPresenter.PresentStrategy;
+import com.g4mesoft.graphic.particle.ParticleSystem;
+import com.g4mesoft.graphic.sprite.Sprite;
+import com.g4mesoft.graphic.tile.TileLayer;
+import com.g4mesoft.graphic.tile.Tileset;
+import com.g4mesoft.job.JobSystem;
+
+public class PixelRenderer2DBenchmarks implements IBenchmarkSuite {
+
+	private static final int WIDTH = 640;
+	private static final int HEIGHT = 360;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new RendererBenchmark("PixelRenderer2D.clear") {
+			@Override
+			public void run(Blackhole blackhole) {
+				renderer.clear();
+			}
+		});
+		
+		benchmarks.add(new RendererBenchmark("PixelRenderer2D.fillRect") {
+			private int i;
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				// Partially clipped rectangles of varying size
+				int x = (i * 37) % (WIDTH + 64) - 32;
+				int y = (i * 53) % (HEIGHT + 64) - 32;
+				renderer.fillRect(x, y, 64, 48);
+				i++;
+			}
+		});
+
+		benchmarks.add(new RendererBenchmark("PixelRenderer2D.drawLine") {
+			private int i;
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				// Diagonal lines, some of which leave the screen
+				int x0 = (i * 37) % WIDTH;
+				int y0 = (i * 53) % HEIGHT;
+				int x1 = (i * 91) % (WIDTH * 2) - WIDTH / 2;
+				int y1 = (i * 17) % (HEIGHT * 2) - HEIGHT / 2;
+				renderer.drawLine(x0, y0, x1, y1);
+				i++;
+			}
+		});
+		
+		benchmarks.add(new RendererBenchmark("PixelRenderer2D.drawLines") {
+			private int[] coords;
+			
+			@Override
+			public void setup() {
+				super.setup();
+				
+				// A batch of long lines, most of
+				// which are partially off-screen.
+				coords = new int[256 * 4];
+				for (int i = 0; i < coords.length; i += 4) {
+					coords[i + 0] = (i * 37) % (WIDTH * 4) - WIDTH * 2;
+					coords[i + 1] = (i * 53) % (HEIGHT * 4) - HEIGHT * 2;
+					coords[i + 2] = (i * 91) % (WIDTH * 4) - WIDTH * 2;
+					coords[i + 3] = (i * 17) % (HEIGHT * 4) - HEIGHT * 2;
+				}
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				renderer.drawLines(coords, coords.length / 4);
+			}
+		});
+		
+		benchmarks.add(new RendererBenchmark("PixelRenderer2D.drawSprite") {
+			private Sprite sprite;
+			private int i;
+			
+			@Override
+			public void setup() {
+				super.setup();
+				
+				// A 32x32 sprite with transparent borders
+				// and a translucent center.
+				int[] argb = new int[32 * 32];
+				for (int j = 0; j < argb.length; j++) {
+					int x = j % 32;
+					if (x >= 4 && x < 28)
+						argb[j] = ((x >= 12 && x < 20) ? 0x80000000 : 0xFF000000) | j;
+				}
+				sprite = new Sprite(argb, 32, 32);
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				int x = (i * 37) % (WIDTH + 32) - 16;
+				int y = (i * 53) % (HEIGHT + 32) - 16;
+				renderer.drawSprite(sprite, x, y, i & (Sprite.FLIP_HORIZONTAL | Sprite.FLIP_VERTICAL));
+				i++;
+			}
+		});
+		
+		benchmarks.add(new RendererBenchmark("TileLayer.render") {
+			private TileLayer layer;
+			private int i;
+			
+			@Override
+			public void setup() {
+				super.setup();
+				
+				// 16 opaque 16x16 tiles on a 1024x1024 map
+				int[] sheet = new int[64 * 64];
+				for (int j = 0; j < sheet.length; j++)
+					sheet[j] = 0xFF000000 | (j * 0x010203);
+				
+				layer = new TileLayer(new Tileset(sheet, 64, 64, 64, 16, 16), 1024, 1024);
+				for (int y = 0; y < layer.getHeight(); y++) {
+					for (int x = 0; x < layer.getWidth(); x++)
+						layer.setTile(x, y, 1 + ((x * 7 + y * 13) & 15));
+				}
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				// Scroll diagonally across the map
+				layer.render(renderer, (i * 3) % 8192, (i * 2) % 8192, 1.0f);
+				i++;
+			}
+		});
+		
+		benchmarks.add(new RendererBenchmark("PixelRenderer2D.drawLayer") {
+			private RenderLayer layer;
+			
+			@Override
+			public void setup() {
+				super.setup();
+				
+				// A full-screen layer, which is mostly transparent
+				// with opaque and translucent rectangles.
+				layer = new RenderLayer(WIDTH, HEIGHT, PixelRasterizer.COMPOSITE_ALPHA);
+				layer.start(null);
+				layer.clearTransparent();
+				for (int i = 0; i < 64; i++) {
+					layer.setColor(new GColor(0x80000000 | (i * 0x010203), i % 2 == 0));
+					layer.fillRect((i * 37) % WIDTH - 32, (i * 53) % HEIGHT - 32, 96, 64);
+				}
+				layer.stop();
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				renderer.drawLayer(layer, 0, 0);
+			}
+			
+			@Override
+			public void tearDown() {
+				super.tearDown();
+				
+				layer.dispose();
+				layer = null;
+			}
+		});
+		
+		benchmarks.add(new RendererBenchmark("ParticleSystem.render") {
+			private ParticleSystem particles;
+			
+			@Override
+			public void setup() {
+				super.setup();
+				
+				// 100k translucent particles, some of which are off-screen
+				particles = new ParticleSystem(100000);
+				for (int i = 0; i < particles.getCapacity(); i++) {
+					float x = (i * 37) % (WIDTH + 64) - 32;
+					float y = (i * 53) % (HEIGHT + 64) - 32;
+					particles.spawn(x, y, 0.5f, -0.25f, 1000.0f, 0x80000000 | (i * 0x010203));
+				}
+				particles.update();
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				particles.render(renderer, 0.5f);
+			}
+		});
+		
+		benchmarks.add(new FrameBenchmark("PixelRenderer2D.frame", false));
+		benchmarks.add(new FrameBenchmark("ParallelPixelRenderer2D.frame", true));
+
+		for (PresentStrategy strategy : PresentStrategy.values())
+			benchmarks.add(new PresentBenchmark(strategy));
+	}
+	
+	private static class PresentBenchmark extends RendererBenchmark {
+
+		/* A pixel-art frame scaled 6x to a 1920x1080 display */
+		private static final int FRAME_WIDTH = 320;
+		private static final int FRAME_HEIGHT = 180;
+		private static final int SCALE = 6;
+		
+		private final PresentStrategy strategy;
+		private BufferedImage display;
+		
+		public PresentBenchmark(PresentStrategy strategy) {
+			super("PixelRenderer2D.present[" + strategy + "]");
+			
+			this.strategy = strategy;
+		}
+		
+		@Override
+		public void setup() {
+			int dw = FRAME_WIDTH * SCALE;
+			int dh = FRAME_HEIGHT * SCALE;
+			
+			display = new BufferedImage(dw, dh, BufferedImage.TYPE_INT_RGB);
+			renderer = new PixelRenderer2D(new BasicViewport(dw, dh), FRAME_WIDTH, FRAME_HEIGHT);
+			renderer.setPresentStrategy(strategy);
+		}
+		
+		@Override
+		public void run(Blackhole blackhole) {
+			Graphics g = display.getGraphics();
+			renderer.start(g);
+			renderer.stop();
+			g.dispose();
+		}
+		
+		@Override
+		public void tearDown() {
+			super.tearDown();
+			
+			display = null;
+		}
+	}
+	
+	private static class FrameBenchmark extends RendererBenchmark {
+
+		private final boolean parallel;
+		private JobSystem jobSystem;
+		
+		public FrameBenchmark(String name, boolean parallel) {
+			super(name);
+			
+			this.parallel = parallel;
+		}
+		
+		@Override
+		public void setup() {
+			if (parallel) {
+				jobSystem = new JobSystem();
+				renderer = new ParallelPixelRenderer2D(WIDTH, HEIGHT, jobSystem);
+			} else {
+				renderer = new PixelRenderer2D(WIDTH, HEIGHT);
+			}
+		}
+		
+		@Override
+		public void run(Blackhole blackhole) {
+			// A cleared frame with heavy overdraw
+			renderer.setColor(0x000000);
+			renderer.clear();
+			for (int i = 0; i < 256; i++) {
+				renderer.setColor(i * 0x010203);
+				renderer.fillRect((i * 37) % WIDTH - 32, (i * 53) % HEIGHT - 32, 96, 64);
+				renderer.drawLine(0, i, WIDTH - 1, HEIGHT - 1 - i);
+			}
+			blackhole.consume(renderer.getPixelBuffer());
+		}
+		
+		@Override
+		public void tearDown() {
+			super.tearDown();
+			
+			if (jobSystem != null) {
+				jobSystem.shutdown();
+				jobSystem = null;
+			}
+		}
+	}
+	
+	private static abstract class RendererBenchmark extends Benchmark {
+		
+		protected PixelRenderer2D renderer;
+		
+		public RendererBenchmark(String name) {
+			super(name);
+		}
+		
+		@Override
+		public void setup() {
+			renderer = new PixelRenderer2D(WIDTH, HEIGHT);
+			renderer.setColor(0xFF00FF);
+		}
+		
+		@Override
+		public void tearDown() {
+			renderer.dispose();
+			renderer = null;
+		}
+	}
+}
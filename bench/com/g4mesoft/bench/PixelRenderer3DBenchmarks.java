@@ -0,0 +1,65 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+
+import com.g4mesoft.graphics3d.PixelRenderer3D;
+import com.g4mesoft.graphics3d.Shape3D;
+import com.g4mesoft.graphics3d.Vertex3D;
+import com.g4mesoft.math.Vec4f;
+
+public class PixelRenderer3DBenchmarks implements IBenchmarkSuite {
+
+	private static final int WIDTH = 640;
+	private static final int HEIGHT = 360;
+	
+	/* The number of quads in each direction */
+	private static final int GRID_SIZE = 16;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new Benchmark("PixelRenderer3D.drawVertices") {
+			private PixelRenderer3D renderer;
+			private Vertex3D[] vertices;
+			
+			@Override
+			public void setup() {
+				renderer = new PixelRenderer3D(null, WIDTH, HEIGHT);
+				renderer.setCullEnabled(false);
+				
+				// A grid of quads covering the entire
+				// screen in normalized device coordinates,
+				// slightly larger to exercise clipping.
+				vertices = new Vertex3D[GRID_SIZE * GRID_SIZE * 4];
+				
+				float step = 2.2f / GRID_SIZE;
+				int i = 0;
+				for (int yq = 0; yq < GRID_SIZE; yq++) {
+					for (int xq = 0; xq < GRID_SIZE; xq++) {
+						float x0 = -1.1f + xq * step;
+						float y0 = -1.1f + yq * step;
+						float z = (float)(xq + yq) / (GRID_SIZE * 2);
+						
+						vertices[i++] = new Vertex3D(new Vec4f(x0,        y0,        z, 1.0f));
+						vertices[i++] = new Vertex3D(new Vec4f(x0 + step, y0,        z, 1.0f));
+						vertices[i++] = new Vertex3D(new Vec4f(x0 + step, y0 + step, z, 1.0f));
+						vertices[i++] = new Vertex3D(new Vec4f(x0,        y0 + step, z, 1.0f));
+					}
+				}
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				renderer.clearDepth();
+				renderer.drawVertices(vertices, Shape3D.QUADS);
+				blackhole.consume(renderer.getPixelBuffer()[0]);
+			}
+			
+			@Override
+			public void tearDown() {
+				renderer.dispose();
+				renderer = null;
+				vertices = null;
+			}
+		});
+	}
+}
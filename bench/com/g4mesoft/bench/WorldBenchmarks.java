@@ -0,0 +1,79 @@
+package com.g4mesoft.bench;
+
+import java.util.List;
+import java.util.Random;
+
+import com.g4mesoft.world.World;
+import com.g4mesoft.world.entity.LivingEntity;
+import com.g4mesoft.world.phys.AABB;
+
+public class WorldBenchmarks implements IBenchmarkSuite {
+
+	private static final int NUM_ENTITIES = 2000;
+	private static final float WORLD_SIZE = 512.0f;
+	private static final float ENTITY_SIZE = 4.0f;
+	private static final long SEED = 0x3F1L;
+	
+	@Override
+	public void addBenchmarks(List<Benchmark> benchmarks) {
+		benchmarks.add(new Benchmark("World.getCollidingEntities") {
+			private World world;
+			private AABB[] queries;
+			private int i;
+			
+			@Override
+			public void setup() {
+				world = new World() {
+					@Override
+					public boolean isClient() {
+						return false;
+					}
+				};
+				
+				Random random = new Random(SEED);
+				for (int i = 0; i < NUM_ENTITIES; i++) {
+					float x = random.nextFloat() * WORLD_SIZE;
+					float y = random.nextFloat() * WORLD_SIZE;
+					world.addEntity(new BenchmarkEntity(world, x, y));
+				}
+				
+				queries = new AABB[64];
+				for (int i = 0; i < queries.length; i++) {
+					float x = random.nextFloat() * WORLD_SIZE;
+					float y = random.nextFloat() * WORLD_SIZE;
+					queries[i] = new AABB(x, y, x + ENTITY_SIZE * 4.0f, y + ENTITY_SIZE * 4.0f);
+				}
+			}
+			
+			@Override
+			public void run(Blackhole blackhole) {
+				blackhole.consume(world.getCollidingEntities(queries[i++ & (queries.length - 1)]));
+			}
+			
+			@Override
+			public void tearDown() {
+				world = null;
+				queries = null;
+			}
+		});
+	}
+	
+	private static class BenchmarkEntity extends LivingEntity {
+
+		public BenchmarkEntity(World world, float x, float y) {
+			super(world);
+			
+			pos.set(x, y);
+			body.move(x, y);
+		}
+
+		@Override
+		protected AABB createBody() {
+			return new AABB(0.0f, 0.0f, ENTITY_SIZE, ENTITY_SIZE);
+		}
+		
+		@Override
+		protected void update() {
+		}
+	}
+}
@@ -1,19 +1,37 @@
 package com.g4mesoft;
 
+import java.awt.GraphicsEnvironment;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
+import com.g4mesoft.asset.AssetLoader;
 import com.g4mesoft.composition.Composition;
 import com.g4mesoft.graphic.Display;
 import com.g4mesoft.graphic.DisplayConfig;
 import com.g4mesoft.graphic.IRenderer2D;
+import com.g4mesoft.graphic.PixelRenderer2D;
 import com.g4mesoft.input.key.KeyInput;
 import com.g4mesoft.input.key.KeyInputListener;
 import com.g4mesoft.input.key.KeyTypedInput;
 import com.g4mesoft.input.mouse.MouseButtonInput;
 import com.g4mesoft.input.mouse.MouseInputListener;
+import com.g4mesoft.input.record.InputRecorder;
+import com.g4mesoft.input.record.InputReplayer;
+import com.g4mesoft.job.JobSystem;
+import com.g4mesoft.pacing.IFramePacer;
+import com.g4mesoft.profile.AllocationMonitor;
+import com.g4mesoft.profile.FrameProfiler;
+import com.g4mesoft.profile.ProfilerPhase;
+import com.g4mesoft.profile.StartupReport;
+import com.g4mesoft.schedule.TickScheduler;
+import com.g4mesoft.sound.SoundManager;
 import com.g4mesoft.util.FileUtil;
 
 public abstract class Application implements IExitable {
@@ -21,21 +39,41 @@ public abstract class Application implements IExitable {
 	private static final boolean DEFAULT_DEBUG = true;
 	private static final double DEFAULT_TPS = 20.0;
 	private static final double DEFAULT_MIN_FPS = 60.0;
-	
-	private static final float MAX_SECONDS_BEHIND = 5.0f;
 
 	private static final String DISPLAY_CONFIG_LOCATION = "/config/display.txt";
 	
 	private Display display;
+	private boolean headless;
+	private IRenderer2D offscreenRenderer;
 	
 	private Composition composition;
 	
-	private boolean running;
+	private volatile boolean running;
 	private Timer timer;
 	private double minimumFps;
 	
+	private boolean threadedTicking;
+	private boolean unlimitedTickRate;
+	private boolean loopStarted;
+	private Thread tickThread;
+	
+	private FrameProfiler profiler;
+	private AllocationMonitor allocationMonitor;
+	private TickScheduler scheduler;
+	
+	/*
+	 * Created on first use, since most applications
+	 * use neither, and creating them slows startup.
+	 */
+	private volatile AssetLoader assetLoader;
+	private volatile JobSystem jobSystem;
+	
+	/* Awaited before the first frame, or null if headless */
+	private Future<SoundManager> soundMixerFuture;
+	
 	private boolean debug;
-	private long ticksPassed;
+	/* Read by the recorder on the event thread */
+	private volatile long ticksPassed;
 	
 	/*
 	 * Width and height values of the renderer
@@ -54,9 +92,19 @@ public abstract class Application implements IExitable {
 	
 	private KeyInputListener keyListener;
 	private MouseInputListener mouseListener;
+	
+	private InputRecorder inputRecorder;
+	private InputReplayer inputReplayer;
 
 	private final DisplayConfig displayConfig;
 	
+	/*
+	 * Created before any of the constructors
+	 * run, such that loading the display config
+	 * is included in the startup report.
+	 */
+	private final StartupReport startupReport = new StartupReport();
+	
 	protected Application(DisplayConfig displayConfig) {
 		this.displayConfig = displayConfig;
 	}
@@ -84,6 +132,8 @@ public abstract class Application implements IExitable {
 	}
 	
 	private DisplayConfig loadDisplayConfig(String displayConfigFile, boolean internal) {
+		long startNs = startupReport.start();
+		
 		InputStream is = FileUtil.getInputStream(displayConfigFile, internal);
 		if (is == null)
 			throw new ConfigReadException("Unable to find config file");
@@ -94,6 +144,8 @@ public abstract class Application implements IExitable {
 			throw new ConfigReadException(e);
 		} finally {
 			FileUtil.closeInputStreamSilent(is);
+			
+			startupReport.end("display config", startNs);
 		}
 	}
 
@@ -164,7 +216,10 @@ public abstract class Application implements IExitable {
 		// before or during initialization.
 		running = true;
 		
+		long initStartNs = startupReport.start();
 		init();
+		startupReport.end("application init", initStartNs);
+		
 		startLoop();
 		stop();
 		
@@ -178,20 +233,46 @@ public abstract class Application implements IExitable {
 	 * input, this can be achieved by invoking the respective methods such as
 	 * {@link #enableKeyInput()} or {@link #enableMouseInput()}. User input will
 	 * be enabled by default and is disabled using {@link #disableKeyInput()} or
-	 * {@link #disableMouseInput()}.
+	 * {@link #disableMouseInput()}. If the application is headless, neither
+	 * the display nor the user input will be initialized.
+	 * <br><br>
+	 * Subsystems which are independent of the display, such as the sound
+	 * mixer, are initialized concurrently with the display. Sub-classes can
+	 * do the same for their own subsystems, using
+	 * {@link #initAsync(String, Callable)}. The asset loader and the job
+	 * system are only created on first use.
 	 * <br><br>
 	 * <b>NOTE:</b><i> any sub-classes overriding this function should
 	 * call {@code super.init()} to make sure the application starts 
 	 * executing properly.</i>
 	 */
 	protected void init() {
-		display = new Display(displayConfig);
+		// Opening the default mixer is slow, and
+		// does not depend on the display.
+		soundMixerFuture = headless ? null : initAsync("sound mixer", SoundManager::getInstance);
+		
+		long startNs = startupReport.start();
+		display = headless ? null : new Display(displayConfig);
+		startupReport.end("display", startNs);
+		
+		offscreenRenderer = null;
 
 		composition = null;
 		
 		timer = new Timer(this, DEFAULT_TPS);
 		minimumFps = DEFAULT_MIN_FPS;
 		
+		threadedTicking = false;
+		unlimitedTickRate = false;
+		loopStarted = false;
+		tickThread = null;
+		
+		profiler = new FrameProfiler();
+		allocationMonitor = new AllocationMonitor();
+		scheduler = new TickScheduler();
+		assetLoader = null;
+		jobSystem = null;
+		
 		debug = DEFAULT_DEBUG;
 		ticksPassed = 0;
 	
@@ -203,9 +284,79 @@ public abstract class Application implements IExitable {
 
 		keyListener = null;
 		mouseListener = null;
+		
+		inputRecorder = null;
+		inputReplayer = null;
 
+		startNs = startupReport.start();
 		enableKeyInput();
 		enableMouseInput();
+		startupReport.end("input", startNs);
+	}
+	
+	/**
+	 * Initializes a subsystem on a separate thread, such that it can be
+	 * initialized concurrently with the remaining subsystems. The duration
+	 * of the initialization is recorded in the startup report. The following
+	 * shows an example of binding a server socket during initialization:
+	 * <pre>
+	 *   protected void init() {
+	 *       serverFuture = initAsync("network", () -> {
+	 *           return new ServerNetworkManager(this, registry, address);
+	 *       });
+	 *       super.init();
+	 *   }
+	 * </pre>
+	 * If the initialization throws an exception, it is thrown by the
+	 * {@link Future#get()} function of the returned future, and the step is
+	 * marked as failed in the startup report.
+	 * 
+	 * @param name - the name of the subsystem in the startup report
+	 * @param task - the task initializing the subsystem
+	 * 
+	 * @return A future holding the result of the initialization
+	 * 
+	 * @see #getStartupReport()
+	 */
+	protected <T> Future<T> initAsync(String name, Callable<T> task) {
+		if (name == null)
+			throw new NullPointerException("name is null!");
+		if (task == null)
+			throw new NullPointerException("task is null!");
+		
+		FutureTask<T> future = new FutureTask<T>(() -> {
+			long startNs = startupReport.start();
+			boolean completed = false;
+			try {
+				T result = task.call();
+				completed = true;
+				return result;
+			} finally {
+				startupReport.end(completed ? name : (name + " (failed)"), startNs);
+			}
+		});
+		
+		Thread thread = new Thread(future, "Init " + name);
+		thread.setDaemon(true);
+		thread.start();
+		
+		return future;
+	}
+	
+	private void awaitSoundMixer() {
+		if (soundMixerFuture != null) {
+			try {
+				soundMixerFuture.get();
+			} catch (ExecutionException e) {
+				// The application can run without sound,
+				// but the failure should not go unnoticed.
+				errorOccurred(e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+			soundMixerFuture = null;
+		}
 	}
 	
 	protected void stop() { }
@@ -214,60 +365,182 @@ public abstract class Application implements IExitable {
 	
 	/**
 	 * Starts the main game loop. This function will use a timer for timing the
-	 * ticks, and sleep x amount of time depending on the minimumFps field.
+	 * ticks, and sleep x amount of time depending on the minimumFps field. If
+	 * threaded ticking is enabled, the ticks will be performed on a separate
+	 * thread, and this thread will only be in charge of rendering.
 	 * 
 	 * @see com.g4mesoft.Timer Timer
+	 * @see #setThreadedTicking(boolean)
 	 */
 	private void startLoop() {
+		loopStarted = true;
+		
+		awaitSoundMixer();
+		
 		timer.initTimer();
+		
+		if (threadedTicking) {
+			tickThread = new Thread(this::startTickLoop, "Tick Thread");
+			tickThread.start();
+		}
+		
 		while (running) {
-			if (display.isCloseRequested()) {
+			if (display != null && display.isCloseRequested()) {
 				display.dispose();
 				exit();
 				break;
 			}
 			
-			timer.update();
+			long frameStartNs = profiler.start();
+			allocationMonitor.beginFrame();
 			
-			int missingTicks = timer.getMissingTicks();
-			if (missingTicks > timer.getTps() * MAX_SECONDS_BEHIND) {
-				if (isDebug()) {
-					System.out.println("Application is running slow. Skipping " + 
-							missingTicks + " ticks");
+			if (threadedTicking) {
+				long startNs = System.nanoTime();
+				
+				if (isRenderingEnabled()) {
+					draw((float)timer.getInterpolatedDeltaTick());
+					timer.framePassed();
+				}
+
+				long sleepStartNs = profiler.start();
+				timer.sleepFrame(minimumFps, startNs);
+				profiler.end(ProfilerPhase.SLEEP, sleepStartNs);
+			} else if (unlimitedTickRate) {
+				timer.update();
+				performTicks(1);
+				timer.resetTickDebt();
+				
+				if (isRenderingEnabled()) {
+					draw(0.0f);
+					timer.framePassed();
 				}
 			} else {
-				long startMs = System.currentTimeMillis();
+				timer.update();
 				
-				int ticks = 0;
-				while (missingTicks != 0) {
-					ticks++;
-					missingTicks--;
-					
-					update();
-					timer.tickPassed();
+				performTicks(timer.getTicksToPerform());
 
-					long deltaMs = System.currentTimeMillis() - startMs;
-					if (deltaMs > 1000.0f * MAX_SECONDS_BEHIND) {
-						if (isDebug()) {
-							int avg = (int)(deltaMs / ticks);
-							System.out.println("Ticking is slow, around " + avg + 
-									"ms on average. Skipping " + missingTicks + " ticks");
-						}
-						
-						missingTicks = 0;
-					}
-				}
-	
-				if (display.isVisible()) {
+				if (isRenderingEnabled()) {
 					draw((float)timer.getDeltaTick());
 					timer.framePassed();
 				}
 	
+				long sleepStartNs = profiler.start();
 				timer.sleep(minimumFps);
+				profiler.end(ProfilerPhase.SLEEP, sleepStartNs);
 			}
+			
+			allocationMonitor.endFrame();
+			profiler.end(ProfilerPhase.FRAME, frameStartNs);
+		}
+		
+		if (tickThread != null) {
+			try {
+				tickThread.join();
+			} catch (InterruptedException e) {
+				Application.errorOccurred(e);
+			}
+			
+			tickThread = null;
+		}
+		
+		stopInputRecording();
+		stopInputReplay();
+		
+		if (assetLoader != null)
+			assetLoader.shutdown();
+		if (jobSystem != null)
+			jobSystem.shutdown();
+		allocationMonitor.setEnabled(false);
+	}
+	
+	/**
+	 * The loop performed by the ticking thread, when threaded ticking is
+	 * enabled. The ticks are performed with a fixed time-step and published
+	 * to the rendering thread after every update of the timer.
+	 * 
+	 * @see #setThreadedTicking(boolean)
+	 */
+	private void startTickLoop() {
+		try {
+			while (running) {
+				timer.update();
+				
+				if (unlimitedTickRate) {
+					performTicks(1);
+					timer.resetTickDebt();
+					timer.publishTicks();
+				} else {
+					performTicks(timer.getTicksToPerform());
+					timer.publishTicks();
+					timer.sleepUntilNextTick();
+				}
+			}
+		} catch (Throwable t) {
+			Application.errorOccurred(t);
+			exit();
 		}
 	}
+	
+	/**
+	 * Performs the given amount of ticks. If performing the ticks takes too
+	 * long, the remaining ticks will be dropped.
+	 * 
+	 * @param ticksToPerform - the amount of ticks to perform
+	 * 
+	 * @see CatchUpPolicy
+	 */
+	private void performTicks(int ticksToPerform) {
+		long maxMs = (long)(1000.0f * timer.getCatchUpPolicy().maxSecondsBehind);
+		long startMs = System.currentTimeMillis();
+		
+		int ticks = 0;
+		while (ticksToPerform != 0) {
+			ticks++;
+			ticksToPerform--;
+			
+			allocationMonitor.beginTick();
+			update();
+			allocationMonitor.endTick();
+			
+			timer.tickPassed();
 
+			long deltaMs = System.currentTimeMillis() - startMs;
+			if (deltaMs > maxMs) {
+				int droppedTicks = timer.dropTicks();
+				
+				if (isDebug()) {
+					int avg = (int)(deltaMs / ticks);
+					System.out.println("Ticking is slow, around " + avg + 
+							"ms on average. Skipping " + droppedTicks + " ticks");
+				}
+				
+				break;
+			}
+		}
+	}
+	
+	private void replayInput() {
+		try {
+			inputReplayer.replay(ticksPassed);
+		} catch (IOException e) {
+			Application.errorOccurred(e);
+			stopInputReplay();
+		}
+	}
+	
+	/**
+	 * @return True, if frames should be drawn by the main loop. If the
+	 *         application is headless, frames are only drawn when an offscreen
+	 *         renderer has been set.
+	 * 
+	 * @see #setOffscreenRenderer(IRenderer2D)
+	 */
+	private boolean isRenderingEnabled() {
+		if (headless)
+			return offscreenRenderer != null;
+		return display.isVisible();
+	}
+	
 	/**
 	 * Sets up the update before calling the overridden tick function. This
 	 * function is in charge of updating important features such as the root UI
@@ -277,6 +550,9 @@ public abstract class Application implements IExitable {
 	 * @see #render(IRenderer2D, float)
 	 */
 	private void update() {
+		if (inputReplayer != null)
+			replayInput();
+		
 		if (composition != null && composition.isValid()) {
 			if (mouseListener != null && MouseInputListener.MOUSE_LEFT.isClicked()) {
 				int mx = mouseListener.getX();
@@ -287,10 +563,34 @@ public abstract class Application implements IExitable {
 					comp.requestFocus(null);
 			}
 			
+			long startNs = profiler.start();
 			composition.update();
+			profiler.end(ProfilerPhase.COMPOSITION_UPDATE, startNs);
+		}
+		
+		AssetLoader assetLoader = this.assetLoader;
+		if (assetLoader != null) {
+			long assetsStartNs = profiler.start();
+			assetLoader.update();
+			profiler.end(ProfilerPhase.ASSET_COMPLETION, assetsStartNs);
 		}
 		
+		long tasksStartNs = profiler.start();
+		scheduler.update();
+		profiler.end(ProfilerPhase.SCHEDULED_TASKS, tasksStartNs);
+		
+		long tickStartNs = profiler.start();
 		tick();
+		profiler.end(ProfilerPhase.TICK, tickStartNs);
+		
+		// Jobs submitted during the tick
+		// must not outlive the tick.
+		JobSystem jobSystem = this.jobSystem;
+		if (jobSystem != null) {
+			long barrierStartNs = profiler.start();
+			jobSystem.awaitJobs();
+			profiler.end(ProfilerPhase.JOB_BARRIER, barrierStartNs);
+		}
 		
 		// The key- and mouse-input should
 		// be updated after every tick.
@@ -316,25 +616,43 @@ public abstract class Application implements IExitable {
 	 * @see #tick()
 	 */
 	private void draw(float dt) {
-		// Test if display has changed size.
-		// This is useful, if the application
-		// wants to change renderer before
-		// starting the actual rendering.
-		int displayWidth = display.getWidth();
-		int displayHeight = display.getHeight();
-		if (oldDisplayWidth != displayWidth || oldDisplayHeight != displayHeight) {
-			// Display changed size
-			displayResized(displayWidth, displayHeight);
-			
-			oldDisplayWidth = displayWidth;
-			oldDisplayHeight = displayHeight;
+		IRenderer2D renderer;
+
+		// The layout of the composition changes the
+		// entire frame, when dirty tracking is enabled.
+		if (composition != null && composition.isRelayoutRequired()) {
+			renderer = headless ? offscreenRenderer : display.getRenderer();
+			if (renderer instanceof PixelRenderer2D)
+				((PixelRenderer2D)renderer).markAllDirty();
 		}
 		
-		IRenderer2D renderer = display.startRendering();
-		if (renderer == null) 
-			return;
+		if (headless) {
+			renderer = offscreenRenderer;
+			if (!renderer.start(null))
+				return;
+		} else {
+			// Test if display has changed size.
+			// This is useful, if the application
+			// wants to change renderer before
+			// starting the actual rendering.
+			int displayWidth = display.getWidth();
+			int displayHeight = display.getHeight();
+			if (oldDisplayWidth != displayWidth || oldDisplayHeight != displayHeight) {
+				// Display changed size
+				displayResized(displayWidth, displayHeight);
+				
+				oldDisplayWidth = displayWidth;
+				oldDisplayHeight = displayHeight;
+			}
+			
+			renderer = display.startRendering();
+			if (renderer == null) 
+				return;
+		}
 
+		long startNs = profiler.start();
 		render(renderer, dt);
+		profiler.end(ProfilerPhase.RENDER, startNs);
 		
 		int width = renderer.getWidth();
 		int height = renderer.getHeight();
@@ -347,17 +665,31 @@ public abstract class Application implements IExitable {
 		}
 
 		if (composition != null) {
-			if (composition.isRelayoutRequired())
+			if (composition.isRelayoutRequired()) {
+				startNs = profiler.start();
 				composition.layout(renderer);
+				profiler.end(ProfilerPhase.COMPOSITION_LAYOUT, startNs);
+			}
 
 			// Transformations may have changed
 			// when calling #render(IRenderer2D, float)
 			renderer.resetTransformations();
 			
+			startNs = profiler.start();
 			composition.render(renderer, dt);
+			profiler.end(ProfilerPhase.COMPOSITION_RENDER, startNs);
+		}
+		
+		startNs = profiler.start();
+		if (headless) {
+			renderer.stop();
+		} else {
+			display.stopRendering();
 		}
+		profiler.end(ProfilerPhase.PRESENT, startNs);
 		
-		display.stopRendering();
+		if (startupReport.firstFrameDrawn() && isDebug())
+			startupReport.printReport(System.out);
 	}
 	
 	/**
@@ -422,14 +754,17 @@ public abstract class Application implements IExitable {
 	 * functionality of the key-listener. 
 	 * <br><br>
 	 * <b>NOTE: </b><i>To simplify programs, it is advised that this function is
-	 * to be used instead of the above code snippet.<i>
+	 * to be used instead of the above code snippet. If the application is
+	 * headless, the keys are still updated, but only receive replayed input.<i>
 	 * 
 	 * @see #disableKeyInput()
 	 * @see com.g4mesoft.input.key.KeyInputListener
 	 */
 	public void enableKeyInput() {
 		keyListener = KeyInputListener.getInstance();
-		keyListener.registerDisplay(display);
+		
+		if (display != null)
+			keyListener.registerDisplay(display);
 	}
 	
 	/**
@@ -442,7 +777,8 @@ public abstract class Application implements IExitable {
 	 */
 	public void disableKeyInput() {
 		if (keyListener != null) {
-			keyListener.unregisterDisplay(display);
+			if (display != null)
+				keyListener.unregisterDisplay(display);
 			keyListener = null;
 		}
 	}
@@ -455,13 +791,17 @@ public abstract class Application implements IExitable {
 	 * {@link MouseInputListener#updateMouseButtons()} function after every
 	 * update in the {@link #tick()} method. For the sake of simplicity it is
 	 * advised to use this function instead of calling 
-	 * {@code MouseInputListener.registerDisplay(getDisplay())} manually.
+	 * {@code MouseInputListener.registerDisplay(getDisplay())} manually. If the
+	 * application is headless, the mouse buttons are still updated, but only
+	 * receive replayed input.
 	 * 
 	 * @see #disableMouseInput()
 	 */
 	public void enableMouseInput() {
 		mouseListener = MouseInputListener.getInstance();
-		mouseListener.registerDisplay(display);
+		
+		if (display != null)
+			mouseListener.registerDisplay(display);
 	}
 	
 	/**
@@ -474,11 +814,93 @@ public abstract class Application implements IExitable {
 	 */
 	public void disableMouseInput() {
 		if (mouseListener != null) {
-			mouseListener.unregisterDisplay(display);
+			if (display != null)
+				mouseListener.unregisterDisplay(display);
 			mouseListener = null;
 		}
 	}
 	
+	/**
+	 * Starts recording every key and mouse event into a compact binary log,
+	 * written to the given stream. Each event is stamped with the amount of
+	 * ticks passed, such that the session can later be replayed using
+	 * {@link #startInputReplay(InputStream)}. Any previous recording is
+	 * stopped.
+	 * 
+	 * @param os - The stream to which the input log is written
+	 * 
+	 * @throws IOException if an I/O error occurs writing the log header
+	 * 
+	 * @see com.g4mesoft.input.record.InputRecorder InputRecorder
+	 */
+	public void startInputRecording(OutputStream os) throws IOException {
+		stopInputRecording();
+		
+		inputRecorder = new InputRecorder(this, os);
+		inputRecorder.install();
+	}
+	
+	/**
+	 * Stops the current input recording, and closes the stream of the input
+	 * log. If no recording is in progress, this function has no effect.
+	 */
+	public void stopInputRecording() {
+		if (inputRecorder != null) {
+			try {
+				inputRecorder.close();
+			} catch (IOException e) {
+				Application.errorOccurred(e);
+			}
+			
+			inputRecorder = null;
+		}
+	}
+	
+	/**
+	 * Starts replaying the input log read from the given stream. The events
+	 * are dispatched to the key and mouse input listeners at the beginning of
+	 * the tick with the same number as when they were recorded. Combined with
+	 * a headless application and an unlimited tick rate, this replays the
+	 * session as fast as possible. Any previous replay is stopped.
+	 * 
+	 * @param is - The stream from which the input log is read
+	 * 
+	 * @throws IOException if an I/O error occurs, or the stream does not
+	 *                     contain an input log.
+	 * 
+	 * @see #isInputReplayFinished()
+	 * @see com.g4mesoft.input.record.InputReplayer InputReplayer
+	 */
+	public void startInputReplay(InputStream is) throws IOException {
+		stopInputReplay();
+		
+		inputReplayer = new InputReplayer(is);
+	}
+	
+	/**
+	 * Stops the current input replay, and closes the stream of the input log.
+	 * If no replay is in progress, this function has no effect.
+	 */
+	public void stopInputReplay() {
+		if (inputReplayer != null) {
+			try {
+				inputReplayer.close();
+			} catch (IOException e) {
+				Application.errorOccurred(e);
+			}
+			
+			inputReplayer = null;
+		}
+	}
+	
+	/**
+	 * @return True, if an input replay was started, and all of its events have
+	 *         been dispatched, false otherwise.
+	 */
+	public boolean isInputReplayFinished() {
+		return inputReplayer != null && inputReplayer.isFinished();
+	}
+	
 	/**
 	 * Sets the grabbed state of the {@code MouseInputListener} to the state
 	 * specified in the parameters. If the listener was not enabled prior to
@@ -501,12 +923,42 @@ public abstract class Application implements IExitable {
 // Getter functions //
 	
 	/**
-	 * @return The main display object
+	 * @return The main display object, or null if the application is headless.
 	 */
 	public Display getDisplay() {
 		return display;
 	}
 	
+	/**
+	 * @return True, if the application is running without a display and user
+	 *         input, false otherwise.
+	 * 
+	 * @see #startHeadless(String[], Class)
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+	
+	/**
+	 * @return The renderer used for drawing frames, when the application is
+	 *         headless, or null if no such renderer has been set.
+	 * 
+	 * @see #setOffscreenRenderer(IRenderer2D)
+	 */
+	public IRenderer2D getOffscreenRenderer() {
+		return offscreenRenderer;
+	}
+	
+	/**
+	 * @return True, if ticks are performed as fast as possible, false if they
+	 *         are performed at the fixed tps of the application.
+	 * 
+	 * @see #setUnlimitedTickRate(boolean)
+	 */
+	public boolean isUnlimitedTickRate() {
+		return unlimitedTickRate;
+	}
+	
 	/**
 	 * @return The root composition of the application
 	 */
@@ -534,6 +986,33 @@ public abstract class Application implements IExitable {
 		return timer.getTps();
 	}
 	
+	/**
+	 * @return The policy describing how the application catches up, when it
+	 *         has fallen behind the desired ticks per second.
+	 * 
+	 * @see #setCatchUpPolicy(CatchUpPolicy)
+	 */
+	public CatchUpPolicy getCatchUpPolicy() {
+		return timer.getCatchUpPolicy();
+	}
+	
+	/**
+	 * @return The amount of ticks that the application is currently behind,
+	 *         including the fraction of the next tick that has passed. This
+	 *         is usually below one, unless the application is catching up.
+	 */
+	public double getTickDebt() {
+		return timer.getTickDebt();
+	}
+	
+	/**
+	 * @return The total amount of ticks, which were dropped because the
+	 *         application was running too far behind.
+	 */
+	public long getDroppedTicks() {
+		return timer.getDroppedTicks();
+	}
+	
 	/**
 	 * @return The amount of ticks passed since the application was initialized.
 	 */
@@ -541,6 +1020,138 @@ public abstract class Application implements IExitable {
 		return ticksPassed;
 	}
 	
+	/**
+	 * Returns the profiler used for recording the duration of each phase in
+	 * the main loop. The profiler is enabled by default, and can be disabled
+	 * using {@link FrameProfiler#setEnabled(boolean)}. The recorded durations
+	 * can be queried as follows:
+	 * <pre>
+	 *   Histogram h = getProfiler().getHistogram(ProfilerPhase.RENDER);
+	 *   long p99Ns = h.getPercentile(99.0);
+	 * </pre>
+	 * 
+	 * @return The profiler of the main loop.
+	 * 
+	 * @see com.g4mesoft.profile.ProfilerPhase ProfilerPhase
+	 */
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+	
+	/**
+	 * Returns the report of the time spent initializing each subsystem of the
+	 * application, and the time until the first frame was drawn. If the
+	 * application is in debug mode, the report is printed when the first
+	 * frame has been drawn.
+	 * 
+	 * @return The startup report of the application.
+	 * 
+	 * @see #initAsync(String, Callable)
+	 */
+	public StartupReport getStartupReport() {
+		return startupReport;
+	}
+	
+	/**
+	 * Returns the monitor used for recording the bytes allocated per tick and
+	 * frame, and the garbage collection pauses which occur while the main
+	 * loop is running. The monitor is disabled by default, and can be enabled
+	 * as follows:
+	 * <pre>
+	 *   getAllocationMonitor().setEnabled(true);
+	 * </pre>
+	 * 
+	 * @return The allocation monitor of the main loop.
+	 * 
+	 * @see com.g4mesoft.profile.AllocationMonitor AllocationMonitor
+	 */
+	public AllocationMonitor getAllocationMonitor() {
+		return allocationMonitor;
+	}
+	
+	/**
+	 * Returns the scheduler used for running delayed and periodic tasks. The
+	 * scheduler is updated at the beginning of every tick, right before the
+	 * {@link #tick()} function is invoked. The following shows an example of
+	 * scheduling a periodic task, and a task which cancels it:
+	 * <pre>
+	 *   ScheduledTask blink = getScheduler().scheduleRepeating(player::blink, 10, 10);
+	 *   getScheduler().schedule(blink::cancel, 100);
+	 * </pre>
+	 * <b>NOTE:</b><i> the scheduler should only be used from the thread which
+	 * is ticking the application.</i>
+	 * 
+	 * @return The tick scheduler of the application.
+	 * 
+	 * @see com.g4mesoft.schedule.TickScheduler TickScheduler
+	 */
+	public TickScheduler getScheduler() {
+		return scheduler;
+	}
+	
+	/**
+	 * Returns the job system shared by the engine and the game code. Jobs
+	 * submitted during a tick are awaited at the end of the tick, right
+	 * after {@link #tick()} has been invoked. Parallel loops can be performed
+	 * at any time, and return when the entire loop has completed. The job
+	 * system is created on first use.
+	 * 
+	 * @return The job system of the application.
+	 * 
+	 * @see com.g4mesoft.job.JobSystem JobSystem
+	 */
+	public JobSystem getJobSystem() {
+		if (jobSystem == null) {
+			synchronized (this) {
+				if (jobSystem == null)
+					jobSystem = new JobSystem();
+			}
+		}
+		
+		return jobSystem;
+	}
+	
+	/**
+	 * Returns the loader used for loading assets asynchronously. The I/O and
+	 * decoding of the assets is performed on a pool of worker threads, and
+	 * the requests are completed at the beginning of every tick, before the
+	 * scheduled tasks are run and {@link #tick()} is invoked. The asset loader
+	 * is created on first use.
+	 * 
+	 * @return The asset loader of the application.
+	 * 
+	 * @see com.g4mesoft.asset.AssetLoader AssetLoader
+	 */
+	public AssetLoader getAssetLoader() {
+		if (assetLoader == null) {
+			synchronized (this) {
+				if (assetLoader == null)
+					assetLoader = new AssetLoader();
+			}
+		}
+		
+		return assetLoader;
+	}
+	
+	/**
+	 * @return The strategy used for waiting between frames.
+	 * 
+	 * @see #setFramePacer(IFramePacer)
+	 */
+	public IFramePacer getFramePacer() {
+		return timer.getFramePacer();
+	}
+	
+	/**
+	 * @return True, if the ticks are performed on a separate thread from the
+	 *         rendering, false otherwise.
+	 * 
+	 * @see #setThreadedTicking(boolean)
+	 */
+	public boolean isThreadedTicking() {
+		return threadedTicking;
+	}
+	
 // Setter functions //
 	
 	/**
@@ -599,6 +1210,107 @@ public abstract class Application implements IExitable {
 		this.minimumFps = minimumFps;
 	}
 	
+	/**
+	 * Sets the renderer used for drawing frames, when the application is
+	 * headless. By default a headless application does not draw any frames.
+	 * If an offscreen renderer is set, the {@link #render(IRenderer2D, float)}
+	 * function will be invoked with the given renderer, exactly as if it was
+	 * the renderer of a display. A renderer, which draws to a plain pixel
+	 * buffer, is the {@link com.g4mesoft.graphic.OffscreenRenderer2D
+	 * OffscreenRenderer2D}. If the application is not headless, the renderer
+	 * is ignored.
+	 * 
+	 * @param offscreenRenderer - The renderer used for drawing frames, or null
+	 *                            if no frames should be drawn.
+	 * 
+	 * @see com.g4mesoft.graphic.OffscreenRenderer2D
+	 */
+	public void setOffscreenRenderer(IRenderer2D offscreenRenderer) {
+		this.offscreenRenderer = offscreenRenderer;
+	}
+	
+	/**
+	 * Sets whether the ticks should be performed as fast as possible, rather
+	 * than at the fixed tps of the application. When enabled, the main loop
+	 * will never sleep, and a single frame is drawn after every tick with a
+	 * dt of zero. This is useful for measuring the throughput of the ticks,
+	 * for example in a headless benchmark or soak test.
+	 * 
+	 * @param unlimitedTickRate - True, if ticks should be performed as fast as
+	 *                            possible, false otherwise.
+	 * 
+	 * @see #startHeadless(String[], Class)
+	 */
+	public void setUnlimitedTickRate(boolean unlimitedTickRate) {
+		this.unlimitedTickRate = unlimitedTickRate;
+	}
+	
+	/**
+	 * Sets the policy describing how the application should catch up, when it
+	 * has fallen behind the desired ticks per second. By default, the entire
+	 * backlog of ticks is performed before the next frame is rendered, and
+	 * the backlog is dropped if it is more than five seconds behind. Using
+	 * the {@link CatchUpPolicy#SMOOTH_CATCH_UP_POLICY} will instead spread the
+	 * backlog over several frames, and slightly slow down simulation time
+	 * while far behind, which keeps the rendering responsive.
+	 * 
+	 * @param catchUpPolicy - The new catch-up policy
+	 * 
+	 * @see CatchUpPolicy
+	 */
+	public void setCatchUpPolicy(CatchUpPolicy catchUpPolicy) {
+		timer.setCatchUpPolicy(catchUpPolicy);
+	}
+	
+	/**
+	 * Sets the strategy used for waiting between frames, and between ticks if
+	 * threaded ticking is enabled. The default strategy is a hybrid of sleeping
+	 * and yielding, which calibrates the overshoot of the operating system
+	 * sleep at runtime. If the application is mostly idle, a low-power pacer
+	 * such as the {@link com.g4mesoft.pacing.SleepFramePacer SleepFramePacer}
+	 * might be preferred.
+	 * 
+	 * @param framePacer - The new frame pacer
+	 * 
+	 * @see com.g4mesoft.Timer#setFramePacer(IFramePacer)
+	 */
+	public void setFramePacer(IFramePacer framePacer) {
+		timer.setFramePacer(framePacer);
+	}
+	
+	/**
+	 * Sets whether the ticks should be performed on a separate thread from the
+	 * rendering. When enabled, the {@link #tick()} function is invoked by a
+	 * dedicated ticking thread with a fixed time-step, while the main thread
+	 * is only in charge of rendering. This ensures that a slow frame will not
+	 * delay the ticks, and vice versa.
+	 * <br><br>
+	 * Since {@link #tick()} and {@link #render(IRenderer2D, float)} are
+	 * invoked concurrently, the state used by the rendering should be
+	 * published by the ticking thread, for example by using a
+	 * {@link com.g4mesoft.util.TripleBuffer TripleBuffer}. The dt constant
+	 * supplied to the render function will be relative to the latest tick
+	 * that has been published by the ticking thread.
+	 * <br><br>
+	 * <b>NOTE:</b><i> this function has to be invoked before the main loop
+	 * has started, i.e. during {@link #init()}. The root composition is
+	 * updated by the ticking thread and rendered by the main thread, and must
+	 * therefore be handled with care, when threaded ticking is enabled.</i>
+	 * 
+	 * @param threadedTicking - True, if ticks should be performed on a
+	 *                          separate thread, false otherwise.
+	 * 
+	 * @throws IllegalStateException if the main loop has already started.
+	 * 
+	 * @see com.g4mesoft.util.TripleBuffer
+	 */
+	public void setThreadedTicking(boolean threadedTicking) {
+		if (loopStarted)
+			throw new IllegalStateException("Main loop has already started!");
+		
+		this.threadedTicking = threadedTicking;
+	}
+	
 	/**
 	 * Sets the debugging state of the timer. Setting debug to false will
 	 * disable tps and fps logging.
@@ -800,6 +1512,45 @@ public abstract class Application implements IExitable {
 	 *                                new instance of the application.
 	 */
 	public static void start(String[] args, Class<? extends Application> appClazz) throws NoSuchMethodException, InstantiationException {
+		Application app = createApplication(appClazz);
+		
+		// There is no way of creating a display, if
+		// the graphics environment is headless.
+		app.headless = GraphicsEnvironment.isHeadless();
+		
+		app.start();
+	}
+
+	/**
+	 * Constructs and starts the given application class in headless mode. A
+	 * headless application does not initialize a display or any user input,
+	 * and is therefore able to run on systems without a graphics environment,
+	 * such as a dedicated server or an automated test. Frames will only be
+	 * drawn if an offscreen renderer is set using the function
+	 * {@link #setOffscreenRenderer(IRenderer2D)}.
+	 * <br><br>
+	 * <b>NOTE:</b><i>The provided Application class implementation must contain
+	 * a public empty default constructor. See {@link #start(String[], Class)}
+	 * for more information.</i>
+	 * 
+	 * @param args - The JVM arguments parsed from the main method.
+	 * @param appClazz - The class of the application to be started.
+	 * 
+	 * @throws NoSuchMethodException If the default empty constructor was not
+	 *                               found or is unavailable.
+	 * @throws InstantiationException If the method was unable to construct a
+	 *                                new instance of the application.
+	 *                                
+	 * @see #start(String[], Class)
+	 * @see #setUnlimitedTickRate(boolean)
+	 */
+	public static void startHeadless(String[] args, Class<? extends Application> appClazz) throws NoSuchMethodException, InstantiationException {
+		Application app = createApplication(appClazz);
+		app.headless = true;
+		app.start();
+	}
+	
+	private static Application createApplication(Class<? extends Application> appClazz) throws NoSuchMethodException, InstantiationException {
 		Constructor<?> defaultConstructor = null;
 		try {
 			defaultConstructor = appClazz.getDeclaredConstructor(new Class<?>[0]);
@@ -821,6 +1572,9 @@ public abstract class Application implements IExitable {
 			e.printStackTrace();
 		}
 		
-		app.start();
+		if (app == null)
+			throw new InstantiationException("Unable to construct application");
+		
+		return app;
 	}
 }
@@ -0,0 +1,113 @@
+package com.g4mesoft;
+
+/**
+ * Describes how the main loop should catch up, when the application has
+ * fallen behind the desired ticks per second. Such a backlog of ticks can be
+ * caused by a garbage collection pause, a slow frame or a heavily loaded
+ * system. The policy controls the following:
+ * <ul>
+ * <li>The maximum amount of ticks performed between two frames.</li>
+ * <li>The amount of frames over which a backlog of ticks is spread.</li>
+ * <li>How far behind the application can be, before the backlog is
+ *     dropped entirely.</li>
+ * <li>How far behind the application can be, before simulation time is
+ *     slowed down, and by how much.</li>
+ * </ul>
+ * The {@link #DEFAULT_CATCH_UP_POLICY} performs the entire backlog before
+ * rendering the next frame, and drops the backlog if it is more than five
+ * seconds behind. The {@link #SMOOTH_CATCH_UP_POLICY} instead spreads the
+ * backlog over several frames, which keeps rendering responsive while still
+ * converging on the correct simulation time.
+ * 
+ * @see com.g4mesoft.Application#setCatchUpPolicy(CatchUpPolicy)
+ */
+public final class CatchUpPolicy {
+
+	public static final int UNLIMITED_TICKS_PER_FRAME = 0;
+	public static final float NO_SLOWDOWN = 0.0f;
+	
+	public static final int DEFAULT_MAX_TICKS_PER_FRAME = UNLIMITED_TICKS_PER_FRAME;
+	public static final int DEFAULT_CATCH_UP_FRAMES = 1;
+	public static final float DEFAULT_MAX_SECONDS_BEHIND = 5.0f;
+	public static final float DEFAULT_SLOWDOWN_SECONDS_BEHIND = NO_SLOWDOWN;
+	public static final float DEFAULT_SLOWDOWN_TIME_SCALE = 1.0f;
+	
+	public static final CatchUpPolicy DEFAULT_CATCH_UP_POLICY = new CatchUpPolicy(
+			DEFAULT_MAX_TICKS_PER_FRAME,
+			DEFAULT_CATCH_UP_FRAMES,
+			DEFAULT_MAX_SECONDS_BEHIND,
+			DEFAULT_SLOWDOWN_SECONDS_BEHIND,
+			DEFAULT_SLOWDOWN_TIME_SCALE
+	);
+
+	public static final CatchUpPolicy SMOOTH_CATCH_UP_POLICY = new CatchUpPolicy(
+			4,
+			8,
+			DEFAULT_MAX_SECONDS_BEHIND,
+			1.0f,
+			0.75f
+	);
+	
+	/* The maximum ticks between two frames, or zero if unlimited */
+	public final int maxTicksPerFrame;
+	/* The number of frames over which the backlog is spread */
+	public final int catchUpFrames;
+	/* The backlog, in seconds, at which ticks are dropped */
+	public final float maxSecondsBehind;
+	/* The backlog, in seconds, at which time is slowed, or zero */
+	public final float slowdownSecondsBehind;
+	/* The scale of simulation time, when it has been slowed */
+	public final float slowdownTimeScale;
+
+	public CatchUpPolicy(int maxTicksPerFrame, int catchUpFrames, float maxSecondsBehind,
+	                     float slowdownSecondsBehind, float slowdownTimeScale) {
+		
+		if (maxTicksPerFrame < 0)
+			throw new IllegalArgumentException("maxTicksPerFrame < 0");
+		if (catchUpFrames <= 0)
+			throw new IllegalArgumentException("catchUpFrames <= 0");
+		if (maxSecondsBehind <= 0.0f)
+			throw new IllegalArgumentException("maxSecondsBehind <= 0.0");
+		if (slowdownSecondsBehind < 0.0f)
+			throw new IllegalArgumentException("slowdownSecondsBehind < 0.0");
+		if (slowdownTimeScale <= 0.0f || slowdownTimeScale > 1.0f)
+			throw new IllegalArgumentException("slowdownTimeScale must be in the range (0.0, 1.0]");
+		
+		this.maxTicksPerFrame = maxTicksPerFrame;
+		this.catchUpFrames = catchUpFrames;
+		this.maxSecondsBehind = maxSecondsBehind;
+		this.slowdownSecondsBehind = slowdownSecondsBehind;
+		this.slowdownTimeScale = slowdownTimeScale;
+	}
+	
+	/**
+	 * Computes the amount of ticks that should be performed before the next
+	 * frame, given the amount of missing ticks.
+	 * 
+	 * @param missingTicks - the amount of ticks the application is behind
+	 * 
+	 * @return The amount of ticks to perform before the next frame.
+	 */
+	public int getTicksToPerform(int missingTicks) {
+		int ticks = missingTicks;
+		
+		if (catchUpFrames > 1 && ticks > 1) {
+			// Spread the backlog over the next frames,
+			// but make sure we always make progress.
+			ticks = (ticks + catchUpFrames - 1) / catchUpFrames;
+		}
+		
+		if (maxTicksPerFrame != UNLIMITED_TICKS_PER_FRAME && ticks > maxTicksPerFrame)
+			ticks = maxTicksPerFrame;
+		
+		return ticks;
+	}
+	
+	/**
+	 * @return True, if simulation time should be slowed down, when the
+	 *         application is far enough behind, false otherwise.
+	 */
+	public boolean isSlowdownEnabled() {
+		return slowdownSecondsBehind != NO_SLOWDOWN && slowdownTimeScale < 1.0f;
+	}
+}
@@ -1,17 +1,18 @@
 package com.g4mesoft;
 
 import com.g4mesoft.math.MathUtils;
+import com.g4mesoft.pacing.HybridFramePacer;
+import com.g4mesoft.pacing.IFramePacer;
 
 public class Timer {
 
 	private static final long NS_PER_SEC = 1000000000L;
 	private static final long MS_PER_SEC = 1000L;
-	private static final long NS_PER_MS = NS_PER_SEC / MS_PER_SEC;
 	
 	private final Application application;
 	
 	private double tps;
-	private double nsPerTick;
+	private volatile double nsPerTick;
 
 	private long lastNs;
 	private double dt;
@@ -19,22 +20,55 @@ public class Timer {
 	private long lastMs;
 	private int missingTicks;
 	
+	/*
+	 * The amount of ticks that have not yet been
+	 * performed, including the fraction of the next
+	 * tick that has passed.
+	 */
+	private double tickDebt;
+	private long droppedTicks;
+	private CatchUpPolicy catchUpPolicy;
+
+	/*
+	 * The time at which the latest tick, that has been
+	 * published to the rendering thread, was scheduled.
+	 * Only used when the ticks are performed on another
+	 * thread than the rendering.
+	 */
+	private volatile long publishedTickNs;
+	
 	private TickCounter tpsCounter;
 	private TickCounter fpsCounter;
 	
+	private IFramePacer framePacer;
+	/*
+	 * A copy of the frame pacer, used by the ticking thread
+	 * when ticks are performed on another thread than the
+	 * rendering. The pacers are not thread-safe.
+	 */
+	private volatile IFramePacer tickPacer;
+	
 	public Timer(Application application, double tps) {
 		this.application = application;
 		
 		tpsCounter = new TickCounter();
 		fpsCounter = new TickCounter();
 
+		framePacer = new HybridFramePacer();
+		tickPacer = framePacer.copy();
+		catchUpPolicy = CatchUpPolicy.DEFAULT_CATCH_UP_POLICY;
+
 		setTps(tps);
 	}
 	
 	public void initTimer() {
 		lastNs = System.nanoTime();
 		lastMs = System.currentTimeMillis();
-		dt = 1.0; // init to 1 tick on startup
+		dt = 0.0;
+		tickDebt = 1.0; // init to 1 tick on startup
+		droppedTicks = 0L;
+		
+		publishedTickNs = lastNs;
 	}
 
 	public void update() {
@@ -42,14 +76,53 @@ public class Timer {
 		long deltaNs = nowNs - lastNs;
 		lastNs = nowNs;
 		
-		dt += deltaNs / nsPerTick;
-		missingTicks = (int)dt;
-		dt -= missingTicks;
+		double deltaTicks = deltaNs / nsPerTick;
+		if (catchUpPolicy.isSlowdownEnabled() && tickDebt >= catchUpPolicy.slowdownSecondsBehind * tps)
+			deltaTicks *= catchUpPolicy.slowdownTimeScale;
+		tickDebt += deltaTicks;
+		
+		missingTicks = (int)tickDebt;
+		if (missingTicks > catchUpPolicy.maxSecondsBehind * tps) {
+			if (application.isDebug()) {
+				System.out.println("Application is running slow. Skipping " + 
+						missingTicks + " ticks");
+			}
+			
+			dropTicks();
+		}
+
+		dt = tickDebt - missingTicks;
 		
 		if (application.isDebug())
 			printDebugInfo();
 	}
 	
+	/**
+	 * Drops the backlog of missing ticks. Only the fraction of the next tick
+	 * that has already passed is kept.
+	 * 
+	 * @return The amount of ticks that were dropped.
+	 */
+	public int dropTicks() {
+		int ticks = (int)tickDebt;
+		
+		tickDebt -= ticks;
+		droppedTicks += ticks;
+		missingTicks = 0;
+		
+		return ticks;
+	}
+	
+	/**
+	 * Resets the tick debt to zero. This is used when ticks are performed
+	 * without regard to the tps of the timer.
+	 */
+	public void resetTickDebt() {
+		tickDebt = 0.0;
+		missingTicks = 0;
+		dt = 0.0;
+	}
+	
 	private void printDebugInfo() {
 		long nowMs = System.currentTimeMillis();
 		if (nowMs - lastMs >= MS_PER_SEC) {
@@ -75,9 +148,65 @@ public class Timer {
 	public int getMissingTicks() {
 		return missingTicks;
 	}
+	
+	/**
+	 * @return The amount of ticks that should be performed before the next
+	 *         frame, as given by the catch-up policy of this timer.
+	 * 
+	 * @see CatchUpPolicy#getTicksToPerform(int)
+	 */
+	public int getTicksToPerform() {
+		return catchUpPolicy.getTicksToPerform(missingTicks);
+	}
+	
+	/**
+	 * @return The amount of ticks that have not yet been performed, including
+	 *         the fraction of the next tick that has already passed.
+	 */
+	public double getTickDebt() {
+		return tickDebt;
+	}
+	
+	/**
+	 * @return The total amount of ticks that have been dropped, because the
+	 *         application was running too far behind.
+	 */
+	public long getDroppedTicks() {
+		return droppedTicks;
+	}
+
+	/**
+	 * Publishes the time of the latest performed tick, such that a rendering
+	 * thread is able to interpolate between the latest two ticks using the
+	 * {@link #getInterpolatedDeltaTick()} function. This should be invoked by
+	 * the ticking thread when all the missing ticks have been performed.
+	 */
+	public void publishTicks() {
+		publishedTickNs = lastNs - (long)(tickDebt * nsPerTick);
+	}
+	
+	/**
+	 * Computes the delta tick relative to the latest published tick. Unlike
+	 * {@link #getDeltaTick()} this function is safe to invoke from a thread
+	 * which is not the ticking thread.
+	 * 
+	 * @return The amount of ticks passed since the latest published tick,
+	 *         clamped to the range 0.0 - 1.0.
+	 * 
+	 * @see #publishTicks()
+	 */
+	public double getInterpolatedDeltaTick() {
+		double deltaTick = (System.nanoTime() - publishedTickNs) / nsPerTick;
+		return MathUtils.clamp(deltaTick, 0.0, 1.0);
+	}
 
 	public void tickPassed() {
 		tpsCounter.tickPassed();
+		
+		if (missingTicks > 0) {
+			tickDebt -= 1.0;
+			missingTicks--;
+		}
 	}
 	
 	public void framePassed() {
@@ -85,21 +214,83 @@ public class Timer {
 	}
 
 	public void sleep(double minFps) {
-		long nsToSleep = MathUtils.min((long)((1.0 - dt) * NS_PER_SEC / tps), 
+		long nsToSleep = MathUtils.min((long)((1.0 - tickDebt) * NS_PER_SEC / tps), 
 		                               (long)(NS_PER_SEC / minFps));
 		
-		nsToSleep -= System.nanoTime() - lastNs;
+		framePacer.sleepUntil(lastNs + nsToSleep);
+	}
+
+	/**
+	 * Sleeps until the next tick is scheduled. This is used by the ticking
+	 * thread, when ticks are performed on a separate thread.
+	 */
+	public void sleepUntilNextTick() {
+		long nsToSleep = (long)((1.0 - tickDebt) * nsPerTick);
 		
-		if (nsToSleep > 0) {
-			long msToSleep = nsToSleep / NS_PER_MS;
-			nsToSleep %= NS_PER_MS;
-			
-			try {
-				Thread.sleep(msToSleep, (int)nsToSleep);
-			} catch(InterruptedException e) {
-				e.printStackTrace();
-			}
+		tickPacer.sleepUntil(lastNs + nsToSleep);
+	}
+	
+	/**
+	 * Sleeps until either the next published tick is scheduled or the frame,
+	 * which started at the given time, has lasted for the duration given by
+	 * the minimum fps. This is used by the rendering thread, when ticks are
+	 * performed on a separate thread.
+	 * 
+	 * @param minFps - the minimum frames per second
+	 * @param frameStartNs - the time at which the current frame started
+	 */
+	public void sleepFrame(double minFps, long frameStartNs) {
+		long nextTickNs = publishedTickNs + (long)nsPerTick;
+		long nextFrameNs = frameStartNs + (long)(NS_PER_SEC / minFps);
+
+		if (nextTickNs - System.nanoTime() <= 0L) {
+			// The next tick has not been published yet,
+			// so there is no reason to wait for it.
+			nextTickNs = nextFrameNs;
 		}
+		
+		framePacer.sleepUntil(MathUtils.min(nextTickNs, nextFrameNs));
+	}
+	
+	/**
+	 * Sets the strategy used for waiting between frames and ticks. The
+	 * default frame pacer is a {@link HybridFramePacer}, which calibrates
+	 * the overshoot of the operating system sleep at runtime. When ticks are
+	 * performed on a separate thread, the ticking thread waits using its own
+	 * {@link IFramePacer#copy() copy} of the given frame pacer.
+	 * 
+	 * @param framePacer - the new frame pacer
+	 * 
+	 * @see com.g4mesoft.pacing.SleepFramePacer SleepFramePacer
+	 * @see com.g4mesoft.pacing.BusyWaitFramePacer BusyWaitFramePacer
+	 */
+	public void setFramePacer(IFramePacer framePacer) {
+		if (framePacer == null)
+			throw new NullPointerException("framePacer is null!");
+		
+		this.framePacer = framePacer;
+		tickPacer = framePacer.copy();
+	}
+	
+	public IFramePacer getFramePacer() {
+		return framePacer;
+	}
+
+	/**
+	 * Sets the policy describing how the timer should catch up, when it has
+	 * fallen behind the desired ticks per second.
+	 * 
+	 * @param catchUpPolicy - the new catch-up policy
+	 */
+	public void setCatchUpPolicy(CatchUpPolicy catchUpPolicy) {
+		if (catchUpPolicy == null)
+			throw new NullPointerException("catchUpPolicy is null!");
+		
+		this.catchUpPolicy = catchUpPolicy;
+	}
+	
+	public CatchUpPolicy getCatchUpPolicy() {
+		return catchUpPolicy;
 	}
 
 	public void setTps(double tps) {
@@ -119,7 +310,11 @@ public class Timer {
 		
 		private int ticksLastCycle;
 		
-		private int ticks;
+		/*
+		 * Only ever incremented by a single thread,
+		 * but might be cycled by another.
+		 */
+		private volatile int ticks;
 
 		public void tickPassed() {
 			ticks++;
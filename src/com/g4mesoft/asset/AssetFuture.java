@@ -0,0 +1,210 @@
+package com.g4mesoft.asset;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A handle to an asset request made through an {@link AssetLoader}. The
+ * asset is loaded on one of the worker threads of the loader, after which it
+ * is completed on the thread updating the loader. Only when the request has
+ * been completed, will the asset be available through {@link #getAsset()},
+ * and the listener of the request be notified.
+ * 
+ * @param <T> - The type of the loaded asset
+ * 
+ * @see AssetLoader#load(IAssetTask, AssetPriority, IAssetListener)
+ */
+public final class AssetFuture<T> implements Runnable, Comparable<AssetFuture<?>> {
+
+	private static final int STATE_PENDING = 0;
+	private static final int STATE_LOADING = 1;
+	private static final int STATE_LOADED = 2;
+	/* Set while completing, such that it can no longer be cancelled */
+	private static final int STATE_COMPLETING = 3;
+	private static final int STATE_COMPLETED = 4;
+	private static final int STATE_FAILED = 5;
+	private static final int STATE_CANCELLED = 6;
+	
+	private final AssetLoader loader;
+	private final IAssetTask<?> task;
+	private final AssetLoader.IAssetCompleter<Object, T> completer;
+	private final AssetLoader.IAssetDiscarder<Object> discarder;
+	private final AssetPriority priority;
+	private final long sequence;
+	private final IAssetListener<? super T> listener;
+	
+	private final AtomicInteger state;
+	
+	/* Written by the worker, read when completing */
+	private volatile Object loadedData;
+	private volatile T asset;
+	private volatile Throwable error;
+	
+	@SuppressWarnings("unchecked")
+	<D> AssetFuture(AssetLoader loader, IAssetTask<D> task, AssetLoader.IAssetCompleter<D, T> completer,
+			AssetLoader.IAssetDiscarder<D> discarder, AssetPriority priority, long sequence,
+			IAssetListener<? super T> listener) {
+		
+		this.loader = loader;
+		this.task = task;
+		this.completer = (AssetLoader.IAssetCompleter<Object, T>)completer;
+		this.discarder = (AssetLoader.IAssetDiscarder<Object>)discarder;
+		this.priority = priority;
+		this.sequence = sequence;
+		this.listener = listener;
+		
+		state = new AtomicInteger(STATE_PENDING);
+	}
+	
+	/**
+	 * Loads the asset. This is invoked by the worker threads of the loader,
+	 * and should not be invoked directly.
+	 */
+	@Override
+	public void run() {
+		if (!state.compareAndSet(STATE_PENDING, STATE_LOADING))
+			return;
+		
+		Object data = null;
+		try {
+			data = task.load();
+		} catch (Throwable t) {
+			error = t;
+		}
+		
+		loadedData = data;
+
+		if (state.compareAndSet(STATE_LOADING, STATE_LOADED)) {
+			loader.requestLoaded(this);
+		} else {
+			// The request was cancelled while loading.
+			discard(data);
+		}
+	}
+	
+	private void discard(Object data) {
+		loadedData = null;
+
+		if (discarder != null && data != null)
+			discarder.discard(data);
+	}
+	
+	/**
+	 * Completes the request on the thread updating the loader, and notifies
+	 * the listener of the result.
+	 */
+	void complete() {
+		Object data = loadedData;
+		loadedData = null;
+		
+		if (!state.compareAndSet(STATE_LOADED, STATE_COMPLETING)) {
+			discard(data);
+			return;
+		}
+		
+		if (error == null) {
+			try {
+				asset = completer.complete(data);
+			} catch (Throwable t) {
+				error = t;
+			}
+		}
+		
+		// The final state is only published once the
+		// asset, or the error, is available to readers.
+		state.set((error != null) ? STATE_FAILED : STATE_COMPLETED);
+		
+		if (error != null) {
+			if (listener != null) {
+				listener.assetFailed(error);
+			} else {
+				loader.requestFailed(error);
+			}
+		} else if (listener != null) {
+			listener.assetLoaded(asset);
+		}
+	}
+	
+	/**
+	 * Cancels the request. If the asset has not yet started loading, it will
+	 * be removed from the queue of the loader. If it is currently loading, the
+	 * result will be discarded. The listener of a cancelled request is never
+	 * notified.
+	 * 
+	 * @return True, if the request was cancelled, false if it had already
+	 *         been completed, failed, or been cancelled.
+	 */
+	public boolean cancel() {
+		int prevState;
+		do {
+			prevState = state.get();
+			if (prevState != STATE_PENDING && prevState != STATE_LOADING && prevState != STATE_LOADED)
+				return false;
+		} while (!state.compareAndSet(prevState, STATE_CANCELLED));
+		
+		if (prevState == STATE_PENDING)
+			loader.requestCancelled(this);
+		
+		return true;
+	}
+	
+	/**
+	 * @return True, if the request has been completed, has failed or has been
+	 *         cancelled, false otherwise.
+	 */
+	public boolean isDone() {
+		return state.get() >= STATE_COMPLETED;
+	}
+	
+	/**
+	 * @return True, if the asset has been loaded and completed successfully.
+	 */
+	public boolean isCompleted() {
+		return state.get() == STATE_COMPLETED;
+	}
+
+	/**
+	 * @return True, if the request failed with an error.
+	 * 
+	 * @see #getError()
+	 */
+	public boolean isFailed() {
+		return state.get() == STATE_FAILED;
+	}
+	
+	/**
+	 * @return True, if the request was cancelled.
+	 */
+	public boolean isCancelled() {
+		return state.get() == STATE_CANCELLED;
+	}
+	
+	/**
+	 * @return The loaded asset, or null if the request has not completed.
+	 */
+	public T getAsset() {
+		return isCompleted() ? asset : null;
+	}
+	
+	/**
+	 * @return The error which caused the request to fail, or null if the
+	 *         request has not failed.
+	 */
+	public Throwable getError() {
+		return isFailed() ? error : null;
+	}
+	
+	/**
+	 * @return The priority of the request
+	 */
+	public AssetPriority getPriority() {
+		return priority;
+	}
+	
+	@Override
+	public int compareTo(AssetFuture<?> other) {
+		int cmp = priority.compareTo(other.priority);
+		if (cmp != 0)
+			return cmp;
+		return Long.compare(sequence, other.sequence);
+	}
+}
@@ -0,0 +1,337 @@
+package com.g4mesoft.asset;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import com.g4mesoft.Application;
+import com.g4mesoft.graphics3d.Texture3D;
+import com.g4mesoft.math.MathUtils;
+import com.g4mesoft.sound.SoundManager;
+import com.g4mesoft.sound.format.AudioFile;
+import com.g4mesoft.util.FileUtil;
+
+/**
+ * A loader performing the I/O and decoding of assets on a bounded pool of
+ * worker threads. When an asset has been loaded, the request is completed
+ * on the thread invoking {@link #update()}, which for the asset loader of
+ * the application is done at the beginning of every tick. Any work which is
+ * not thread-safe, such as registering a sound with the sound manager, is
+ * performed while completing the request.
+ * <br><br>
+ * The following shows an example of loading a texture:
+ * <pre>
+ *   getAssetLoader().loadTexture("/textures/grass.png", true, texture -> {
+ *       grassTexture = texture;
+ *   });
+ * </pre>
+ * Requests are loaded in the order of their {@link AssetPriority}, and can be
+ * cancelled using the returned {@link AssetFuture}.
+ * 
+ * @see com.g4mesoft.Application#getAssetLoader()
+ */
+public class AssetLoader {
+
+	private static final int MAX_DEFAULT_THREADS = 4;
+	private static final long KEEP_ALIVE_MILLIS = 5000L;
+	
+	private final ThreadPoolExecutor executor;
+	private final Queue<AssetFuture<?>> loadedRequests;
+	
+	private long nextSequence;
+	
+	public AssetLoader() {
+		this(getDefaultThreadCount());
+	}
+
+	public AssetLoader(int numThreads) {
+		if (numThreads <= 0)
+			throw new IllegalArgumentException("numThreads <= 0");
+		
+		executor = new ThreadPoolExecutor(numThreads, numThreads, KEEP_ALIVE_MILLIS, 
+				TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), new AssetThreadFactory());
+		// Do not keep idle workers alive.
+		executor.allowCoreThreadTimeOut(true);
+		// While the pool has fewer threads than its core size, new
+		// threads run the submitted task directly, bypassing the
+		// priority queue. All threads are therefore started upfront.
+		executor.prestartAllCoreThreads();
+		
+		loadedRequests = new ConcurrentLinkedQueue<AssetFuture<?>>();
+		
+		nextSequence = 0L;
+	}
+	
+	private static int getDefaultThreadCount() {
+		// Leave a processor for the tick and render threads.
+		int processors = Runtime.getRuntime().availableProcessors();
+		return MathUtils.clamp(processors - 1, 1, MAX_DEFAULT_THREADS);
+	}
+	
+	/**
+	 * Requests an asset to be loaded by the given task with normal priority.
+	 * 
+	 * @param task - the task loading the asset
+	 * @param listener - the listener notified when the request has completed,
+	 *                   or null
+	 * 
+	 * @return A handle to the asset request
+	 */
+	public <T> AssetFuture<T> load(IAssetTask<T> task, IAssetListener<? super T> listener) {
+		return load(task, AssetPriority.NORMAL, listener);
+	}
+
+	/**
+	 * Requests an asset to be loaded by the given task. The task is invoked on
+	 * one of the worker threads, and the listener on the thread updating this
+	 * loader.
+	 * 
+	 * @param task - the task loading the asset
+	 * @param priority - the priority of the request
+	 * @param listener - the listener notified when the request has completed,
+	 *                   or null
+	 * 
+	 * @return A handle to the asset request
+	 */
+	public <T> AssetFuture<T> load(IAssetTask<T> task, AssetPriority priority, IAssetListener<? super T> listener) {
+		return submit(task, data -> data, null, priority, listener);
+	}
+	
+	private <D, T> AssetFuture<T> submit(IAssetTask<D> task, IAssetCompleter<D, T> completer, 
+			IAssetDiscarder<D> discarder, AssetPriority priority, IAssetListener<? super T> listener) {
+		
+		if (task == null)
+			throw new NullPointerException("task is null!");
+		if (priority == null)
+			throw new NullPointerException("priority is null!");
+
+		AssetFuture<T> future = new AssetFuture<T>(this, task, completer, discarder, priority, nextSequence++, listener);
+		// Restart the workers, which have timed out, such
+		// that the request goes through the priority queue.
+		executor.prestartAllCoreThreads();
+		executor.execute(future);
+		return future;
+	}
+	
+	/**
+	 * Requests a sound to be loaded. The sound is decoded on a worker thread,
+	 * using the audio file providers of the sound manager, and registered with
+	 * the sound manager when the request is completed. The asset of the
+	 * request is the id of the sound.
+	 * 
+	 * @param filename - the name of the sound file
+	 * @param internal - whether the file is a resource of the application
+	 * @param priority - the priority of the request
+	 * @param listener - the listener notified when the request has completed,
+	 *                   or null
+	 * 
+	 * @return A handle to the asset request
+	 * 
+	 * @see com.g4mesoft.sound.SoundManager#decodeSound(InputStream)
+	 */
+	public AssetFuture<Integer> loadSound(String filename, boolean internal, AssetPriority priority, 
+			IAssetListener<? super Integer> listener) {
+		
+		SoundManager soundManager = SoundManager.getInstance();
+		
+		IAssetTask<AudioFile> task = () -> {
+			try (InputStream is = openStream(filename, internal)) {
+				return soundManager.decodeSound(is);
+			}
+		};
+		
+		return submit(task, soundManager::registerSound, AudioFile::dispose, priority, listener);
+	}
+
+	public AssetFuture<Integer> loadSound(String filename, boolean internal, IAssetListener<? super Integer> listener) {
+		return loadSound(filename, internal, AssetPriority.NORMAL, listener);
+	}
+	
+	/**
+	 * Requests an image to be loaded as a texture. Both reading the image and
+	 * converting it to a texture is done on a worker thread.
+	 * 
+	 * @param filename - the name of the image file
+	 * @param internal - whether the file is a resource of the application
+	 * @param priority - the priority of the request
+	 * @param listener - the listener notified when the request has completed,
+	 *                   or null
+	 * 
+	 * @return A handle to the asset request
+	 */
+	public AssetFuture<Texture3D> loadTexture(String filename, boolean internal, AssetPriority priority, 
+			IAssetListener<? super Texture3D> listener) {
+
+		return load(() -> {
+			BufferedImage image;
+			try (InputStream is = openStream(filename, internal)) {
+				image = ImageIO.read(is);
+			}
+			
+			if (image == null)
+				throw new IOException("Unsupported image format: " + filename);
+			
+			return new Texture3D(image);
+		}, priority, listener);
+	}
+
+	public AssetFuture<Texture3D> loadTexture(String filename, boolean internal, IAssetListener<? super Texture3D> listener) {
+		return loadTexture(filename, internal, AssetPriority.NORMAL, listener);
+	}
+	
+	/**
+	 * Requests a configuration file to be loaded. The entries are read using
+	 * {@link FileUtil#readConfigFile(java.io.Reader, String)}.
+	 * 
+	 * @param filename - the name of the configuration file
+	 * @param internal - whether the file is a resource of the application
+	 * @param splitter - the splitter between keys and values
+	 * @param priority - the priority of the request
+	 * @param listener - the listener notified when the request has completed,
+	 *                   or null
+	 * 
+	 * @return A handle to the asset request
+	 */
+	public AssetFuture<Map<String, String>> loadConfig(String filename, boolean internal, String splitter,
+			AssetPriority priority, IAssetListener<? super Map<String, String>> listener) {
+
+		return load(() -> {
+			try (InputStream is = openStream(filename, internal)) {
+				return FileUtil.readConfigFile(new InputStreamReader(is), splitter);
+			}
+		}, priority, listener);
+	}
+
+	public AssetFuture<Map<String, String>> loadConfig(String filename, boolean internal, String splitter,
+			IAssetListener<? super Map<String, String>> listener) {
+		
+		return loadConfig(filename, internal, splitter, AssetPriority.NORMAL, listener);
+	}
+	
+	/**
+	 * Requests the raw bytes of a file to be loaded.
+	 * 
+	 * @param filename - the name of the file
+	 * @param internal - whether the file is a resource of the application
+	 * @param priority - the priority of the request
+	 * @param listener - the listener notified when the request has completed,
+	 *                   or null
+	 * 
+	 * @return A handle to the asset request
+	 */
+	public AssetFuture<byte[]> loadBytes(String filename, boolean internal, AssetPriority priority, 
+			IAssetListener<? super byte[]> listener) {
+		
+		return load(() -> FileUtil.readAsBytes(openStream(filename, internal), true), priority, listener);
+	}
+
+	public AssetFuture<byte[]> loadBytes(String filename, boolean internal, IAssetListener<? super byte[]> listener) {
+		return loadBytes(filename, internal, AssetPriority.NORMAL, listener);
+	}
+	
+	private static InputStream openStream(String filename, boolean internal) throws IOException {
+		if (filename == null)
+			throw new NullPointerException("filename is null!");
+		
+		if (internal) {
+			InputStream is = AssetLoader.class.getResourceAsStream(filename);
+			if (is == null)
+				throw new FileNotFoundException("Unable to find resource: " + filename);
+			return is;
+		}
+		
+		return new FileInputStream(new File(filename));
+	}
+	
+	/**
+	 * Completes the requests which have been loaded since the last update, and
+	 * notifies their listeners. This should be invoked regularly by the thread
+	 * owning the loaded assets.
+	 */
+	public void update() {
+		AssetFuture<?> future;
+		while ((future = loadedRequests.poll()) != null)
+			future.complete();
+	}
+	
+	void requestLoaded(AssetFuture<?> future) {
+		loadedRequests.add(future);
+	}
+
+	void requestCancelled(AssetFuture<?> future) {
+		executor.remove(future);
+	}
+
+	void requestFailed(Throwable error) {
+		Application.errorOccurred(error);
+	}
+	
+	/**
+	 * @return The amount of requests which have not yet started loading.
+	 */
+	public int getPendingCount() {
+		return executor.getQueue().size();
+	}
+	
+	/**
+	 * @return The maximum amount of assets loaded simultaneously.
+	 */
+	public int getThreadCount() {
+		return executor.getMaximumPoolSize();
+	}
+	
+	/**
+	 * Stops the worker threads of this loader. Requests which have not yet
+	 * started loading are dropped, and the listeners of requests which are
+	 * currently loading will not be notified.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+		loadedRequests.clear();
+	}
+	
+	/**
+	 * Completes a loaded asset on the thread updating the loader.
+	 */
+	static interface IAssetCompleter<D, T> {
+		
+		public T complete(D data) throws Exception;
+		
+	}
+
+	/**
+	 * Releases the resources of a loaded asset, if the request is cancelled
+	 * before it has been completed.
+	 */
+	static interface IAssetDiscarder<D> {
+		
+		public void discard(D data);
+		
+	}
+	
+	private static class AssetThreadFactory implements ThreadFactory {
+		
+		private final AtomicInteger threadCount = new AtomicInteger();
+		
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "Asset Loader #" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package com.g4mesoft.asset;
+
+/**
+ * The priority of an asset request. Requests with a higher priority are
+ * loaded before requests with a lower priority, and requests with the same
+ * priority are loaded in the order they were made.
+ * 
+ * @see AssetLoader
+ */
+public enum AssetPriority {
+
+	HIGH,
+	NORMAL,
+	LOW;
+	
+}
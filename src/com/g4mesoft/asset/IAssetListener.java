@@ -0,0 +1,31 @@
+package com.g4mesoft.asset;
+
+import com.g4mesoft.Application;
+
+/**
+ * A listener which is notified when an asset request has completed. The
+ * listener is always invoked on the thread updating the {@link AssetLoader},
+ * which for the asset loader of the application is the tick thread.
+ *
+ * @param <T> - The type of the loaded asset
+ */
+public interface IAssetListener<T> {
+
+	/**
+	 * Invoked when the asset has been loaded successfully.
+	 * 
+	 * @param asset - the loaded asset
+	 */
+	public void assetLoaded(T asset);
+
+	/**
+	 * Invoked when loading the asset failed. By default the error is reported
+	 * using {@link Application#errorOccurred(Throwable)}.
+	 * 
+	 * @param error - the error which caused the request to fail
+	 */
+	default public void assetFailed(Throwable error) {
+		Application.errorOccurred(error);
+	}
+	
+}
@@ -0,0 +1,14 @@
+package com.g4mesoft.asset;
+
+/**
+ * A task performing the I/O and decoding of an asset. The task is invoked on
+ * one of the worker threads of an {@link AssetLoader}, and should therefore
+ * not access state owned by the tick or render threads.
+ *
+ * @param <T> - The type of the loaded asset
+ */
+public interface IAssetTask<T> {
+
+	public T load() throws Exception;
+	
+}
@@ -8,6 +8,8 @@ import java.awt.geom.Rectangle2D;
 
 public class DefaultRenderer2D implements IRenderer2D {
 
+	private static final Object TEXT_ANTIALIASING = RenderingHints.VALUE_TEXT_ANTIALIAS_GASP;
+	
 	private static Font defaultFont = null;
 	
 	private final IViewport viewport;
@@ -16,11 +18,15 @@ public class DefaultRenderer2D implements IRenderer2D {
 	private int offsetY;
 	private Graphics g;
 	
+	private final FontMetricsCache metricsCache;
+	
 	public DefaultRenderer2D(IViewport viewport) {
 		this.viewport = viewport;
 	
 		if (defaultFont == null)
 			defaultFont = new Font("Segoe UI Light", Font.PLAIN, 28);
+		
+		metricsCache = FontMetricsCache.getCache(defaultFont, TEXT_ANTIALIASING);
 	}
 	
 	public void clear(GColor color) {
@@ -35,7 +41,7 @@ public class DefaultRenderer2D implements IRenderer2D {
 		g.setFont(defaultFont);
 		((Graphics2D)g).setRenderingHint(
 				RenderingHints.KEY_TEXT_ANTIALIASING,
-				RenderingHints.VALUE_TEXT_ANTIALIAS_GASP);
+				TEXT_ANTIALIASING);
 		return g != null;
 	}
 
@@ -164,22 +170,22 @@ public class DefaultRenderer2D implements IRenderer2D {
 	
 	@Override
 	public int getCharWidth(char c) {
-		return g.getFontMetrics().charWidth(c);
+		return metricsCache.getCharWidth(c);
 	}
 	
 	@Override
 	public int getFontHeight() {
-		return g.getFontMetrics().getHeight();
+		return metricsCache.getFontHeight();
 	}
 
 	@Override
 	public int getStringWidth(String str) {
-		return g.getFontMetrics().stringWidth(str);
+		return metricsCache.getStringWidth(str);
 	}
 	
 	@Override
 	public Rectangle2D getStringBounds(String str) {
-		return g.getFontMetrics().getStringBounds(str, g);
+		return metricsCache.getStringBounds(str);
 	}
 
 	@Override
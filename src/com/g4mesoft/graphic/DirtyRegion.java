@@ -0,0 +1,280 @@
+package com.g4mesoft.graphic;
+
+/**
+ * A region of the screen, which has to be redrawn, described by a small set
+ * of rectangles. The rectangles are clipped to the bounds of the screen, and
+ * when the amount of rectangles exceeds a fixed limit, the two rectangles
+ * whose bounding box is the smallest are merged. The region can also be
+ * marked as full, in which case it covers the entire screen.
+ * <br><br>
+ * Adding rectangles to the region does not allocate any memory.
+ *
+ * @see PixelRenderer2D#setDirtyTracking(boolean)
+ */
+public class DirtyRegion {
+
+	private static final int MAX_RECTS = 16;
+
+	private final int[] rects;
+	private int rectCount;
+
+	private int width;
+	private int height;
+	private boolean full;
+
+	public DirtyRegion(int width, int height) {
+		rects = new int[MAX_RECTS * 4];
+
+		setSize(width, height);
+	}
+
+	/**
+	 * Sets the size of the screen, which the rectangles are clipped to. The
+	 * region is cleared, since the rectangles might no longer be valid.
+	 *
+	 * @param width - the width of the screen
+	 * @param height - the height of the screen
+	 */
+	public void setSize(int width, int height) {
+		this.width = width;
+		this.height = height;
+
+		clear();
+	}
+
+	/**
+	 * Adds the given rectangle to the region. The rectangle is clipped to the
+	 * bounds of the screen.
+	 *
+	 * @param x - the x-coordinate of the rectangle
+	 * @param y - the y-coordinate of the rectangle
+	 * @param width - the width of the rectangle
+	 * @param height - the height of the rectangle
+	 */
+	public void add(int x, int y, int width, int height) {
+		if (full)
+			return;
+
+		int x0 = Math.max(x, 0);
+		int y0 = Math.max(y, 0);
+		int x1 = Math.min(x + width, this.width);
+		int y1 = Math.min(y + height, this.height);
+
+		if (x0 < x1 && y0 < y1)
+			addRect(x0, y0, x1, y1);
+	}
+
+	private void addRect(int x0, int y0, int x1, int y1) {
+		int i = 0;
+		while (i < rectCount) {
+			int j = i << 2;
+			if (rects[j] <= x0 && rects[j + 1] <= y0 && rects[j + 2] >= x1 && rects[j + 3] >= y1) {
+				// The rectangle is already covered
+				return;
+			}
+
+			if (x0 <= rects[j] && y0 <= rects[j + 1] && x1 >= rects[j + 2] && y1 >= rects[j + 3]) {
+				// The rectangle covers an existing rectangle
+				removeRect(i);
+			} else {
+				i++;
+			}
+		}
+
+		if (rectCount == MAX_RECTS) {
+			int j = findMergeCandidate(x0, y0, x1, y1) << 2;
+			rects[j    ] = Math.min(rects[j    ], x0);
+			rects[j + 1] = Math.min(rects[j + 1], y0);
+			rects[j + 2] = Math.max(rects[j + 2], x1);
+			rects[j + 3] = Math.max(rects[j + 3], y1);
+		} else {
+			int j = (rectCount++) << 2;
+			rects[j    ] = x0;
+			rects[j + 1] = y0;
+			rects[j + 2] = x1;
+			rects[j + 3] = y1;
+		}
+	}
+
+	private int findMergeCandidate(int x0, int y0, int x1, int y1) {
+		int bestIndex = 0;
+		long bestArea = Long.MAX_VALUE;
+
+		for (int i = 0; i < rectCount; i++) {
+			int j = i << 2;
+			long w = Math.max(rects[j + 2], x1) - Math.min(rects[j    ], x0);
+			long h = Math.max(rects[j + 3], y1) - Math.min(rects[j + 1], y0);
+
+			if (w * h < bestArea) {
+				bestArea = w * h;
+				bestIndex = i;
+			}
+		}
+
+		return bestIndex;
+	}
+
+	private void removeRect(int index) {
+		rectCount--;
+
+		// Move the last rectangle into the removed slot
+		int j = index << 2;
+		int k = rectCount << 2;
+		rects[j    ] = rects[k    ];
+		rects[j + 1] = rects[k + 1];
+		rects[j + 2] = rects[k + 2];
+		rects[j + 3] = rects[k + 3];
+	}
+
+	/**
+	 * Adds all the rectangles of the given region to this region.
+	 *
+	 * @param other - the region to add
+	 */
+	public void addAll(DirtyRegion other) {
+		if (other.full) {
+			setFull();
+		} else {
+			for (int i = 0; i < other.rectCount; i++) {
+				int j = i << 2;
+				add(other.rects[j], other.rects[j + 1],
+				    other.rects[j + 2] - other.rects[j],
+				    other.rects[j + 3] - other.rects[j + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the rectangles of this region by the rectangles of the given
+	 * region.
+	 *
+	 * @param other - the region to copy
+	 */
+	public void set(DirtyRegion other) {
+		clear();
+		addAll(other);
+	}
+
+	/**
+	 * Marks the region as covering the entire screen.
+	 */
+	public void setFull() {
+		full = true;
+
+		rectCount = 1;
+		rects[0] = 0;
+		rects[1] = 0;
+		rects[2] = width;
+		rects[3] = height;
+	}
+
+	public void clear() {
+		full = false;
+		rectCount = 0;
+	}
+
+	/**
+	 * Tests whether the given rectangle intersects the region.
+	 *
+	 * @param x - the x-coordinate of the rectangle
+	 * @param y - the y-coordinate of the rectangle
+	 * @param width - the width of the rectangle
+	 * @param height - the height of the rectangle
+	 *
+	 * @return True, if the rectangle intersects the region, false otherwise.
+	 */
+	public boolean intersects(int x, int y, int width, int height) {
+		int x1 = x + width;
+		int y1 = y + height;
+
+		for (int i = 0; i < rectCount; i++) {
+			int j = i << 2;
+			if (x < rects[j + 2] && x1 > rects[j] && y < rects[j + 3] && y1 > rects[j + 1])
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The sum of the areas of the rectangles in this region. Note that
+	 *         rectangles may overlap, in which case the overlap is counted
+	 *         more than once.
+	 */
+	public long getArea() {
+		long area = 0L;
+		for (int i = 0; i < rectCount; i++) {
+			int j = i << 2;
+			area += (long)(rects[j + 2] - rects[j]) * (rects[j + 3] - rects[j + 1]);
+		}
+		return area;
+	}
+
+	public boolean isFull() {
+		return full;
+	}
+
+	public boolean isEmpty() {
+		return rectCount == 0;
+	}
+
+	public int getRectCount() {
+		return rectCount;
+	}
+
+	/* The coordinates of the rectangle at the given index (max exclusive) */
+
+	public int getX0(int index) {
+		return rects[index << 2];
+	}
+
+	public int getY0(int index) {
+		return rects[(index << 2) + 1];
+	}
+
+	public int getX1(int index) {
+		return rects[(index << 2) + 2];
+	}
+
+	public int getY1(int index) {
+		return rects[(index << 2) + 3];
+	}
+
+	/* The bounding box of all the rectangles (max exclusive) */
+
+	public int getBoundsX0() {
+		int x0 = width;
+		for (int i = 0; i < rectCount; i++)
+			x0 = Math.min(x0, rects[i << 2]);
+		return x0;
+	}
+
+	public int getBoundsY0() {
+		int y0 = height;
+		for (int i = 0; i < rectCount; i++)
+			y0 = Math.min(y0, rects[(i << 2) + 1]);
+		return y0;
+	}
+
+	public int getBoundsX1() {
+		int x1 = 0;
+		for (int i = 0; i < rectCount; i++)
+			x1 = Math.max(x1, rects[(i << 2) + 2]);
+		return x1;
+	}
+
+	public int getBoundsY1() {
+		int y1 = 0;
+		for (int i = 0; i < rectCount; i++)
+			y1 = Math.max(y1, rects[(i << 2) + 3]);
+		return y1;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+}
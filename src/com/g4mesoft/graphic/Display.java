@@ -1,6 +1,7 @@
 package com.g4mesoft.graphic;
 
 import java.awt.BorderLayout;
+import java.awt.BufferCapabilities;
 import java.awt.Canvas;
 import java.awt.Cursor;
 import java.awt.Dimension;
@@ -32,6 +33,9 @@ import com.g4mesoft.Application;
 
 public class Display implements IViewport {
 
+	/* The amount of buffers used by the buffer strategy of the canvas */
+	public static final int BUFFER_COUNT = 3;
+	
 	private final DisplayConfig displayConfig;
 
 	private JFrame frame;
@@ -45,6 +49,8 @@ public class Display implements IViewport {
 	
 	private IRenderer2D renderer;
 	private BufferStrategy bs;
+	/* Whether the back buffers of bs keep their contents when shown */
+	private boolean bufferContentsKept;
 	
 	/*
 	 * The currently active graphics object.
@@ -54,6 +60,9 @@ public class Display implements IViewport {
 	private Graphics g;
 	
 	private boolean rendering;
+	/* Whether the current frame is presented by the renderer */
+	private boolean pipelinedFrame;
+	private final IPresentTarget presentTarget;
 	
 	private boolean closeRequested;
 	
@@ -70,6 +79,8 @@ public class Display implements IViewport {
 		
 		displayConfig = config;
 		
+		presentTarget = new DisplayPresentTarget();
+		
 		initDisplay();
 	}
 	
@@ -173,6 +184,10 @@ public class Display implements IViewport {
 		if (frame == null || this.displayMode == displayMode) 
 			return;
 		
+		// The frame can not be modified while
+		// a frame is presented to it.
+		waitForPresent();
+		
 		DisplayMode prevDisplayMode = this.displayMode;
 		this.displayMode = displayMode;
 		
@@ -243,6 +258,20 @@ public class Display implements IViewport {
 		return GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()[0];
 	}
 	
+	/**
+	 * Determines whether the back buffers of the given strategy keep the frame,
+	 * which was last drawn to them, after being shown. This is the case for
+	 * blit strategies, and page flipping strategies which copy the contents of
+	 * the back buffer. Otherwise the renderer has to present entire frames.
+	 */
+	private static boolean isBufferContentsKept(BufferStrategy strategy) {
+		BufferCapabilities caps = strategy.getCapabilities();
+		if (!caps.isPageFlipping())
+			return true;
+		
+		return caps.getFlipContents() == BufferCapabilities.FlipContents.COPIED;
+	}
+	
 	public IRenderer2D startRendering() {
 		if (frame == null || !frame.isShowing()) 
 			return null;
@@ -250,20 +279,45 @@ public class Display implements IViewport {
 		if (rendering)
 			throw new IllegalStateException("Already started rendering!");
 		
-		bs = canvas.getBufferStrategy();
-		if (bs == null) {
+		BufferStrategy strategy = canvas.getBufferStrategy();
+		if (strategy == null) {
 			// We have to make sure the canvas
 			// is displayable. It could have been
 			// disposed or removed before this call.
 			if (canvas.isDisplayable())
-				canvas.createBufferStrategy(3);
+				canvas.createBufferStrategy(BUFFER_COUNT);
+			bs = null;
 			return null;
 		}
 		
+		if (strategy != bs) {
+			bs = strategy;
+			bufferContentsKept = isBufferContentsKept(bs);
+		}
+		
+		if (renderer instanceof PixelRenderer2D)
+			((PixelRenderer2D)renderer).setPartialPresent(bufferContentsKept);
+		
+		if (renderer instanceof PixelRenderer2D && ((PixelRenderer2D)renderer).isPipelined()) {
+			// The frame is presented by the presenter
+			// thread of the renderer, once stopped.
+			if (!((PixelRenderer2D)renderer).startPipelined(presentTarget))
+				return null;
+			
+			rendering = true;
+			pipelinedFrame = true;
+			return renderer;
+		}
+		
 		g = bs.getDrawGraphics();
 		if (g == null || renderer == null)
 			return null;
 		
+		// The back buffers have to be presented entirely,
+		// if their contents were lost since the last frame.
+		if ((bs.contentsLost() || bs.contentsRestored()) && renderer instanceof PixelRenderer2D)
+			((PixelRenderer2D)renderer).markAllDirty();
+		
 		if (!renderer.start(g))
 			return null;
 		
@@ -277,6 +331,12 @@ public class Display implements IViewport {
 		
 		renderer.stop();
 		
+		if (pipelinedFrame) {
+			pipelinedFrame = false;
+			rendering = false;
+			return;
+		}
+		
 		g.dispose();
 		g = null;
 		
@@ -301,6 +361,8 @@ public class Display implements IViewport {
 		if (rendering)
 			throw new IllegalStateException("Cannot change renderer if display is already rendering!");
 		
+		// Note that disposing a pipelined renderer
+		// waits for its last frame to be presented.
 		if (this.renderer != null)
 			this.renderer.dispose();
 		
@@ -311,6 +373,11 @@ public class Display implements IViewport {
 		return renderer;
 	}
 	
+	private void waitForPresent() {
+		if (renderer instanceof PixelRenderer2D)
+			((PixelRenderer2D)renderer).waitForPresent();
+	}
+	
 	public boolean isFullscreen() {
 		return displayMode != DisplayMode.NORMAL;
 	}
@@ -331,6 +398,8 @@ public class Display implements IViewport {
 	}
 
 	public void dispose() {
+		waitForPresent();
+		
 		if (frame != null) {
 			frame.setVisible(false);
 			frame.dispose();
@@ -487,4 +556,41 @@ public class Display implements IViewport {
 			super.setCursor(cursor);
 		}
 	}
+	
+	/**
+	 * Presents the frames of a pipelined renderer to the buffer strategy of
+	 * the canvas. This is only used by the presenter thread of the renderer.
+	 */
+	private class DisplayPresentTarget implements IPresentTarget {
+		
+		private BufferStrategy presentBs;
+		
+		@Override
+		public Graphics beginPresent() {
+			DisplayCanvas canvas = Display.this.canvas;
+			if (canvas == null || !canvas.isDisplayable())
+				return null;
+			
+			presentBs = canvas.getBufferStrategy();
+			return (presentBs != null) ? presentBs.getDrawGraphics() : null;
+		}
+		
+		@Override
+		public boolean isContentsLost() {
+			return presentBs.contentsLost() || presentBs.contentsRestored();
+		}
+		
+		@Override
+		public void endPresent(Graphics g) {
+			g.dispose();
+			
+			// The buffer strategy could have been
+			// invalidated while presenting.
+			DisplayCanvas canvas = Display.this.canvas;
+			if (canvas != null && canvas.isDisplayable())
+				presentBs.show();
+			
+			presentBs = null;
+		}
+	}
 }
@@ -0,0 +1,658 @@
+package com.g4mesoft.graphic;
+
+import java.awt.Graphics;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A display list recording a sequence of rendering calls, which can later be
+ * replayed to any {@link IRenderer2D}. This is useful for static content, such
+ * as HUD frames, static tile layers and menu backgrounds, which would
+ * otherwise issue the same rendering calls every frame. The display list is
+ * itself a renderer, and recording is done by drawing to it between calls to
+ * {@link #start(Graphics)} and {@link #stop()}. Translations are resolved
+ * while recording, such that the recorded commands are relative to the
+ * offset of the renderer, when the list is replayed.
+ * <br><br>
+ * After recording, the commands can optionally be optimized using
+ * {@link #optimize()}, which removes redundant color changes and merges
+ * adjacent rectangles of the same color. The list can also be baked into a
+ * cached pixel layer using {@link #bake()}. Replaying a baked list to a
+ * {@link PixelRenderer2D} simply copies the pixels of the layer, regardless
+ * of the amount of recorded commands. Lists which use translucent colors are
+ * never baked, since whether those colors are blended depends on the renderer
+ * the list is replayed to. The following shows an example of recording and
+ * replaying a display list:
+ * <pre>
+ *   // During initialization (or whenever the content changes)
+ *   hudList = new DisplayList(renderer);
+ *   hudList.start(null);
+ *   drawHudFrame(hudList);
+ *   hudList.stop();
+ *   hudList.optimize();
+ *   hudList.bake();
+ *
+ *   // Every frame
+ *   hudList.replay(renderer);
+ * </pre>
+ * <b>NOTE:</b><i> the font metrics, and the size of the viewport, are given by
+ * the context of the display list. If strings are measured while recording,
+ * the context must be rendering at that time.</i>
+ */
+public class DisplayList implements IRenderer2D {
+
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private static final int OP_SET_COLOR = 0;
+	private static final int OP_CLEAR     = 1;
+	private static final int OP_GRID      = 2;
+	private static final int OP_RECT      = 3;
+	private static final int OP_FILL_RECT = 4;
+	private static final int OP_LINE      = 5;
+	private static final int OP_STRING    = 6;
+
+	private final IRenderingContext2D context;
+
+	private int[] ops;
+	private int size;
+	private final List<Object> refs;
+
+	private boolean recording;
+	private int offsetX;
+	private int offsetY;
+
+	private LayerRenderer layer;
+	private int layerX;
+	private int layerY;
+
+	/**
+	 * Constructs an empty display list, which uses the given context for
+	 * measuring strings and for the size of the viewport.
+	 *
+	 * @param context - the rendering context of the display list
+	 */
+	public DisplayList(IRenderingContext2D context) {
+		if (context == null)
+			throw new NullPointerException("context is null!");
+
+		this.context = context;
+
+		ops = new int[DEFAULT_CAPACITY];
+		size = 0;
+		refs = new ArrayList<Object>();
+
+		recording = false;
+		offsetX = 0;
+		offsetY = 0;
+
+		layer = null;
+	}
+
+	private void ensureCapacity(int count) {
+		int required = size + count;
+		if (required > ops.length)
+			ops = Arrays.copyOf(ops, Math.max(ops.length * 2, required));
+	}
+
+	private int addRef(Object ref) {
+		refs.add(ref);
+		return refs.size() - 1;
+	}
+
+	private void checkRecording() {
+		if (!recording)
+			throw new IllegalStateException("Display list is not recording!");
+	}
+
+	/**
+	 * Starts recording the display list. Any previously recorded commands,
+	 * and the baked layer, are discarded. The graphics is ignored, and can
+	 * therefore be null.
+	 *
+	 * @return True
+	 */
+	@Override
+	public boolean start(Graphics g) {
+		reset();
+
+		recording = true;
+
+		return true;
+	}
+
+	/**
+	 * Stops recording the display list.
+	 */
+	@Override
+	public void stop() {
+		recording = false;
+
+		resetTransformations();
+	}
+
+	/**
+	 * Removes all the recorded commands, and the baked layer, from this list.
+	 */
+	public void reset() {
+		size = 0;
+		refs.clear();
+
+		invalidateLayer();
+	}
+
+	@Override
+	public boolean isRendering() {
+		return recording;
+	}
+
+	@Override
+	public Graphics getGraphics() {
+		return null;
+	}
+
+	@Override
+	public void resetTransformations() {
+		offsetX = 0;
+		offsetY = 0;
+	}
+
+	@Override
+	public void clear() {
+		checkRecording();
+
+		ensureCapacity(1);
+		ops[size++] = OP_CLEAR;
+	}
+
+	@Override
+	public void setColor(GColor color) {
+		if (color == null)
+			throw new NullPointerException("color is null!");
+		checkRecording();
+
+		ensureCapacity(2);
+		ops[size++] = OP_SET_COLOR;
+		ops[size++] = addRef(color);
+	}
+
+	@Override
+	public void drawGrid(int x, int y, int xc, int yc, int gw, int gh) {
+		checkRecording();
+
+		ensureCapacity(7);
+		ops[size++] = OP_GRID;
+		ops[size++] = x + offsetX;
+		ops[size++] = y + offsetY;
+		ops[size++] = xc;
+		ops[size++] = yc;
+		ops[size++] = gw;
+		ops[size++] = gh;
+	}
+
+	@Override
+	public void drawRect(int x, int y, int width, int height) {
+		checkRecording();
+
+		ensureCapacity(5);
+		ops[size++] = OP_RECT;
+		ops[size++] = x + offsetX;
+		ops[size++] = y + offsetY;
+		ops[size++] = width;
+		ops[size++] = height;
+	}
+
+	@Override
+	public void fillRect(int x, int y, int width, int height) {
+		checkRecording();
+
+		ensureCapacity(5);
+		ops[size++] = OP_FILL_RECT;
+		ops[size++] = x + offsetX;
+		ops[size++] = y + offsetY;
+		ops[size++] = width;
+		ops[size++] = height;
+	}
+
+	@Override
+	public void drawLine(int x0, int y0, int x1, int y1) {
+		checkRecording();
+
+		ensureCapacity(5);
+		ops[size++] = OP_LINE;
+		ops[size++] = x0 + offsetX;
+		ops[size++] = y0 + offsetY;
+		ops[size++] = x1 + offsetX;
+		ops[size++] = y1 + offsetY;
+	}
+
+	@Override
+	public void drawString(String str, int x, int y) {
+		if (str == null)
+			throw new NullPointerException("str is null!");
+		checkRecording();
+
+		ensureCapacity(4);
+		ops[size++] = OP_STRING;
+		ops[size++] = addRef(str);
+		ops[size++] = x + offsetX;
+		ops[size++] = y + offsetY;
+	}
+
+	/**
+	 * Optimizes the recorded commands without changing the result of
+	 * replaying them. Color changes which do not change the color are removed,
+	 * commands which are overwritten by a clear are removed, and consecutive
+	 * rectangles of the same color are merged, when their union is itself a
+	 * rectangle. The commands are never reordered, since that would change the
+	 * result where primitives overlap.
+	 */
+	public void optimize() {
+		checkNotRecording();
+
+		int[] out = new int[size];
+		int outSize = 0;
+
+		// The start indices of the fill commands at the end
+		// of the output, allowing merged rectangles to cascade.
+		int[] fillStarts = new int[8];
+		int fillCount = 0;
+
+		GColor color = null;
+		int colorRef = -1;
+		int colorIndex = -1;
+
+		int i = 0;
+		while (i < size) {
+			int op = ops[i];
+			switch (op) {
+			case OP_SET_COLOR:
+				GColor newColor = (GColor)refs.get(ops[i + 1]);
+				if (color == null || color.getARGB() != newColor.getARGB()) {
+					if (colorIndex != -1 && colorIndex == outSize - 2) {
+						// The previous color was never used
+						out[colorIndex + 1] = ops[i + 1];
+					} else {
+						colorIndex = outSize;
+						out[outSize++] = OP_SET_COLOR;
+						out[outSize++] = ops[i + 1];
+					}
+
+					color = newColor;
+					colorRef = ops[i + 1];
+					fillCount = 0;
+				}
+				i += 2;
+				break;
+			case OP_CLEAR:
+				// Everything before the clear is overwritten,
+				// except for the current color.
+				outSize = 0;
+				fillCount = 0;
+				colorIndex = -1;
+				if (colorRef != -1) {
+					colorIndex = outSize;
+					out[outSize++] = OP_SET_COLOR;
+					out[outSize++] = colorRef;
+				}
+				out[outSize++] = OP_CLEAR;
+				i += 1;
+				break;
+			case OP_FILL_RECT:
+				if (ops[i + 3] > 0 && ops[i + 4] > 0) {
+					if (fillCount == fillStarts.length)
+						fillStarts = Arrays.copyOf(fillStarts, fillCount * 2);
+					fillStarts[fillCount++] = outSize;
+
+					System.arraycopy(ops, i, out, outSize, 5);
+					outSize += 5;
+
+					// Merge with the preceding rectangles
+					while (fillCount >= 2 && mergeRects(out, fillStarts[fillCount - 2], fillStarts[fillCount - 1])) {
+						outSize -= 5;
+						fillCount--;
+					}
+				}
+				i += 5;
+				break;
+			default:
+				int length = getCommandLength(op);
+				System.arraycopy(ops, i, out, outSize, length);
+				outSize += length;
+				fillCount = 0;
+				i += length;
+				break;
+			}
+		}
+
+		ops = out;
+		size = outSize;
+	}
+
+	private void checkNotRecording() {
+		if (recording)
+			throw new IllegalStateException("Display list is recording!");
+	}
+
+	/**
+	 * Merges the rectangle at index {@code j} into the rectangle at index
+	 * {@code i}, if their union is a rectangle.
+	 */
+	private static boolean mergeRects(int[] out, int i, int j) {
+		int x0 = out[i + 1], y0 = out[i + 2], w0 = out[i + 3], h0 = out[i + 4];
+		int x1 = out[j + 1], y1 = out[j + 2], w1 = out[j + 3], h1 = out[j + 4];
+
+		if (y0 == y1 && h0 == h1) {
+			if (x0 + w0 == x1) {
+				out[i + 3] = w0 + w1;
+				return true;
+			}
+			if (x1 + w1 == x0) {
+				out[i + 1] = x1;
+				out[i + 3] = w0 + w1;
+				return true;
+			}
+		}
+
+		if (x0 == x1 && w0 == w1) {
+			if (y0 + h0 == y1) {
+				out[i + 4] = h0 + h1;
+				return true;
+			}
+			if (y1 + h1 == y0) {
+				out[i + 2] = y1;
+				out[i + 4] = h0 + h1;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static int getCommandLength(int op) {
+		switch (op) {
+		case OP_SET_COLOR:
+			return 2;
+		case OP_CLEAR:
+			return 1;
+		case OP_GRID:
+			return 7;
+		case OP_RECT:
+		case OP_FILL_RECT:
+		case OP_LINE:
+			return 5;
+		case OP_STRING:
+			return 4;
+		default:
+			throw new IllegalStateException("Unknown command: " + op);
+		}
+	}
+
+	/**
+	 * Bakes the recorded commands into a cached pixel layer with the size of
+	 * the viewport of the context.
+	 *
+	 * @return True, if the list was baked, false if it uses translucent colors.
+	 *
+	 * @see #bake(int, int, int, int)
+	 */
+	public boolean bake() {
+		return bake(0, 0, context.getWidth(), context.getHeight());
+	}
+
+	/**
+	 * Bakes the recorded commands into a cached pixel layer, which covers the
+	 * given region of the display list. Replaying the list to a
+	 * {@link PixelRenderer2D} will then draw the pixels of the layer, rather
+	 * than executing the commands. Anything drawn outside the region,
+	 * including clears, is not part of the layer.
+	 * <br><br>
+	 * If any of the recorded colors is translucent, the list is not baked, and
+	 * replaying it will execute the recorded commands. The layer can only hold
+	 * opaque pixels, while renderers, such as a {@link RenderLayer}, may blend
+	 * the translucent colors.
+	 *
+	 * @param x - the x-coordinate of the region
+	 * @param y - the y-coordinate of the region
+	 * @param width - the width of the region
+	 * @param height - the height of the region
+	 *
+	 * @return True, if the list was baked, false if it uses translucent colors.
+	 */
+	public boolean bake(int x, int y, int width, int height) {
+		checkNotRecording();
+
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Invalid layer size: " + width + "x" + height);
+
+		if (hasTranslucentColors()) {
+			invalidateLayer();
+			return false;
+		}
+
+		if (layer == null || layer.getWidth() != width || layer.getHeight() != height) {
+			invalidateLayer();
+			layer = new LayerRenderer(width, height);
+		} else {
+			Arrays.fill(layer.getPixelBuffer(), 0);
+		}
+
+		layerX = x;
+		layerY = y;
+
+		layer.setOffset(-x, -y);
+		replayCommands(layer);
+		layer.resetTransformations();
+
+		return true;
+	}
+
+	private boolean hasTranslucentColors() {
+		int i = 0;
+		while (i < size) {
+			if (ops[i] == OP_SET_COLOR && ((GColor)refs.get(ops[i + 1])).hasAlpha())
+				return true;
+			i += getCommandLength(ops[i]);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Discards the baked layer. Replaying the list will execute the recorded
+	 * commands, until the list is baked again.
+	 */
+	public void invalidateLayer() {
+		if (layer != null) {
+			layer.dispose();
+			layer = null;
+		}
+	}
+
+	public boolean isBaked() {
+		return layer != null;
+	}
+
+	/**
+	 * Replays the display list to the given renderer, relative to its current
+	 * offset. If the list is baked, and the renderer is a pixel renderer, the
+	 * pixels of the baked layer are drawn. Otherwise the recorded commands are
+	 * executed in the order they were recorded. Note that the color of the
+	 * renderer is changed by the recorded commands.
+	 *
+	 * @param renderer - the renderer to replay the list to
+	 */
+	public void replay(IRenderer2D renderer) {
+		if (renderer == null)
+			throw new NullPointerException("renderer is null!");
+		checkNotRecording();
+
+		if (layer != null && renderer instanceof PixelRenderer2D) {
+			int[] pixels = layer.getPixelBuffer();
+			int w = layer.getWidth();
+			int h = layer.getHeight();
+			((PixelRenderer2D)renderer).drawPixels(pixels, 0, w, layerX, layerY, w, h, true);
+		} else {
+			replayCommands(renderer);
+		}
+	}
+
+	private void replayCommands(IRenderer2D renderer) {
+		int[] ops = this.ops;
+		int i = 0;
+		while (i < size) {
+			switch (ops[i]) {
+			case OP_SET_COLOR:
+				renderer.setColor((GColor)refs.get(ops[i + 1]));
+				i += 2;
+				break;
+			case OP_CLEAR:
+				renderer.clear();
+				i += 1;
+				break;
+			case OP_GRID:
+				renderer.drawGrid(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4], ops[i + 5], ops[i + 6]);
+				i += 7;
+				break;
+			case OP_RECT:
+				renderer.drawRect(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 5;
+				break;
+			case OP_FILL_RECT:
+				renderer.fillRect(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 5;
+				break;
+			case OP_LINE:
+				renderer.drawLine(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 5;
+				break;
+			case OP_STRING:
+				renderer.drawString((String)refs.get(ops[i + 1]), ops[i + 2], ops[i + 3]);
+				i += 4;
+				break;
+			default:
+				throw new IllegalStateException("Unknown command: " + ops[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return The amount of integers used by the recorded commands.
+	 */
+	public int getCommandSize() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void setOffsetX(int ox) {
+		offsetX = ox;
+	}
+
+	@Override
+	public void setOffsetY(int oy) {
+		offsetY = oy;
+	}
+
+	@Override
+	public void setOffset(int ox, int oy) {
+		offsetX = ox;
+		offsetY = oy;
+	}
+
+	@Override
+	public void translateX(int tx) {
+		offsetX += tx;
+	}
+
+	@Override
+	public void translateY(int ty) {
+		offsetY += ty;
+	}
+
+	@Override
+	public void translate(int tx, int ty) {
+		offsetX += tx;
+		offsetY += ty;
+	}
+
+	@Override
+	public int getCharWidth(char c) {
+		return context.getCharWidth(c);
+	}
+
+	@Override
+	public int getFontHeight() {
+		return context.getFontHeight();
+	}
+
+	@Override
+	public int getStringWidth(String str) {
+		return context.getStringWidth(str);
+	}
+
+	@Override
+	public Rectangle2D getStringBounds(String str) {
+		return context.getStringBounds(str);
+	}
+
+	@Override
+	public int getX() {
+		return context.getX();
+	}
+
+	@Override
+	public int getY() {
+		return context.getY();
+	}
+
+	@Override
+	public int getWidth() {
+		return context.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return context.getHeight();
+	}
+
+	@Override
+	public void dispose() {
+		recording = false;
+
+		reset();
+	}
+
+	/**
+	 * A pixel renderer drawing to a transparent layer. Every color is drawn
+	 * fully opaque, such that the pixels covered by the commands are exactly
+	 * the pixels with a non-zero alpha. Lists using translucent colors are
+	 * therefore never drawn to a layer.
+	 */
+	private static class LayerRenderer extends PixelRenderer2D {
+
+		public LayerRenderer(int width, int height) {
+			super(null, width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+
+		@Override
+		public void setColor(GColor color) {
+			this.color = color.getRGB() | 0xFF000000;
+		}
+
+		@Override
+		public void setColor(int color) {
+			this.color = color | 0xFF000000;
+		}
+
+		@Override
+		public void drawString(String str, int x, int y) {
+			super.drawString(str, x + offsetX, y + offsetY);
+		}
+	}
+}
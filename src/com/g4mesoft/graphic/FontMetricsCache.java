@@ -0,0 +1,200 @@
+package com.g4mesoft.graphic;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of the metrics of a single font. The advances of the ASCII
+ * characters are stored in a table, and the metrics of recently measured
+ * strings are stored in a least-recently-used cache. This makes repeated
+ * measurements, such as those done by the layout of compositions, far cheaper
+ * than querying the {@link FontMetrics} every time.
+ * <br><br>
+ * The metrics are computed using the font render context of a graphics
+ * object, which is only used while constructing the cache. The cache can
+ * therefore be used outside of rendering, for example when a composition is
+ * laid out before the first frame. Only the caches of the most recently used
+ * fonts are kept by {@link #getCache(Font, Object)}. The cache is thread
+ * safe.
+ *
+ * @see #getCache(Font)
+ */
+public class FontMetricsCache {
+
+	private static final int ASCII_CHAR_COUNT = 128;
+	private static final int MAX_CACHED_STRINGS = 512;
+	private static final int MAX_CACHED_FONTS = 16;
+
+	private static final Map<CacheKey, FontMetricsCache> caches = new LinkedHashMap<CacheKey, FontMetricsCache>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, FontMetricsCache> eldest) {
+			return size() > MAX_CACHED_FONTS;
+		}
+	};
+
+	private final FontMetrics metrics;
+	private final FontRenderContext frc;
+
+	private final int fontHeight;
+	private final int[] asciiWidths;
+	private final Map<String, StringMetrics> stringMetrics;
+
+	private FontMetricsCache(Font font, Object textAntialiasing) {
+		Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialiasing);
+		graphics.setFont(font);
+
+		// The metrics only depend on the font and the render
+		// context, so the graphics is not kept by the cache.
+		metrics = graphics.getFontMetrics();
+		frc = graphics.getFontRenderContext();
+		graphics.dispose();
+
+		fontHeight = metrics.getHeight();
+		asciiWidths = new int[ASCII_CHAR_COUNT];
+		for (char c = 0; c < ASCII_CHAR_COUNT; c++)
+			asciiWidths[c] = metrics.charWidth(c);
+
+		stringMetrics = new LinkedHashMap<String, StringMetrics>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, StringMetrics> eldest) {
+				return size() > MAX_CACHED_STRINGS;
+			}
+		};
+	}
+
+	/**
+	 * Returns the metrics cache of the given font, when drawn with the default
+	 * (aliased) text rendering hints.
+	 *
+	 * @param font - the font of the metrics
+	 *
+	 * @return The metrics cache of the font
+	 */
+	public static FontMetricsCache getCache(Font font) {
+		return getCache(font, RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT);
+	}
+
+	/**
+	 * Returns the metrics cache of the given font, when drawn with the given
+	 * value of the text antialiasing rendering hint. The cache is created, if
+	 * it does not already exist. If the caches of too many fonts exist, the
+	 * least recently used cache is discarded.
+	 *
+	 * @param font - the font of the metrics
+	 * @param textAntialiasing - the value of {@link RenderingHints#KEY_TEXT_ANTIALIASING}
+	 *
+	 * @return The metrics cache of the font
+	 */
+	public static FontMetricsCache getCache(Font font, Object textAntialiasing) {
+		if (font == null)
+			throw new NullPointerException("font is null!");
+		if (textAntialiasing == null)
+			throw new NullPointerException("textAntialiasing is null!");
+
+		CacheKey key = new CacheKey(font, textAntialiasing);
+
+		synchronized (caches) {
+			FontMetricsCache cache = caches.get(key);
+			if (cache == null) {
+				cache = new FontMetricsCache(font, textAntialiasing);
+				caches.put(key, cache);
+			}
+			return cache;
+		}
+	}
+
+	public int getCharWidth(char c) {
+		if (c < ASCII_CHAR_COUNT)
+			return asciiWidths[c];
+
+		synchronized (this) {
+			return metrics.charWidth(c);
+		}
+	}
+
+	public int getFontHeight() {
+		return fontHeight;
+	}
+
+	public synchronized int getStringWidth(String str) {
+		return getStringMetrics(str).width;
+	}
+
+	/**
+	 * Returns the bounds of the given string. The returned rectangle is a copy,
+	 * and can therefore be modified by the caller.
+	 *
+	 * @param str - the string to measure
+	 *
+	 * @return The bounds of the string
+	 */
+	public synchronized Rectangle2D getStringBounds(String str) {
+		StringMetrics sm = getStringMetrics(str);
+		if (sm.bounds == null)
+			sm.bounds = metrics.getFont().getStringBounds(str, frc);
+
+		return (Rectangle2D)sm.bounds.clone();
+	}
+
+	private StringMetrics getStringMetrics(String str) {
+		StringMetrics sm = stringMetrics.get(str);
+		if (sm == null) {
+			sm = new StringMetrics(metrics.stringWidth(str));
+			stringMetrics.put(str, sm);
+		}
+
+		return sm;
+	}
+
+	public Font getFont() {
+		return metrics.getFont();
+	}
+
+	private static class StringMetrics {
+
+		private final int width;
+		/* Computed when first requested */
+		private Rectangle2D bounds;
+
+		public StringMetrics(int width) {
+			this.width = width;
+		}
+	}
+
+	private static class CacheKey {
+
+		private final Font font;
+		private final Object textAntialiasing;
+
+		public CacheKey(Font font, Object textAntialiasing) {
+			this.font = font;
+			this.textAntialiasing = textAntialiasing;
+		}
+
+		@Override
+		public int hashCode() {
+			return font.hashCode() * 31 + textAntialiasing.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof CacheKey))
+				return false;
+
+			CacheKey key = (CacheKey)other;
+			return font.equals(key.font) && textAntialiasing.equals(key.textAntialiasing);
+		}
+	}
+}
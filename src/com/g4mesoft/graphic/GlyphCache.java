@@ -0,0 +1,319 @@
+package com.g4mesoft.graphic;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.g4mesoft.graphic.sprite.Sprite;
+import com.g4mesoft.graphic.sprite.SpriteAtlas;
+
+/**
+ * A cache of rasterized glyphs for a single font. Every glyph is rasterized
+ * once using Java2D, and its coverage is stored in the alpha channel of a
+ * {@link Sprite} packed into a {@link SpriteAtlas}. Strings are then drawn by
+ * filling the sprites of the glyphs directly into the pixels of a
+ * {@link PixelRasterizer}, which avoids creating a graphics object for every
+ * string. The glyphs are rasterized with the default rendering hints of a
+ * {@link BufferedImage} graphics, and are placed at integer advances, such
+ * that the resulting pixels match those drawn by Java2D. If the font enables
+ * kerning, the kerning of every pair of characters is computed once and
+ * cached as well.
+ * <br><br>
+ * <b>NOTE:</b><i> adding glyphs to the cache is not thread safe. Strings,
+ * which are drawn by several threads at once, must first be prepared using
+ * {@link #prepare(String)}, after which drawing only reads the cache. Only
+ * the caches of the most recently used fonts are kept by
+ * {@link #getCache(Font)}.</i>
+ *
+ * @see #getCache(Font)
+ */
+public class GlyphCache {
+
+	private static final int PAGE_SIZE = 256;
+	private static final int ASCII_GLYPH_COUNT = 128;
+	private static final int MAX_CACHED_FONTS = 16;
+
+	/* Access ordered, such that the least recently used cache is discarded */
+	private static final Map<Font, GlyphCache> caches =
+			new LinkedHashMap<Font, GlyphCache>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Font, GlyphCache> eldest) {
+					return size() > MAX_CACHED_FONTS;
+				}
+			};
+
+	private final Font font;
+	private final FontRenderContext frc;
+	private final boolean kerning;
+
+	private final Glyph[] asciiGlyphs;
+	private final Map<Character, Glyph> glyphs;
+	private final Map<Integer, Integer> kerningPairs;
+
+	private final SpriteAtlas atlas;
+
+	private GlyphCache(Font font) {
+		this.font = font;
+
+		// Aliased text with integer metrics
+		frc = new FontRenderContext(null, false, false);
+		kerning = TextAttribute.KERNING_ON.equals(font.getAttributes().get(TextAttribute.KERNING));
+
+		asciiGlyphs = new Glyph[ASCII_GLYPH_COUNT];
+		glyphs = new HashMap<Character, Glyph>();
+		kerningPairs = new HashMap<Integer, Integer>();
+
+		atlas = new SpriteAtlas(PAGE_SIZE, PAGE_SIZE);
+	}
+
+	/**
+	 * Returns the shared glyph cache of the given font. The cache is created,
+	 * if it does not already exist. If the caches of too many fonts exist, the
+	 * least recently used cache is discarded.
+	 *
+	 * @param font - the font of the glyph cache
+	 *
+	 * @return The glyph cache of the font
+	 */
+	public static GlyphCache getCache(Font font) {
+		if (font == null)
+			throw new NullPointerException("font is null!");
+
+		synchronized (caches) {
+			GlyphCache cache = caches.get(font);
+			if (cache == null) {
+				cache = new GlyphCache(font);
+				caches.put(font, cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * Returns the glyph of the given character, rasterizing it if it is not
+	 * already in the cache.
+	 *
+	 * @param c - the character
+	 *
+	 * @return The cached glyph of the character
+	 */
+	public Glyph getGlyph(char c) {
+		Glyph glyph;
+		if (c < ASCII_GLYPH_COUNT) {
+			glyph = asciiGlyphs[c];
+			if (glyph == null)
+				asciiGlyphs[c] = glyph = rasterizeGlyph(c);
+		} else {
+			glyph = glyphs.get(c);
+			if (glyph == null) {
+				glyph = rasterizeGlyph(c);
+				glyphs.put(c, glyph);
+			}
+		}
+
+		return glyph;
+	}
+
+	private Glyph rasterizeGlyph(char c) {
+		GlyphVector gv = font.createGlyphVector(frc, new char[] { c });
+		Rectangle bounds = gv.getPixelBounds(frc, 0.0f, 0.0f);
+		int advance = Math.round(gv.getGlyphMetrics(0).getAdvanceX());
+
+		if (bounds.width <= 0 || bounds.height <= 0)
+			return new Glyph(advance, 0, 0, null);
+
+		BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.WHITE);
+		g.drawGlyphVector(gv, -bounds.x, -bounds.y);
+		g.dispose();
+
+		int[] argb = image.getRGB(0, 0, bounds.width, bounds.height, null, 0, bounds.width);
+
+		Sprite sprite;
+		if (bounds.width > PAGE_SIZE || bounds.height > PAGE_SIZE) {
+			// Very large glyphs are given their own pixels
+			sprite = new Sprite(argb, bounds.width, bounds.height);
+		} else {
+			sprite = atlas.add(argb, 0, bounds.width, bounds.width, bounds.height);
+		}
+
+		return new Glyph(advance, bounds.x, bounds.y, sprite);
+	}
+
+	/**
+	 * Returns the kerning adjustment of the given pair of characters. If the
+	 * font does not enable kerning, this is always zero.
+	 *
+	 * @param left - the left character of the pair
+	 * @param right - the right character of the pair
+	 *
+	 * @return The adjustment of the advance of the left character.
+	 */
+	public int getKerning(char left, char right) {
+		if (!kerning)
+			return 0;
+
+		Integer key = Integer.valueOf((left << 16) | right);
+		Integer adjustment = kerningPairs.get(key);
+		if (adjustment == null) {
+			char[] pair = new char[] { left, right };
+			GlyphVector gv = font.layoutGlyphVector(frc, pair, 0, 2, Font.LAYOUT_LEFT_TO_RIGHT);
+			float kerned = (float)gv.getGlyphPosition(1).getX();
+
+			adjustment = Integer.valueOf(Math.round(kerned) - getGlyph(left).advance);
+			kerningPairs.put(key, adjustment);
+		}
+
+		return adjustment.intValue();
+	}
+
+	/**
+	 * Rasterizes the glyphs and kerning pairs of the given string, such that
+	 * the string can afterwards be drawn without modifying the cache.
+	 *
+	 * @param str - the string to prepare
+	 */
+	public void prepare(String str) {
+		char prev = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			getGlyph(c);
+			if (i != 0)
+				getKerning(prev, c);
+			prev = c;
+		}
+	}
+
+	/**
+	 * Computes the width of the given string, as it is drawn by
+	 * {@link #drawString(PixelRasterizer, String, int, int, int)}.
+	 *
+	 * @param str - the string to measure
+	 *
+	 * @return The sum of the advances of the string
+	 */
+	public int getStringWidth(String str) {
+		int width = 0;
+
+		char prev = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (i != 0)
+				width += getKerning(prev, c);
+			width += getGlyph(c).advance;
+			prev = c;
+		}
+
+		return width;
+	}
+
+	/**
+	 * Draws the given string using the rasterizer. The glyphs are clipped to
+	 * the clipping region of the rasterizer.
+	 *
+	 * @param rasterizer - the rasterizer to draw the string with
+	 * @param str - the string to draw
+	 * @param x - the x-coordinate of the start of the baseline
+	 * @param y - the y-coordinate of the baseline
+	 * @param color - the color of the string
+	 */
+	public void drawString(PixelRasterizer rasterizer, String str, int x, int y, int color) {
+		drawString(rasterizer, str, x, y, color, false);
+	}
+
+	/**
+	 * Draws the given string using the rasterizer, blending the glyphs with
+	 * the given premultiplied ARGB color. The glyphs are clipped to the
+	 * clipping region of the rasterizer.
+	 *
+	 * @param rasterizer - the rasterizer to draw the string with
+	 * @param str - the string to draw
+	 * @param x - the x-coordinate of the start of the baseline
+	 * @param y - the y-coordinate of the baseline
+	 * @param argb - the premultiplied ARGB color of the string
+	 *
+	 * @see Sprite#drawPremultipliedMask(PixelRasterizer, int, int, int)
+	 */
+	public void drawPremultipliedString(PixelRasterizer rasterizer, String str, int x, int y, int argb) {
+		drawString(rasterizer, str, x, y, argb, true);
+	}
+
+	private void drawString(PixelRasterizer rasterizer, String str, int x, int y, int color, boolean premultiplied) {
+		char prev = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if (i != 0)
+				x += getKerning(prev, c);
+
+			Glyph glyph = getGlyph(c);
+			if (glyph.sprite != null) {
+				int gx = x + glyph.bearingX;
+				int gy = y + glyph.bearingY;
+				if (premultiplied) {
+					glyph.sprite.drawPremultipliedMask(rasterizer, gx, gy, color);
+				} else {
+					glyph.sprite.drawMask(rasterizer, gx, gy, color);
+				}
+			}
+
+			x += glyph.advance;
+			prev = c;
+		}
+	}
+
+	public Font getFont() {
+		return font;
+	}
+
+	/**
+	 * A glyph in the cache. The coverage of the glyph is stored in the alpha
+	 * channel of a sprite, which is null if the glyph has no visible pixels.
+	 */
+	public static final class Glyph {
+
+		private final int advance;
+		private final int bearingX;
+		private final int bearingY;
+
+		private final Sprite sprite;
+
+		private Glyph(int advance, int bearingX, int bearingY, Sprite sprite) {
+			this.advance = advance;
+			this.bearingX = bearingX;
+			this.bearingY = bearingY;
+
+			this.sprite = sprite;
+		}
+
+		public int getAdvance() {
+			return advance;
+		}
+
+		public int getBearingX() {
+			return bearingX;
+		}
+
+		public int getBearingY() {
+			return bearingY;
+		}
+
+		public int getWidth() {
+			return (sprite == null) ? 0 : sprite.getWidth();
+		}
+
+		public int getHeight() {
+			return (sprite == null) ? 0 : sprite.getHeight();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package com.g4mesoft.graphic;
+
+import java.awt.Graphics;
+
+/**
+ * A target, which frames are presented to by the presenter thread of a
+ * pipelined {@link PixelRenderer2D}. The methods are invoked by the presenter
+ * thread in the order {@link #beginPresent()}, {@link #isContentsLost()} and
+ * {@link #endPresent(Graphics)} for every frame.
+ *
+ * @see PixelRenderer2D#setPipelined(boolean)
+ */
+public interface IPresentTarget {
+
+	/**
+	 * @return The graphics drawing to the next frame of the target, or null if
+	 *         the target can currently not be presented to.
+	 */
+	public Graphics beginPresent();
+
+	/**
+	 * @return True, if the contents of the frames previously presented have
+	 *         been lost, such that the current frame has to be presented
+	 *         entirely.
+	 */
+	public boolean isContentsLost();
+
+	/**
+	 * Shows the frame, and disposes the graphics returned by
+	 * {@link #beginPresent()}.
+	 *
+	 * @param g - the graphics used for presenting the frame
+	 */
+	public void endPresent(Graphics g);
+
+}
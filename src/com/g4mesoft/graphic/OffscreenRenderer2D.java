@@ -0,0 +1,68 @@
+package com.g4mesoft.graphic;
+
+import java.awt.Graphics;
+
+/**
+ * A pixel renderer which is not bound to a display. Everything is drawn to
+ * the pixel buffer of the renderer, and stopping the renderer will not
+ * present the frame anywhere. This is useful for rendering in a headless
+ * environment or for rendering to an image, which is later used by the
+ * application.
+ * <br><br>
+ * Since the renderer is never presented, the graphics supplied by
+ * {@link #start(Graphics)} is ignored, and can therefore be null.
+ */
+public class OffscreenRenderer2D extends PixelRenderer2D {
+
+	private Graphics screenGraphics;
+	
+	public OffscreenRenderer2D(int width, int height) {
+		super(width, height);
+	}
+	
+	/**
+	 * Constructs an offscreen renderer, where the pixels are stored in an
+	 * image of the given integer type.
+	 * 
+	 * @param width - the width of the renderer in pixels
+	 * @param height - the height of the renderer in pixels
+	 * @param imageType - the type of the image storing the pixels
+	 */
+	protected OffscreenRenderer2D(int width, int height, int imageType) {
+		super(null, width, height, imageType);
+	}
+	
+	@Override
+	public void setSize(int width, int height) {
+		super.setSize(width, height);
+		
+		disposeScreenGraphics();
+	}
+	
+	@Override
+	public boolean start(Graphics g) {
+		if (screenGraphics == null)
+			screenGraphics = createScreenGraphics();
+		
+		return super.start(screenGraphics);
+	}
+	
+	@Override
+	protected void present(Graphics g) {
+		// Offscreen renderers are never presented.
+	}
+	
+	private void disposeScreenGraphics() {
+		if (screenGraphics != null) {
+			screenGraphics.dispose();
+			screenGraphics = null;
+		}
+	}
+	
+	@Override
+	public void dispose() {
+		disposeScreenGraphics();
+		
+		super.dispose();
+	}
+}
@@ -0,0 +1,344 @@
+package com.g4mesoft.graphic;
+
+import com.g4mesoft.graphic.filter.IPixelFilter;
+import com.g4mesoft.graphic.sprite.Sprite;
+import com.g4mesoft.job.JobSystem;
+
+/**
+ * A pixel renderer which rasterizes the frame in parallel. Instead of drawing
+ * the primitives immediately, the draw calls are recorded into a
+ * {@link RenderCommandBuffer}. When the frame is presented, the screen is
+ * split into horizontal strips, and the recorded commands are executed for
+ * each strip as a job of the given {@link JobSystem}. Every strip is drawn
+ * using a {@link PixelRasterizer}, which clips the primitives to the rows of
+ * the strip. Since the commands are executed in the order they were recorded,
+ * the resulting frame is identical to the frame drawn by the serial
+ * {@link PixelRenderer2D}.
+ * <br><br>
+ * Operations which read or modify the pixels directly, such as filters and
+ * {@link #getPixelBuffer()}, first flush the recorded commands.
+ * These should therefore be used sparingly, since every flush is a barrier
+ * between the jobs of the rasterizer. To install the renderer, the following
+ * can be done during initialization of the application:
+ * <pre>
+ *   Display display = getDisplay();
+ *   display.setRenderer(new ParallelPixelRenderer2D(display, 640, 360, getJobSystem()));
+ * </pre>
+ * 
+ * @see com.g4mesoft.Application#getJobSystem()
+ */
+public class ParallelPixelRenderer2D extends PixelRenderer2D {
+
+	/* The minimum amount of rows rasterized by a single job */
+	private static final int MIN_STRIP_ROWS = 16;
+	/* The amount of strips per worker, allowing uneven strips to be balanced */
+	private static final int STRIPS_PER_WORKER = 2;
+	
+	private final JobSystem jobSystem;
+	private final RenderCommandBuffer commandBuffer;
+	
+	private PixelRasterizer[] strips;
+	/* The strips of the other buffer, when the renderer is pipelined */
+	private PixelRasterizer[] spareStrips;
+	private int[] stripRows;
+
+	public ParallelPixelRenderer2D(int width, int height, JobSystem jobSystem) {
+		this(null, width, height, jobSystem);
+	}
+	
+	public ParallelPixelRenderer2D(IViewport viewport, int width, int height, JobSystem jobSystem) {
+		super(viewport, width, height);
+		
+		if (jobSystem == null)
+			throw new NullPointerException("jobSystem is null!");
+		
+		this.jobSystem = jobSystem;
+		
+		commandBuffer = new RenderCommandBuffer();
+	}
+	
+	@Override
+	public void setSize(int width, int height) {
+		super.setSize(width, height);
+		
+		// Note that this is invoked by the super
+		// constructor before the buffer exists.
+		if (commandBuffer != null)
+			commandBuffer.reset();
+		strips = spareStrips = null;
+	}
+	
+	private PixelRasterizer[] createStrips() {
+		int stripCount = jobSystem.getParallelism() * STRIPS_PER_WORKER;
+		
+		int maxStripCount = (height + MIN_STRIP_ROWS - 1) / MIN_STRIP_ROWS;
+		if (stripCount > maxStripCount)
+			stripCount = maxStripCount;
+		if (stripCount < 1)
+			stripCount = 1;
+		
+		PixelRasterizer[] strips = new PixelRasterizer[stripCount];
+		stripRows = new int[stripCount + 1];
+		for (int i = 0; i < stripCount; i++) {
+			strips[i] = new PixelRasterizer(pixels, width, height);
+			stripRows[i] = (int)((long)height * i / stripCount);
+		}
+		stripRows[stripCount] = height;
+		
+		return strips;
+	}
+	
+	private void clipStrips(PixelRasterizer[] strips) {
+		// Intersect the rows of the strips with the
+		// clipping region of the renderer.
+		int clipX0 = rasterizer.getClipX0();
+		int clipY0 = rasterizer.getClipY0();
+		int clipX1 = rasterizer.getClipX1();
+		int clipY1 = rasterizer.getClipY1();
+		
+		for (int i = 0; i < strips.length; i++) {
+			int y0 = Math.max(stripRows[i], clipY0);
+			int y1 = Math.min(stripRows[i + 1], clipY1);
+			strips[i].setClip(clipX0, y0, clipX1, Math.max(y0, y1));
+		}
+	}
+	
+	/**
+	 * Executes the commands, which have been recorded since the last flush,
+	 * and waits for the rasterization to complete. This is done automatically
+	 * when the frame is presented, and before the pixels are accessed by the
+	 * renderer.
+	 */
+	public void flush() {
+		if (commandBuffer.isEmpty())
+			return;
+		
+		if (strips == null || strips[0].getPixels() != pixels) {
+			// The buffers of a pipelined renderer alternate
+			PixelRasterizer[] tmp = spareStrips;
+			spareStrips = strips;
+			strips = (tmp != null && tmp[0].getPixels() == pixels) ? tmp : createStrips();
+		}
+
+		PixelRasterizer[] strips = this.strips;
+		clipStrips(strips);
+		
+		if (strips.length == 1) {
+			commandBuffer.execute(strips[0]);
+		} else {
+			jobSystem.parallelFor(0, strips.length, 1, (start, end) -> {
+				for (int i = start; i < end; i++)
+					commandBuffer.execute(strips[i]);
+			});
+		}
+		
+		commandBuffer.reset();
+	}
+	
+	@Override
+	protected ScaledPresenter createPresenter() {
+		return new ScaledPresenter(jobSystem);
+	}
+	
+	@Override
+	public void stop() {
+		flush();
+		
+		super.stop();
+	}
+
+	@Override
+	public void clear() {
+		// Any commands before the clear are overwritten.
+		commandBuffer.reset();
+		commandBuffer.clear(color);
+	}
+	
+	@Override
+	public void setPixel(int x, int y, int color) {
+		commandBuffer.setPixel(x, y, color);
+	}
+	
+	@Override
+	public int getPixel(int x, int y) {
+		flush();
+		
+		return super.getPixel(x, y);
+	}
+	
+	@Override
+	public void fillRect(int x, int y, int width, int height) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.fillRect(x, y, width, height);
+			return;
+		}
+		
+		commandBuffer.fillRect(x + offsetX, y + offsetY, width, height, color);
+	}
+	
+	@Override
+	public void drawLine(int x0, int y0, int x1, int y1) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawLine(x0, y0, x1, y1);
+			return;
+		}
+		
+		commandBuffer.drawLine(x0 + offsetX, y0 + offsetY, x1 + offsetX, y1 + offsetY, color);
+	}
+	
+	@Override
+	public void drawVerticalLine(int x, int y0, int y1) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawVerticalLine(x, y0, y1);
+			return;
+		}
+		
+		commandBuffer.drawVerticalLine(x + offsetX, y0 + offsetY, y1 + offsetY, color);
+	}
+
+	@Override
+	public void drawHorizontalLine(int y, int x0, int x1) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawHorizontalLine(y, x0, x1);
+			return;
+		}
+		
+		commandBuffer.drawHorizontalLine(y + offsetY, x0 + offsetX, x1 + offsetX, color);
+	}
+	
+	@Override
+	public void drawLines(int[] coords, int count) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawLines(coords, count);
+			return;
+		}
+		
+		commandBuffer.drawLines(coords, 0, count, offsetX, offsetY, color);
+	}
+
+	@Override
+	public void drawPolyline(int[] coords, int count) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawPolyline(coords, count);
+			return;
+		}
+		
+		commandBuffer.drawPolyline(coords, 0, count, offsetX, offsetY, color);
+	}
+	
+	@Override
+	public void drawPixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height, boolean transparent) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawPixels(src, srcOffset, srcStride, x, y, width, height, transparent);
+			return;
+		}
+		
+		commandBuffer.drawPixels(src, srcOffset, srcStride, x + offsetX, y + offsetY, width, height, transparent);
+	}
+	
+	@Override
+	public void drawSprite(Sprite sprite, int x, int y, int flags) {
+		if (isTransformed()) {
+			// Records the transformed primitive
+			super.drawSprite(sprite, x, y, flags);
+			return;
+		}
+		
+		commandBuffer.drawSprite(sprite, x + offsetX, y + offsetY, flags);
+	}
+	
+	@Override
+	protected void rasterizeRect(int x, int y, int width, int height) {
+		commandBuffer.fillRect(x, y, width, height, color);
+	}
+
+	@Override
+	protected void rasterizeLine(int x0, int y0, int x1, int y1) {
+		commandBuffer.drawLine(x0, y0, x1, y1, color);
+	}
+
+	@Override
+	protected void rasterizePixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height, boolean transparent) {
+		commandBuffer.drawPixels(src, srcOffset, srcStride, x, y, width, height, transparent);
+	}
+
+	@Override
+	protected void rasterizeSprite(Sprite sprite, int x, int y, int flags) {
+		commandBuffer.drawSprite(sprite, x, y, flags);
+	}
+
+	@Override
+	protected void rasterizeTransformedRect(float width, float height, Transform2D t) {
+		commandBuffer.fillTransformedRect(width, height, t, color);
+	}
+
+	@Override
+	protected void rasterizeTransformedPixels(int[] src, int srcOffset, int srcStride, int width, int height, Transform2D t, int mode) {
+		commandBuffer.drawTransformedPixels(src, srcOffset, srcStride, width, height, t, mode);
+	}
+
+	@Override
+	protected void rasterizeTransformedSprite(Sprite sprite, Transform2D t) {
+		commandBuffer.drawTransformedSprite(sprite, t);
+	}
+
+	@Override
+	protected void rasterizeComposite(int[] src, int srcOffset, int srcStride, int x, int y,
+	                                  int width, int height, int mode, int opacity) {
+		
+		commandBuffer.compositePixels(src, srcOffset, srcStride, x, y, width, height, mode, opacity);
+	}
+	
+	@Override
+	public void drawString(String str, int x, int y) {
+		commandBuffer.drawString(getGlyphCache(), str, x, y, color);
+	}
+	
+	@Override
+	public void applyFilter(IPixelFilter filter) {
+		flush();
+		
+		super.applyFilter(filter);
+	}
+
+	@Override
+	public void applyFilter(IPixelFilter filter, int x, int y, int width, int height) {
+		flush();
+
+		super.applyFilter(filter, x, y, width, height);
+	}
+	
+	@Override
+	public int[] getPixelBuffer() {
+		flush();
+		
+		return super.getPixelBuffer();
+	}
+
+	@Override
+	public PixelRasterizer getPixelRasterizer() {
+		flush();
+		
+		return super.getPixelRasterizer();
+	}
+	
+	public JobSystem getJobSystem() {
+		return jobSystem;
+	}
+	
+	@Override
+	public void dispose() {
+		commandBuffer.reset();
+		strips = null;
+		stripRows = null;
+		
+		super.dispose();
+	}
+}
@@ -0,0 +1,749 @@
+package com.g4mesoft.graphic;
+
+/**
+ * A rasterizer drawing primitives directly into an array of pixels, while
+ * clipping them to a rectangular region of the array. The primitives produce
+ * exactly the same pixels regardless of the clipping region, such that a frame
+ * can be split into several regions, which are rasterized independently and
+ * concurrently by different threads.
+ * <br><br>
+ * All coordinates given to the rasterizer are in pixels of the array, which
+ * means that any offsets or transformations of the renderer must have been
+ * applied beforehand.
+ * 
+ * @see PixelRenderer2D
+ * @see ParallelPixelRenderer2D
+ */
+public class PixelRasterizer {
+
+	/* The ways source pixels are written by drawTransformedPixels */
+	public static final int PIXELS_OPAQUE        = 0;
+	public static final int PIXELS_TRANSPARENT   = 1;
+	public static final int PIXELS_PREMULTIPLIED = 2;
+	
+	/* The ways premultiplied pixels are combined by compositePixels */
+	public static final int COMPOSITE_OPAQUE   = 0;
+	public static final int COMPOSITE_ALPHA    = 1;
+	public static final int COMPOSITE_ADDITIVE = 2;
+	
+	/* The amount of fractional bits of mapped coordinates */
+	private static final int FIXED_POINT_BITS = 16;
+	private static final double FIXED_POINT_ONE = 1 << FIXED_POINT_BITS;
+	/* The maximum size of transformed pixel regions, such that they fit in fixed-point */
+	private static final int MAX_TRANSFORMED_SIZE = (1 << (31 - FIXED_POINT_BITS)) - 1;
+
+	private final int[] pixels;
+	private final int stride;
+	
+	/* Clipping region, where the max is exclusive */
+	private int clipX0;
+	private int clipY0;
+	private int clipX1;
+	private int clipY1;
+	
+	private final TransformedSpans spans;
+	
+	public PixelRasterizer(int[] pixels, int width, int height) {
+		this(pixels, width, 0, 0, width, height);
+	}
+
+	/**
+	 * Constructs a rasterizer, which draws into the given pixel array. The
+	 * pixels outside the clipping region are never modified.
+	 * 
+	 * @param pixels - the pixel array, stored with y-major ordering
+	 * @param stride - the width of the pixel array
+	 * @param clipX0 - the minimum x-coordinate of the clipping region
+	 * @param clipY0 - the minimum y-coordinate of the clipping region
+	 * @param clipX1 - the maximum x-coordinate of the clipping region (exclusive)
+	 * @param clipY1 - the maximum y-coordinate of the clipping region (exclusive)
+	 */
+	public PixelRasterizer(int[] pixels, int stride, int clipX0, int clipY0, int clipX1, int clipY1) {
+		if (pixels == null)
+			throw new NullPointerException("pixels is null!");
+		
+		this.pixels = pixels;
+		this.stride = stride;
+		
+		spans = new TransformedSpans();
+		
+		setClip(clipX0, clipY0, clipX1, clipY1);
+	}
+	
+	/**
+	 * Sets the clipping region of the rasterizer. The region must lie within
+	 * the bounds of the pixel array.
+	 * 
+	 * @param clipX0 - the minimum x-coordinate of the clipping region
+	 * @param clipY0 - the minimum y-coordinate of the clipping region
+	 * @param clipX1 - the maximum x-coordinate of the clipping region (exclusive)
+	 * @param clipY1 - the maximum y-coordinate of the clipping region (exclusive)
+	 */
+	public void setClip(int clipX0, int clipY0, int clipX1, int clipY1) {
+		this.clipX0 = clipX0;
+		this.clipY0 = clipY0;
+		this.clipX1 = clipX1;
+		this.clipY1 = clipY1;
+	}
+	
+	public void clear(int color) {
+		for (int yp = clipY0; yp < clipY1; yp++) {
+			int i = clipX0 + yp * stride;
+			for (int xp = clipX0; xp < clipX1; xp++)
+				pixels[i++] = color;
+		}
+	}
+	
+	public void setPixel(int x, int y, int color) {
+		if (x >= clipX0 && x < clipX1 && y >= clipY0 && y < clipY1)
+			pixels[x + y * stride] = color;
+	}
+	
+	public void fillRect(int x, int y, int width, int height, int color) {
+		int x0 = x < clipX0 ? clipX0 : x;
+
+		int x1 = x + width;
+		if (x1 > clipX1)
+			x1 = clipX1;
+		
+		int y1 = y + height;
+		if (y1 > clipY1)
+			y1 = clipY1;
+
+		int yp = y < clipY0 ? clipY0 : y;
+
+		// x1 and y1 are exclusive.
+		for ( ; yp < y1; yp++) {
+			int i = x0 + yp * stride;
+			for (int xp = x0; xp < x1; xp++)
+				pixels[i++] = color;
+		}
+	}
+	
+	public void drawLine(int x0, int y0, int x1, int y1, int color) {
+		int dx = x1 - x0;
+		if (dx == 0) {
+			drawVerticalLine(x0, y0, y1, color);
+			return;
+		}
+
+		int dy = y1 - y0;
+		if (dy == 0) {
+			drawHorizontalLine(y0, x0, x1, color);
+			return;
+		}
+		
+		// If the line is diagonal we
+		// draw the line using Bresenham's 
+		// line algorithm.
+		
+		int xi;
+		if (dx < 0) {
+			xi = -1;
+			dx = -dx;
+		} else xi = 1;
+
+		int yi;
+		if (dy < 0) {
+			yi = -1;
+			dy = -dy;
+		} else yi = 1;
+		
+		long base = x0 + (long)y0 * stride;
+		if (dx > dy) {
+			drawClippedLine(base, x0, y0, xi, yi, dx, dy, clipX0, clipX1,
+			                clipY0, clipY1, xi, yi * stride, color);
+		} else {
+			drawClippedLine(base, y0, x0, yi, xi, dy, dx, clipY0, clipY1,
+			                clipX0, clipX1, yi * stride, xi, color);
+		}
+	}
+	
+	/**
+	 * Draws the pixels of a diagonal line, which lie within the clipping
+	 * region. The line is given in terms of its major axis, which is the axis
+	 * with the largest extent, and its minor axis. Rather than clipping the
+	 * end points of the line, the first and last step of Bresenham's line
+	 * algorithm within the clipping region are computed exactly. The state of
+	 * the algorithm is then computed at the first step, such that the clipped
+	 * line consists of exactly the same pixels as the unclipped line, and the
+	 * pixels can be drawn without bounds checks.
+	 */
+	private void drawClippedLine(long base, int major0, int minor0, int majorInc, int minorInc,
+	                             int majorLen, int minorLen, int majorMin, int majorMax,
+	                             int minorMin, int minorMax, int majorStep, int minorStep, int color) {
+		
+		// The range of steps, where the major
+		// coordinate lies within the clip.
+		long i0, i1;
+		if (majorInc > 0) {
+			i0 = (long)majorMin - major0;
+			i1 = (long)majorMax - 1 - major0;
+		} else {
+			i0 = (long)major0 - majorMax + 1;
+			i1 = (long)major0 - majorMin;
+		}
+		
+		// The range of steps taken along the minor
+		// axis, where the minor coordinate is in the clip.
+		long k0, k1;
+		if (minorInc > 0) {
+			k0 = (long)minorMin - minor0;
+			k1 = (long)minorMax - 1 - minor0;
+		} else {
+			k0 = (long)minor0 - minorMax + 1;
+			k1 = (long)minor0 - minorMin;
+		}
+		
+		long a = majorLen;
+		long b = minorLen;
+		
+		// After i steps along the major axis, the amount of steps
+		// taken along the minor axis is ceil((2bi - a) / 2a).
+		if (k0 > 0)
+			i0 = Math.max(i0, (2 * a * (k0 - 1) + a) / (2 * b) + 1);
+		if (k1 < 0)
+			return;
+		i1 = Math.min(i1, (2 * a * k1 + a) / (2 * b));
+		
+		if (i0 < 0)
+			i0 = 0;
+		if (i1 > majorLen)
+			i1 = majorLen;
+		if (i0 > i1)
+			return;
+		
+		long k = Math.floorDiv(2 * b * i0 + a - 1, 2 * a);
+		int d = (int)(2 * b * (i0 + 1) - a - 2 * a * k);
+		int i = (int)(base + i0 * majorStep + k * minorStep);
+		
+		int twoA = 2 * majorLen;
+		int twoB = 2 * minorLen;
+		for (int n = (int)(i1 - i0); n >= 0; n--) {
+			pixels[i] = color;
+			
+			if (d > 0) {
+				i += minorStep;
+				d -= twoA;
+			}
+			d += twoB;
+			i += majorStep;
+		}
+	}
+	
+	/**
+	 * Draws several lines, where the end points of the lines are stored in the
+	 * given array as {@code x0, y0, x1, y1} for each line. The given offset is
+	 * added to every coordinate.
+	 * 
+	 * @param coords - the coordinates of the end points
+	 * @param offset - the index of the first coordinate
+	 * @param count - the amount of lines
+	 * @param tx - the offset added to the x-coordinates
+	 * @param ty - the offset added to the y-coordinates
+	 * @param color - the color of the lines
+	 */
+	public void drawLines(int[] coords, int offset, int count, int tx, int ty, int color) {
+		int end = offset + count * 4;
+		for (int i = offset; i < end; i += 4)
+			drawLine(coords[i] + tx, coords[i + 1] + ty, coords[i + 2] + tx, coords[i + 3] + ty, color);
+	}
+
+	/**
+	 * Draws a sequence of connected lines, where the points are stored in the
+	 * given array as {@code x, y} for each point. The given offset is added to
+	 * every coordinate.
+	 * 
+	 * @param coords - the coordinates of the points
+	 * @param offset - the index of the first coordinate
+	 * @param count - the amount of points
+	 * @param tx - the offset added to the x-coordinates
+	 * @param ty - the offset added to the y-coordinates
+	 * @param color - the color of the lines
+	 */
+	public void drawPolyline(int[] coords, int offset, int count, int tx, int ty, int color) {
+		int end = offset + (count - 1) * 2;
+		for (int i = offset; i < end; i += 2)
+			drawLine(coords[i] + tx, coords[i + 1] + ty, coords[i + 2] + tx, coords[i + 3] + ty, color);
+	}
+	
+	public void drawVerticalLine(int x, int y0, int y1, int color) {
+		if (x < clipX0 || x >= clipX1)
+			return;
+
+		if (y0 > y1) {
+			int tmp = y0;
+			y0 = y1;
+			y1 = tmp;
+		}
+
+		// Make sure our line is in bounds
+		if (y0 >= clipY1 || y1 < clipY0)
+			return;
+		
+		if (y1 >= clipY1) 
+			y1 = clipY1 - 1;
+		if (y0 < clipY0) 
+			y0 = clipY0;
+
+		// Set pixels
+		int i = x + y0 * stride;
+		for (int yp = y0; yp <= y1; yp++) {
+			pixels[i] = color;
+			i += stride;
+		}
+	}
+
+	public void drawHorizontalLine(int y, int x0, int x1, int color) {
+		if (y < clipY0 || y >= clipY1)
+			return;
+
+		if (x0 > x1) {
+			int tmp = x0;
+			x0 = x1;
+			x1 = tmp;
+		}
+		
+		// Make sure our line is in bounds
+		if (x0 >= clipX1 || x1 < clipX0)
+			return;
+		
+		if (x1 >= clipX1) 
+			x1 = clipX1 - 1;
+		if (x0 < clipX0) 
+			x0 = clipX0;
+		
+		// Set pixels
+		int i = x0 + y * stride;
+		for (int xp = x0; xp <= x1; xp++)
+			pixels[i++] = color;
+	}
+	
+	public void drawPixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height, boolean transparent) {
+		int x0 = x < clipX0 ? clipX0 : x;
+		int y0 = y < clipY0 ? clipY0 : y;
+
+		int x1 = x + width;
+		if (x1 > clipX1)
+			x1 = clipX1;
+		
+		int y1 = y + height;
+		if (y1 > clipY1)
+			y1 = clipY1;
+		
+		int w = x1 - x0;
+		if (w <= 0)
+			return;
+		
+		// x1 and y1 are exclusive.
+		for (int yp = y0; yp < y1; yp++) {
+			int si = srcOffset + (x0 - x) + (yp - y) * srcStride;
+			int di = x0 + yp * stride;
+			
+			if (transparent) {
+				for (int xp = x0; xp < x1; xp++) {
+					int pixel = src[si++];
+					if ((pixel & 0xFF000000) != 0)
+						pixels[di] = pixel | 0xFF000000;
+					di++;
+				}
+			} else {
+				System.arraycopy(src, si, pixels, di, w);
+			}
+		}
+	}
+	
+	/**
+	 * Combines a region of the given premultiplied ARGB pixels with the pixels
+	 * of this rasterizer. The source pixels are first scaled by the given
+	 * opacity, and are then combined using the given mode:
+	 * <ul>
+	 * <li>{@link #COMPOSITE_OPAQUE}: the pixels replace the destination.</li>
+	 * <li>{@link #COMPOSITE_ALPHA}: the pixels are drawn over the destination,
+	 *     i.e. {@code src + dst * (1 - alpha)}.</li>
+	 * <li>{@link #COMPOSITE_ADDITIVE}: the pixels are added to the destination,
+	 *     where every channel is saturated at 255.</li>
+	 * </ul>
+	 * The alpha channel is combined the same way as the colors, such that the
+	 * destination can itself be composited later. The region is clipped once,
+	 * and every row is combined by a loop without bounds checks.
+	 * 
+	 * @param src - the premultiplied pixel array to composite from
+	 * @param srcOffset - the index of the top-left pixel of the region
+	 * @param srcStride - the width of the source pixel array
+	 * @param x - the x-coordinate of the region in this rasterizer
+	 * @param y - the y-coordinate of the region in this rasterizer
+	 * @param width - the width of the region
+	 * @param height - the height of the region
+	 * @param mode - the way the pixels are combined
+	 * @param opacity - the opacity of the region from 0 to 255
+	 */
+	public void compositePixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height,
+	                            int mode, int opacity) {
+		
+		if (mode != COMPOSITE_OPAQUE && mode != COMPOSITE_ALPHA && mode != COMPOSITE_ADDITIVE)
+			throw new IllegalArgumentException("Unknown mode: " + mode);
+		
+		int x0 = x < clipX0 ? clipX0 : x;
+		int y0 = y < clipY0 ? clipY0 : y;
+
+		int x1 = x + width;
+		if (x1 > clipX1)
+			x1 = clipX1;
+		
+		int y1 = y + height;
+		if (y1 > clipY1)
+			y1 = clipY1;
+		
+		int w = x1 - x0;
+		if (w <= 0 || opacity <= 0)
+			return;
+		
+		// Map the opacity from [0, 255] to [0, 256]
+		int o = Math.min(opacity, 0xFF);
+		o += o >>> 7;
+		
+		// x1 and y1 are exclusive.
+		for (int yp = y0; yp < y1; yp++) {
+			int si = srcOffset + (x0 - x) + (yp - y) * srcStride;
+			int di = x0 + yp * stride;
+			
+			switch (mode) {
+			case COMPOSITE_OPAQUE:
+				if (o == 0x100) {
+					System.arraycopy(src, si, pixels, di, w);
+				} else {
+					mixRow(src, si, pixels, di, w, o);
+				}
+				break;
+			case COMPOSITE_ALPHA:
+				overRow(src, si, pixels, di, w, o);
+				break;
+			case COMPOSITE_ADDITIVE:
+				addRow(src, si, pixels, di, w, o);
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Scales every channel of the given pixel by the opacity. The red and blue
+	 * channels, and the alpha and green channels, are scaled at the same time.
+	 */
+	private static int scalePixel(int pixel, int o) {
+		int rb = (((pixel & 0xFF00FF) * o) >>> 8) & 0xFF00FF;
+		int ag = (((pixel >>> 8) & 0xFF00FF) * o) & 0xFF00FF00;
+		return rb | ag;
+	}
+	
+	/* src * opacity + dst * (1 - opacity) */
+	private static void mixRow(int[] src, int si, int[] dst, int di, int count, int o) {
+		int io = 0x100 - o;
+		for ( ; count > 0; count--) {
+			int s = src[si++];
+			int d = dst[di];
+			int rb = (((s & 0xFF00FF) * o + (d & 0xFF00FF) * io) >>> 8) & 0xFF00FF;
+			int ag = (((s >>> 8) & 0xFF00FF) * o + ((d >>> 8) & 0xFF00FF) * io) & 0xFF00FF00;
+			dst[di++] = rb | ag;
+		}
+	}
+
+	/* src + dst * (1 - alpha), see Sprite */
+	private static void overRow(int[] src, int si, int[] dst, int di, int count, int o) {
+		for ( ; count > 0; count--) {
+			int s = src[si++];
+			if (o != 0x100)
+				s = scalePixel(s, o);
+			
+			int a = s >>> 24;
+			if (a == 0xFF) {
+				dst[di] = s;
+			} else if (a != 0x00) {
+				int d = dst[di];
+				int ia = 0x100 - a;
+				int rb = (((d & 0xFF00FF) * ia) >>> 8) & 0xFF00FF;
+				int ag = (((d >>> 8) & 0xFF00FF) * ia) & 0xFF00FF00;
+				dst[di] = s + rb + ag;
+			}
+			di++;
+		}
+	}
+
+	/* min(src + dst, 255) for every channel */
+	private static void addRow(int[] src, int si, int[] dst, int di, int count, int o) {
+		for ( ; count > 0; count--) {
+			int s = src[si++];
+			if (o != 0x100)
+				s = scalePixel(s, o);
+			
+			if (s != 0) {
+				int d = dst[di];
+				int rb = (d & 0xFF00FF) + (s & 0xFF00FF);
+				int ag = ((d >>> 8) & 0xFF00FF) + ((s >>> 8) & 0xFF00FF);
+				
+				// Saturate the channels, which overflowed
+				rb |= (rb & 0x1000100) - ((rb & 0x1000100) >>> 8);
+				ag |= (ag & 0x1000100) - ((ag & 0x1000100) >>> 8);
+				
+				dst[di] = (rb & 0xFF00FF) | ((ag & 0xFF00FF) << 8);
+			}
+			di++;
+		}
+	}
+	
+	/**
+	 * Fills the rectangle {@code [0, width) x [0, height)}, mapped by the given
+	 * transformation. Every pixel, whose center is mapped into the rectangle
+	 * by the inverse transformation, is filled.
+	 * 
+	 * @param width - the width of the rectangle
+	 * @param height - the height of the rectangle
+	 * @param transform - the transformation of the rectangle
+	 * @param color - the color of the rectangle
+	 * 
+	 * @see #drawTransformedPixels(int[], int, int, int, int, Transform2D, int)
+	 */
+	public void fillTransformedRect(float width, float height, Transform2D transform, int color) {
+		TransformedSpans spans = this.spans;
+		if (!spans.init(transform, width, height))
+			return;
+		
+		for (int yp = spans.y0; yp < spans.y1; yp++) {
+			if (spans.computeSpan(yp)) {
+				int i = spans.x0 + yp * stride;
+				for (int n = spans.x1 - spans.x0; n > 0; n--)
+					pixels[i++] = color;
+			}
+		}
+	}
+	
+	/**
+	 * Draws a region of the given pixel array, mapped by the given
+	 * transformation. The pixels are drawn by inverse mapping: the center of
+	 * every pixel covered by the transformed region is mapped back to the
+	 * source using fixed-point arithmetic, and the nearest source pixel is
+	 * drawn. The range of pixels covered on each row is computed beforehand,
+	 * such that the inner loop does not check the bounds of the source. The
+	 * given mode specifies how the source pixels are written:
+	 * <ul>
+	 * <li>{@link #PIXELS_OPAQUE}: every pixel is copied.</li>
+	 * <li>{@link #PIXELS_TRANSPARENT}: pixels with an alpha of zero are
+	 *     skipped, and the remaining pixels are drawn opaque.</li>
+	 * <li>{@link #PIXELS_PREMULTIPLIED}: the pixels are premultiplied by
+	 *     their alpha, and are blended with the destination.</li>
+	 * </ul>
+	 * 
+	 * @param src - the pixel array to draw from
+	 * @param srcOffset - the index of the top-left pixel of the region
+	 * @param srcStride - the width of the source pixel array
+	 * @param width - the width of the region
+	 * @param height - the height of the region
+	 * @param transform - the transformation from the region to the pixels of
+	 *                    this rasterizer
+	 * @param mode - the way the pixels are written
+	 */
+	public void drawTransformedPixels(int[] src, int srcOffset, int srcStride, int width, int height,
+	                                  Transform2D transform, int mode) {
+		
+		if (width > MAX_TRANSFORMED_SIZE || height > MAX_TRANSFORMED_SIZE)
+			throw new IllegalArgumentException("Region is too large: " + width + "x" + height);
+		
+		TransformedSpans spans = this.spans;
+		if (!spans.init(transform, width, height))
+			return;
+
+		for (int yp = spans.y0; yp < spans.y1; yp++) {
+			if (!spans.computeSpan(yp))
+				continue;
+			
+			int u = (int)spans.u;
+			int v = (int)spans.v;
+			int du = (int)spans.du;
+			int dv = (int)spans.dv;
+			
+			int di = spans.x0 + yp * stride;
+			int end = spans.x1 + yp * stride;
+			
+			switch (mode) {
+			case PIXELS_OPAQUE:
+				for ( ; di < end; di++) {
+					pixels[di] = src[srcOffset + (u >> FIXED_POINT_BITS) + (v >> FIXED_POINT_BITS) * srcStride];
+					u += du;
+					v += dv;
+				}
+				break;
+			case PIXELS_TRANSPARENT:
+				for ( ; di < end; di++) {
+					int pixel = src[srcOffset + (u >> FIXED_POINT_BITS) + (v >> FIXED_POINT_BITS) * srcStride];
+					if ((pixel & 0xFF000000) != 0)
+						pixels[di] = pixel | 0xFF000000;
+					u += du;
+					v += dv;
+				}
+				break;
+			case PIXELS_PREMULTIPLIED:
+				for ( ; di < end; di++) {
+					int pixel = src[srcOffset + (u >> FIXED_POINT_BITS) + (v >> FIXED_POINT_BITS) * srcStride];
+					int a = pixel >>> 24;
+					if (a == 0xFF) {
+						pixels[di] = pixel;
+					} else if (a != 0x00) {
+						// src + dst * (1 - alpha), see Sprite
+						int d = pixels[di];
+						int ia = 0x100 - a;
+						int rb = (((d & 0xFF00FF) * ia) >>> 8) & 0xFF00FF;
+						int ag = (((d >>> 8) & 0xFF00FF) * ia) & 0xFF00FF00;
+						pixels[di] = pixel + rb + ag;
+					}
+					u += du;
+					v += dv;
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown mode: " + mode);
+			}
+		}
+	}
+	
+	public int[] getPixels() {
+		return pixels;
+	}
+	
+	public int getStride() {
+		return stride;
+	}
+
+	public int getClipX0() {
+		return clipX0;
+	}
+
+	public int getClipY0() {
+		return clipY0;
+	}
+
+	public int getClipX1() {
+		return clipX1;
+	}
+	
+	public int getClipY1() {
+		return clipY1;
+	}
+
+	/**
+	 * Computes the spans of pixels covered by a transformed rectangle. The
+	 * inverse transformation is stored in fixed-point, such that the mapped
+	 * coordinates are exactly linear along each row. The span of a row is
+	 * then found by solving the linear inequalities of the rectangle.
+	 */
+	private class TransformedSpans {
+		
+		/* The inverse mapping of the center of pixel (0, 0), and its derivatives */
+		private long u00, v00;
+		private long dudx, dvdx;
+		private long dudy, dvdy;
+		/* The size of the source rectangle in fixed-point */
+		private long su, sv;
+		
+		/* The rows covered by the rectangle (max exclusive) */
+		private int y0, y1;
+		
+		/* The span of the current row (max exclusive), and the mapped start */
+		private int x0, x1;
+		private long u, v, du, dv;
+		
+		public boolean init(Transform2D transform, float width, float height) {
+			if (width <= 0.0f || height <= 0.0f)
+				return false;
+			
+			// Compute the inverse in double precision
+			double m00 = transform.m00, m10 = transform.m10, m20 = transform.m20;
+			double m01 = transform.m01, m11 = transform.m11, m21 = transform.m21;
+			
+			double det = m00 * m11 - m10 * m01;
+			if (det == 0.0 || Double.isNaN(det) || Double.isInfinite(det))
+				return false;
+			
+			double i00 =  m11 / det, i10 = -m10 / det;
+			double i01 = -m01 / det, i11 =  m00 / det;
+			double i20 = -(i00 * m20 + i10 * m21);
+			double i21 = -(i01 * m20 + i11 * m21);
+
+			dudx = Math.round(i00 * FIXED_POINT_ONE);
+			dvdx = Math.round(i01 * FIXED_POINT_ONE);
+			dudy = Math.round(i10 * FIXED_POINT_ONE);
+			dvdy = Math.round(i11 * FIXED_POINT_ONE);
+			u00 = Math.round((0.5 * (i00 + i10) + i20) * FIXED_POINT_ONE);
+			v00 = Math.round((0.5 * (i01 + i11) + i21) * FIXED_POINT_ONE);
+			
+			su = Math.round(width * FIXED_POINT_ONE);
+			sv = Math.round(height * FIXED_POINT_ONE);
+			
+			// The rows are bounded by the corners of the rectangle
+			double cy0 = m21;
+			double cy1 = m01 * width + m21;
+			double cy2 = m11 * height + m21;
+			double cy3 = m01 * width + m11 * height + m21;
+			double minY = Math.min(Math.min(cy0, cy1), Math.min(cy2, cy3));
+			double maxY = Math.max(Math.max(cy0, cy1), Math.max(cy2, cy3));
+			
+			y0 = (int)Math.max(clipY0, Math.floor(minY));
+			y1 = (int)Math.min(clipY1, Math.ceil(maxY) + 1.0);
+			
+			return y0 < y1 && clipX0 < clipX1;
+		}
+		
+		/**
+		 * Computes the span of pixels covered on the given row.
+		 * 
+		 * @return True, if the span is not empty.
+		 */
+		public boolean computeSpan(int yp) {
+			long ru = u00 + yp * dudy;
+			long rv = v00 + yp * dvdy;
+			
+			long lo = clipX0;
+			long hi = clipX1;
+			
+			// Solve 0 <= ru + x * dudx < su
+			if (dudx == 0L) {
+				if (ru < 0L || ru >= su)
+					return false;
+			} else if (dudx > 0L) {
+				lo = Math.max(lo, ceilDiv(-ru, dudx));
+				hi = Math.min(hi, ceilDiv(su - ru, dudx));
+			} else {
+				lo = Math.max(lo, Math.floorDiv(ru - su, -dudx) + 1L);
+				hi = Math.min(hi, Math.floorDiv(ru, -dudx) + 1L);
+			}
+
+			// Solve 0 <= rv + x * dvdx < sv
+			if (dvdx == 0L) {
+				if (rv < 0L || rv >= sv)
+					return false;
+			} else if (dvdx > 0L) {
+				lo = Math.max(lo, ceilDiv(-rv, dvdx));
+				hi = Math.min(hi, ceilDiv(sv - rv, dvdx));
+			} else {
+				lo = Math.max(lo, Math.floorDiv(rv - sv, -dvdx) + 1L);
+				hi = Math.min(hi, Math.floorDiv(rv, -dvdx) + 1L);
+			}
+			
+			if (lo >= hi)
+				return false;
+
+			x0 = (int)lo;
+			x1 = (int)hi;
+			
+			u = ru + lo * dudx;
+			v = rv + lo * dvdx;
+			du = dudx;
+			dv = dvdx;
+
+			return true;
+		}
+	}
+	
+	private static long ceilDiv(long a, long b) {
+		return -Math.floorDiv(-a, b);
+	}
+}
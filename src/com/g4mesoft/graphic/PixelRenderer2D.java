@@ -1,38 +1,113 @@
 package com.g4mesoft.graphic;
 
-import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 
+import com.g4mesoft.graphic.ScaledPresenter.PresentStrategy;
 import com.g4mesoft.graphic.filter.IPixelFilter;
+import com.g4mesoft.graphic.sprite.Sprite;
 import com.g4mesoft.math.MathUtils;
 
 public class PixelRenderer2D implements IRenderer2D {
 
+	/* The fraction of the screen which, when dirty, causes a full frame */
+	private static final float FULL_FRAME_DIRTY_RATIO = 0.5f;
+	
 	protected final IViewport viewport;
+	private final int imageType;
 	
 	protected int width;
 	protected int height;
 
+	/* The buffer currently drawn to, of which the pixels are mirrored below */
+	private FrameBuffer currentBuffer;
 	private BufferedImage screen;
 	protected int[] pixels;
+	protected PixelRasterizer rasterizer;
 
 	private Graphics g;
+	private Font font;
+	private GlyphCache glyphCache;
+	private FontMetricsCache metricsCache;
 
 	protected int offsetX;
 	protected int offsetY;
+	
+	private final Transform2D transform;
+	private Transform2D[] transformStack;
+	private int transformDepth;
+	private boolean transformed;
+	/* The transformation of the current primitive to the pixels */
+	private final Transform2D pixelTransform;
 
 	protected int color;
 	private GColor backdropColor;
+	
+	private boolean dirtyTracking;
+	private final DirtyRegion pendingDirty;
+	private final DirtyRegion frameDirty;
+	private final DirtyRegion presentDirty;
+	private final DirtyRegion[] dirtyHistory;
+	private int dirtyHistoryIndex;
+	private int presentWidth;
+	private int presentHeight;
+	/* Read by the presenter thread, when pipelined */
+	private volatile boolean partialPresent;
+	private ScaledPresenter presenter;
+	
+	private boolean pipelined;
+	/* The buffer presented while the current buffer is drawn */
+	private FrameBuffer spareBuffer;
+	/* The regions drawn in the previous frame, which was drawn to the spare buffer */
+	private final DirtyRegion previousDirty;
+	/* The target of the frame currently drawn, if it is pipelined */
+	private IPresentTarget presentTarget;
+	
+	private final Object presentLock = new Object();
+	private PresenterThread presenterThread;
+	/* The frame handed to the presenter thread, or null if it is idle */
+	private FrameBuffer submittedFrame;
+	private Throwable presentError;
 
 	public PixelRenderer2D(int width, int height) {
 		this(null, width, height);
 	}
 	
 	public PixelRenderer2D(IViewport viewport, int width, int height) {
+		this(viewport, width, height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	/**
+	 * Constructs a pixel renderer, where the pixels are stored in an image of
+	 * the given type. The type must be an integer type, such as
+	 * {@code BufferedImage.TYPE_INT_ARGB}, since the pixels are accessed as an
+	 * integer array.
+	 * 
+	 * @param viewport - the viewport of the renderer, or null
+	 * @param width - the width of the renderer in pixels
+	 * @param height - the height of the renderer in pixels
+	 * @param imageType - the type of the image storing the pixels
+	 */
+	protected PixelRenderer2D(IViewport viewport, int width, int height, int imageType) {
 		this.viewport = (viewport == null) ? new BasicViewport(width, height) : viewport;
+		this.imageType = imageType;
+		
+		dirtyTracking = false;
+		pendingDirty = new DirtyRegion(width, height);
+		frameDirty = new DirtyRegion(width, height);
+		presentDirty = new DirtyRegion(width, height);
+		previousDirty = new DirtyRegion(width, height);
+		partialPresent = true;
+		
+		// Every back buffer of the display has to
+		// be updated with the regions it missed.
+		dirtyHistory = new DirtyRegion[Display.BUFFER_COUNT - 1];
+		for (int i = 0; i < dirtyHistory.length; i++)
+			dirtyHistory[i] = new DirtyRegion(width, height);
+		dirtyHistoryIndex = 0;
 		
 		setSize(width, height);
 		
@@ -41,53 +116,490 @@ public class PixelRenderer2D implements IRenderer2D {
 		offsetX = 0;
 		offsetY = 0;
 		
+		transform = new Transform2D();
+		transformStack = new Transform2D[0];
+		transformDepth = 0;
+		transformed = false;
+		pixelTransform = new Transform2D();
+		
 		color = 0;
 		backdropColor = GColor.BLACK;
 	}
 
 	public void setSize(int width, int height) {
+		// The presenter thread might still use the buffers
+		if (pipelined)
+			waitForPresent();
+		
 		this.width = width;
 		this.height = height;
 		
-		screen = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-		pixels = ((DataBufferInt)screen.getRaster().getDataBuffer()).getData();
+		setCurrentBuffer(new FrameBuffer(width, height, imageType));
+		spareBuffer = null;
+		
+		pendingDirty.setSize(width, height);
+		frameDirty.setSize(width, height);
+		presentDirty.setSize(width, height);
+		previousDirty.setSize(width, height);
+		for (DirtyRegion region : dirtyHistory)
+			region.setSize(width, height);
+
+		markAllDirty();
+	}
+	
+	private void setCurrentBuffer(FrameBuffer buffer) {
+		currentBuffer = buffer;
+		
+		screen = buffer.image;
+		pixels = buffer.pixels;
+		rasterizer = buffer.rasterizer;
 	}
 	
 	@Override
 	public boolean start(Graphics g) {
+		if (pipelined)
+			waitForPresent();
+		
+		if (dirtyTracking)
+			beginDirtyFrame();
+		
 		return (this.g = g) != null;
 	}
+	
+	private void beginDirtyFrame() {
+		frameDirty.set(pendingDirty);
+		if (pipelined) {
+			// The buffers alternate between frames, such that the
+			// regions drawn in the previous frame are also missing.
+			frameDirty.addAll(previousDirty);
+			previousDirty.set(pendingDirty);
+		}
+		pendingDirty.clear();
+		
+		if (!currentBuffer.drawn || frameDirty.getArea() > (long)(FULL_FRAME_DIRTY_RATIO * width * height))
+			frameDirty.setFull();
+		
+		if (frameDirty.isEmpty()) {
+			rasterizer.setClip(0, 0, 0, 0);
+		} else {
+			rasterizer.setClip(frameDirty.getBoundsX0(), frameDirty.getBoundsY0(),
+			                   frameDirty.getBoundsX1(), frameDirty.getBoundsY1());
+		}
+	}
 
 	@Override
 	public void stop() {
-		if (g != null) {
-			int dw = viewport.getWidth();
-			int dh = viewport.getHeight();
-			
-			int pixelDensity = MathUtils.min(dw / width, dh / height); 
-			if (pixelDensity <= 0)
-				pixelDensity = 1;
+		currentBuffer.drawn = true;
+		
+		if (presentTarget != null) {
+			IPresentTarget target = presentTarget;
+			presentTarget = null;
 			
-			int w = width * pixelDensity;
-			int h = height * pixelDensity;
-			int x = viewport.getX() + (dw - w) / 2;
-			int y = viewport.getY() + (dh - h) / 2;
-	
-			if (dw > w || dh > h) {
-				g.setColor(backdropColor.toAWTColor());
-				g.fillRect(0, 0, dw, dh);
+			submitFrame(target);
+		} else {
+			if (g != null) {
+				present(g);
+				g = null;
 			}
-			g.drawImage(screen, x, y, w, h, null);
 			
-			g = null;
+			if (dirtyTracking)
+				addDirtyHistory(frameDirty);
 		}
 
 		resetTransformations();
 	}
 	
+	private void addDirtyHistory(DirtyRegion region) {
+		// Remember the region for the following frames
+		dirtyHistory[dirtyHistoryIndex].set(region);
+		dirtyHistoryIndex = (dirtyHistoryIndex + 1) % dirtyHistory.length;
+	}
+	
+	/**
+	 * Starts rendering a pipelined frame, which is presented to the given
+	 * target by the presenter thread, when the frame is stopped. The frame is
+	 * drawn to one of the two buffers of the renderer, while the previous
+	 * frame is presented from the other.
+	 * 
+	 * @param target - the target to present the frame to
+	 * 
+	 * @return True, if the renderer has started rendering.
+	 * 
+	 * @throws IllegalStateException if the renderer is not pipelined.
+	 * 
+	 * @see #setPipelined(boolean)
+	 */
+	public boolean startPipelined(IPresentTarget target) {
+		if (target == null)
+			throw new NullPointerException("target is null!");
+		if (!pipelined)
+			throw new IllegalStateException("Renderer is not pipelined!");
+		
+		if (dirtyTracking)
+			beginDirtyFrame();
+		
+		presentTarget = target;
+		return true;
+	}
+	
+	private void submitFrame(IPresentTarget target) {
+		FrameBuffer frame = currentBuffer;
+		frame.target = target;
+		frame.dirtyTracking = dirtyTracking;
+		if (dirtyTracking)
+			frame.dirty.set(frameDirty);
+		
+		synchronized (presentLock) {
+			// The presenter thread has to be done with the
+			// spare buffer, before the next frame is drawn.
+			awaitPresenter();
+			
+			submittedFrame = frame;
+			presentLock.notifyAll();
+		}
+		
+		if (spareBuffer == null)
+			spareBuffer = new FrameBuffer(width, height, imageType);
+		
+		// Continue the clipping of the frame
+		spareBuffer.rasterizer.setClip(rasterizer.getClipX0(), rasterizer.getClipY0(),
+		                               rasterizer.getClipX1(), rasterizer.getClipY1());
+		
+		setCurrentBuffer(spareBuffer);
+		spareBuffer = frame;
+	}
+	
+	/**
+	 * Presents the given frame to its target. This is invoked by the presenter
+	 * thread, which is the only thread presenting while the renderer is
+	 * pipelined.
+	 */
+	private void presentPipelinedFrame(FrameBuffer frame) {
+		Graphics g = frame.target.beginPresent();
+		if (g == null) {
+			// The frame was skipped, so the next
+			// frame has to be presented entirely.
+			presentWidth = presentHeight = 0;
+			return;
+		}
+		
+		try {
+			if (frame.target.isContentsLost())
+				presentWidth = presentHeight = 0;
+			
+			presentFrame(g, frame.image, frame.pixels, frame.dirtyTracking ? frame.dirty : null);
+		} finally {
+			frame.target.endPresent(g);
+		}
+		
+		if (frame.dirtyTracking)
+			addDirtyHistory(frame.dirty);
+	}
+	
+	/**
+	 * Waits until the presenter thread has presented the last frame. Any
+	 * exception thrown while presenting is rethrown. Must be invoked while
+	 * holding the present lock.
+	 */
+	private void awaitPresenter() {
+		boolean interrupted = false;
+		while (submittedFrame != null) {
+			try {
+				presentLock.wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		
+		if (presentError != null) {
+			Throwable error = presentError;
+			presentError = null;
+			throw new IllegalStateException("Unable to present frame", error);
+		}
+	}
+	
+	/**
+	 * Waits until the presenter thread has presented the frames, which have
+	 * been rendered. If the renderer is not pipelined, this returns
+	 * immediately. This should be invoked before the target of the frames is
+	 * modified, for example when changing display mode.
+	 */
+	public void waitForPresent() {
+		synchronized (presentLock) {
+			awaitPresenter();
+		}
+	}
+	
+	/**
+	 * Sets whether frames are presented by a separate presenter thread. When
+	 * pipelined, the renderer uses two buffers: while the presenter thread
+	 * scales and shows a frame from one buffer, the next frame is drawn to the
+	 * other. The time spent presenting is thereby hidden, at the cost of one
+	 * frame of latency. Pipelined frames are started using
+	 * {@link #startPipelined(IPresentTarget)}, which is done by the
+	 * {@link Display} when its renderer is pipelined:
+	 * <pre>
+	 *   PixelRenderer2D renderer = new PixelRenderer2D(display, 320, 180);
+	 *   renderer.setPipelined(true);
+	 *   display.setRenderer(renderer);
+	 * </pre>
+	 * Since the buffers alternate, the pixel buffer of a frame contains the
+	 * frame drawn two frames ago. Every frame should therefore be drawn
+	 * entirely, or be drawn with dirty tracking enabled, in which case the
+	 * regions drawn in the previous frame are redrawn as well.
+	 * 
+	 * @param pipelined - true, if frames should be presented by a separate
+	 *                    presenter thread.
+	 * 
+	 * @throws IllegalStateException if the renderer is currently rendering.
+	 */
+	public void setPipelined(boolean pipelined) {
+		if (isRendering())
+			throw new IllegalStateException("Cannot change pipelining while rendering!");
+		
+		if (pipelined != this.pipelined) {
+			if (pipelined) {
+				this.pipelined = true;
+				
+				presenterThread = new PresenterThread();
+				presenterThread.start();
+			} else {
+				stopPresenter();
+				
+				this.pipelined = false;
+				spareBuffer = null;
+			}
+			
+			markAllDirty();
+		}
+	}
+	
+	public boolean isPipelined() {
+		return pipelined;
+	}
+	
+	private void stopPresenter() {
+		synchronized (presentLock) {
+			try {
+				awaitPresenter();
+			} finally {
+				presenterThread = null;
+				presentLock.notifyAll();
+			}
+		}
+	}
+	
+
+	/**
+	 * Presents the pixels of the current frame using the given graphics. The
+	 * pixels are scaled by the largest integer pixel density, which fits the
+	 * viewport, and centered within the viewport. The scaling is done by the
+	 * {@link ScaledPresenter} of the renderer.
+	 * 
+	 * @param g - the graphics used for presenting the frame
+	 * 
+	 * @see #setPresentStrategy(PresentStrategy)
+	 */
+	protected void present(Graphics g) {
+		presentFrame(g, screen, pixels, dirtyTracking ? frameDirty : null);
+	}
+	
+	/**
+	 * Presents the given frame, where only the given dirty region has to be
+	 * presented. If the dirty region is null, the frame is presented entirely.
+	 */
+	private void presentFrame(Graphics g, BufferedImage screen, int[] pixels, DirtyRegion frameDirty) {
+		int dw = viewport.getWidth();
+		int dh = viewport.getHeight();
+		
+		int pixelDensity = MathUtils.min(dw / width, dh / height); 
+		if (pixelDensity <= 0)
+			pixelDensity = 1;
+		
+		int w = width * pixelDensity;
+		int h = height * pixelDensity;
+		int x = viewport.getX() + (dw - w) / 2;
+		int y = viewport.getY() + (dh - h) / 2;
+
+		if (frameDirty != null && partialPresent && dw == presentWidth && dh == presentHeight) {
+			presentDirty.set(frameDirty);
+			for (DirtyRegion region : dirtyHistory)
+				presentDirty.addAll(region);
+
+			if (!presentDirty.isFull()) {
+				getPresenter().present(g, screen, pixels, x, y, pixelDensity, presentDirty);
+				return;
+			}
+		}
+		
+		presentWidth = dw;
+		presentHeight = dh;
+
+		if (dw > w || dh > h) {
+			g.setColor(backdropColor.toAWTColor());
+			g.fillRect(0, 0, dw, dh);
+		}
+		getPresenter().present(g, screen, pixels, x, y, pixelDensity, null);
+	}
+	
+	private ScaledPresenter getPresenter() {
+		if (presenter == null)
+			presenter = createPresenter();
+		return presenter;
+	}
+	
+	/**
+	 * Creates the presenter used for scaling the frames, when they are
+	 * presented. Sub-classes can override this to scale the frames in
+	 * parallel.
+	 * 
+	 * @return The presenter of this renderer
+	 */
+	protected ScaledPresenter createPresenter() {
+		return new ScaledPresenter();
+	}
+	
+	/**
+	 * Sets the strategy used for presenting the scaled frames. By default the
+	 * strategy is null, in which case each strategy is measured during the
+	 * first frames, and the fastest one is used.
+	 * 
+	 * @param strategy - the present strategy, or null to measure it
+	 */
+	public void setPresentStrategy(PresentStrategy strategy) {
+		// The presenter might be used by the presenter thread
+		waitForPresent();
+		
+		getPresenter().setStrategy(strategy);
+	}
+
+	/**
+	 * @return The strategy currently used for presenting frames, or null if
+	 *         the strategies are still being measured.
+	 */
+	public PresentStrategy getPresentStrategy() {
+		return getPresenter().getActiveStrategy();
+	}
+	
+	/**
+	 * Sets whether the renderer should only redraw and present the regions of
+	 * the screen, which have been marked as dirty. When enabled, the primitives
+	 * drawn in a frame are clipped to the bounding box of the regions marked
+	 * dirty since the previous frame, and only the dirty regions are presented.
+	 * If the dirty regions cover a large part of the screen, the entire frame
+	 * is drawn and presented instead.
+	 * <br><br>
+	 * Since every primitive overwrites the pixels it covers, redrawing only
+	 * the dirty regions produces the same result as drawing the full frame,
+	 * as long as every region, where the content changed, has been marked
+	 * dirty. Filters are applied within the bounding box of the dirty regions.
+	 * Filters which sample neighbouring pixels should therefore only be used
+	 * when the entire frame is dirty.
+	 * 
+	 * @param dirtyTracking - true, if only dirty regions should be redrawn.
+	 * 
+	 * @see #markDirty(int, int, int, int)
+	 * @see #markAllDirty()
+	 */
+	public void setDirtyTracking(boolean dirtyTracking) {
+		if (dirtyTracking != this.dirtyTracking) {
+			this.dirtyTracking = dirtyTracking;
+
+			rasterizer.setClip(0, 0, width, height);
+			if (spareBuffer != null)
+				spareBuffer.rasterizer.setClip(0, 0, width, height);
+			markAllDirty();
+		}
+	}
+	
+	public boolean isDirtyTracking() {
+		return dirtyTracking;
+	}
+	
+	/**
+	 * Sets whether the dirty regions of a frame can be presented on their own.
+	 * Presenting only the dirty regions requires that every back buffer still
+	 * holds the frame, which was last presented to it. This is not the case
+	 * for page flipping buffer strategies, where the contents of the back
+	 * buffer are undefined after flipping. When disabled, every frame is
+	 * presented entirely, while dirty tracking still limits the regions that
+	 * are redrawn. Partial presents are allowed by default, and the
+	 * {@link Display} updates this according to its buffer strategy.
+	 * 
+	 * @param partialPresent - true, if the back buffers keep their contents,
+	 *                         such that only dirty regions can be presented.
+	 * 
+	 * @see #setDirtyTracking(boolean)
+	 */
+	public void setPartialPresent(boolean partialPresent) {
+		if (partialPresent != this.partialPresent) {
+			this.partialPresent = partialPresent;
+			
+			// The back buffers might not contain the latest
+			// frame, so the next one is presented entirely.
+			markAllDirty();
+		}
+	}
+	
+	public boolean isPartialPresent() {
+		return partialPresent;
+	}
+	
+	/**
+	 * Marks the given rectangle as dirty, such that it is redrawn and presented
+	 * in the next frame. The rectangle is relative to the current offset of
+	 * the renderer. Regions should be marked when their content changes, for
+	 * example during the tick, in which the state changed.
+	 * 
+	 * @param x - the x-coordinate of the dirty rectangle
+	 * @param y - the y-coordinate of the dirty rectangle
+	 * @param width - the width of the dirty rectangle
+	 * @param height - the height of the dirty rectangle
+	 */
+	public void markDirty(int x, int y, int width, int height) {
+		pendingDirty.add(x + offsetX, y + offsetY, width, height);
+	}
+
+	/**
+	 * Marks the entire screen as dirty, such that the next frame is drawn and
+	 * presented entirely.
+	 */
+	public void markAllDirty() {
+		pendingDirty.setFull();
+	}
+	
+	/**
+	 * Tests whether the given rectangle has to be drawn in the current frame.
+	 * This can be used for skipping the drawing of content, which lies
+	 * entirely outside the dirty regions of the frame. If dirty tracking is
+	 * disabled, this always returns true.
+	 * 
+	 * @param x - the x-coordinate of the rectangle
+	 * @param y - the y-coordinate of the rectangle
+	 * @param width - the width of the rectangle
+	 * @param height - the height of the rectangle
+	 * 
+	 * @return True, if the rectangle intersects the dirty region of the
+	 *         current frame.
+	 */
+	public boolean isDirty(int x, int y, int width, int height) {
+		return !dirtyTracking || frameDirty.intersects(x + offsetX, y + offsetY, width, height);
+	}
+	
+	/**
+	 * @return A new graphics object, which draws directly to the pixels of
+	 *         this renderer. The graphics should be disposed after use.
+	 */
+	protected Graphics createScreenGraphics() {
+		return screen.createGraphics();
+	}
+	
 	@Override
 	public boolean isRendering() {
-		return g != null;
+		return g != null || presentTarget != null;
 	}
 	
 	@Override
@@ -99,18 +611,245 @@ public class PixelRenderer2D implements IRenderer2D {
 	public void resetTransformations() {
 		offsetX = 0;
 		offsetY = 0;
+		
+		transform.toIdentity();
+		transformDepth = 0;
+		transformed = false;
+	}
+	
+	/**
+	 * Saves the current transformation, such that it can later be restored
+	 * by {@link #popTransform()}. The transformation is applied to rectangles,
+	 * lines, pixels and sprites before the offset of the renderer. Lines are
+	 * always drawn one pixel wide, and text is not transformed.
+	 * <br><br>
+	 * When the transformation is axis-aligned, rectangles are filled using the
+	 * same fast paths as without a transformation. Sprites and pixels, which
+	 * are only translated by whole pixels or flipped, are also drawn directly.
+	 * Otherwise the pixels are drawn by inverse mapping, see {@link
+	 * PixelRasterizer#drawTransformedPixels(int[], int, int, int, int, Transform2D, int)}.
+	 * The following shows an example of drawing a rotated sprite:
+	 * <pre>
+	 *   renderer.pushTransform();
+	 *   renderer.rotate(angle, x + sprite.getWidth() * 0.5f, y + sprite.getHeight() * 0.5f);
+	 *   renderer.drawSprite(sprite, x, y);
+	 *   renderer.popTransform();
+	 * </pre>
+	 */
+	public void pushTransform() {
+		if (transformDepth == transformStack.length) {
+			Transform2D[] newStack = new Transform2D[Math.max(4, transformDepth * 2)];
+			System.arraycopy(transformStack, 0, newStack, 0, transformDepth);
+			for (int i = transformDepth; i < newStack.length; i++)
+				newStack[i] = new Transform2D();
+			transformStack = newStack;
+		}
+		
+		transformStack[transformDepth++].set(transform);
+	}
+
+	/**
+	 * Restores the transformation saved by the last invocation of
+	 * {@link #pushTransform()}.
+	 * 
+	 * @throws IllegalStateException if no transformation has been saved.
+	 */
+	public void popTransform() {
+		if (transformDepth == 0)
+			throw new IllegalStateException("Transform stack is empty");
+		
+		transform.set(transformStack[--transformDepth]);
+		onTransformChanged();
+	}
+	
+	/**
+	 * Applies the given transformation before the current transformation.
+	 * 
+	 * @param t - the transformation to apply
+	 */
+	public void transform(Transform2D t) {
+		transform.mul(t);
+		onTransformChanged();
+	}
+	
+	public void scale(float sx, float sy) {
+		transform.scale(sx, sy);
+		onTransformChanged();
+	}
+
+	/**
+	 * @param angle - the angle of the rotation in degrees
+	 * 
+	 * @see Transform2D#rotate(float)
+	 */
+	public void rotate(float angle) {
+		transform.rotate(angle);
+		onTransformChanged();
+	}
+
+	/**
+	 * @param angle - the angle of the rotation in degrees
+	 * @param cx - the x-coordinate of the center of the rotation
+	 * @param cy - the y-coordinate of the center of the rotation
+	 * 
+	 * @see Transform2D#rotate(float, float, float)
+	 */
+	public void rotate(float angle, float cx, float cy) {
+		transform.rotate(angle, cx, cy);
+		onTransformChanged();
+	}
+	
+	public void shear(float shx, float shy) {
+		transform.shear(shx, shy);
+		onTransformChanged();
+	}
+
+	public void setTransform(Transform2D t) {
+		transform.set(t);
+		onTransformChanged();
+	}
+	
+	public Transform2D getTransform(Transform2D dest) {
+		return dest.set(transform);
+	}
+	
+	private void onTransformChanged() {
+		transformed = !transform.isIdentity();
+	}
+	
+	/**
+	 * @return True, if the current transformation is not the identity.
+	 */
+	public boolean isTransformed() {
+		return transformed;
+	}
+	
+	/**
+	 * Computes the transformation from the local coordinates of a primitive
+	 * drawn at the given location to the pixels of the renderer.
+	 */
+	private Transform2D getPixelTransform(int x, int y) {
+		Transform2D t = pixelTransform.set(transform).translate(x, y);
+		t.m20 += offsetX;
+		t.m21 += offsetY;
+		return t;
+	}
+	
+	/**
+	 * @return True, if the given transformation is a translation by whole pixels.
+	 */
+	private static boolean isPixelTranslation(Transform2D t) {
+		return t.m00 == 1.0f && t.m10 == 0.0f && t.m20 == (int)t.m20 &&
+		       t.m01 == 0.0f && t.m11 == 1.0f && t.m21 == (int)t.m21;
+	}
+	
+	/**
+	 * @return The first pixel, whose center is at or after the given coordinate.
+	 */
+	private static int pixelCeil(float v) {
+		return (int)Math.ceil(v - 0.5f);
+	}
+	
+	private void fillTransformedRect(int x, int y, int width, int height) {
+		if (width <= 0 || height <= 0)
+			return;
+		
+		Transform2D t = getPixelTransform(x, y);
+		if (t.isAxisAligned()) {
+			float xa = t.m20;
+			float ya = t.m21;
+			float xb = t.m00 * width + t.m20;
+			float yb = t.m11 * height + t.m21;
+			
+			int x0 = pixelCeil(Math.min(xa, xb));
+			int y0 = pixelCeil(Math.min(ya, yb));
+			int x1 = pixelCeil(Math.max(xa, xb));
+			int y1 = pixelCeil(Math.max(ya, yb));
+			
+			rasterizeRect(x0, y0, x1 - x0, y1 - y0);
+		} else {
+			rasterizeTransformedRect(width, height, t);
+		}
+	}
+	
+	private void drawTransformedLine(int x0, int y0, int x1, int y1) {
+		// Map the centers of the end points
+		float cx0 = x0 + 0.5f, cy0 = y0 + 0.5f;
+		float cx1 = x1 + 0.5f, cy1 = y1 + 0.5f;
+		
+		rasterizeLine((int)Math.floor(transform.transformX(cx0, cy0)) + offsetX,
+		              (int)Math.floor(transform.transformY(cx0, cy0)) + offsetY,
+		              (int)Math.floor(transform.transformX(cx1, cy1)) + offsetX,
+		              (int)Math.floor(transform.transformY(cx1, cy1)) + offsetY);
+	}
+	
+	/**
+	 * Fills the given rectangle of pixels. This is invoked for transformed
+	 * primitives, after the transformation and offset have been applied.
+	 */
+	protected void rasterizeRect(int x, int y, int width, int height) {
+		rasterizer.fillRect(x, y, width, height, color);
+	}
+
+	/**
+	 * @see #rasterizeRect(int, int, int, int)
+	 */
+	protected void rasterizeLine(int x0, int y0, int x1, int y1) {
+		rasterizer.drawLine(x0, y0, x1, y1, color);
+	}
+
+	/**
+	 * @see #rasterizeRect(int, int, int, int)
+	 */
+	protected void rasterizePixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height, boolean transparent) {
+		rasterizer.drawPixels(src, srcOffset, srcStride, x, y, width, height, transparent);
+	}
+
+	/**
+	 * @see #rasterizeRect(int, int, int, int)
+	 */
+	protected void rasterizeSprite(Sprite sprite, int x, int y, int flags) {
+		sprite.draw(rasterizer, x, y, flags);
+	}
+
+	/**
+	 * @see #rasterizeRect(int, int, int, int)
+	 */
+	protected void rasterizeTransformedRect(float width, float height, Transform2D t) {
+		rasterizer.fillTransformedRect(width, height, t, color);
+	}
+
+	/**
+	 * @see #rasterizeRect(int, int, int, int)
+	 */
+	protected void rasterizeTransformedPixels(int[] src, int srcOffset, int srcStride, int width, int height, Transform2D t, int mode) {
+		rasterizer.drawTransformedPixels(src, srcOffset, srcStride, width, height, t, mode);
+	}
+
+	/**
+	 * @see #rasterizeRect(int, int, int, int)
+	 */
+	protected void rasterizeTransformedSprite(Sprite sprite, Transform2D t) {
+		sprite.drawTransformed(rasterizer, t);
+	}
+
+	/**
+	 * Composites the given region of premultiplied pixels. This is invoked
+	 * for layers, after the transformation and offset have been applied.
+	 */
+	protected void rasterizeComposite(int[] src, int srcOffset, int srcStride, int x, int y,
+	                                  int width, int height, int mode, int opacity) {
+		
+		rasterizer.compositePixels(src, srcOffset, srcStride, x, y, width, height, mode, opacity);
 	}
 
 	@Override
 	public void clear() {
-		int i = pixels.length;
-		while (i-- != 0)
-			pixels[i] = color;
+		rasterizer.clear(color);
 	}
 	
 	public void setPixel(int x, int y, int color) {
-		if (isInBounds(x, y))
-			pixels[x + y * width] = color;
+		rasterizer.setPixel(x, y, color);
 	}
 	
 	public int getPixel(int x, int y) {
@@ -158,188 +897,285 @@ public class PixelRenderer2D implements IRenderer2D {
 	
 	@Override
 	public void fillRect(int x, int y, int width, int height) {
-		// Handle offset
-		x += offsetX;
-		y += offsetY;
-		
-		int x0 = x < 0 ? 0 : x;
-
-		int x1 = x + width;
-		if (x1 > this.width)
-			x1 = this.width;
-		
-		int y1 = y + height;
-		if (y1 > this.height)
-			y1 = this.height;
-
-		int yp = y < 0 ? 0 : y;
-
-		// x1 and y1 are exclusive.
-		for ( ; yp < y1; yp++) {
-			int i = x0 + yp * this.width;
-			for (int xp = x0; xp < x1; xp++)
-				pixels[i++] = color;
+		if (transformed) {
+			fillTransformedRect(x, y, width, height);
+			return;
 		}
+		
+		rasterizer.fillRect(x + offsetX, y + offsetY, width, height, color);
 	}
 	
 	@Override
 	public void drawLine(int x0, int y0, int x1, int y1) {
-		int dx = x1 - x0;
-		if (dx == 0) {
-			// Offset handled by drawVerticalLine
-			drawVerticalLine(x0, y0, y1);
-			return;
-		}
-
-		int dy = y1 - y0;
-		if (dy == 0) {
-			// Offset handled by drawHorizontalLine
-			drawHorizontalLine(y0, x0, x1);
+		if (transformed) {
+			drawTransformedLine(x0, y0, x1, y1);
 			return;
 		}
 		
-		// If the line is diagonal we
-		// draw the line using Bresenham's 
-		// line algorithm.
-		
-		int xi;
-		if (dx < 0) {
-			xi = -1;
-			dx = -dx;
-		} else xi = 1;
-
-		int yi;
-		if (dy < 0) {
-			yi = -1;
-			dy = -dy;
-		} else yi = 1;
-		
-		// Handle offset
-		int xp = x0 + offsetX;
-		int yp = y0 + offsetY;
-		if (dx > dy) {
-			int d = 2 * dy - dx;
-			for (int i = 0; i <= dx; i++) {
-				setPixel(xp, yp, color);
-				
-				if (d > 0) {
-					yp += yi;
-					d -= 2 * dx;
-				}
-				d += 2 * dy;
-				xp += xi;
-			}
-		} else {
-			int d = 2 * dx - dy;
-			for (int i = 0; i <= dy; i++) {
-				setPixel(xp, yp, color);
-				
-				if (d > 0) {
-					xp += xi;
-					d -= 2 * dy;
-				}
-				d += 2 * dx;
-				yp += yi;
-			}
-		}
+		rasterizer.drawLine(x0 + offsetX, y0 + offsetY, x1 + offsetX, y1 + offsetY, color);
 	}
 	
 	public void drawVerticalLine(int x, int y0, int y1) {
-		// Handle offset
-		x += offsetX;
-		if (x < 0 || x >= width)
+		if (transformed) {
+			drawTransformedLine(x, y0, x, y1);
 			return;
-
-		y0 += offsetY;
-		y1 += offsetY;
-		
-		if (y0 > y1) {
-			int tmp = y0;
-			y0 = y1;
-			y1 = tmp;
 		}
+		
+		rasterizer.drawVerticalLine(x + offsetX, y0 + offsetY, y1 + offsetY, color);
+	}
 
-		// Make sure our line is in bounds
-		if (y0 >= height || y1 < 0)
+	public void drawHorizontalLine(int y, int x0, int x1) {
+		if (transformed) {
+			drawTransformedLine(x0, y, x1, y);
 			return;
+		}
 		
-		if (y1 >= height) 
-			y1 = height - 1;
-		if (y0 < 0) 
-			y0 = 0;
-
-		// Set pixels
-		int i = x + y0 * width;
-		for (int yp = y0; yp <= y1; yp++) {
-			pixels[i] = color;
-			i += width;
+		rasterizer.drawHorizontalLine(y + offsetY, x0 + offsetX, x1 + offsetX, color);
+	}
+	
+	/**
+	 * Draws several lines at once, where the end points of the lines are
+	 * stored in the given array as {@code x0, y0, x1, y1} for each line. This
+	 * is equivalent to, but much faster than, invoking {@link #drawLine(int,
+	 * int, int, int)} for every line.
+	 * 
+	 * @param coords - the coordinates of the end points
+	 * @param count - the amount of lines
+	 */
+	public void drawLines(int[] coords, int count) {
+		if (transformed) {
+			for (int i = 0; i < count * 4; i += 4)
+				drawTransformedLine(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]);
+			return;
 		}
+		
+		rasterizer.drawLines(coords, 0, count, offsetX, offsetY, color);
 	}
 
-	public void drawHorizontalLine(int y, int x0, int x1) {
-		// Handle offset
-		y += offsetY;
-		if (y < 0 || y >= height)
+	/**
+	 * Draws a sequence of connected lines, where the points are stored in the
+	 * given array as {@code x, y} for each point.
+	 * 
+	 * @param coords - the coordinates of the points
+	 * @param count - the amount of points
+	 */
+	public void drawPolyline(int[] coords, int count) {
+		if (transformed) {
+			for (int i = 0; i < (count - 1) * 2; i += 2)
+				drawTransformedLine(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]);
 			return;
-
-		x0 += offsetX;
-		x1 += offsetX;
+		}
 		
-		if (x0 > x1) {
-			int tmp = x0;
-			x0 = x1;
-			x1 = tmp;
+		rasterizer.drawPolyline(coords, 0, count, offsetX, offsetY, color);
+	}
+	
+	/**
+	 * Draws a rectangular region of the given pixel array at the specified
+	 * location. If the pixels are transparent, pixels with an alpha of zero
+	 * are skipped, and the alpha channel of the remaining pixels is discarded.
+	 * 
+	 * @param src - the pixel array to draw from
+	 * @param srcOffset - the index of the top-left pixel of the region
+	 * @param srcStride - the width of the source pixel array
+	 * @param x - the x-coordinate of the region on the screen
+	 * @param y - the y-coordinate of the region on the screen
+	 * @param width - the width of the region
+	 * @param height - the height of the region
+	 * @param transparent - whether pixels with an alpha of zero are skipped
+	 */
+	public void drawPixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height, boolean transparent) {
+		if (transformed) {
+			Transform2D t = getPixelTransform(x, y);
+			if (isPixelTranslation(t)) {
+				rasterizePixels(src, srcOffset, srcStride, (int)t.m20, (int)t.m21, width, height, transparent);
+			} else {
+				int mode = transparent ? PixelRasterizer.PIXELS_TRANSPARENT : PixelRasterizer.PIXELS_OPAQUE;
+				rasterizeTransformedPixels(src, srcOffset, srcStride, width, height, t, mode);
+			}
+			return;
 		}
 		
-		// Make sure our line is in bounds
-		if (x0 >= width || x1 < 0)
+		rasterizer.drawPixels(src, srcOffset, srcStride, x + offsetX, y + offsetY, width, height, transparent);
+	}
+	
+	public void drawSprite(Sprite sprite, int x, int y) {
+		drawSprite(sprite, x, y, 0);
+	}
+
+	/**
+	 * Draws the given sprite with its top-left corner at the specified
+	 * location. Transparent pixels of the sprite are skipped, and translucent
+	 * pixels are blended with the pixels of the renderer.
+	 * 
+	 * @param sprite - the sprite to draw
+	 * @param x - the x-coordinate of the sprite
+	 * @param y - the y-coordinate of the sprite
+	 * @param flags - the flags of the sprite, such as {@link Sprite#FLIP_HORIZONTAL}
+	 */
+	public void drawSprite(Sprite sprite, int x, int y, int flags) {
+		if (transformed) {
+			drawTransformedSprite(sprite, x, y, flags);
 			return;
+		}
+		
+		sprite.draw(rasterizer, x + offsetX, y + offsetY, flags);
+	}
+	
+	private void drawTransformedSprite(Sprite sprite, int x, int y, int flags) {
+		int w = sprite.getWidth();
+		int h = sprite.getHeight();
 		
-		if (x1 >= width) 
-			x1 = width - 1;
-		if (x0 < 0) 
-			x0 = 0;
+		Transform2D t = getPixelTransform(x, y);
 		
-		// Set pixels
-		int i = x0 + y * width;
-		for (int xp = x0; xp <= x1; xp++)
-			pixels[i++] = color;
+		// Apply the flags as part of the transformation
+		if ((flags & Sprite.FLIP_HORIZONTAL) != 0)
+			t.translate(w, 0.0f).scale(-1.0f, 1.0f);
+		if ((flags & Sprite.FLIP_VERTICAL) != 0)
+			t.translate(0.0f, h).scale(1.0f, -1.0f);
+		
+		if (t.m10 == 0.0f && t.m01 == 0.0f && Math.abs(t.m00) == 1.0f && Math.abs(t.m11) == 1.0f &&
+				t.m20 == (int)t.m20 && t.m21 == (int)t.m21) {
+			
+			// The sprite is translated by whole pixels and flipped
+			boolean flipH = (t.m00 < 0.0f);
+			boolean flipV = (t.m11 < 0.0f);
+			
+			int sx = (int)t.m20 - (flipH ? w : 0);
+			int sy = (int)t.m21 - (flipV ? h : 0);
+			int sflags = (flipH ? Sprite.FLIP_HORIZONTAL : 0) | (flipV ? Sprite.FLIP_VERTICAL : 0);
+			
+			rasterizeSprite(sprite, sx, sy, sflags);
+		} else {
+			rasterizeTransformedSprite(sprite, t);
+		}
+	}
+	
+	/**
+	 * Composites the given layer with its top-left corner at the specified
+	 * location, using the composite mode and opacity of the layer. Note that
+	 * the renderer can only be transformed by a translation by whole pixels,
+	 * when compositing layers.
+	 * 
+	 * @param layer - the layer to composite
+	 * @param x - the x-coordinate of the layer
+	 * @param y - the y-coordinate of the layer
+	 * 
+	 * @throws IllegalStateException if the renderer is transformed by anything
+	 *                               other than a translation by whole pixels.
+	 */
+	public void drawLayer(RenderLayer layer, int x, int y) {
+		if (layer == null)
+			throw new NullPointerException("layer is null!");
+		if (layer == this)
+			throw new IllegalArgumentException("Layer can not be drawn to itself");
+		
+		if (transformed) {
+			Transform2D t = getPixelTransform(x, y);
+			if (!isPixelTranslation(t))
+				throw new IllegalStateException("Layers can only be translated by whole pixels");
+			
+			x = (int)t.m20;
+			y = (int)t.m21;
+		} else {
+			x += offsetX;
+			y += offsetY;
+		}
+		
+		rasterizeComposite(layer.getPixelBuffer(), 0, layer.getWidth(), x, y, layer.getWidth(),
+		                   layer.getHeight(), layer.getCompositeMode(), layer.getCompositeOpacity());
 	}
 	
 	@Override
 	public int getCharWidth(char c) {
-		return g.getFontMetrics().charWidth(c);
+		return getMetricsCache().getCharWidth(c);
 	}
 
 	@Override
 	public int getFontHeight() {
-		return g.getFontMetrics().getHeight();
+		return getMetricsCache().getFontHeight();
 	}
 	
 	@Override
 	public int getStringWidth(String str) {
-		return g.getFontMetrics().stringWidth(str);
+		return getMetricsCache().getStringWidth(str);
 	}
 
 	@Override
 	public Rectangle2D getStringBounds(String str) {
-		return g.getFontMetrics().getStringBounds(str, g);
+		return getMetricsCache().getStringBounds(str);
+	}
+	
+	private FontMetricsCache getMetricsCache() {
+		if (metricsCache == null)
+			metricsCache = FontMetricsCache.getCache(getFont());
+		return metricsCache;
 	}
 
 	@Override
 	public void drawString(String str, int x, int y) {
-		Graphics g = screen.createGraphics();
-		g.setFont(g.getFont());
-		g.setColor(new Color(color));
-		g.drawString(str, x, y);
-		g.dispose();
+		getGlyphCache().drawString(rasterizer, str, x, y, color);
+	}
+	
+	/**
+	 * @return The glyph cache of the current font, which is used for drawing
+	 *         strings.
+	 */
+	protected GlyphCache getGlyphCache() {
+		if (glyphCache == null)
+			glyphCache = GlyphCache.getCache(getFont());
+		return glyphCache;
+	}
+	
+	/**
+	 * Sets the font used for drawing strings. By default, the font is the
+	 * default font of the graphics drawing to the pixels of the renderer.
+	 * 
+	 * @param font - the new font
+	 */
+	public void setFont(Font font) {
+		if (font == null)
+			throw new NullPointerException("font is null!");
+		
+		this.font = font;
+		
+		glyphCache = null;
+		metricsCache = null;
+	}
+	
+	public Font getFont() {
+		if (font == null) {
+			Graphics g = createScreenGraphics();
+			font = g.getFont();
+			g.dispose();
+		}
+		
+		return font;
 	}
 	
 	public void applyFilter(IPixelFilter filter) {
-		filter.filterPixels(pixels, width, height);
+		if (dirtyTracking) {
+			applyFilter(filter, 0, 0, width, height);
+		} else {
+			filter.filterPixels(pixels, width, height);
+		}
 	}
 
 	public void applyFilter(IPixelFilter filter, int x, int y, int width, int height) {
+		if (dirtyTracking) {
+			// Restrict the filter to the clipping region
+			int x0 = MathUtils.max(x, rasterizer.getClipX0());
+			int y0 = MathUtils.max(y, rasterizer.getClipY0());
+			int x1 = MathUtils.min(x + width, rasterizer.getClipX1());
+			int y1 = MathUtils.min(y + height, rasterizer.getClipY1());
+			if (x0 >= x1 || y0 >= y1)
+				return;
+			
+			x = x0;
+			y = y0;
+			width = x1 - x0;
+			height = y1 - y0;
+		}
+		
 		filter.filterPixels(pixels, x + y * this.width, width, height, this.width);
 	}
 	
@@ -347,6 +1183,20 @@ public class PixelRenderer2D implements IRenderer2D {
 		return pixels;
 	}
 	
+	/**
+	 * Returns the rasterizer, which draws directly into the pixel buffer. The
+	 * clipping region of the rasterizer is the region of the screen redrawn
+	 * in the current frame, and pixels outside of it should not be modified.
+	 * This can be used for drawing custom primitives without the overhead of
+	 * the renderer. Note that the offset and transformation of the renderer
+	 * are not applied by the rasterizer.
+	 * 
+	 * @return The rasterizer of the pixel buffer
+	 */
+	public PixelRasterizer getPixelRasterizer() {
+		return rasterizer;
+	}
+	
 	@Override
 	public void setColor(GColor color) {
 		this.color = color.getRGB();
@@ -414,9 +1264,98 @@ public class PixelRenderer2D implements IRenderer2D {
 	
 	@Override
 	public void dispose() {
+		if (pipelined) {
+			stopPresenter();
+			pipelined = false;
+		}
+		
+		currentBuffer = null;
+		spareBuffer = null;
 		screen = null;
 		pixels = null;
+		rasterizer = null;
+		
+		if (presenter != null)
+			presenter.dispose();
 		
 		g = null;
 	}
+	
+	private static class FrameBuffer {
+		
+		private final BufferedImage image;
+		private final int[] pixels;
+		private final PixelRasterizer rasterizer;
+		
+		/* Whether a frame has been drawn to the buffer */
+		private boolean drawn;
+		
+		/* The target and dirty region of the frame, when presented */
+		private IPresentTarget target;
+		private boolean dirtyTracking;
+		private final DirtyRegion dirty;
+		
+		public FrameBuffer(int width, int height, int imageType) {
+			image = new BufferedImage(width, height, imageType);
+			pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+			rasterizer = new PixelRasterizer(pixels, width, height);
+			
+			drawn = false;
+			
+			target = null;
+			dirtyTracking = false;
+			dirty = new DirtyRegion(width, height);
+		}
+	}
+	
+	private class PresenterThread extends Thread {
+		
+		public PresenterThread() {
+			super("Presenter");
+			
+			// Make sure the thread terminates
+			// when the main thread stops.
+			setDaemon(true);
+		}
+		
+		@Override
+		public void run() {
+			while (true) {
+				FrameBuffer frame;
+				synchronized (presentLock) {
+					boolean interrupted = false;
+					while (submittedFrame == null && presenterThread == this) {
+						try {
+							presentLock.wait();
+						} catch (InterruptedException e) {
+							interrupted = true;
+						}
+					}
+					
+					if (interrupted)
+						Thread.currentThread().interrupt();
+					
+					// The renderer is no longer pipelined
+					if (submittedFrame == null)
+						return;
+					
+					frame = submittedFrame;
+				}
+				
+				try {
+					presentPipelinedFrame(frame);
+				} catch (Throwable t) {
+					// Errors are rethrown on the rendering thread,
+					// which would otherwise wait for the frame forever.
+					presentError = t;
+				} finally {
+					synchronized (presentLock) {
+						frame.target = null;
+						submittedFrame = null;
+						presentLock.notifyAll();
+					}
+				}
+			}
+		}
+	}
 }
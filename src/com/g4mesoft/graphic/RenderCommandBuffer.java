@@ -0,0 +1,428 @@
+package com.g4mesoft.graphic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.g4mesoft.graphic.sprite.Sprite;
+
+/**
+ * A buffer of recorded pixel drawing commands. The commands are stored in a
+ * compact stream of integers, where the color and offset of the renderer have
+ * already been resolved at the time of recording. The buffer can therefore be
+ * executed several times, and by several threads at once, each using a
+ * {@link PixelRasterizer} with a different clipping region.
+ * <br><br>
+ * Recording commands does not allocate any memory once the buffer has grown
+ * large enough to hold the commands of a frame.
+ * 
+ * @see ParallelPixelRenderer2D
+ */
+public class RenderCommandBuffer {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	
+	private static final int OP_CLEAR      = 0;
+	private static final int OP_PIXEL      = 1;
+	private static final int OP_FILL_RECT  = 2;
+	private static final int OP_HLINE      = 3;
+	private static final int OP_VLINE      = 4;
+	private static final int OP_LINE       = 5;
+	private static final int OP_PIXELS     = 6;
+	private static final int OP_SPRITE     = 7;
+	private static final int OP_STRING     = 8;
+	private static final int OP_LINES      = 9;
+	private static final int OP_POLYLINE   = 10;
+	private static final int OP_TRANSFORMED_RECT   = 11;
+	private static final int OP_TRANSFORMED_PIXELS = 12;
+	private static final int OP_TRANSFORMED_SPRITE = 13;
+	private static final int OP_COMPOSITE          = 14;
+	
+	private int[] ops;
+	private int size;
+	private int commandCount;
+	
+	/* Objects referenced by the commands, such as pixel arrays */
+	private final List<Object> refs;
+	
+	public RenderCommandBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public RenderCommandBuffer(int initialCapacity) {
+		if (initialCapacity <= 0)
+			throw new IllegalArgumentException("initialCapacity <= 0");
+		
+		ops = new int[initialCapacity];
+		size = 0;
+		commandCount = 0;
+		
+		refs = new ArrayList<Object>();
+	}
+	
+	private void ensureCapacity(int count) {
+		int required = size + count;
+		if (required > ops.length) {
+			int[] newOps = new int[Math.max(ops.length * 2, required)];
+			System.arraycopy(ops, 0, newOps, 0, size);
+			ops = newOps;
+		}
+	}
+	
+	public void clear(int color) {
+		ensureCapacity(2);
+		ops[size++] = OP_CLEAR;
+		ops[size++] = color;
+		commandCount++;
+	}
+
+	public void setPixel(int x, int y, int color) {
+		ensureCapacity(4);
+		ops[size++] = OP_PIXEL;
+		ops[size++] = x;
+		ops[size++] = y;
+		ops[size++] = color;
+		commandCount++;
+	}
+	
+	public void fillRect(int x, int y, int width, int height, int color) {
+		ensureCapacity(6);
+		ops[size++] = OP_FILL_RECT;
+		ops[size++] = x;
+		ops[size++] = y;
+		ops[size++] = width;
+		ops[size++] = height;
+		ops[size++] = color;
+		commandCount++;
+	}
+
+	public void drawHorizontalLine(int y, int x0, int x1, int color) {
+		ensureCapacity(5);
+		ops[size++] = OP_HLINE;
+		ops[size++] = y;
+		ops[size++] = x0;
+		ops[size++] = x1;
+		ops[size++] = color;
+		commandCount++;
+	}
+
+	public void drawVerticalLine(int x, int y0, int y1, int color) {
+		ensureCapacity(5);
+		ops[size++] = OP_VLINE;
+		ops[size++] = x;
+		ops[size++] = y0;
+		ops[size++] = y1;
+		ops[size++] = color;
+		commandCount++;
+	}
+
+	public void drawLine(int x0, int y0, int x1, int y1, int color) {
+		ensureCapacity(6);
+		ops[size++] = OP_LINE;
+		ops[size++] = x0;
+		ops[size++] = y0;
+		ops[size++] = x1;
+		ops[size++] = y1;
+		ops[size++] = color;
+		commandCount++;
+	}
+	
+	/**
+	 * Records drawing several lines. The coordinates are copied into the
+	 * buffer, and can therefore be modified after recording.
+	 * 
+	 * @see PixelRasterizer#drawLines(int[], int, int, int, int, int)
+	 */
+	public void drawLines(int[] coords, int offset, int count, int tx, int ty, int color) {
+		recordPoints(OP_LINES, coords, offset, count, count * 2, tx, ty, color);
+	}
+
+	/**
+	 * Records drawing a sequence of connected lines. The coordinates are
+	 * copied into the buffer, and can therefore be modified after recording.
+	 * 
+	 * @see PixelRasterizer#drawPolyline(int[], int, int, int, int, int)
+	 */
+	public void drawPolyline(int[] coords, int offset, int count, int tx, int ty, int color) {
+		recordPoints(OP_POLYLINE, coords, offset, count, count, tx, ty, color);
+	}
+	
+	private void recordPoints(int op, int[] coords, int offset, int count, int pointCount, int tx, int ty, int color) {
+		if (count <= 0)
+			return;
+		
+		ensureCapacity(3 + pointCount * 2);
+		ops[size++] = op;
+		ops[size++] = color;
+		ops[size++] = count;
+		
+		int end = offset + pointCount * 2;
+		for (int i = offset; i < end; i += 2) {
+			ops[size++] = coords[i] + tx;
+			ops[size++] = coords[i + 1] + ty;
+		}
+		commandCount++;
+	}
+	
+	/**
+	 * Records drawing a region of the given pixel array. Note that the pixel
+	 * array is referenced by the buffer, and must therefore not be modified
+	 * until the buffer has been executed.
+	 * 
+	 * @see PixelRasterizer#drawPixels(int[], int, int, int, int, int, int, boolean)
+	 */
+	public void drawPixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height, boolean transparent) {
+		ensureCapacity(9);
+		ops[size++] = OP_PIXELS;
+		ops[size++] = refs.size();
+		ops[size++] = srcOffset;
+		ops[size++] = srcStride;
+		ops[size++] = x;
+		ops[size++] = y;
+		ops[size++] = width;
+		ops[size++] = height;
+		ops[size++] = transparent ? 1 : 0;
+		refs.add(src);
+		commandCount++;
+	}
+	
+	public void drawSprite(Sprite sprite, int x, int y, int flags) {
+		ensureCapacity(5);
+		ops[size++] = OP_SPRITE;
+		ops[size++] = refs.size();
+		ops[size++] = x;
+		ops[size++] = y;
+		ops[size++] = flags;
+		refs.add(sprite);
+		commandCount++;
+	}
+	
+	public void fillTransformedRect(float width, float height, Transform2D transform, int color) {
+		ensureCapacity(10);
+		ops[size++] = OP_TRANSFORMED_RECT;
+		ops[size++] = Float.floatToRawIntBits(width);
+		ops[size++] = Float.floatToRawIntBits(height);
+		ops[size++] = color;
+		putTransform(transform);
+		commandCount++;
+	}
+
+	/**
+	 * Records drawing a transformed region of the given pixel array. Note that
+	 * the pixel array is referenced by the buffer, and must therefore not be
+	 * modified until the buffer has been executed. The transformation is
+	 * copied.
+	 * 
+	 * @see PixelRasterizer#drawTransformedPixels(int[], int, int, int, int, Transform2D, int)
+	 */
+	public void drawTransformedPixels(int[] src, int srcOffset, int srcStride, int width, int height,
+	                                  Transform2D transform, int mode) {
+		ensureCapacity(13);
+		ops[size++] = OP_TRANSFORMED_PIXELS;
+		ops[size++] = refs.size();
+		ops[size++] = srcOffset;
+		ops[size++] = srcStride;
+		ops[size++] = width;
+		ops[size++] = height;
+		ops[size++] = mode;
+		putTransform(transform);
+		refs.add(src);
+		commandCount++;
+	}
+	
+	public void drawTransformedSprite(Sprite sprite, Transform2D transform) {
+		ensureCapacity(8);
+		ops[size++] = OP_TRANSFORMED_SPRITE;
+		ops[size++] = refs.size();
+		putTransform(transform);
+		refs.add(sprite);
+		commandCount++;
+	}
+	
+	/**
+	 * Records compositing a region of the given premultiplied pixel array,
+	 * such as the pixels of a {@link RenderLayer}. Note that the pixel array
+	 * is referenced by the buffer, and must therefore not be modified until
+	 * the buffer has been executed.
+	 * 
+	 * @see PixelRasterizer#compositePixels(int[], int, int, int, int, int, int, int, int)
+	 */
+	public void compositePixels(int[] src, int srcOffset, int srcStride, int x, int y, int width, int height,
+	                            int mode, int opacity) {
+		
+		ensureCapacity(10);
+		ops[size++] = OP_COMPOSITE;
+		ops[size++] = refs.size();
+		ops[size++] = srcOffset;
+		ops[size++] = srcStride;
+		ops[size++] = x;
+		ops[size++] = y;
+		ops[size++] = width;
+		ops[size++] = height;
+		ops[size++] = mode;
+		ops[size++] = opacity;
+		refs.add(src);
+		commandCount++;
+	}
+	
+	private void putTransform(Transform2D transform) {
+		ops[size++] = Float.floatToRawIntBits(transform.m00);
+		ops[size++] = Float.floatToRawIntBits(transform.m10);
+		ops[size++] = Float.floatToRawIntBits(transform.m20);
+		ops[size++] = Float.floatToRawIntBits(transform.m01);
+		ops[size++] = Float.floatToRawIntBits(transform.m11);
+		ops[size++] = Float.floatToRawIntBits(transform.m21);
+	}
+	
+	private Transform2D getTransform(int i, Transform2D dest) {
+		return dest.set(Float.intBitsToFloat(ops[i + 0]),
+		                Float.intBitsToFloat(ops[i + 1]),
+		                Float.intBitsToFloat(ops[i + 2]),
+		                Float.intBitsToFloat(ops[i + 3]),
+		                Float.intBitsToFloat(ops[i + 4]),
+		                Float.intBitsToFloat(ops[i + 5]));
+	}
+	
+	/**
+	 * Records drawing a string using the given glyph cache. The glyphs of the
+	 * string are rasterized immediately, such that executing the buffer does
+	 * not modify the cache.
+	 * 
+	 * @see GlyphCache#drawString(PixelRasterizer, String, int, int, int)
+	 */
+	public void drawString(GlyphCache glyphCache, String str, int x, int y, int color) {
+		glyphCache.prepare(str);
+		
+		ensureCapacity(6);
+		ops[size++] = OP_STRING;
+		ops[size++] = refs.size();
+		ops[size++] = x;
+		ops[size++] = y;
+		ops[size++] = color;
+		ops[size++] = refs.size() + 1;
+		refs.add(glyphCache);
+		refs.add(str);
+		commandCount++;
+	}
+	
+	/**
+	 * Executes the recorded commands in the order they were recorded, using
+	 * the given rasterizer. Commands which lie entirely outside the rows of
+	 * the clipping region are skipped. The buffer is not modified, and can
+	 * therefore be executed concurrently by several threads.
+	 * 
+	 * @param rasterizer - the rasterizer drawing the commands
+	 */
+	public void execute(PixelRasterizer rasterizer) {
+		int clipY0 = rasterizer.getClipY0();
+		int clipY1 = rasterizer.getClipY1();
+		
+		int[] ops = this.ops;
+		// Created when the first transformed command is executed
+		Transform2D transform = null;
+		
+		int i = 0;
+		while (i < size) {
+			switch (ops[i]) {
+			case OP_CLEAR:
+				rasterizer.clear(ops[i + 1]);
+				i += 2;
+				break;
+			case OP_PIXEL:
+				rasterizer.setPixel(ops[i + 1], ops[i + 2], ops[i + 3]);
+				i += 4;
+				break;
+			case OP_FILL_RECT:
+				rasterizer.fillRect(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4], ops[i + 5]);
+				i += 6;
+				break;
+			case OP_HLINE:
+				rasterizer.drawHorizontalLine(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 5;
+				break;
+			case OP_VLINE:
+				rasterizer.drawVerticalLine(ops[i + 1], ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 5;
+				break;
+			case OP_LINE:
+				int y0 = ops[i + 2];
+				int y1 = ops[i + 4];
+				
+				// Skip lines which do not touch the rows
+				// of the clipping region entirely.
+				if ((y0 >= clipY0 || y1 >= clipY0) && (y0 < clipY1 || y1 < clipY1))
+					rasterizer.drawLine(ops[i + 1], y0, ops[i + 3], y1, ops[i + 5]);
+				i += 6;
+				break;
+			case OP_LINES:
+				rasterizer.drawLines(ops, i + 3, ops[i + 2], 0, 0, ops[i + 1]);
+				i += 3 + ops[i + 2] * 4;
+				break;
+			case OP_POLYLINE:
+				rasterizer.drawPolyline(ops, i + 3, ops[i + 2], 0, 0, ops[i + 1]);
+				i += 3 + ops[i + 2] * 2;
+				break;
+			case OP_PIXELS:
+				rasterizer.drawPixels((int[])refs.get(ops[i + 1]), ops[i + 2], ops[i + 3], ops[i + 4],
+				                      ops[i + 5], ops[i + 6], ops[i + 7], ops[i + 8] != 0);
+				i += 9;
+				break;
+			case OP_SPRITE:
+				((Sprite)refs.get(ops[i + 1])).draw(rasterizer, ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 5;
+				break;
+			case OP_STRING:
+				GlyphCache glyphCache = (GlyphCache)refs.get(ops[i + 1]);
+				String str = (String)refs.get(ops[i + 5]);
+				glyphCache.drawString(rasterizer, str, ops[i + 2], ops[i + 3], ops[i + 4]);
+				i += 6;
+				break;
+			case OP_TRANSFORMED_RECT:
+				if (transform == null)
+					transform = new Transform2D();
+				rasterizer.fillTransformedRect(Float.intBitsToFloat(ops[i + 1]), Float.intBitsToFloat(ops[i + 2]),
+				                               getTransform(i + 4, transform), ops[i + 3]);
+				i += 10;
+				break;
+			case OP_TRANSFORMED_PIXELS:
+				if (transform == null)
+					transform = new Transform2D();
+				rasterizer.drawTransformedPixels((int[])refs.get(ops[i + 1]), ops[i + 2], ops[i + 3], ops[i + 4],
+				                                 ops[i + 5], getTransform(i + 7, transform), ops[i + 6]);
+				i += 13;
+				break;
+			case OP_TRANSFORMED_SPRITE:
+				if (transform == null)
+					transform = new Transform2D();
+				((Sprite)refs.get(ops[i + 1])).drawTransformed(rasterizer, getTransform(i + 2, transform));
+				i += 8;
+				break;
+			case OP_COMPOSITE:
+				rasterizer.compositePixels((int[])refs.get(ops[i + 1]), ops[i + 2], ops[i + 3], ops[i + 4],
+				                           ops[i + 5], ops[i + 6], ops[i + 7], ops[i + 8], ops[i + 9]);
+				i += 10;
+				break;
+			default:
+				throw new IllegalStateException("Unknown command: " + ops[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Removes all the recorded commands from this buffer. The memory used by
+	 * the buffer is retained for recording the next frame.
+	 */
+	public void reset() {
+		size = 0;
+		commandCount = 0;
+		
+		refs.clear();
+	}
+	
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	public int getCommandCount() {
+		return commandCount;
+	}
+}
@@ -0,0 +1,162 @@
+package com.g4mesoft.graphic;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An offscreen layer, which is drawn separately and composited into another
+ * renderer using {@link PixelRenderer2D#drawLayer(RenderLayer, int, int)}.
+ * Each layer has its own pixel buffer, and is drawn like any other renderer.
+ * <br><br>
+ * The pixels of a layer are stored as premultiplied ARGB, and are initially
+ * transparent. Colors set using {@link #setColor(int)} are opaque, while the
+ * alpha of colors set using {@link #setColor(GColor)} is kept, which allows
+ * drawing translucent shapes such as shadows, lights and text. Sprites and
+ * pixels are drawn using their own alpha.
+ * <br><br>
+ * A layer keeps its pixels between frames, such that layers which rarely
+ * change, such as backgrounds and user interfaces, only have to be
+ * composited every frame rather than drawn. A layer is invalid until it has
+ * been drawn, and should be invalidated whenever its content changes:
+ * <pre>
+ *   if (background.isInvalid()) {
+ *       background.start(null);
+ *       background.clearTransparent();
+ *       drawBackground(background);
+ *       background.stop();
+ *   }
+ *   renderer.drawLayer(background, 0, 0);
+ * </pre>
+ * Note that a renderer which uses dirty tracking only composites the regions
+ * of the frame, which are dirty. The region covered by a layer should
+ * therefore be marked dirty in the renderer, when the layer is invalidated.
+ * 
+ * @see PixelRasterizer#compositePixels(int[], int, int, int, int, int, int, int, int)
+ */
+public class RenderLayer extends OffscreenRenderer2D {
+
+	private int compositeMode;
+	private float opacity;
+	private boolean invalid;
+
+	public RenderLayer(int width, int height) {
+		this(width, height, PixelRasterizer.COMPOSITE_ALPHA);
+	}
+
+	/**
+	 * Constructs a transparent layer, which is composited using the given
+	 * mode.
+	 * 
+	 * @param width - the width of the layer in pixels
+	 * @param height - the height of the layer in pixels
+	 * @param compositeMode - the way the layer is composited, such as
+	 *                        {@link PixelRasterizer#COMPOSITE_ALPHA}
+	 */
+	public RenderLayer(int width, int height, int compositeMode) {
+		super(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		
+		setCompositeMode(compositeMode);
+		opacity = 1.0f;
+		invalid = true;
+	}
+	
+	@Override
+	public void setSize(int width, int height) {
+		super.setSize(width, height);
+		
+		invalidate();
+	}
+	
+	@Override
+	public void stop() {
+		super.stop();
+		
+		// The layer has been drawn, and can be composited
+		// until the next time it is invalidated.
+		invalid = false;
+	}
+	
+	/**
+	 * Marks the layer as invalid, such that it is drawn again before it is
+	 * next composited.
+	 */
+	public void invalidate() {
+		invalid = true;
+	}
+	
+	/**
+	 * @return True, if the layer has to be drawn, i.e. it has not been drawn
+	 *         since it was last invalidated.
+	 */
+	public boolean isInvalid() {
+		return invalid;
+	}
+	
+	/**
+	 * Clears the pixels of the layer, such that they are fully transparent.
+	 */
+	public void clearTransparent() {
+		rasterizer.clear(0);
+	}
+	
+	@Override
+	public void setColor(GColor color) {
+		int a = color.getAlpha();
+		
+		// Premultiply the color, rounding to nearest
+		int r = (color.getRed()   * a + 0x7F) / 0xFF;
+		int g = (color.getGreen() * a + 0x7F) / 0xFF;
+		int b = (color.getBlue()  * a + 0x7F) / 0xFF;
+		this.color = (a << 24) | (r << 16) | (g << 8) | b;
+	}
+	
+	@Override
+	public void setColor(int color) {
+		this.color = color | 0xFF000000;
+	}
+	
+	@Override
+	public void drawString(String str, int x, int y) {
+		// The color is premultiplied, and may be translucent
+		getGlyphCache().drawPremultipliedString(rasterizer, str, x, y, color);
+	}
+	
+	/**
+	 * @param compositeMode - the way the layer is composited, such as
+	 *                        {@link PixelRasterizer#COMPOSITE_ALPHA}
+	 */
+	public void setCompositeMode(int compositeMode) {
+		if (compositeMode != PixelRasterizer.COMPOSITE_OPAQUE &&
+		    compositeMode != PixelRasterizer.COMPOSITE_ALPHA &&
+		    compositeMode != PixelRasterizer.COMPOSITE_ADDITIVE) {
+			
+			throw new IllegalArgumentException("Unknown composite mode: " + compositeMode);
+		}
+		
+		this.compositeMode = compositeMode;
+	}
+	
+	public int getCompositeMode() {
+		return compositeMode;
+	}
+	
+	/**
+	 * Sets the opacity of the layer, which every pixel of the layer is scaled
+	 * by when composited. Changing the opacity does not invalidate the layer.
+	 * 
+	 * @param opacity - the opacity from 0 to 1
+	 */
+	public void setOpacity(float opacity) {
+		this.opacity = Math.max(0.0f, Math.min(opacity, 1.0f));
+	}
+	
+	public float getOpacity() {
+		return opacity;
+	}
+	
+	/**
+	 * @return The opacity of the layer from 0 to 255.
+	 */
+	int getCompositeOpacity() {
+		return (int)(opacity * 255.0f + 0.5f);
+	}
+}
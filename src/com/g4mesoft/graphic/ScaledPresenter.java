@@ -0,0 +1,363 @@
+package com.g4mesoft.graphic;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
+
+import com.g4mesoft.job.JobSystem;
+
+/**
+ * Presents the pixels of a low resolution frame, scaled by an integer factor.
+ * The frame can be presented using one of the following strategies:
+ * <ul>
+ * <li>{@link PresentStrategy#DRAW_IMAGE}: the frame is scaled by the graphics
+ *     when drawing the image. On some pipelines this uses a slow generic
+ *     scaler.</li>
+ * <li>{@link PresentStrategy#SOFTWARE}: the frame is scaled into a buffer of
+ *     the presented size using nearest neighbour, which is then drawn without
+ *     scaling.</li>
+ * <li>{@link PresentStrategy#VOLATILE}: the frame is scaled as above, but the
+ *     scaled buffer is uploaded to a cached {@link VolatileImage}, which is
+ *     then drawn by the graphics.</li>
+ * </ul>
+ * If no strategy is set, the presenter measures each of the strategies during
+ * the first frames, and picks the fastest one. Scaling is done by rows in
+ * parallel, if the presenter is given a job system.
+ * <br><br>
+ * Every strategy can present parts of the frame only, such as the dirty
+ * regions of a {@link PixelRenderer2D}. The scaled buffer is kept between
+ * frames, and only the presented parts are scaled again.
+ *
+ * @see PixelRenderer2D#setPresentStrategy(PresentStrategy)
+ */
+public class ScaledPresenter {
+
+	/* The amount of frames presented with each strategy before measuring */
+	private static final int WARMUP_FRAMES = 4;
+	/* The amount of frames measured with each strategy */
+	private static final int MEASURED_FRAMES = 8;
+
+	/* The minimum amount of scaled pixels for scaling in parallel */
+	private static final int MIN_PARALLEL_PIXELS = 256 * 256;
+	/* The minimum amount of source rows scaled by a single job */
+	private static final int MIN_PARALLEL_ROWS = 8;
+
+	private static final PresentStrategy[] MEASURED_STRATEGIES = PresentStrategy.values();
+
+	private final JobSystem jobSystem;
+
+	private PresentStrategy strategy;
+	private PresentStrategy selectedStrategy;
+
+	private int measuredFrame;
+	private final long[] bestTimes;
+
+	private BufferedImage scaledImage;
+	private int[] scaledPixels;
+	private int scale;
+	/* Whether the entire scaled image has to be scaled again */
+	private boolean scaledInvalid;
+
+	private VolatileImage volatileImage;
+
+	public ScaledPresenter() {
+		this(null);
+	}
+
+	/**
+	 * Constructs a presenter, which scales the frame in parallel using the
+	 * given job system.
+	 *
+	 * @param jobSystem - the job system used for scaling, or null
+	 */
+	public ScaledPresenter(JobSystem jobSystem) {
+		this.jobSystem = jobSystem;
+
+		strategy = null;
+		selectedStrategy = null;
+
+		measuredFrame = 0;
+		bestTimes = new long[MEASURED_STRATEGIES.length];
+
+		scaledInvalid = true;
+	}
+
+	/**
+	 * Presents the given frame scaled by the given factor. If a region is
+	 * given, only the rectangles of the region are presented.
+	 *
+	 * @param g - the graphics used for presenting the frame
+	 * @param frame - the image of the frame
+	 * @param framePixels - the pixels of the frame image
+	 * @param x - the x-coordinate of the presented frame
+	 * @param y - the y-coordinate of the presented frame
+	 * @param scale - the integer scaling factor
+	 * @param region - the region to present, or null to present everything
+	 */
+	public void present(Graphics g, BufferedImage frame, int[] framePixels, int x, int y, int scale, DirtyRegion region) {
+		if (scale <= 0)
+			throw new IllegalArgumentException("scale <= 0");
+
+		PresentStrategy strategy = this.strategy;
+		if (strategy == null)
+			strategy = selectedStrategy;
+
+		if (strategy == null) {
+			measureFrame(g, frame, framePixels, x, y, scale);
+		} else {
+			present(strategy, g, frame, framePixels, x, y, scale, region);
+		}
+	}
+
+	private void measureFrame(Graphics g, BufferedImage frame, int[] framePixels, int x, int y, int scale) {
+		int framesPerStrategy = WARMUP_FRAMES + MEASURED_FRAMES;
+		int strategyIndex = measuredFrame / framesPerStrategy;
+		int frameIndex = measuredFrame % framesPerStrategy;
+
+		// Always present the entire frame, since
+		// strategies do not share their buffers.
+		long startTime = System.nanoTime();
+		present(MEASURED_STRATEGIES[strategyIndex], g, frame, framePixels, x, y, scale, null);
+		long time = System.nanoTime() - startTime;
+
+		if (frameIndex == WARMUP_FRAMES || (frameIndex > WARMUP_FRAMES && time < bestTimes[strategyIndex]))
+			bestTimes[strategyIndex] = time;
+
+		if (++measuredFrame == MEASURED_STRATEGIES.length * framesPerStrategy) {
+			int bestIndex = 0;
+			for (int i = 1; i < bestTimes.length; i++) {
+				if (bestTimes[i] < bestTimes[bestIndex])
+					bestIndex = i;
+			}
+
+			selectedStrategy = MEASURED_STRATEGIES[bestIndex];
+		}
+	}
+
+	private void present(PresentStrategy strategy, Graphics g, BufferedImage frame, int[] framePixels,
+	                     int x, int y, int scale, DirtyRegion region) {
+
+		switch (strategy) {
+		case DRAW_IMAGE:
+			drawScaledImage(g, frame, x, y, scale, region);
+
+			// The scaled image is not updated
+			scaledInvalid = true;
+			break;
+		case SOFTWARE:
+			if (updateScaledImage(frame, framePixels, scale, region))
+				region = null;
+			drawImage(g, scaledImage, x, y, scale, region);
+			break;
+		case VOLATILE:
+			if (updateScaledImage(frame, framePixels, scale, region))
+				region = null;
+			if (!presentVolatile(g, x, y, scale, region))
+				drawImage(g, scaledImage, x, y, scale, region);
+			break;
+		}
+	}
+
+	private static void drawScaledImage(Graphics g, BufferedImage frame, int x, int y, int scale, DirtyRegion region) {
+		if (region == null) {
+			int w = frame.getWidth();
+			int h = frame.getHeight();
+			g.drawImage(frame, x, y, x + w * scale, y + h * scale, 0, 0, w, h, null);
+		} else {
+			for (int i = 0; i < region.getRectCount(); i++) {
+				int sx0 = region.getX0(i);
+				int sy0 = region.getY0(i);
+				int sx1 = region.getX1(i);
+				int sy1 = region.getY1(i);
+
+				g.drawImage(frame, x + sx0 * scale, y + sy0 * scale, x + sx1 * scale, y + sy1 * scale,
+				            sx0, sy0, sx1, sy1, null);
+			}
+		}
+	}
+
+	/**
+	 * Draws the regions of the given image, which has already been scaled,
+	 * without scaling.
+	 */
+	private static void drawImage(Graphics g, Image image, int x, int y, int scale, DirtyRegion region) {
+		if (region == null) {
+			g.drawImage(image, x, y, null);
+		} else {
+			for (int i = 0; i < region.getRectCount(); i++) {
+				int dx0 = region.getX0(i) * scale;
+				int dy0 = region.getY0(i) * scale;
+				int dx1 = region.getX1(i) * scale;
+				int dy1 = region.getY1(i) * scale;
+
+				g.drawImage(image, x + dx0, y + dy0, x + dx1, y + dy1, dx0, dy0, dx1, dy1, null);
+			}
+		}
+	}
+
+	/**
+	 * Scales the given regions of the frame into the scaled image. If the
+	 * scaled image has to be scaled entirely, the region is ignored.
+	 *
+	 * @return True, if the entire frame was scaled.
+	 */
+	private boolean updateScaledImage(BufferedImage frame, int[] framePixels, int scale, DirtyRegion region) {
+		int w = frame.getWidth();
+		int h = frame.getHeight();
+
+		if (scaledImage == null || this.scale != scale || scaledImage.getWidth() != w * scale ||
+				scaledImage.getHeight() != h * scale || scaledImage.getType() != frame.getType()) {
+
+			scaledImage = new BufferedImage(w * scale, h * scale, frame.getType());
+			scaledPixels = ((DataBufferInt)scaledImage.getRaster().getDataBuffer()).getData();
+			this.scale = scale;
+
+			scaledInvalid = true;
+		}
+
+		if (region == null || scaledInvalid) {
+			scaleRect(framePixels, w, 0, 0, w, h);
+			scaledInvalid = false;
+
+			return true;
+		}
+
+		for (int i = 0; i < region.getRectCount(); i++)
+			scaleRect(framePixels, w, region.getX0(i), region.getY0(i), region.getX1(i), region.getY1(i));
+
+		return false;
+	}
+
+	private void scaleRect(int[] src, int srcStride, int x0, int y0, int x1, int y1) {
+		if (jobSystem == null || (x1 - x0) * (y1 - y0) * scale * scale < MIN_PARALLEL_PIXELS) {
+			scaleRows(src, srcStride, x0, y0, x1, y1);
+		} else {
+			jobSystem.parallelFor(y0, y1, MIN_PARALLEL_ROWS, (start, end) -> {
+				scaleRows(src, srcStride, x0, start, x1, end);
+			});
+		}
+	}
+
+	private void scaleRows(int[] src, int srcStride, int x0, int y0, int x1, int y1) {
+		int[] dst = scaledPixels;
+		int scale = this.scale;
+		int dstStride = srcStride * scale;
+		int dstWidth = (x1 - x0) * scale;
+
+		for (int sy = y0; sy < y1; sy++) {
+			int si = x0 + sy * srcStride;
+			int rowStart = x0 * scale + sy * scale * dstStride;
+
+			// Scale the first row horizontally, and
+			// copy it to the remaining rows.
+			int di = rowStart;
+			for (int sx = x0; sx < x1; sx++) {
+				int pixel = src[si++];
+				for (int end = di + scale; di < end; )
+					dst[di++] = pixel;
+			}
+
+			int rowEnd = rowStart + scale * dstStride;
+			for (di = rowStart + dstStride; di < rowEnd; di += dstStride)
+				System.arraycopy(dst, rowStart, dst, di, dstWidth);
+		}
+	}
+
+	/**
+	 * Uploads the regions of the scaled image to the volatile image, and
+	 * draws them using the given graphics.
+	 *
+	 * @return True, if the regions were presented successfully.
+	 */
+	private boolean presentVolatile(Graphics g, int x, int y, int scale, DirtyRegion region) {
+		if (!(g instanceof Graphics2D))
+			return false;
+
+		GraphicsConfiguration gc = ((Graphics2D)g).getDeviceConfiguration();
+		if (gc == null)
+			return false;
+
+		int w = scaledImage.getWidth();
+		int h = scaledImage.getHeight();
+
+		do {
+			int status = VolatileImage.IMAGE_INCOMPATIBLE;
+			if (volatileImage != null && volatileImage.getWidth() == w && volatileImage.getHeight() == h)
+				status = volatileImage.validate(gc);
+
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				if (volatileImage != null)
+					volatileImage.flush();
+				volatileImage = gc.createCompatibleVolatileImage(w, h, scaledImage.getTransparency());
+				if (volatileImage == null)
+					return false;
+			}
+
+			// The entire image has to be uploaded,
+			// if the contents were lost.
+			DirtyRegion uploadRegion = (status == VolatileImage.IMAGE_OK) ? region : null;
+
+			Graphics vg = volatileImage.createGraphics();
+			try {
+				drawImage(vg, scaledImage, 0, 0, scale, uploadRegion);
+			} finally {
+				vg.dispose();
+			}
+
+			drawImage(g, volatileImage, x, y, scale, region);
+		} while (volatileImage.contentsLost());
+
+		return true;
+	}
+
+	/**
+	 * Sets the strategy used for presenting the frames. If the strategy is
+	 * null, the fastest strategy is measured and used.
+	 *
+	 * @param strategy - the present strategy, or null
+	 */
+	public void setStrategy(PresentStrategy strategy) {
+		this.strategy = strategy;
+	}
+
+	/**
+	 * @return The strategy set by {@link #setStrategy(PresentStrategy)}, or
+	 *         null if the strategy is chosen automatically.
+	 */
+	public PresentStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * @return The strategy currently used for presenting frames, or null if
+	 *         the strategies are still being measured.
+	 */
+	public PresentStrategy getActiveStrategy() {
+		return (strategy != null) ? strategy : selectedStrategy;
+	}
+
+	/**
+	 * Releases the scaled image and the volatile image. These are created
+	 * again when the next frame is presented.
+	 */
+	public void dispose() {
+		scaledImage = null;
+		scaledPixels = null;
+		scaledInvalid = true;
+
+		if (volatileImage != null) {
+			volatileImage.flush();
+			volatileImage = null;
+		}
+	}
+
+	public enum PresentStrategy {
+
+		DRAW_IMAGE, SOFTWARE, VOLATILE;
+
+	}
+}
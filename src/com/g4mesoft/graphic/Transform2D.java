@@ -0,0 +1,229 @@
+package com.g4mesoft.graphic;
+
+import com.g4mesoft.math.MathUtils;
+
+/**
+ * A two-dimensional affine transformation, which maps a point (x, y) to
+ * <pre>
+ *   x' = m00 * x + m10 * y + m20
+ *   y' = m01 * x + m11 * y + m21
+ * </pre>
+ * The elements are named the same way as those of {@link com.g4mesoft.math.Mat3f
+ * Mat3f}, where the last row is implicitly {@code (0, 0, 1)}. Operations such
+ * as {@link #scale(float, float)} and {@link #rotate(float)} are applied
+ * before the existing transformation, i.e. in the local coordinate system of
+ * the transformation.
+ *
+ * @see PixelRenderer2D#pushTransform()
+ */
+public class Transform2D {
+
+	public float m00, m10, m20,
+	             m01, m11, m21;
+
+	public Transform2D() {
+		toIdentity();
+	}
+
+	public Transform2D(float m00, float m10, float m20,
+	                   float m01, float m11, float m21) {
+
+		set(m00, m10, m20,
+		    m01, m11, m21);
+	}
+
+	public Transform2D toIdentity() {
+		return set(1.0f, 0.0f, 0.0f,
+		           0.0f, 1.0f, 0.0f);
+	}
+
+	public Transform2D set(float m00, float m10, float m20,
+	                       float m01, float m11, float m21) {
+
+		this.m00 = m00;
+		this.m10 = m10;
+		this.m20 = m20;
+
+		this.m01 = m01;
+		this.m11 = m11;
+		this.m21 = m21;
+
+		return this;
+	}
+
+	public Transform2D set(Transform2D other) {
+		return set(other.m00, other.m10, other.m20,
+		           other.m01, other.m11, other.m21);
+	}
+
+	public Transform2D translate(float tx, float ty) {
+		m20 += m00 * tx + m10 * ty;
+		m21 += m01 * tx + m11 * ty;
+
+		return this;
+	}
+
+	public Transform2D scale(float s) {
+		return scale(s, s);
+	}
+
+	public Transform2D scale(float sx, float sy) {
+		m00 *= sx;
+		m01 *= sx;
+
+		m10 *= sy;
+		m11 *= sy;
+
+		return this;
+	}
+
+	/**
+	 * Rotates the transformation by the given angle around the origin.
+	 *
+	 * @param angle - the angle of the rotation in degrees
+	 *
+	 * @return This transformation
+	 */
+	public Transform2D rotate(float angle) {
+		float r = MathUtils.PI * angle / 180.0f;
+		float c = MathUtils.cos(r);
+		float s = MathUtils.sin(r);
+
+		float n00 = m00 * c + m10 * s;
+		float n01 = m01 * c + m11 * s;
+
+		m10 = m10 * c - m00 * s;
+		m11 = m11 * c - m01 * s;
+
+		m00 = n00;
+		m01 = n01;
+
+		return this;
+	}
+
+	/**
+	 * Rotates the transformation by the given angle around the given point.
+	 *
+	 * @param angle - the angle of the rotation in degrees
+	 * @param cx - the x-coordinate of the center of the rotation
+	 * @param cy - the y-coordinate of the center of the rotation
+	 *
+	 * @return This transformation
+	 */
+	public Transform2D rotate(float angle, float cx, float cy) {
+		return translate(cx, cy).rotate(angle).translate(-cx, -cy);
+	}
+
+	/**
+	 * Shears the transformation, such that a point (x, y) is first mapped to
+	 * {@code (x + shx * y, y + shy * x)}.
+	 *
+	 * @param shx - the shear along the x-axis
+	 * @param shy - the shear along the y-axis
+	 *
+	 * @return This transformation
+	 */
+	public Transform2D shear(float shx, float shy) {
+		float n00 = m00 + m10 * shy;
+		float n01 = m01 + m11 * shy;
+
+		m10 += m00 * shx;
+		m11 += m01 * shx;
+
+		m00 = n00;
+		m01 = n01;
+
+		return this;
+	}
+
+	public Transform2D mul(Transform2D right) {
+		return mul(right, this);
+	}
+
+	public Transform2D mul(Transform2D right, Transform2D dest) {
+		float n00 = m00 * right.m00 + m10 * right.m01;
+		float n01 = m01 * right.m00 + m11 * right.m01;
+
+		float n10 = m00 * right.m10 + m10 * right.m11;
+		float n11 = m01 * right.m10 + m11 * right.m11;
+
+		float n20 = m00 * right.m20 + m10 * right.m21 + m20;
+		float n21 = m01 * right.m20 + m11 * right.m21 + m21;
+
+		return dest.set(n00, n10, n20,
+		                n01, n11, n21);
+	}
+
+	public float transformX(float x, float y) {
+		return m00 * x + m10 * y + m20;
+	}
+
+	public float transformY(float x, float y) {
+		return m01 * x + m11 * y + m21;
+	}
+
+	public Transform2D invert() {
+		return inverseCopy(this);
+	}
+
+	public Transform2D inverseCopy() {
+		return inverseCopy(new Transform2D());
+	}
+
+	/**
+	 * Stores the inverse of this transformation in the given destination.
+	 *
+	 * @param dest - the destination of the inverse
+	 *
+	 * @return The destination, or null if the transformation is not
+	 *         invertible, in which case the destination is unchanged.
+	 */
+	public Transform2D inverseCopy(Transform2D dest) {
+		float det = m00 * m11 - m10 * m01;
+		if (det == 0.0f || Float.isNaN(det) || Float.isInfinite(det))
+			return null; // Non-invertable
+
+		float n00 =  m11 / det;
+		float n10 = -m10 / det;
+		float n01 = -m01 / det;
+		float n11 =  m00 / det;
+
+		return dest.set(n00, n10, -(n00 * m20 + n10 * m21),
+		                n01, n11, -(n01 * m20 + n11 * m21));
+	}
+
+	/**
+	 * @return True, if the transformation maps every point to itself.
+	 */
+	public boolean isIdentity() {
+		return m00 == 1.0f && m10 == 0.0f && m20 == 0.0f &&
+		       m01 == 0.0f && m11 == 1.0f && m21 == 0.0f;
+	}
+
+	/**
+	 * @return True, if the transformation maps axis-aligned rectangles to
+	 *         axis-aligned rectangles without swapping the axes.
+	 */
+	public boolean isAxisAligned() {
+		return m10 == 0.0f && m01 == 0.0f;
+	}
+
+	public Transform2D copy() {
+		return copy(new Transform2D());
+	}
+
+	public Transform2D copy(Transform2D dest) {
+		return dest.set(this);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%f, %f, %f,\n" +
+				"%f, %f, %f\n",
+
+				m00, m10, m20,
+				m01, m11, m21
+		);
+	}
+}
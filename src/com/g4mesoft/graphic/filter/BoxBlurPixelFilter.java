@@ -8,10 +8,6 @@ public class BoxBlurPixelFilter implements IPixelFilter {
 	
 	private final int radius;
 	private final int flags;
-	
-	private final int[] bufferR;
-	private final int[] bufferG;
-	private final int[] bufferB;
 
 	public BoxBlurPixelFilter(int radius) {
 		this(radius, FULL_BLUR);
@@ -25,10 +21,6 @@ public class BoxBlurPixelFilter implements IPixelFilter {
 		
 		this.radius = radius;
 		this.flags = flags;
-		
-		bufferR = new int[radius * 2 + 1];
-		bufferG = new int[radius * 2 + 1];
-		bufferB = new int[radius * 2 + 1];
 	}
 	
 	@Override
@@ -45,6 +37,12 @@ public class BoxBlurPixelFilter implements IPixelFilter {
 		
 		int bufferLength = radius + radius + 1;
 
+		// The buffers are allocated per invocation, such that the
+		// filter can be applied from multiple threads at once.
+		int[] bufferR = new int[bufferLength];
+		int[] bufferG = new int[bufferLength];
+		int[] bufferB = new int[bufferLength];
+
 		float c = 1.0f / bufferLength;
 		
 		int rgb;
@@ -170,6 +168,12 @@ public class BoxBlurPixelFilter implements IPixelFilter {
 			return;
 		
 		int bufferLength = radius + radius + 1;
+
+		// The buffers are allocated per invocation, such that the
+		// filter can be applied from multiple threads at once.
+		int[] bufferR = new int[bufferLength];
+		int[] bufferG = new int[bufferLength];
+		int[] bufferB = new int[bufferLength];
 		
 		float c = 1.0f / bufferLength;
 		
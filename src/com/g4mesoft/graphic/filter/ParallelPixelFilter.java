@@ -0,0 +1,68 @@
+package com.g4mesoft.graphic.filter;
+
+import com.g4mesoft.job.JobSystem;
+
+/**
+ * A pixel filter which applies another filter in parallel, by splitting the
+ * filtered area into horizontal strips, and filtering each strip as a job of
+ * the given {@link JobSystem}. This is only valid for filters where each row
+ * is filtered independently of the other rows, such as the
+ * {@link ContrastPixelFilter}, the {@link MultiplyPixelFilter} and the
+ * horizontal {@link BoxBlurPixelFilter}. Since the strips are filtered
+ * concurrently by the same filter instance, the wrapped filter must also be
+ * stateless, i.e. it must not keep any mutable state between, or during,
+ * invocations of {@link IPixelFilter#filterPixels(int[], int, int, int, int)}.
+ * <pre>
+ *   IPixelFilter contrast = new ContrastPixelFilter(1.5f);
+ *   renderer.applyFilter(new ParallelPixelFilter(contrast, getJobSystem()));
+ * </pre>
+ * 
+ * @see com.g4mesoft.Application#getJobSystem()
+ */
+public class ParallelPixelFilter implements IPixelFilter {
+
+	/* The minimum amount of rows filtered by a single job */
+	private static final int DEFAULT_MIN_ROWS = 16;
+	
+	private final IPixelFilter filter;
+	private final JobSystem jobSystem;
+	private final int minRows;
+
+	public ParallelPixelFilter(IPixelFilter filter, JobSystem jobSystem) {
+		this(filter, jobSystem, DEFAULT_MIN_ROWS);
+	}
+	
+	/**
+	 * Constructs a parallel pixel filter, which applies the given row
+	 * independent filter using the given job system.
+	 * 
+	 * @param filter - the filter to apply in parallel
+	 * @param jobSystem - the job system performing the filtering
+	 * @param minRows - the minimum amount of rows filtered by a single job
+	 */
+	public ParallelPixelFilter(IPixelFilter filter, JobSystem jobSystem, int minRows) {
+		if (filter == null)
+			throw new NullPointerException("filter is null!");
+		if (jobSystem == null)
+			throw new NullPointerException("jobSystem is null!");
+		if (minRows <= 0)
+			throw new IllegalArgumentException("minRows <= 0");
+		
+		this.filter = filter;
+		this.jobSystem = jobSystem;
+		this.minRows = minRows;
+	}
+	
+	@Override
+	public void filterPixels(int[] pixels, int offset, int width, int height, int stride) {
+		int grainSize = Math.max(minRows, height / (jobSystem.getParallelism() * 2));
+		
+		jobSystem.parallelFor(0, height, grainSize, (y0, y1) -> {
+			filter.filterPixels(pixels, offset + y0 * stride, width, y1 - y0, stride);
+		});
+	}
+	
+	public IPixelFilter getFilter() {
+		return filter;
+	}
+}
@@ -0,0 +1,415 @@
+package com.g4mesoft.graphic.particle;
+
+import com.g4mesoft.graphic.PixelRasterizer;
+import com.g4mesoft.graphic.PixelRenderer2D;
+import com.g4mesoft.job.JobSystem;
+
+/**
+ * A system of simple particles, each of which is drawn as a single pixel. The
+ * state of the particles is stored as a structure of arrays, such that updating
+ * and drawing the particles only touches a few contiguous arrays of primitives,
+ * and no objects are allocated per particle. Dead particles are removed by
+ * moving the last particle into their place, which keeps the particles packed
+ * at the start of the arrays.
+ * <br><br>
+ * Like entities, particles are updated once per tick, and the positions of the
+ * previous tick are stored, such that the particles can be interpolated when
+ * drawn. The particles are updated in parallel, if the system is given a job
+ * system. Particles are drawn directly into the pixel buffer of a
+ * {@link PixelRenderer2D}, either blended by the alpha of their color or
+ * added to the pixels. The bounding box of the particles is computed during
+ * the update, such that particles are only checked against the bounds of the
+ * screen, when the bounding box is not entirely visible.
+ * <br><br>
+ * The following shows an example of emitting sparks:
+ * <pre>
+ *   ParticleSystem sparks = new ParticleSystem(100000);
+ *   sparks.setBlendMode(ParticleSystem.BLEND_ADDITIVE);
+ *   sparks.setAcceleration(0.0f, 0.05f);
+ *   sparks.spawn(x, y, vx, vy, 60.0f, 0xFFFFA040);
+ *   ...
+ *   sparks.update(); // every tick
+ *   sparks.render(renderer, dt, camera.getXOffset(dt), camera.getYOffset(dt));
+ * </pre>
+ */
+public class ParticleSystem {
+
+	/* The ways particles are blended with the pixels */
+	public static final int BLEND_ALPHA    = 0;
+	public static final int BLEND_ADDITIVE = 1;
+
+	/* The minimum amount of particles updated by a single job */
+	private static final int MIN_PARALLEL_PARTICLES = 4096;
+
+	/* Bias making the conversion to pixels round towards negative infinity */
+	private static final int PIXEL_BIAS = 1 << 16;
+
+	private final int capacity;
+	private int count;
+
+	private final float[] x;
+	private final float[] y;
+	private final float[] prevX;
+	private final float[] prevY;
+	private final float[] vx;
+	private final float[] vy;
+	private final float[] life;
+	private final float[] lifetime;
+	private final int[] color;
+
+	private float ax;
+	private float ay;
+	private float drag;
+
+	private int blendMode;
+	private boolean fadeOut;
+
+	private JobSystem jobSystem;
+
+	/* The bounds of the current and previous positions */
+	private final float[] bounds;
+
+	/**
+	 * Constructs an empty particle system.
+	 *
+	 * @param capacity - the maximum amount of living particles
+	 */
+	public ParticleSystem(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity <= 0");
+
+		this.capacity = capacity;
+		count = 0;
+
+		x = new float[capacity];
+		y = new float[capacity];
+		prevX = new float[capacity];
+		prevY = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		life = new float[capacity];
+		lifetime = new float[capacity];
+		color = new int[capacity];
+
+		ax = ay = 0.0f;
+		drag = 1.0f;
+
+		blendMode = BLEND_ALPHA;
+		fadeOut = false;
+
+		jobSystem = null;
+
+		bounds = new float[4];
+		clearBounds(bounds);
+	}
+
+	/**
+	 * Spawns a new particle, unless the system is full.
+	 *
+	 * @param x - the x-coordinate of the particle
+	 * @param y - the y-coordinate of the particle
+	 * @param vx - the velocity along the x-axis per tick
+	 * @param vy - the velocity along the y-axis per tick
+	 * @param lifetime - the amount of ticks the particle lives
+	 * @param argb - the color of the particle, including alpha
+	 *
+	 * @return True, if the particle was spawned.
+	 */
+	public boolean spawn(float x, float y, float vx, float vy, float lifetime, int argb) {
+		if (count == capacity)
+			return false;
+
+		int i = count++;
+		this.x[i] = this.prevX[i] = x;
+		this.y[i] = this.prevY[i] = y;
+		this.vx[i] = vx;
+		this.vy[i] = vy;
+		this.life[i] = this.lifetime[i] = lifetime;
+		this.color[i] = argb;
+
+		addBounds(bounds, x, y);
+
+		return true;
+	}
+
+	/**
+	 * Updates the particles by a single tick. The velocity of every particle
+	 * is accelerated and dampened by the drag, before the particle is moved.
+	 * Particles, which have no life left, are removed.
+	 */
+	public void update() {
+		clearBounds(bounds);
+
+		if (jobSystem == null || count < MIN_PARALLEL_PARTICLES * 2) {
+			updateRange(0, count, bounds);
+		} else {
+			jobSystem.parallelFor(0, count, MIN_PARALLEL_PARTICLES, (start, end) -> {
+				float[] rangeBounds = new float[4];
+				clearBounds(rangeBounds);
+
+				updateRange(start, end, rangeBounds);
+
+				synchronized (bounds) {
+					addBounds(bounds, rangeBounds[0], rangeBounds[1]);
+					addBounds(bounds, rangeBounds[2], rangeBounds[3]);
+				}
+			});
+		}
+
+		removeDeadParticles();
+	}
+
+	private void updateRange(int start, int end, float[] bounds) {
+		float ax = this.ax;
+		float ay = this.ay;
+		float drag = this.drag;
+
+		float minX = bounds[0], minY = bounds[1];
+		float maxX = bounds[2], maxY = bounds[3];
+
+		for (int i = start; i < end; i++) {
+			float px = x[i];
+			float py = y[i];
+			prevX[i] = px;
+			prevY[i] = py;
+
+			float nvx = (vx[i] + ax) * drag;
+			float nvy = (vy[i] + ay) * drag;
+			vx[i] = nvx;
+			vy[i] = nvy;
+
+			float nx = px + nvx;
+			float ny = py + nvy;
+			x[i] = nx;
+			y[i] = ny;
+
+			life[i] -= 1.0f;
+
+			// The bounds contain both the previous and
+			// the current position for interpolation.
+			minX = Math.min(minX, Math.min(px, nx));
+			minY = Math.min(minY, Math.min(py, ny));
+			maxX = Math.max(maxX, Math.max(px, nx));
+			maxY = Math.max(maxY, Math.max(py, ny));
+		}
+
+		bounds[0] = minX;
+		bounds[1] = minY;
+		bounds[2] = maxX;
+		bounds[3] = maxY;
+	}
+
+	private void removeDeadParticles() {
+		int i = 0;
+		while (i < count) {
+			if (life[i] > 0.0f) {
+				i++;
+				continue;
+			}
+
+			// Move the last particle into the place of the
+			// dead one, and check it in the next iteration.
+			int last = --count;
+			x[i] = x[last];
+			y[i] = y[last];
+			prevX[i] = prevX[last];
+			prevY[i] = prevY[last];
+			vx[i] = vx[last];
+			vy[i] = vy[last];
+			life[i] = life[last];
+			lifetime[i] = lifetime[last];
+			color[i] = color[last];
+		}
+	}
+
+	private static void clearBounds(float[] bounds) {
+		bounds[0] = bounds[1] = Float.POSITIVE_INFINITY;
+		bounds[2] = bounds[3] = Float.NEGATIVE_INFINITY;
+	}
+
+	private static void addBounds(float[] bounds, float x, float y) {
+		bounds[0] = Math.min(bounds[0], x);
+		bounds[1] = Math.min(bounds[1], y);
+		bounds[2] = Math.max(bounds[2], x);
+		bounds[3] = Math.max(bounds[3], y);
+	}
+
+	/**
+	 * Draws the particles at their interpolated positions.
+	 *
+	 * @param renderer - the renderer to draw the particles with
+	 * @param dt - the delta time of the current frame
+	 *
+	 * @see #render(PixelRenderer2D, float, float, float)
+	 */
+	public void render(PixelRenderer2D renderer, float dt) {
+		render(renderer, dt, 0.0f, 0.0f);
+	}
+
+	/**
+	 * Draws the particles at their interpolated positions, as seen by a camera
+	 * at the given offset. The particles are drawn directly into the pixel
+	 * buffer of the renderer, and are therefore not affected by the offset or
+	 * transformation of the renderer.
+	 *
+	 * @param renderer - the renderer to draw the particles with
+	 * @param dt - the delta time of the current frame
+	 * @param xOffset - the x-coordinate of the top-left corner of the view
+	 * @param yOffset - the y-coordinate of the top-left corner of the view
+	 */
+	public void render(PixelRenderer2D renderer, float dt, float xOffset, float yOffset) {
+		if (count == 0)
+			return;
+
+		PixelRasterizer rasterizer = renderer.getPixelRasterizer();
+		int[] pixels = rasterizer.getPixels();
+		int stride = rasterizer.getStride();
+
+		int clipX0 = rasterizer.getClipX0();
+		int clipY0 = rasterizer.getClipY0();
+		int clipX1 = rasterizer.getClipX1();
+		int clipY1 = rasterizer.getClipY1();
+		if (clipX0 >= clipX1 || clipY0 >= clipY1)
+			return;
+
+		// Include the bias in the offset, such that
+		// the conversion to pixels rounds down.
+		float ox = PIXEL_BIAS - xOffset;
+		float oy = PIXEL_BIAS - yOffset;
+
+		// Only check the particles individually, if
+		// they are not entirely within the clip.
+		boolean checked = (toPixel(bounds[0] + ox) < clipX0 || toPixel(bounds[1] + oy) < clipY0 ||
+		                   toPixel(bounds[2] + ox) >= clipX1 || toPixel(bounds[3] + oy) >= clipY1);
+
+		boolean additive = (blendMode == BLEND_ADDITIVE);
+
+		for (int i = 0; i < count; i++) {
+			int px = toPixel(prevX[i] + (x[i] - prevX[i]) * dt + ox);
+			int py = toPixel(prevY[i] + (y[i] - prevY[i]) * dt + oy);
+
+			if (checked && (px < clipX0 || px >= clipX1 || py < clipY0 || py >= clipY1))
+				continue;
+
+			int c = color[i];
+			int a = c >>> 24;
+			if (fadeOut)
+				a = (int)(a * Math.max(0.0f, life[i]) / lifetime[i]);
+			if (a == 0)
+				continue;
+
+			// Map the alpha from [0, 255] to [0, 256]
+			a += a >>> 7;
+
+			int pi = px + py * stride;
+			int d = pixels[pi];
+
+			// Premultiply the color, where the red and blue channels,
+			// and the alpha and green channels, are computed together.
+			int srb = (((c & 0xFF00FF) * a) >>> 8) & 0xFF00FF;
+			int sag = ((((c >>> 8) & 0xFF) | 0xFF0000) * a) & 0xFF00FF00;
+
+			if (additive) {
+				// Saturated addition of every channel
+				int rb = (d & 0xFF00FF) + srb;
+				int ag = ((d >>> 8) & 0xFF00FF) + (sag >>> 8);
+				rb |= (rb & 0x1000100) - ((rb & 0x1000100) >>> 8);
+				ag |= (ag & 0x1000100) - ((ag & 0x1000100) >>> 8);
+
+				pixels[pi] = (rb & 0xFF00FF) | ((ag & 0xFF00FF) << 8);
+			} else {
+				// src + dst * (1 - alpha), see Sprite
+				int ia = 0x100 - a;
+				int rb = (((d & 0xFF00FF) * ia) >>> 8) & 0xFF00FF;
+				int ag = (((d >>> 8) & 0xFF00FF) * ia) & 0xFF00FF00;
+
+				pixels[pi] = srb + sag + rb + ag;
+			}
+		}
+	}
+
+	private static int toPixel(float biased) {
+		return (int)biased - PIXEL_BIAS;
+	}
+
+	/**
+	 * Removes every particle from the system.
+	 */
+	public void clear() {
+		count = 0;
+		clearBounds(bounds);
+	}
+
+	/**
+	 * Sets the acceleration added to the velocity of the particles every tick,
+	 * such as gravity.
+	 *
+	 * @param ax - the acceleration along the x-axis
+	 * @param ay - the acceleration along the y-axis
+	 */
+	public void setAcceleration(float ax, float ay) {
+		this.ax = ax;
+		this.ay = ay;
+	}
+
+	/**
+	 * Sets the factor, which the velocity of the particles is multiplied by
+	 * every tick. The default drag is one, i.e. no drag.
+	 *
+	 * @param drag - the drag of the particles
+	 */
+	public void setDrag(float drag) {
+		this.drag = drag;
+	}
+
+	/**
+	 * @param blendMode - the blend mode, either {@link #BLEND_ALPHA} or
+	 *                    {@link #BLEND_ADDITIVE}
+	 */
+	public void setBlendMode(int blendMode) {
+		if (blendMode != BLEND_ALPHA && blendMode != BLEND_ADDITIVE)
+			throw new IllegalArgumentException("Unknown blend mode: " + blendMode);
+
+		this.blendMode = blendMode;
+	}
+
+	public int getBlendMode() {
+		return blendMode;
+	}
+
+	/**
+	 * Sets whether the alpha of the particles is faded out by their remaining
+	 * life.
+	 *
+	 * @param fadeOut - whether particles fade out
+	 */
+	public void setFadeOut(boolean fadeOut) {
+		this.fadeOut = fadeOut;
+	}
+
+	public boolean isFadeOut() {
+		return fadeOut;
+	}
+
+	/**
+	 * Sets the job system used for updating the particles in parallel.
+	 *
+	 * @param jobSystem - the job system, or null to update the particles on
+	 *                    the calling thread.
+	 */
+	public void setJobSystem(JobSystem jobSystem) {
+		this.jobSystem = jobSystem;
+	}
+
+	public JobSystem getJobSystem() {
+		return jobSystem;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+}
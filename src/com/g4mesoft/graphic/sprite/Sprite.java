@@ -0,0 +1,450 @@
+package com.g4mesoft.graphic.sprite;
+
+import java.awt.image.BufferedImage;
+
+import com.g4mesoft.graphic.PixelRasterizer;
+import com.g4mesoft.graphic.Transform2D;
+
+/**
+ * An image, which is encoded for fast drawing to a pixel buffer. The pixels of
+ * each row are stored as runs of visible pixels, such that fully transparent
+ * pixels are skipped entirely while drawing. Every run is either opaque or
+ * translucent:
+ * <ul>
+ * <li>Opaque runs are copied directly to the pixel buffer, using
+ *     {@link System#arraycopy(Object, int, Object, int, int)} when the sprite
+ *     is not flipped horizontally.</li>
+ * <li>Translucent runs are blended with the pixel buffer, using the colors
+ *     of the sprite with premultiplied alpha.</li>
+ * </ul>
+ * Sprites are constructed from straight (non-premultiplied) ARGB pixels, and
+ * are drawn using {@link com.g4mesoft.graphic.PixelRenderer2D#drawSprite(Sprite, int, int)
+ * PixelRenderer2D#drawSprite(Sprite, int, int)}. Several sprites can share a
+ * single pixel array by packing them into a {@link SpriteAtlas}.
+ *
+ * @see SpriteAtlas
+ */
+public class Sprite {
+
+	/* Flags used when drawing sprites */
+	public static final int FLIP_HORIZONTAL = 0x01;
+	public static final int FLIP_VERTICAL   = 0x02;
+
+	private static final int TRANSLUCENT_RUN_FLAG = 0x01;
+
+	/* The kinds of pixels, where runs consist of a single kind */
+	private static final int TRANSPARENT_PIXEL = 0;
+	private static final int OPAQUE_PIXEL      = 1;
+	private static final int TRANSLUCENT_PIXEL = 2;
+
+	private final int width;
+	private final int height;
+
+	/* The encoded pixels, which may be shared with other sprites */
+	private final int[] pixels;
+	private final int offset;
+	private final int stride;
+
+	/*
+	 * Every run is stored as a pair of integers. The first integer is
+	 * the x-coordinate of the run shifted left by one, where the lowest
+	 * bit is set if the run is translucent. The second is the length.
+	 */
+	private final int[] runs;
+	private final int[] rowStarts;
+
+	private final boolean opaque;
+
+	/**
+	 * Constructs a sprite from the given straight ARGB pixels. The pixels are
+	 * stored with y-major ordering.
+	 *
+	 * @param argb - the pixels of the sprite
+	 * @param width - the width of the sprite
+	 * @param height - the height of the sprite
+	 */
+	public Sprite(int[] argb, int width, int height) {
+		this(argb, 0, width, width, height);
+	}
+
+	/**
+	 * Constructs a sprite from a region of the given straight ARGB pixels.
+	 *
+	 * @param argb - the pixels containing the region
+	 * @param srcOffset - the index of the top-left pixel of the region
+	 * @param srcStride - the width of the pixel array
+	 * @param width - the width of the region
+	 * @param height - the height of the region
+	 */
+	public Sprite(int[] argb, int srcOffset, int srcStride, int width, int height) {
+		this(argb, srcOffset, srcStride, width, height, new int[width * height], 0, width);
+	}
+
+	public Sprite(BufferedImage image) {
+		this(getARGB(image), image.getWidth(), image.getHeight());
+	}
+
+	/**
+	 * Constructs a sprite, which stores the encoded pixels in a region of the
+	 * given destination array. This is used for packing several sprites into
+	 * the same pixel array.
+	 */
+	Sprite(int[] argb, int srcOffset, int srcStride, int width, int height,
+	       int[] dst, int dstOffset, int dstStride) {
+
+		if (argb == null)
+			throw new NullPointerException("argb is null!");
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Invalid sprite size: " + width + "x" + height);
+
+		this.width = width;
+		this.height = height;
+
+		pixels = dst;
+		offset = dstOffset;
+		stride = dstStride;
+
+		rowStarts = new int[height + 1];
+
+		int[] runs = new int[16];
+		int runIndex = 0;
+		boolean opaque = true;
+
+		for (int y = 0; y < height; y++) {
+			rowStarts[y] = runIndex;
+
+			int si = srcOffset + y * srcStride;
+			int di = dstOffset + y * dstStride;
+
+			int x = 0;
+			while (x < width) {
+				int kind = getPixelKind(argb[si + x]);
+				if (kind == TRANSPARENT_PIXEL) {
+					dst[di + x] = 0;
+					opaque = false;
+					x++;
+					continue;
+				}
+
+				// Find the end of the run of pixels with the
+				// same kind of alpha (opaque or translucent).
+				int start = x;
+				do {
+					dst[di + x] = encodePixel(argb[si + x]);
+					x++;
+				} while (x < width && getPixelKind(argb[si + x]) == kind);
+
+				boolean translucent = (kind == TRANSLUCENT_PIXEL);
+				if (translucent)
+					opaque = false;
+
+				if (runIndex + 2 > runs.length) {
+					int[] newRuns = new int[runs.length * 2];
+					System.arraycopy(runs, 0, newRuns, 0, runIndex);
+					runs = newRuns;
+				}
+
+				runs[runIndex++] = (start << 1) | (translucent ? TRANSLUCENT_RUN_FLAG : 0);
+				runs[runIndex++] = x - start;
+			}
+		}
+		rowStarts[height] = runIndex;
+
+		this.runs = new int[runIndex];
+		System.arraycopy(runs, 0, this.runs, 0, runIndex);
+
+		this.opaque = opaque;
+	}
+
+	private static int[] getARGB(BufferedImage image) {
+		if (image == null)
+			throw new NullPointerException("image is null!");
+
+		int w = image.getWidth();
+		int h = image.getHeight();
+		return image.getRGB(0, 0, w, h, null, 0, w);
+	}
+
+	private static int getPixelKind(int argb) {
+		int alpha = argb >>> 24;
+		if (alpha == 0x00)
+			return TRANSPARENT_PIXEL;
+		return (alpha == 0xFF) ? OPAQUE_PIXEL : TRANSLUCENT_PIXEL;
+	}
+
+	/**
+	 * Encodes the given pixel with premultiplied alpha, such that opaque
+	 * pixels are unchanged and can be copied directly to the pixel buffer.
+	 */
+	private static int encodePixel(int argb) {
+		int a = argb >>> 24;
+		if (a == 0xFF)
+			return argb;
+
+		int r = ((argb >>> 16) & 0xFF) * a;
+		int g = ((argb >>>  8) & 0xFF) * a;
+		int b = ((argb       ) & 0xFF) * a;
+
+		// Divide by 255 with rounding
+		r = (r + 0x7F) / 0xFF;
+		g = (g + 0x7F) / 0xFF;
+		b = (b + 0x7F) / 0xFF;
+
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Draws the sprite using the given rasterizer. The sprite is clipped to
+	 * the clipping region of the rasterizer.
+	 *
+	 * @param rasterizer - the rasterizer to draw the sprite with
+	 * @param x - the x-coordinate of the top-left corner of the sprite
+	 * @param y - the y-coordinate of the top-left corner of the sprite
+	 * @param flags - the flags of the sprite, such as {@link #FLIP_HORIZONTAL}
+	 */
+	public void draw(PixelRasterizer rasterizer, int x, int y, int flags) {
+		int clipX0 = rasterizer.getClipX0();
+		int clipY0 = rasterizer.getClipY0();
+		int clipX1 = rasterizer.getClipX1();
+		int clipY1 = rasterizer.getClipY1();
+
+		if (x >= clipX1 || y >= clipY1 || x + width <= clipX0 || y + height <= clipY0)
+			return;
+
+		int[] dst = rasterizer.getPixels();
+		int dstStride = rasterizer.getStride();
+
+		boolean flipH = (flags & FLIP_HORIZONTAL) != 0;
+		boolean flipV = (flags & FLIP_VERTICAL) != 0;
+
+		int yy0 = Math.max(0, clipY0 - y);
+		int yy1 = Math.min(height, clipY1 - y);
+
+		for (int yy = yy0; yy < yy1; yy++) {
+			int sy = flipV ? (height - 1 - yy) : yy;
+			int srcRow = offset + sy * stride;
+			int dstRow = (y + yy) * dstStride;
+
+			int runEnd = rowStarts[sy + 1];
+			for (int r = rowStarts[sy]; r < runEnd; r += 2) {
+				int rx = runs[r] >>> 1;
+				int len = runs[r + 1];
+
+				// The x-coordinate of the run on the screen
+				int dx0 = x + (flipH ? (width - rx - len) : rx);
+				int dx1 = dx0 + len;
+
+				int cx0 = Math.max(dx0, clipX0);
+				int cx1 = Math.min(dx1, clipX1);
+				if (cx0 >= cx1)
+					continue;
+
+				boolean translucent = (runs[r] & TRANSLUCENT_RUN_FLAG) != 0;
+				int di = dstRow + cx0;
+
+				if (!flipH) {
+					int si = srcRow + rx + (cx0 - dx0);
+					if (translucent) {
+						blendRun(pixels, si, 1, dst, di, cx1 - cx0);
+					} else {
+						System.arraycopy(pixels, si, dst, di, cx1 - cx0);
+					}
+				} else {
+					// The first pixel on the screen is the
+					// last pixel of the run in the sprite.
+					int si = srcRow + rx + len - 1 - (cx0 - dx0);
+					if (translucent) {
+						blendRun(pixels, si, -1, dst, di, cx1 - cx0);
+					} else {
+						for (int i = cx1 - cx0; i > 0; i--)
+							dst[di++] = pixels[si--];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws the sprite mapped by the given transformation, using the given
+	 * rasterizer. The transformation maps the coordinates of the sprite, where
+	 * the top-left corner is the origin, to the pixels of the rasterizer.
+	 *
+	 * @param rasterizer - the rasterizer to draw the sprite with
+	 * @param transform - the transformation of the sprite
+	 *
+	 * @see PixelRasterizer#drawTransformedPixels(int[], int, int, int, int, Transform2D, int)
+	 */
+	public void drawTransformed(PixelRasterizer rasterizer, Transform2D transform) {
+		// The encoded pixels are premultiplied, and transparent
+		// pixels are zero, such that they can be sampled directly.
+		rasterizer.drawTransformedPixels(pixels, offset, stride, width, height,
+		                                 transform, PixelRasterizer.PIXELS_PREMULTIPLIED);
+	}
+
+	/**
+	 * Draws the sprite as a mask filled with the given color, using the given
+	 * rasterizer. The alpha of every pixel of the sprite is used as the
+	 * coverage of the color, while the color channels of the sprite are
+	 * ignored. This is used for drawing glyphs, where the coverage is given
+	 * by the rasterized glyph.
+	 *
+	 * @param rasterizer - the rasterizer to draw the mask with
+	 * @param x - the x-coordinate of the top-left corner of the sprite
+	 * @param y - the y-coordinate of the top-left corner of the sprite
+	 * @param color - the RGB color filling the mask
+	 */
+	public void drawMask(PixelRasterizer rasterizer, int x, int y, int color) {
+		int clipX0 = rasterizer.getClipX0();
+		int clipX1 = rasterizer.getClipX1();
+		int y0 = Math.max(y, rasterizer.getClipY0());
+		int y1 = Math.min(y + height, rasterizer.getClipY1());
+
+		int[] dst = rasterizer.getPixels();
+		int dstStride = rasterizer.getStride();
+
+		int argb = color | 0xFF000000;
+		int rb = argb & 0xFF00FF;
+		int ag = (argb >>> 8) & 0xFF00FF;
+
+		// y1 is exclusive.
+		for (int yp = y0; yp < y1; yp++) {
+			int sy = yp - y;
+			int dstRow = yp * dstStride;
+
+			int runEnd = rowStarts[sy + 1];
+			for (int r = rowStarts[sy]; r < runEnd; r += 2) {
+				int rx = x + (runs[r] >>> 1);
+				int cx0 = Math.max(rx, clipX0);
+				int cx1 = Math.min(rx + runs[r + 1], clipX1);
+
+				int di = dstRow + cx0;
+				if ((runs[r] & TRANSLUCENT_RUN_FLAG) == 0) {
+					for (int xp = cx0; xp < cx1; xp++)
+						dst[di++] = argb;
+				} else {
+					int si = offset + (cx0 - x) + sy * stride;
+					for (int xp = cx0; xp < cx1; xp++) {
+						// Blend the color by the coverage
+						int coverage = pixels[si++] >>> 24;
+						int d = dst[di];
+						int a = coverage + 1;
+						int ia = 0x100 - coverage;
+						int brb = ((rb * a + (d & 0xFF00FF) * ia) >>> 8) & 0xFF00FF;
+						int bag = (ag * a + ((d >>> 8) & 0xFF00FF) * ia) & 0xFF00FF00;
+						dst[di++] = brb | bag;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws the sprite as a mask filled with the given premultiplied ARGB
+	 * color, using the given rasterizer. The color is scaled by the coverage
+	 * of every pixel, including its alpha, and blended with the pixel buffer
+	 * the same way as translucent sprites. This is used for drawing glyphs
+	 * to pixel buffers, which store premultiplied alpha.
+	 *
+	 * @param rasterizer - the rasterizer to draw the mask with
+	 * @param x - the x-coordinate of the top-left corner of the sprite
+	 * @param y - the y-coordinate of the top-left corner of the sprite
+	 * @param argb - the premultiplied ARGB color filling the mask
+	 *
+	 * @see #drawMask(PixelRasterizer, int, int, int)
+	 */
+	public void drawPremultipliedMask(PixelRasterizer rasterizer, int x, int y, int argb) {
+		int alpha = argb >>> 24;
+		if (alpha == 0xFF) {
+			// Opaque colors are not blended by their alpha
+			drawMask(rasterizer, x, y, argb);
+			return;
+		}
+		if (alpha == 0x00)
+			return;
+
+		int clipX0 = rasterizer.getClipX0();
+		int clipX1 = rasterizer.getClipX1();
+		int y0 = Math.max(y, rasterizer.getClipY0());
+		int y1 = Math.min(y + height, rasterizer.getClipY1());
+
+		int[] dst = rasterizer.getPixels();
+		int dstStride = rasterizer.getStride();
+
+		int crb = argb & 0xFF00FF;
+		int cag = (argb >>> 8) & 0xFF00FF;
+
+		// y1 is exclusive.
+		for (int yp = y0; yp < y1; yp++) {
+			int sy = yp - y;
+			int dstRow = yp * dstStride;
+
+			int runEnd = rowStarts[sy + 1];
+			for (int r = rowStarts[sy]; r < runEnd; r += 2) {
+				int rx = x + (runs[r] >>> 1);
+				int cx0 = Math.max(rx, clipX0);
+				int cx1 = Math.min(rx + runs[r + 1], clipX1);
+
+				boolean translucent = (runs[r] & TRANSLUCENT_RUN_FLAG) != 0;
+				int si = offset + (cx0 - x) + sy * stride;
+				int di = dstRow + cx0;
+				for (int xp = cx0; xp < cx1; xp++) {
+					int s = argb;
+					if (translucent) {
+						// Scale the color by the coverage
+						int a = (pixels[si] >>> 24) + 1;
+						s = (((crb * a) >>> 8) & 0xFF00FF) | ((cag * a) & 0xFF00FF00);
+					}
+					si++;
+
+					// src + dst * (1 - alpha), see blendRun
+					int d = dst[di];
+					int ia = 0x100 - (s >>> 24);
+					int rb = (((d & 0xFF00FF) * ia) >>> 8) & 0xFF00FF;
+					int ag = (((d >>> 8) & 0xFF00FF) * ia) & 0xFF00FF00;
+					dst[di++] = s + rb + ag;
+				}
+			}
+		}
+	}
+
+	private static void blendRun(int[] src, int si, int step, int[] dst, int di, int count) {
+		for ( ; count > 0; count--) {
+			int s = src[si];
+			int d = dst[di];
+
+			// src + dst * (1 - alpha), with the red and blue
+			// channels and the alpha and green channels
+			// computed at the same time.
+			int ia = 0x100 - (s >>> 24);
+			int rb = (((d & 0xFF00FF) * ia) >>> 8) & 0xFF00FF;
+			int ag = (((d >>> 8) & 0xFF00FF) * ia) & 0xFF00FF00;
+
+			dst[di] = s + rb + ag;
+
+			si += step;
+			di++;
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return True, if every pixel of the sprite is opaque.
+	 */
+	public boolean isOpaque() {
+		return opaque;
+	}
+
+	/**
+	 * @return The amount of runs of visible pixels in the sprite.
+	 */
+	public int getRunCount() {
+		return runs.length / 2;
+	}
+}
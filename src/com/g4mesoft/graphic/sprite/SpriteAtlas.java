@@ -0,0 +1,186 @@
+package com.g4mesoft.graphic.sprite;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A texture atlas packing the pixels of many sprites into a few large pages.
+ * Drawing sprites from the same atlas touches far less memory than drawing
+ * sprites, which each have their own pixel array. The sprites are packed
+ * using a shelf packer: sprites are placed left to right on a shelf, and a
+ * new shelf is started below the tallest sprite of the previous shelf, when
+ * the shelf is full. A new page is allocated when a sprite does not fit the
+ * current page.
+ * <br><br>
+ * Sprites can optionally be given a name, which can later be used to look up
+ * the sprite. The following shows an example of packing a sprite sheet:
+ * <pre>
+ *   SpriteAtlas atlas = new SpriteAtlas(512, 512);
+ *   Sprite[] walkFrames = atlas.addSheet("walk", walkImage, 16, 24);
+ *   Sprite icon = atlas.add("icon", iconImage);
+ * </pre>
+ * Sprites with a similar height should preferably be added after each other,
+ * since the height of a shelf is given by its tallest sprite.
+ *
+ * @see Sprite
+ */
+public class SpriteAtlas {
+
+	private final int pageWidth;
+	private final int pageHeight;
+
+	private final List<int[]> pages;
+	private final Map<String, Sprite> namedSprites;
+
+	/* The location of the current shelf on the last page */
+	private int shelfX;
+	private int shelfY;
+	private int shelfHeight;
+
+	public SpriteAtlas(int pageWidth, int pageHeight) {
+		if (pageWidth <= 0 || pageHeight <= 0)
+			throw new IllegalArgumentException("Invalid page size: " + pageWidth + "x" + pageHeight);
+
+		this.pageWidth = pageWidth;
+		this.pageHeight = pageHeight;
+
+		pages = new ArrayList<int[]>();
+		namedSprites = new HashMap<String, Sprite>();
+	}
+
+	/**
+	 * Adds the region of the given straight ARGB pixels to the atlas.
+	 *
+	 * @param argb - the pixels containing the region
+	 * @param srcOffset - the index of the top-left pixel of the region
+	 * @param srcStride - the width of the pixel array
+	 * @param width - the width of the region
+	 * @param height - the height of the region
+	 *
+	 * @return The sprite of the region, stored in the atlas.
+	 *
+	 * @throws IllegalArgumentException if the region is larger than a page.
+	 */
+	public Sprite add(int[] argb, int srcOffset, int srcStride, int width, int height) {
+		if (width > pageWidth || height > pageHeight)
+			throw new IllegalArgumentException("Sprite is larger than a page: " + width + "x" + height);
+
+		if (pages.isEmpty() || !fitsCurrentPage(width, height)) {
+			pages.add(new int[pageWidth * pageHeight]);
+
+			shelfX = 0;
+			shelfY = 0;
+			shelfHeight = 0;
+		}
+
+		if (shelfX + width > pageWidth) {
+			// Start a new shelf
+			shelfY += shelfHeight;
+			shelfX = 0;
+			shelfHeight = 0;
+		}
+
+		int[] page = pages.get(pages.size() - 1);
+		int dstOffset = shelfX + shelfY * pageWidth;
+		Sprite sprite = new Sprite(argb, srcOffset, srcStride, width, height, page, dstOffset, pageWidth);
+
+		shelfX += width;
+		if (height > shelfHeight)
+			shelfHeight = height;
+
+		return sprite;
+	}
+
+	private boolean fitsCurrentPage(int width, int height) {
+		if (shelfX + width <= pageWidth)
+			return shelfY + height <= pageHeight;
+
+		// The sprite has to be placed on a new shelf
+		return shelfY + shelfHeight + height <= pageHeight;
+	}
+
+	public Sprite add(BufferedImage image) {
+		int w = image.getWidth();
+		int h = image.getHeight();
+		return add(image.getRGB(0, 0, w, h, null, 0, w), 0, w, w, h);
+	}
+
+	public Sprite add(String name, BufferedImage image) {
+		return putNamed(name, add(image));
+	}
+
+	public Sprite add(String name, int[] argb, int srcOffset, int srcStride, int width, int height) {
+		return putNamed(name, add(argb, srcOffset, srcStride, width, height));
+	}
+
+	/**
+	 * Adds every tile of the given sprite sheet to the atlas. The tiles are
+	 * ordered row by row. If a name is given, the tiles are named by the name
+	 * followed by the index of the tile, e.g. {@code "walk3"}.
+	 *
+	 * @param name - the name of the sprite sheet, or null
+	 * @param sheet - the image containing the tiles
+	 * @param tileWidth - the width of a single tile
+	 * @param tileHeight - the height of a single tile
+	 *
+	 * @return The sprites of the tiles.
+	 */
+	public Sprite[] addSheet(String name, BufferedImage sheet, int tileWidth, int tileHeight) {
+		if (tileWidth <= 0 || tileHeight <= 0)
+			throw new IllegalArgumentException("Invalid tile size: " + tileWidth + "x" + tileHeight);
+
+		int w = sheet.getWidth();
+		int h = sheet.getHeight();
+		int[] argb = sheet.getRGB(0, 0, w, h, null, 0, w);
+
+		int columns = w / tileWidth;
+		int rows = h / tileHeight;
+
+		Sprite[] sprites = new Sprite[columns * rows];
+		for (int ty = 0; ty < rows; ty++) {
+			for (int tx = 0; tx < columns; tx++) {
+				int i = tx + ty * columns;
+				int srcOffset = tx * tileWidth + ty * tileHeight * w;
+
+				sprites[i] = add(argb, srcOffset, w, tileWidth, tileHeight);
+				if (name != null)
+					putNamed(name + i, sprites[i]);
+			}
+		}
+
+		return sprites;
+	}
+
+	private Sprite putNamed(String name, Sprite sprite) {
+		if (name == null)
+			throw new NullPointerException("name is null!");
+
+		namedSprites.put(name, sprite);
+		return sprite;
+	}
+
+	/**
+	 * @param name - the name of the sprite
+	 *
+	 * @return The sprite with the given name, or null if no such sprite has
+	 *         been added to the atlas.
+	 */
+	public Sprite getSprite(String name) {
+		return namedSprites.get(name);
+	}
+
+	public int getPageCount() {
+		return pages.size();
+	}
+
+	public int getPageWidth() {
+		return pageWidth;
+	}
+
+	public int getPageHeight() {
+		return pageHeight;
+	}
+}
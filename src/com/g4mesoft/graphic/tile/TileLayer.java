@@ -0,0 +1,353 @@
+package com.g4mesoft.graphic.tile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.g4mesoft.camera.DynamicCamera;
+import com.g4mesoft.camera.ICamera;
+import com.g4mesoft.graphic.PixelRenderer2D;
+import com.g4mesoft.graphic.Transform2D;
+import com.g4mesoft.graphic.sprite.Sprite;
+
+/**
+ * A layer of tiles, which is split into square chunks of tiles. The ids of the
+ * tiles in each chunk are stored in a {@code short[]}, which is allocated when
+ * the first non-empty tile is placed in the chunk.
+ * <br><br>
+ * When a chunk is visible, all of its tiles are baked into a single
+ * {@link Sprite}, such that the chunk is drawn by copying whole rows of
+ * pixels, while empty and transparent pixels are skipped. A chunk is only
+ * baked again, when one of its tiles has changed. The sprites of chunks,
+ * which have not been visible for a while, are released to limit the memory
+ * used by large maps.
+ * <br><br>
+ * The layer is drawn as seen by a camera, where a single unit of the camera
+ * is a single pixel of a tile. The following shows an example of drawing a
+ * scrolling map:
+ * <pre>
+ *   TileLayer ground = new TileLayer(tileset, 1024, 1024);
+ *   ground.setTile(10, 20, grassId);
+ *   ...
+ *   ground.render(renderer, camera, dt);
+ * </pre>
+ *
+ * @see Tileset
+ */
+public class TileLayer {
+
+	public static final int DEFAULT_CHUNK_SIZE = 16;
+
+	/* The amount of frames a chunk can be invisible before its sprite is released */
+	private static final int CHUNK_RELEASE_FRAMES = 300;
+
+	private final Tileset tileset;
+	private final int width;
+	private final int height;
+	private final int chunkSize;
+
+	private final int chunksX;
+	private final int chunksY;
+	private final TileChunk[] chunks;
+
+	/* The pixels of a chunk while it is being baked */
+	private int[] bakeBuffer;
+	private final List<TileChunk> bakedChunks;
+	private int frame;
+
+	private final Transform2D viewTransform;
+
+	public TileLayer(Tileset tileset, int width, int height) {
+		this(tileset, width, height, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs an empty tile layer.
+	 *
+	 * @param tileset - the tiles referenced by the layer
+	 * @param width - the width of the layer in tiles
+	 * @param height - the height of the layer in tiles
+	 * @param chunkSize - the width and height of a chunk in tiles
+	 */
+	public TileLayer(Tileset tileset, int width, int height, int chunkSize) {
+		if (tileset == null)
+			throw new NullPointerException("tileset is null!");
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Invalid layer size: " + width + "x" + height);
+		if (chunkSize <= 0)
+			throw new IllegalArgumentException("chunkSize <= 0");
+
+		this.tileset = tileset;
+		this.width = width;
+		this.height = height;
+		this.chunkSize = chunkSize;
+
+		chunksX = (width + chunkSize - 1) / chunkSize;
+		chunksY = (height + chunkSize - 1) / chunkSize;
+		chunks = new TileChunk[chunksX * chunksY];
+
+		bakedChunks = new ArrayList<TileChunk>();
+		frame = 0;
+
+		viewTransform = new Transform2D();
+	}
+
+	/**
+	 * @param x - the x-coordinate of the tile
+	 * @param y - the y-coordinate of the tile
+	 *
+	 * @return The id of the tile, or {@link Tileset#EMPTY_TILE} if the tile is
+	 *         outside the layer.
+	 */
+	public int getTile(int x, int y) {
+		if (!isInBounds(x, y))
+			return Tileset.EMPTY_TILE;
+
+		TileChunk chunk = chunks[(x / chunkSize) + (y / chunkSize) * chunksX];
+		if (chunk == null)
+			return Tileset.EMPTY_TILE;
+
+		return chunk.tiles[(x % chunkSize) + (y % chunkSize) * chunkSize] & 0xFFFF;
+	}
+
+	/**
+	 * Sets the id of the tile at the given location. Tiles outside the layer
+	 * are ignored.
+	 *
+	 * @param x - the x-coordinate of the tile
+	 * @param y - the y-coordinate of the tile
+	 * @param id - the id of the tile
+	 */
+	public void setTile(int x, int y, int id) {
+		if (id < 0 || id > Tileset.MAX_TILE_ID)
+			throw new IllegalArgumentException("Invalid tile id: " + id);
+
+		if (!isInBounds(x, y))
+			return;
+
+		int ci = (x / chunkSize) + (y / chunkSize) * chunksX;
+		TileChunk chunk = chunks[ci];
+		if (chunk == null) {
+			if (id == Tileset.EMPTY_TILE)
+				return;
+			chunk = chunks[ci] = new TileChunk(chunkSize);
+		}
+
+		int ti = (x % chunkSize) + (y % chunkSize) * chunkSize;
+		int oldId = chunk.tiles[ti] & 0xFFFF;
+		if (oldId != id) {
+			if (oldId == Tileset.EMPTY_TILE) {
+				chunk.tileCount++;
+			} else if (id == Tileset.EMPTY_TILE) {
+				chunk.tileCount--;
+			}
+
+			chunk.tiles[ti] = (short)id;
+			chunk.sprite = null;
+		}
+	}
+
+	/**
+	 * Sets the id of every tile in the given rectangle.
+	 *
+	 * @param x - the x-coordinate of the rectangle
+	 * @param y - the y-coordinate of the rectangle
+	 * @param width - the width of the rectangle in tiles
+	 * @param height - the height of the rectangle in tiles
+	 * @param id - the id of the tiles
+	 */
+	public void fill(int x, int y, int width, int height, int id) {
+		int x0 = Math.max(x, 0);
+		int y0 = Math.max(y, 0);
+		int x1 = Math.min(x + width, this.width);
+		int y1 = Math.min(y + height, this.height);
+
+		for (int yt = y0; yt < y1; yt++) {
+			for (int xt = x0; xt < x1; xt++)
+				setTile(xt, yt, id);
+		}
+	}
+
+	public boolean isInBounds(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+
+	/**
+	 * Draws the visible part of the layer, as seen by the given camera.
+	 *
+	 * @param renderer - the renderer to draw the layer with
+	 * @param camera - the camera viewing the layer
+	 */
+	public void render(PixelRenderer2D renderer, ICamera camera) {
+		render(renderer, camera.getXOffset(), camera.getYOffset(), camera.getScale());
+	}
+
+	/**
+	 * Draws the visible part of the layer, as seen by the given camera
+	 * interpolated by the given delta time.
+	 *
+	 * @param renderer - the renderer to draw the layer with
+	 * @param camera - the camera viewing the layer
+	 * @param dt - the delta time of the current frame
+	 */
+	public void render(PixelRenderer2D renderer, DynamicCamera camera, float dt) {
+		render(renderer, camera.getXOffset(dt), camera.getYOffset(dt), camera.getScale(dt));
+	}
+
+	/**
+	 * Draws the visible part of the layer, where the top-left corner of the
+	 * renderer shows the given location of the layer. Only the chunks, which
+	 * overlap the renderer, are baked and drawn. If the scale is not one, the
+	 * chunks are drawn using the transformation of the renderer.
+	 *
+	 * @param renderer - the renderer to draw the layer with
+	 * @param xOffset - the x-coordinate of the top-left corner of the view
+	 * @param yOffset - the y-coordinate of the top-left corner of the view
+	 * @param scale - the scale of the view
+	 */
+	public void render(PixelRenderer2D renderer, float xOffset, float yOffset, float scale) {
+		if (scale <= 0.0f)
+			throw new IllegalArgumentException("scale <= 0");
+
+		frame++;
+
+		int chunkWidth = chunkSize * tileset.getTileWidth();
+		int chunkHeight = chunkSize * tileset.getTileHeight();
+
+		// The visible part of the layer in pixels of the tiles
+		float viewX1 = xOffset + renderer.getWidth() / scale;
+		float viewY1 = yOffset + renderer.getHeight() / scale;
+
+		int cx0 = Math.max(0, (int)Math.floor(xOffset / chunkWidth));
+		int cy0 = Math.max(0, (int)Math.floor(yOffset / chunkHeight));
+		int cx1 = Math.min(chunksX - 1, (int)Math.floor(viewX1 / chunkWidth));
+		int cy1 = Math.min(chunksY - 1, (int)Math.floor(viewY1 / chunkHeight));
+
+		int ox, oy;
+		boolean scaled = (scale != 1.0f);
+		if (scaled) {
+			renderer.pushTransform();
+			viewTransform.toIdentity().scale(scale).translate(-xOffset, -yOffset);
+			renderer.transform(viewTransform);
+
+			ox = oy = 0;
+		} else {
+			ox = (int)Math.floor(xOffset);
+			oy = (int)Math.floor(yOffset);
+		}
+
+		for (int cy = cy0; cy <= cy1; cy++) {
+			for (int cx = cx0; cx <= cx1; cx++) {
+				TileChunk chunk = chunks[cx + cy * chunksX];
+				if (chunk == null || chunk.tileCount == 0)
+					continue;
+
+				if (chunk.sprite == null)
+					bakeChunk(chunk, cx, cy, chunkWidth, chunkHeight);
+				chunk.lastVisibleFrame = frame;
+
+				renderer.drawSprite(chunk.sprite, cx * chunkWidth - ox, cy * chunkHeight - oy);
+			}
+		}
+
+		if (scaled)
+			renderer.popTransform();
+
+		releaseInvisibleChunks();
+	}
+
+	private void bakeChunk(TileChunk chunk, int cx, int cy, int chunkWidth, int chunkHeight) {
+		if (bakeBuffer == null)
+			bakeBuffer = new int[chunkWidth * chunkHeight];
+
+		int tw = tileset.getTileWidth();
+		int th = tileset.getTileHeight();
+
+		int ti = 0;
+		for (int y = 0; y < chunkSize; y++) {
+			for (int x = 0; x < chunkSize; x++) {
+				int di = x * tw + y * th * chunkWidth;
+				tileset.copyTile(chunk.tiles[ti++] & 0xFFFF, bakeBuffer, di, chunkWidth);
+			}
+		}
+
+		// Note that a new sprite is created, since the previous
+		// sprite might still be referenced by a renderer.
+		chunk.sprite = new Sprite(bakeBuffer, chunkWidth, chunkHeight);
+
+		if (!chunk.baked) {
+			bakedChunks.add(chunk);
+			chunk.baked = true;
+		}
+	}
+
+	private void releaseInvisibleChunks() {
+		for (int i = bakedChunks.size() - 1; i >= 0; i--) {
+			TileChunk chunk = bakedChunks.get(i);
+			if (frame - chunk.lastVisibleFrame > CHUNK_RELEASE_FRAMES) {
+				chunk.sprite = null;
+				chunk.baked = false;
+
+				// Remove the chunk by swapping with the last
+				int last = bakedChunks.size() - 1;
+				bakedChunks.set(i, bakedChunks.get(last));
+				bakedChunks.remove(last);
+			}
+		}
+	}
+
+	/**
+	 * Releases the baked sprites of every chunk. This should be invoked if
+	 * the pixels of the tile set have been modified.
+	 */
+	public void invalidate() {
+		for (TileChunk chunk : bakedChunks) {
+			chunk.sprite = null;
+			chunk.baked = false;
+		}
+		bakedChunks.clear();
+	}
+
+	public Tileset getTileset() {
+		return tileset;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return The amount of chunks, which are currently baked.
+	 */
+	public int getBakedChunkCount() {
+		return bakedChunks.size();
+	}
+
+	private static class TileChunk {
+
+		private final short[] tiles;
+		/* The amount of non-empty tiles */
+		private int tileCount;
+
+		/* The baked tiles, or null if the chunk must be baked */
+		private Sprite sprite;
+		/* Whether the chunk is in the list of baked chunks */
+		private boolean baked;
+		private int lastVisibleFrame;
+
+		public TileChunk(int chunkSize) {
+			tiles = new short[chunkSize * chunkSize];
+			tileCount = 0;
+
+			sprite = null;
+			baked = false;
+		}
+	}
+}
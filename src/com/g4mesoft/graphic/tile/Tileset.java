@@ -0,0 +1,126 @@
+package com.g4mesoft.graphic.tile;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A set of equally sized tiles, which are referenced by the tiles of a
+ * {@link TileLayer}. The tiles are cut from a tile sheet row by row, where
+ * the first tile of the sheet has the id {@code 1}. The id {@link #EMPTY_TILE}
+ * is reserved for empty tiles, which are fully transparent.
+ * <br><br>
+ * The pixels of the tiles are stored as straight (non-premultiplied) ARGB,
+ * with the pixels of each tile stored contiguously.
+ *
+ * @see TileLayer
+ */
+public class Tileset {
+
+	public static final int EMPTY_TILE = 0;
+	/* The largest tile id, since ids are stored as unsigned shorts */
+	public static final int MAX_TILE_ID = 0xFFFF;
+
+	private final int tileWidth;
+	private final int tileHeight;
+	private final int tileCount;
+
+	private final int[] pixels;
+
+	public Tileset(BufferedImage sheet, int tileWidth, int tileHeight) {
+		this(getARGB(sheet), sheet.getWidth(), sheet.getWidth(), sheet.getHeight(), tileWidth, tileHeight);
+	}
+
+	/**
+	 * Constructs a tile set from the given straight ARGB pixels of a tile
+	 * sheet. Incomplete tiles at the right and bottom of the sheet are
+	 * ignored.
+	 *
+	 * @param argb - the pixels of the tile sheet
+	 * @param srcStride - the width of the pixel array
+	 * @param sheetWidth - the width of the tile sheet
+	 * @param sheetHeight - the height of the tile sheet
+	 * @param tileWidth - the width of a single tile
+	 * @param tileHeight - the height of a single tile
+	 */
+	public Tileset(int[] argb, int srcStride, int sheetWidth, int sheetHeight, int tileWidth, int tileHeight) {
+		if (argb == null)
+			throw new NullPointerException("argb is null!");
+		if (tileWidth <= 0 || tileHeight <= 0)
+			throw new IllegalArgumentException("Invalid tile size: " + tileWidth + "x" + tileHeight);
+
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+
+		int columns = sheetWidth / tileWidth;
+		int rows = sheetHeight / tileHeight;
+
+		tileCount = columns * rows;
+		if (tileCount > MAX_TILE_ID)
+			throw new IllegalArgumentException("Too many tiles: " + tileCount);
+
+		int tileSize = tileWidth * tileHeight;
+		pixels = new int[tileCount * tileSize];
+
+		for (int ty = 0; ty < rows; ty++) {
+			for (int tx = 0; tx < columns; tx++) {
+				int si = tx * tileWidth + ty * tileHeight * srcStride;
+				int di = (tx + ty * columns) * tileSize;
+
+				for (int y = 0; y < tileHeight; y++) {
+					System.arraycopy(argb, si, pixels, di, tileWidth);
+					si += srcStride;
+					di += tileWidth;
+				}
+			}
+		}
+	}
+
+	private static int[] getARGB(BufferedImage sheet) {
+		if (sheet == null)
+			throw new NullPointerException("sheet is null!");
+
+		int w = sheet.getWidth();
+		int h = sheet.getHeight();
+		return sheet.getRGB(0, 0, w, h, null, 0, w);
+	}
+
+	/**
+	 * Copies the pixels of the given tile into the given array. Empty tiles
+	 * are copied as fully transparent pixels.
+	 *
+	 * @param id - the id of the tile
+	 * @param dst - the destination pixel array
+	 * @param dstOffset - the index of the top-left pixel of the tile
+	 * @param dstStride - the width of the destination pixel array
+	 */
+	void copyTile(int id, int[] dst, int dstOffset, int dstStride) {
+		if (id == EMPTY_TILE || id > tileCount) {
+			for (int y = 0; y < tileHeight; y++) {
+				int di = dstOffset + y * dstStride;
+				for (int x = 0; x < tileWidth; x++)
+					dst[di++] = 0;
+			}
+		} else {
+			int si = (id - 1) * tileWidth * tileHeight;
+			for (int y = 0; y < tileHeight; y++) {
+				System.arraycopy(pixels, si, dst, dstOffset, tileWidth);
+				si += tileWidth;
+				dstOffset += dstStride;
+			}
+		}
+	}
+
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * @return The amount of tiles in the set, excluding the empty tile.
+	 */
+	public int getTileCount() {
+		return tileCount;
+	}
+}
@@ -5,12 +5,16 @@ import java.util.Queue;
 
 import com.g4mesoft.graphic.IViewport;
 import com.g4mesoft.graphic.PixelRenderer2D;
+import com.g4mesoft.job.JobSystem;
 import com.g4mesoft.math.Vec4f;
 
 public abstract class AbstractPixelRenderer3D extends PixelRenderer2D {
 
 	protected static final float FAR_DEPTH = 1.0f;
 	
+	/* The minimum amount of pixels cleared by a single job */
+	private static final int MIN_PARALLEL_CLEAR_PIXELS = 1 << 14;
+	
 	protected IShader3D shader;
 
 	protected final Vec4f[] clippingNormals;
@@ -19,6 +23,8 @@ public abstract class AbstractPixelRenderer3D extends PixelRenderer2D {
 	protected boolean cullEnabled;
 	protected TriangleFace cullFace;
 	
+	protected JobSystem jobSystem;
+	
 	public AbstractPixelRenderer3D(IViewport viewport, int width, int height) {
 		super(viewport, width, height);
 		
@@ -49,16 +55,32 @@ public abstract class AbstractPixelRenderer3D extends PixelRenderer2D {
 	
 	@Override
 	public void clear() {
-		int i = pixels.length;
-		while (i-- != 0) {
+		if (jobSystem != null) {
+			jobSystem.parallelFor(0, pixels.length, MIN_PARALLEL_CLEAR_PIXELS, this::clearRange);
+		} else {
+			clearRange(0, pixels.length);
+		}
+	}
+	
+	private void clearRange(int start, int end) {
+		int i = end;
+		while (i-- != start) {
 			pixels[i] = color;
 			depthBuffer[i] = FAR_DEPTH;
 		}
 	}
 	
 	public void clearDepth() {
-		int i = depthBuffer.length;
-		while (i-- != 0)
+		if (jobSystem != null) {
+			jobSystem.parallelFor(0, depthBuffer.length, MIN_PARALLEL_CLEAR_PIXELS, this::clearDepthRange);
+		} else {
+			clearDepthRange(0, depthBuffer.length);
+		}
+	}
+
+	private void clearDepthRange(int start, int end) {
+		int i = end;
+		while (i-- != start)
 			depthBuffer[i] = FAR_DEPTH;
 	}
 	
@@ -417,6 +439,22 @@ public abstract class AbstractPixelRenderer3D extends PixelRenderer2D {
 		cullFace = face;
 	}
 	
+	/**
+	 * Sets the job system used for clearing the color and depth buffers in
+	 * parallel. The triangles are still rasterized by the rendering thread,
+	 * since the shaders are not required to be thread-safe.
+	 * 
+	 * @param jobSystem - the job system, or null to clear the buffers on the
+	 *                    rendering thread.
+	 */
+	public void setJobSystem(JobSystem jobSystem) {
+		this.jobSystem = jobSystem;
+	}
+	
+	public JobSystem getJobSystem() {
+		return jobSystem;
+	}
+	
 	public void setShader(IShader3D shader) {
 		this.shader = shader;
 	}
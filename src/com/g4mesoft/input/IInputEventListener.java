@@ -0,0 +1,38 @@
+package com.g4mesoft.input;
+
+/**
+ * A listener which is notified of every input event dispatched by the
+ * {@link com.g4mesoft.input.key.KeyInputListener KeyInputListener} and the
+ * {@link com.g4mesoft.input.mouse.MouseInputListener MouseInputListener},
+ * before the event reaches the registered inputs. The events are usually
+ * dispatched by the AWT event thread.
+ * 
+ * @see com.g4mesoft.input.record.InputRecorder InputRecorder
+ */
+public interface IInputEventListener {
+
+	public void keyPressed(int keyCode);
+
+	public void keyReleased(int keyCode);
+
+	public void keyTyped(char keyChar);
+	
+	public void mousePressed(int button, int x, int y);
+
+	public void mouseReleased(int button, int x, int y);
+
+	public void mouseDragged(int button, int x, int y);
+
+	public void mouseMoved(int x, int y);
+	
+	/**
+	 * Invoked when a grabbed cursor is moved back to the center of the
+	 * display. The move changes the position of the cursor without changing
+	 * its deltas, and the resulting mouse moved event is not dispatched.
+	 * 
+	 * @param x - The x-coordinate of the center
+	 * @param y - The y-coordinate of the center
+	 */
+	public void mouseRecentered(int x, int y);
+	
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.g4mesoft.graphic.Display;
+import com.g4mesoft.input.IInputEventListener;
 
 /**
  * A KeyInputListener used for registering and handling keyEvents sent by the
@@ -35,32 +36,91 @@ public class KeyInputListener implements KeyListener {
 	private List<KeyInput> keys;
 	private List<KeyTypedInput> typedKeys;
 	
+	private volatile IInputEventListener eventListener;
+	
 	private KeyInputListener() {
 		keys = new ArrayList<KeyInput>();
 		typedKeys = new ArrayList<KeyTypedInput>();
+		
+		eventListener = null;
 	}
 	
 	@Override 
 	public void keyTyped(KeyEvent e) {
-		char keyChar = e.getKeyChar();
-		for (KeyTypedInput typedKey : typedKeys)
-			typedKey.keyTyped(keyChar);
+		dispatchKeyTyped(e.getKeyChar());
 	}
 
 	@Override
 	public void keyPressed(KeyEvent e) {
-		int keyCode = e.getKeyCode();
-		for (KeyInput key : keys)
-			key.keyPressed(keyCode);
+		dispatchKeyPressed(e.getKeyCode());
 	}
 
 	@Override
 	public void keyReleased(KeyEvent e) {
-		int keyCode = e.getKeyCode();
+		dispatchKeyReleased(e.getKeyCode());
+	}
+	
+	/**
+	 * Dispatches a key typed event to the registered typed keys, as if it
+	 * was received from the display.
+	 * 
+	 * @param keyChar - The character which was typed
+	 */
+	public void dispatchKeyTyped(char keyChar) {
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.keyTyped(keyChar);
+		
+		for (KeyTypedInput typedKey : typedKeys)
+			typedKey.keyTyped(keyChar);
+	}
+
+	/**
+	 * Dispatches a key pressed event to the registered keys, as if it was
+	 * received from the display.
+	 * 
+	 * @param keyCode - The key code of the pressed key
+	 */
+	public void dispatchKeyPressed(int keyCode) {
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.keyPressed(keyCode);
+
+		for (KeyInput key : keys)
+			key.keyPressed(keyCode);
+	}
+
+	/**
+	 * Dispatches a key released event to the registered keys, as if it was
+	 * received from the display.
+	 * 
+	 * @param keyCode - The key code of the released key
+	 */
+	public void dispatchKeyReleased(int keyCode) {
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.keyReleased(keyCode);
+
 		for (KeyInput key : keys)
 			key.keyReleased(keyCode);
 	}
 	
+	/**
+	 * Sets the listener which is notified of every key event dispatched by
+	 * this {@code KeyInputListener}.
+	 * 
+	 * @param eventListener  -  The event listener, or null
+	 * 
+	 * @see com.g4mesoft.input.record.InputRecorder InputRecorder
+	 */
+	public void setEventListener(IInputEventListener eventListener) {
+		this.eventListener = eventListener;
+	}
+	
+	public IInputEventListener getEventListener() {
+		return eventListener;
+	}
+	
 	/**
 	 * Invokes the update functions of each key registered in this
 	 * {@code KeyInputListener}.
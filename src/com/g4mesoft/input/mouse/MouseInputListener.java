@@ -2,7 +2,6 @@ package com.g4mesoft.input.mouse;
 
 import java.awt.AWTException;
 import java.awt.Canvas;
-import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.MouseInfo;
 import java.awt.Point;
@@ -14,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.g4mesoft.graphic.Display;
+import com.g4mesoft.input.IInputEventListener;
 
 public final class MouseInputListener {
 
@@ -37,19 +37,129 @@ public final class MouseInputListener {
 	private Robot robot;
 	private boolean focused;
 	private boolean grabbed;
+	private boolean recentering;
 
 	private Display display;
 	
+	private volatile IInputEventListener eventListener;
+	
 	private MouseInputListener() {
 		mouseButtons = new ArrayList<MouseButtonInput>();
 		buttonListener = new MouseButtonListener();
 		
+		eventListener = null;
+		
 		addMouseInput(MOUSE_LEFT);
 		addMouseInput(MOUSE_RIGHT);
 		addMouseInput(MOUSE_MIDDLE);
 	}
 	
-	private void mouseMoved(Component origin, int x, int y) {
+	/**
+	 * Dispatches a mouse pressed event to the registered mouse buttons, as if
+	 * it was received from the display.
+	 * 
+	 * @param button - The mouse button which was pressed
+	 * @param x - The x-coordinate of the cursor
+	 * @param y - The y-coordinate of the cursor
+	 */
+	public void dispatchMousePressed(int button, int x, int y) {
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.mousePressed(button, x, y);
+		
+		for (MouseButtonInput mouseButton : mouseButtons)
+			mouseButton.mousePressed(button, x, y);
+	}
+
+	/**
+	 * Dispatches a mouse released event to the registered mouse buttons, as
+	 * if it was received from the display.
+	 * 
+	 * @param button - The mouse button which was released
+	 * @param x - The x-coordinate of the cursor
+	 * @param y - The y-coordinate of the cursor
+	 */
+	public void dispatchMouseReleased(int button, int x, int y) {
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.mouseReleased(button, x, y);
+
+		for (MouseButtonInput mouseButton : mouseButtons)
+			mouseButton.mouseReleased(button, x, y);
+
+		checkDisplayFocus(x, y);
+	}
+
+	/**
+	 * Dispatches a mouse dragged event to the registered mouse buttons, as if
+	 * it was received from the display.
+	 * 
+	 * @param button - The mouse button which is dragged
+	 * @param x - The x-coordinate of the cursor
+	 * @param y - The y-coordinate of the cursor
+	 */
+	public void dispatchMouseDragged(int button, int x, int y) {
+		if (isRecenteringEvent(x, y))
+			return;
+		
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.mouseDragged(button, x, y);
+
+		for (MouseButtonInput mouseButton : mouseButtons)
+			mouseButton.mouseDragged(button, x, y);
+
+		mouseMoved(x, y);
+	}
+
+	/**
+	 * Dispatches a mouse moved event, as if it was received from the display.
+	 * 
+	 * @param x - The x-coordinate of the cursor
+	 * @param y - The y-coordinate of the cursor
+	 */
+	public void dispatchMouseMoved(int x, int y) {
+		if (isRecenteringEvent(x, y))
+			return;
+		
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.mouseMoved(x, y);
+		
+		mouseMoved(x, y);
+	}
+	
+	/**
+	 * Dispatches the move of a grabbed cursor to the center of the display.
+	 * The position of the cursor is changed, without changing the deltas.
+	 * 
+	 * @param x - The x-coordinate of the center
+	 * @param y - The y-coordinate of the center
+	 */
+	public void dispatchMouseRecentered(int x, int y) {
+		IInputEventListener eventListener = this.eventListener;
+		if (eventListener != null)
+			eventListener.mouseRecentered(x, y);
+		
+		mouseX = x;
+		mouseY = y;
+		
+		for (MouseButtonInput mouseButton : mouseButtons)
+			mouseButton.mouseGrapMoved(x, y);
+	}
+	
+	private boolean isRecenteringEvent(int x, int y) {
+		if (!recentering)
+			return false;
+		
+		// The event caused by the robot moving the cursor to
+		// the center is neither dispatched nor recorded, since
+		// the move was already dispatched as a recentering.
+		recentering = false;
+		return (x == mouseX && y == mouseY);
+	}
+	
+	private void mouseMoved(int x, int y) {
 		if (mouseX != x || mouseY != y) {
 			deltaX += x - mouseX;
 			deltaY += y - mouseY;
@@ -106,12 +216,9 @@ public final class MouseInputListener {
 				if (EventQueue.isDispatchThread()) {
 					// Ensure the mouse moved event from the
 					// robot wont change the deltaX / deltaY
-					// values.
-					mouseX = cx;
-					mouseY = cy;
-					
-					for (MouseButtonInput mouseButton : mouseButtons)
-						mouseButton.mouseGrapMoved(cx, cy);
+					// values, and is not recorded.
+					dispatchMouseRecentered(cx, cy);
+					recentering = true;
 					
 					robot.mouseMove(sx, sy);
 				} else {
@@ -245,6 +352,22 @@ public final class MouseInputListener {
 		return focused && grabbed;
 	}
 	
+	/**
+	 * Sets the listener which is notified of every mouse event dispatched by
+	 * this {@code MouseInputListener}.
+	 * 
+	 * @param eventListener - The event listener, or null
+	 * 
+	 * @see com.g4mesoft.input.record.InputRecorder InputRecorder
+	 */
+	public void setEventListener(IInputEventListener eventListener) {
+		this.eventListener = eventListener;
+	}
+	
+	public IInputEventListener getEventListener() {
+		return eventListener;
+	}
+	
 	public static MouseInputListener getInstance() {
 		if (instance == null)
 			instance = new MouseInputListener();
@@ -259,24 +382,12 @@ public final class MouseInputListener {
 
 		@Override
 		public void mousePressed(MouseEvent e) {
-			int button = e.getButton();
-			int x = e.getX();
-			int y = e.getY();
-			
-			for (MouseButtonInput mouseButton : mouseButtons)
-				mouseButton.mousePressed(button, x, y);
+			dispatchMousePressed(e.getButton(), e.getX(), e.getY());
 		}
 
 		@Override
 		public void mouseReleased(MouseEvent e) {
-			int button = e.getButton();
-			int x = e.getX();
-			int y = e.getY();
-			
-			for (MouseButtonInput mouseButton : mouseButtons)
-				mouseButton.mouseReleased(button, x, y);
-
-			MouseInputListener.this.checkDisplayFocus(x, y);
+			dispatchMouseReleased(e.getButton(), e.getX(), e.getY());
 		}
 
 		@Override
@@ -289,19 +400,12 @@ public final class MouseInputListener {
 		
 		@Override
 		public void mouseDragged(MouseEvent e) {
-			int button = e.getButton();
-			int x = e.getX();
-			int y = e.getY();
-			
-			for (MouseButtonInput mouseButton : mouseButtons)
-				mouseButton.mouseDragged(button, x, y);
-
-			MouseInputListener.this.mouseMoved(e.getComponent(), x, y);
+			dispatchMouseDragged(e.getButton(), e.getX(), e.getY());
 		}
 
 		@Override
 		public void mouseMoved(MouseEvent e) {
-			MouseInputListener.this.mouseMoved(e.getComponent(), e.getX(), e.getY());
+			dispatchMouseMoved(e.getX(), e.getY());
 		}
 	}
 }
@@ -0,0 +1,103 @@
+package com.g4mesoft.input.record;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Constants and helper functions describing the binary format of an input
+ * log. The log starts with a header consisting of the magic bytes "G4IR"
+ * followed by a version byte. The header is followed by the events, where
+ * each event is stored as follows:
+ * <pre>
+ *   varint  (tickDelta << TYPE_BITS) | type
+ *   ...     payload depending on the type
+ * </pre>
+ * The tick delta is the amount of ticks since the previous event. Key codes,
+ * characters and mouse buttons are stored as unsigned variable-length
+ * integers, while mouse coordinates are stored as zig-zag encoded deltas from
+ * the previously recorded mouse position. A typical event therefore only
+ * takes two or three bytes. Moves of a grabbed cursor back to the center of
+ * the display are recorded as separate events, since they do not change the
+ * deltas of the mouse.
+ */
+final class InputLog {
+
+	static final byte[] MAGIC = { 'G', '4', 'I', 'R' };
+	static final int VERSION = 2;
+	/* Logs of version 1 do not contain recentering events */
+	static final int MIN_VERSION = 1;
+	
+	static final int TYPE_BITS = 3;
+	static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+	
+	static final int KEY_PRESSED = 0;
+	static final int KEY_RELEASED = 1;
+	static final int KEY_TYPED = 2;
+	static final int MOUSE_PRESSED = 3;
+	static final int MOUSE_RELEASED = 4;
+	static final int MOUSE_DRAGGED = 5;
+	static final int MOUSE_MOVED = 6;
+	static final int MOUSE_RECENTERED = 7;
+	
+	private InputLog() {
+	}
+	
+	static void writeVarLong(OutputStream os, long value) throws IOException {
+		while ((value & ~0x7FL) != 0L) {
+			os.write((int)(value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		os.write((int)value);
+	}
+
+	static void writeZigZag(OutputStream os, int value) throws IOException {
+		writeVarLong(os, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Reads an unsigned variable-length integer from the given stream.
+	 * 
+	 * @param is - the stream to read from
+	 * 
+	 * @return The value, or -1 if the stream ended before the first byte.
+	 * 
+	 * @throws IOException if an I/O error occurs, or the stream ended in the
+	 *                     middle of the value.
+	 */
+	static long readVarLong(InputStream is) throws IOException {
+		long value = 0L;
+		int shift = 0;
+		
+		int b;
+		do {
+			b = is.read();
+			if (b == -1) {
+				if (shift == 0)
+					return -1L;
+				throw new EOFException("Input log ended in the middle of a value");
+			}
+			if (shift >= Long.SIZE)
+				throw new IOException("Malformed variable-length integer");
+			
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		
+		return value;
+	}
+	
+	static int readVarInt(InputStream is) throws IOException {
+		long value = readVarLong(is);
+		if (value == -1L)
+			throw new EOFException("Input log ended in the middle of an event");
+		return (int)value;
+	}
+	
+	static int readZigZag(InputStream is) throws IOException {
+		int value = readVarInt(is);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,179 @@
+package com.g4mesoft.input.record;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.g4mesoft.Application;
+import com.g4mesoft.input.IInputEventListener;
+import com.g4mesoft.input.key.KeyInputListener;
+import com.g4mesoft.input.mouse.MouseInputListener;
+
+/**
+ * A recorder capturing every event dispatched by the {@link KeyInputListener}
+ * and the {@link MouseInputListener} into a compact binary log. Each event is
+ * stamped with the amount of ticks passed in the application, when the event
+ * was received, such that the session can be replayed deterministically by
+ * an {@link InputReplayer}.
+ * <br><br>
+ * Recording is usually started using
+ * {@link Application#startInputRecording(OutputStream)}, which installs the
+ * recorder on both of the input listeners.
+ * 
+ * @see InputReplayer
+ */
+public class InputRecorder implements IInputEventListener, Closeable {
+
+	private final Application application;
+	private final OutputStream os;
+	
+	private long lastTick;
+	private int lastMouseX;
+	private int lastMouseY;
+	
+	private boolean closed;
+	
+	public InputRecorder(Application application, OutputStream os) throws IOException {
+		if (application == null)
+			throw new NullPointerException("application is null!");
+		if (os == null)
+			throw new NullPointerException("os is null!");
+		
+		this.application = application;
+		this.os = new BufferedOutputStream(os);
+		
+		lastTick = 0L;
+		lastMouseX = lastMouseY = 0;
+		
+		closed = false;
+		
+		this.os.write(InputLog.MAGIC);
+		this.os.write(InputLog.VERSION);
+	}
+	
+	/**
+	 * Installs this recorder on the key and mouse input listeners, such that
+	 * every input event will be recorded.
+	 */
+	public void install() {
+		KeyInputListener.getInstance().setEventListener(this);
+		MouseInputListener.getInstance().setEventListener(this);
+	}
+	
+	/**
+	 * Removes this recorder from the key and mouse input listeners, if it is
+	 * currently installed.
+	 */
+	public void uninstall() {
+		KeyInputListener keyListener = KeyInputListener.getInstance();
+		if (keyListener.getEventListener() == this)
+			keyListener.setEventListener(null);
+		
+		MouseInputListener mouseListener = MouseInputListener.getInstance();
+		if (mouseListener.getEventListener() == this)
+			mouseListener.setEventListener(null);
+	}
+	
+	private void writeEventHeader(int type) throws IOException {
+		long tick = application.getTicksPassed();
+		long tickDelta = Math.max(0L, tick - lastTick);
+		lastTick += tickDelta;
+		
+		InputLog.writeVarLong(os, (tickDelta << InputLog.TYPE_BITS) | type);
+	}
+	
+	private synchronized void recordKey(int type, int keyCode) {
+		if (closed)
+			return;
+		
+		try {
+			writeEventHeader(type);
+			InputLog.writeVarLong(os, keyCode & 0xFFFFFFFFL);
+		} catch (IOException e) {
+			recordingFailed(e);
+		}
+	}
+
+	private synchronized void recordMouse(int type, int button, int x, int y) {
+		if (closed)
+			return;
+		
+		try {
+			writeEventHeader(type);
+			if (type != InputLog.MOUSE_MOVED && type != InputLog.MOUSE_RECENTERED)
+				InputLog.writeVarLong(os, button & 0xFFFFFFFFL);
+			InputLog.writeZigZag(os, x - lastMouseX);
+			InputLog.writeZigZag(os, y - lastMouseY);
+			
+			lastMouseX = x;
+			lastMouseY = y;
+		} catch (IOException e) {
+			recordingFailed(e);
+		}
+	}
+	
+	private void recordingFailed(IOException e) {
+		Application.errorOccurred(e);
+		
+		uninstall();
+		closed = true;
+	}
+	
+	@Override
+	public void keyPressed(int keyCode) {
+		recordKey(InputLog.KEY_PRESSED, keyCode);
+	}
+
+	@Override
+	public void keyReleased(int keyCode) {
+		recordKey(InputLog.KEY_RELEASED, keyCode);
+	}
+
+	@Override
+	public void keyTyped(char keyChar) {
+		recordKey(InputLog.KEY_TYPED, keyChar);
+	}
+
+	@Override
+	public void mousePressed(int button, int x, int y) {
+		recordMouse(InputLog.MOUSE_PRESSED, button, x, y);
+	}
+
+	@Override
+	public void mouseReleased(int button, int x, int y) {
+		recordMouse(InputLog.MOUSE_RELEASED, button, x, y);
+	}
+
+	@Override
+	public void mouseDragged(int button, int x, int y) {
+		recordMouse(InputLog.MOUSE_DRAGGED, button, x, y);
+	}
+
+	@Override
+	public void mouseMoved(int x, int y) {
+		recordMouse(InputLog.MOUSE_MOVED, 0, x, y);
+	}
+	
+	@Override
+	public void mouseRecentered(int x, int y) {
+		recordMouse(InputLog.MOUSE_RECENTERED, 0, x, y);
+	}
+	
+	/**
+	 * Uninstalls the recorder, and flushes and closes the underlying stream.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		uninstall();
+		
+		if (!closed) {
+			closed = true;
+			os.close();
+		}
+	}
+	
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+}
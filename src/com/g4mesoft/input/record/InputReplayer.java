@@ -0,0 +1,177 @@
+package com.g4mesoft.input.record;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.g4mesoft.input.key.KeyInputListener;
+import com.g4mesoft.input.mouse.MouseInputListener;
+
+/**
+ * A replayer dispatching the events of an input log, recorded by an
+ * {@link InputRecorder}, to the {@link KeyInputListener} and the
+ * {@link MouseInputListener}. The events are dispatched at the beginning of
+ * the tick with the same number as when they were recorded. Combined with a
+ * headless application with an unlimited tick rate, this replays a recorded
+ * session as fast as possible:
+ * <pre>
+ *   protected void init() {
+ *       super.init();
+ *       
+ *       setUnlimitedTickRate(true);
+ *       startInputReplay(new FileInputStream("session.g4ir"));
+ *   }
+ *   
+ *   protected void tick() {
+ *       ...
+ *       if (isInputReplayFinished())
+ *           exit();
+ *   }
+ * </pre>
+ * 
+ * @see com.g4mesoft.Application#startInputReplay(InputStream)
+ */
+public class InputReplayer implements Closeable {
+
+	private final InputStream is;
+	
+	private boolean finished;
+	
+	/* The next event which has not yet been dispatched */
+	private long nextTick;
+	private int nextType;
+	private int nextValue;
+	private int nextX;
+	private int nextY;
+	
+	public InputReplayer(InputStream is) throws IOException {
+		if (is == null)
+			throw new NullPointerException("is is null!");
+		
+		this.is = new BufferedInputStream(is);
+		
+		readHeader();
+		
+		finished = false;
+		nextTick = 0L;
+		nextX = nextY = 0;
+		
+		readNextEvent();
+	}
+	
+	private void readHeader() throws IOException {
+		for (int i = 0; i < InputLog.MAGIC.length; i++) {
+			if (is.read() != InputLog.MAGIC[i])
+				throw new IOException("Not an input log");
+		}
+		
+		int version = is.read();
+		if (version < InputLog.MIN_VERSION || version > InputLog.VERSION)
+			throw new IOException("Unsupported input log version: " + version);
+	}
+	
+	private void readNextEvent() throws IOException {
+		long header = InputLog.readVarLong(is);
+		if (header == -1L) {
+			finished = true;
+			return;
+		}
+		
+		nextTick += header >>> InputLog.TYPE_BITS;
+		nextType = (int)(header & InputLog.TYPE_MASK);
+		
+		switch (nextType) {
+		case InputLog.KEY_PRESSED:
+		case InputLog.KEY_RELEASED:
+		case InputLog.KEY_TYPED:
+			nextValue = InputLog.readVarInt(is);
+			break;
+		case InputLog.MOUSE_PRESSED:
+		case InputLog.MOUSE_RELEASED:
+		case InputLog.MOUSE_DRAGGED:
+			nextValue = InputLog.readVarInt(is);
+			readNextPosition();
+			break;
+		case InputLog.MOUSE_MOVED:
+		case InputLog.MOUSE_RECENTERED:
+			readNextPosition();
+			break;
+		default:
+			throw new IOException("Unknown input event type: " + nextType);
+		}
+	}
+	
+	private void readNextPosition() throws IOException {
+		// The mouse position is stored relative to the previous event
+		nextX += InputLog.readZigZag(is);
+		nextY += InputLog.readZigZag(is);
+	}
+	
+	/**
+	 * Dispatches all the events which were recorded at or before the given
+	 * tick.
+	 * 
+	 * @param tick - the amount of ticks passed in the application
+	 * 
+	 * @throws IOException if an I/O error occurs, or the log is malformed.
+	 */
+	public void replay(long tick) throws IOException {
+		while (!finished && nextTick <= tick) {
+			dispatchNextEvent();
+			readNextEvent();
+		}
+	}
+	
+	private void dispatchNextEvent() {
+		KeyInputListener keyListener = KeyInputListener.getInstance();
+		MouseInputListener mouseListener = MouseInputListener.getInstance();
+		
+		switch (nextType) {
+		case InputLog.KEY_PRESSED:
+			keyListener.dispatchKeyPressed(nextValue);
+			break;
+		case InputLog.KEY_RELEASED:
+			keyListener.dispatchKeyReleased(nextValue);
+			break;
+		case InputLog.KEY_TYPED:
+			keyListener.dispatchKeyTyped((char)nextValue);
+			break;
+		case InputLog.MOUSE_PRESSED:
+			mouseListener.dispatchMousePressed(nextValue, nextX, nextY);
+			break;
+		case InputLog.MOUSE_RELEASED:
+			mouseListener.dispatchMouseReleased(nextValue, nextX, nextY);
+			break;
+		case InputLog.MOUSE_DRAGGED:
+			mouseListener.dispatchMouseDragged(nextValue, nextX, nextY);
+			break;
+		case InputLog.MOUSE_MOVED:
+			mouseListener.dispatchMouseMoved(nextX, nextY);
+			break;
+		case InputLog.MOUSE_RECENTERED:
+			mouseListener.dispatchMouseRecentered(nextX, nextY);
+			break;
+		}
+	}
+	
+	/**
+	 * @return True, if all the events of the log have been dispatched.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	/**
+	 * @return The tick of the next event, which has not yet been dispatched.
+	 */
+	public long getNextEventTick() {
+		return nextTick;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		is.close();
+	}
+}
@@ -0,0 +1,19 @@
+package com.g4mesoft.job;
+
+/**
+ * The body of a parallel loop. The loop is split into sub-ranges, which are
+ * processed independently, and possibly concurrently, by the job system.
+ * 
+ * @see JobSystem#parallelFor(int, int, IParallelRange)
+ */
+public interface IParallelRange {
+
+	/**
+	 * Processes the indices in the given sub-range.
+	 * 
+	 * @param start - the first index of the range (inclusive)
+	 * @param end - the last index of the range (exclusive)
+	 */
+	public void process(int start, int end);
+	
+}
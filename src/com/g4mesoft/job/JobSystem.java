@@ -0,0 +1,226 @@
+package com.g4mesoft.job;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A work-stealing job system shared by the engine and the game code. Jobs
+ * are executed by a fork/join pool, which by default has a worker thread for
+ * every available processor. Two kinds of work can be submitted:
+ * <ul>
+ * <li>Independent jobs, using {@link #submit(Runnable)}. The jobs submitted
+ *     during a tick are awaited at the end of the tick by the application,
+ *     such that no job outlives the tick in which it was submitted.</li>
+ * <li>Parallel loops, using {@link #parallelFor(int, int, IParallelRange)}.
+ *     The range is recursively split into sub-ranges, which are stolen by
+ *     idle workers. The loop returns when every sub-range has completed.</li>
+ * </ul>
+ * The following shows an example of updating a large array of particles in
+ * parallel:
+ * <pre>
+ *   getJobSystem().parallelFor(0, numParticles, (start, end) -> {
+ *       for (int i = start; i < end; i++)
+ *           particles[i].update();
+ *   });
+ * </pre>
+ * 
+ * @see com.g4mesoft.Application#getJobSystem()
+ */
+public class JobSystem {
+
+	/* The amount of sub-ranges per worker, when the grain size is not given */
+	private static final int SPLITS_PER_WORKER = 4;
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 1000L;
+	
+	private final ForkJoinPool pool;
+	private final Queue<ForkJoinTask<?>> pendingJobs;
+	
+	public JobSystem() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public JobSystem(int parallelism) {
+		if (parallelism <= 0)
+			throw new IllegalArgumentException("parallelism <= 0");
+		
+		pool = new ForkJoinPool(parallelism, JobSystem::createWorker, null, false);
+		pendingJobs = new ConcurrentLinkedQueue<ForkJoinTask<?>>();
+	}
+	
+	private static ForkJoinWorkerThread createWorker(ForkJoinPool pool) {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("Job Worker #" + thread.getPoolIndex());
+		thread.setDaemon(true);
+		return thread;
+	}
+	
+	/**
+	 * Submits a job to be executed by the job system. The job is awaited by
+	 * the next invocation of {@link #awaitJobs()}, which is done at the end
+	 * of every tick by the application.
+	 * 
+	 * @param job - the job to execute
+	 * 
+	 * @return The task executing the job
+	 */
+	public ForkJoinTask<?> submit(Runnable job) {
+		if (job == null)
+			throw new NullPointerException("job is null!");
+		
+		ForkJoinTask<?> task = ForkJoinTask.adapt(job);
+		pendingJobs.add(task);
+		
+		if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+			// Push onto the local queue of the worker
+			task.fork();
+		} else {
+			pool.execute(task);
+		}
+		
+		return task;
+	}
+	
+	/**
+	 * Waits for all the jobs submitted using {@link #submit(Runnable)} to
+	 * complete. If any of the jobs threw an exception, the first exception is
+	 * rethrown after all the jobs have completed.
+	 */
+	public void awaitJobs() {
+		RuntimeException exception = null;
+		Error error = null;
+		
+		ForkJoinTask<?> task;
+		while ((task = pendingJobs.poll()) != null) {
+			try {
+				task.join();
+			} catch (RuntimeException e) {
+				if (exception == null && error == null)
+					exception = e;
+			} catch (Error e) {
+				if (exception == null && error == null)
+					error = e;
+			}
+		}
+		
+		if (exception != null)
+			throw exception;
+		if (error != null)
+			throw error;
+	}
+	
+	/**
+	 * Processes the range {@code [start, end)} in parallel, and waits for the
+	 * entire range to complete. The range is split into roughly four
+	 * sub-ranges per worker.
+	 * 
+	 * @param start - the first index of the range (inclusive)
+	 * @param end - the last index of the range (exclusive)
+	 * @param body - the body processing each sub-range
+	 * 
+	 * @see #parallelFor(int, int, int, IParallelRange)
+	 */
+	public void parallelFor(int start, int end, IParallelRange body) {
+		int grainSize = (end - start) / (pool.getParallelism() * SPLITS_PER_WORKER);
+		parallelFor(start, end, grainSize, body);
+	}
+	
+	/**
+	 * Processes the range {@code [start, end)} in parallel, and waits for the
+	 * entire range to complete. The range is recursively split in half, until
+	 * the sub-ranges are no larger than the given grain size. If the range is
+	 * no larger than the grain size, or the job system only has a single
+	 * worker, the range is processed directly by the calling thread.
+	 * 
+	 * @param start - the first index of the range (inclusive)
+	 * @param end - the last index of the range (exclusive)
+	 * @param grainSize - the maximum size of a sub-range
+	 * @param body - the body processing each sub-range
+	 */
+	public void parallelFor(int start, int end, int grainSize, IParallelRange body) {
+		if (body == null)
+			throw new NullPointerException("body is null!");
+		
+		if (grainSize < 1)
+			grainSize = 1;
+		
+		if (end - start <= grainSize || pool.getParallelism() == 1) {
+			if (start < end)
+				body.process(start, end);
+		} else {
+			ParallelRangeAction action = new ParallelRangeAction(start, end, grainSize, body);
+			
+			if (ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool() == pool) {
+				action.invoke();
+			} else {
+				pool.invoke(action);
+			}
+		}
+	}
+	
+	/**
+	 * @return The amount of worker threads used by the job system.
+	 */
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+	
+	/**
+	 * @return The amount of jobs which have been submitted, but not awaited.
+	 */
+	public int getPendingJobCount() {
+		return pendingJobs.size();
+	}
+	
+	/**
+	 * Stops the worker threads of the job system. Jobs which have already
+	 * been submitted are given a short amount of time to complete.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+		
+		try {
+			pool.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		pendingJobs.clear();
+	}
+	
+	@SuppressWarnings("serial")
+	private static class ParallelRangeAction extends RecursiveAction {
+
+		private final int start;
+		private final int end;
+		private final int grainSize;
+		private final IParallelRange body;
+		
+		public ParallelRangeAction(int start, int end, int grainSize, IParallelRange body) {
+			this.start = start;
+			this.end = end;
+			this.grainSize = grainSize;
+			this.body = body;
+		}
+		
+		@Override
+		protected void compute() {
+			if (end - start <= grainSize) {
+				body.process(start, end);
+			} else {
+				int mid = (start + end) >>> 1;
+				
+				ParallelRangeAction right = new ParallelRangeAction(mid, end, grainSize, body);
+				right.fork();
+				
+				new ParallelRangeAction(start, mid, grainSize, body).compute();
+				
+				right.join();
+			}
+		}
+	}
+}
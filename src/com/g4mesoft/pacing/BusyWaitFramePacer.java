@@ -0,0 +1,51 @@
+package com.g4mesoft.pacing;
+
+/**
+ * A frame pacer which sleeps until the remaining time is below a fixed
+ * threshold and busy-waits for the remaining duration. This gives very
+ * precise wake-up times, at the cost of using an entire core while
+ * busy-waiting. The threshold should be chosen to be larger than the
+ * expected overshoot of {@link Thread#sleep(long, int)} on the system.
+ * 
+ * @see HybridFramePacer
+ */
+public class BusyWaitFramePacer implements IFramePacer {
+
+	private static final long NS_PER_MS = 1000000L;
+	private static final long DEFAULT_THRESHOLD_NS = 2L * NS_PER_MS;
+	
+	private final long thresholdNs;
+	
+	public BusyWaitFramePacer() {
+		this(DEFAULT_THRESHOLD_NS);
+	}
+
+	public BusyWaitFramePacer(long thresholdNs) {
+		if (thresholdNs < 0L)
+			throw new IllegalArgumentException("thresholdNs < 0");
+		
+		this.thresholdNs = thresholdNs;
+	}
+	
+	@Override
+	public void sleepUntil(long targetNs) {
+		long nsToSleep = targetNs - System.nanoTime() - thresholdNs;
+		
+		if (nsToSleep > 0L) {
+			try {
+				Thread.sleep(nsToSleep / NS_PER_MS, (int)(nsToSleep % NS_PER_MS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		
+		while (targetNs - System.nanoTime() > 0L) {
+			// Busy-wait until target time
+		}
+	}
+	
+	public long getThreshold() {
+		return thresholdNs;
+	}
+}
@@ -0,0 +1,103 @@
+package com.g4mesoft.pacing;
+
+import com.g4mesoft.math.MathUtils;
+
+/**
+ * A frame pacer which sleeps in short intervals, while the remaining time is
+ * larger than the estimated overshoot of the operating system sleep, and
+ * yields for the remaining duration. The overshoot is calibrated at runtime
+ * by measuring the actual duration of every sleep, and is estimated as the
+ * mean plus a multiple of the standard deviation of the measured durations.
+ * <br><br>
+ * The estimate is kept as an exponentially weighted moving average, such
+ * that the pacer adapts to changes in system load. This gives wake-up times
+ * close to those of the {@link BusyWaitFramePacer}, while only spinning for
+ * a very short duration before each frame.
+ */
+public class HybridFramePacer implements IFramePacer {
+
+	private static final long NS_PER_MS = 1000000L;
+	
+	/* The duration of each of the short sleeps. */
+	private static final long SLEEP_INTERVAL_MS = 1L;
+	/*
+	 * The initial estimate until calibrated. This has to be
+	 * below the frame period for the calibration to start,
+	 * so it is close to the overshoot of a typical system.
+	 */
+	private static final double INITIAL_ESTIMATE_NS = 2.0 * NS_PER_MS;
+	/* The maximum amount of time spent spinning */
+	private static final double MAX_ESTIMATE_NS = 20.0 * NS_PER_MS;
+	
+	private static final double SMOOTHING_FACTOR = 0.05;
+	private static final double STD_DEVIATIONS = 2.0;
+	
+	private double meanNs;
+	private double varianceNs;
+	private double estimateNs;
+	
+	public HybridFramePacer() {
+		meanNs = INITIAL_ESTIMATE_NS;
+		varianceNs = 0.0;
+		estimateNs = INITIAL_ESTIMATE_NS;
+	}
+	
+	@Override
+	public void sleepUntil(long targetNs) {
+		long nowNs = System.nanoTime();
+		
+		long remainingNs = targetNs - nowNs;
+		if (remainingNs <= estimateNs && remainingNs > SLEEP_INTERVAL_MS * NS_PER_MS) {
+			// No sleep is measured, when the estimate exceeds the
+			// remaining time. Decay the deviation instead, such that
+			// a spike in the estimate does not cause spinning forever.
+			varianceNs *= (1.0 - SMOOTHING_FACTOR);
+			updateEstimate();
+		}
+		
+		while (targetNs - nowNs > estimateNs) {
+			try {
+				Thread.sleep(SLEEP_INTERVAL_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			
+			long startNs = nowNs;
+			nowNs = System.nanoTime();
+			
+			calibrate(nowNs - startNs);
+		}
+		
+		while (targetNs - System.nanoTime() > 0L)
+			Thread.yield();
+	}
+	
+	private void calibrate(long observedNs) {
+		double delta = observedNs - meanNs;
+		meanNs += SMOOTHING_FACTOR * delta;
+		varianceNs = (1.0 - SMOOTHING_FACTOR) * (varianceNs + SMOOTHING_FACTOR * delta * delta);
+		
+		updateEstimate();
+	}
+	
+	private void updateEstimate() {
+		double estimate = meanNs + STD_DEVIATIONS * MathUtils.sqrt(varianceNs);
+		estimateNs = MathUtils.min(estimate, MAX_ESTIMATE_NS);
+	}
+	
+	@Override
+	public IFramePacer copy() {
+		// The calibration is specific to the waiting thread
+		return new HybridFramePacer();
+	}
+	
+	/**
+	 * @return The current estimate of the duration of a single sleep, in
+	 *         nanoseconds. When the remaining time is below this estimate,
+	 *         the pacer will stop sleeping and yield instead.
+	 */
+	public double getSleepEstimate() {
+		return estimateNs;
+	}
+}
@@ -0,0 +1,38 @@
+package com.g4mesoft.pacing;
+
+/**
+ * A strategy used by the {@link com.g4mesoft.Timer Timer} for waiting until
+ * the next frame or tick is scheduled. Implementations differ in how they
+ * trade precision of the wake-up time for the amount of CPU time they use
+ * while waiting.
+ * 
+ * @see com.g4mesoft.Timer#setFramePacer(IFramePacer)
+ */
+public interface IFramePacer {
+
+	/**
+	 * Blocks the calling thread until the time given by {@code targetNs} has
+	 * been reached. The target time is relative to {@link System#nanoTime()}.
+	 * If the target time has already passed, this function should return
+	 * immediately. If the thread is interrupted while waiting, the function
+	 * should return early with the interrupted status of the thread set.
+	 * 
+	 * @param targetNs - the time, in nanoseconds, at which to return.
+	 */
+	public void sleepUntil(long targetNs);
+
+	/**
+	 * Creates a frame pacer with the same configuration as this pacer, but
+	 * with its own state. This is used when waiting on multiple threads at
+	 * once, since {@link #sleepUntil(long)} is not required to be thread-safe.
+	 * The default implementation returns this pacer, which is only valid for
+	 * pacers that do not keep any mutable state. Pacers that keep mutable
+	 * state should override this function.
+	 * 
+	 * @return A frame pacer, which can be used independently of this pacer.
+	 */
+	default public IFramePacer copy() {
+		return this;
+	}
+	
+}
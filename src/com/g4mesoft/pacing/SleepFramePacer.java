@@ -0,0 +1,26 @@
+package com.g4mesoft.pacing;
+
+/**
+ * A low-power frame pacer, which waits using {@link Thread#sleep(long, int)}
+ * only. This will use close to no CPU time while waiting, but the precision
+ * depends entirely on the operating system scheduler, which will often
+ * overshoot the target time by anything from 50 microseconds up to a few
+ * milliseconds.
+ */
+public class SleepFramePacer implements IFramePacer {
+
+	private static final long NS_PER_MS = 1000000L;
+	
+	@Override
+	public void sleepUntil(long targetNs) {
+		long nsToSleep = targetNs - System.nanoTime();
+		
+		if (nsToSleep > 0L) {
+			try {
+				Thread.sleep(nsToSleep / NS_PER_MS, (int)(nsToSleep % NS_PER_MS));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package com.g4mesoft.profile;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * A monitor recording the amount of memory allocated by every tick and frame
+ * of the {@link com.g4mesoft.Application Application}, and the garbage
+ * collections which occur while it is running. The allocated bytes are
+ * measured per thread using {@link ThreadMXBean#getThreadAllocatedBytes(long)},
+ * and recorded into {@link Histogram}s, as are the durations of the garbage
+ * collection pauses, like the ones of the {@link FrameProfiler}. When ticking
+ * is performed on the rendering thread, the allocations of a frame include
+ * the allocations of its ticks.
+ * <br><br>
+ * Garbage collections are reported through notifications from the garbage
+ * collector beans, from which the duration of each collection is recorded.
+ * Since the notifications are delivered asynchronously, the frames during
+ * which a collection occurred are found by comparing the collection counts
+ * of the collectors at the beginning and end of every frame. This allows
+ * frame spikes to be correlated with garbage collection pauses.
+ * <br><br>
+ * The monitor is disabled by default, since measuring the allocated bytes
+ * is not supported on all virtual machines. It can be enabled as follows:
+ * <pre>
+ *   getAllocationMonitor().setEnabled(true);
+ *   ...
+ *   getAllocationMonitor().printSummary(System.out);
+ * </pre>
+ * 
+ * @see com.g4mesoft.Application#getAllocationMonitor()
+ */
+public class AllocationMonitor {
+
+	private static final double NS_PER_MS = 1000000.0;
+	private static final double BYTES_PER_KB = 1024.0;
+	
+	/* Resolved lazily, since the management factory is slow to initialize */
+	private ThreadMXBean threadBean;
+	private GarbageCollectorMXBean[] gcBeans;
+	private boolean beansResolved;
+	private final List<NotificationEmitter> gcEmitters;
+	private final NotificationListener gcListener;
+	
+	private final Histogram tickAllocations;
+	private final Histogram frameAllocations;
+	private final Histogram gcPauses;
+	private final Histogram gcFrameDurations;
+	
+	private final AtomicLong gcCount;
+	
+	private volatile boolean enabled;
+	
+	/* State of the current tick (written by the ticking thread) */
+	private long tickStartBytes;
+	
+	/* State of the current frame (written by the rendering thread) */
+	private long frameStartBytes;
+	private long frameStartNs;
+	private long frameStartGcCount;
+	
+	public AllocationMonitor() {
+		beansResolved = false;
+		
+		gcEmitters = new ArrayList<NotificationEmitter>();
+		gcListener = this::handleNotification;
+		
+		tickAllocations = new Histogram();
+		frameAllocations = new Histogram();
+		gcPauses = new Histogram();
+		gcFrameDurations = new Histogram();
+		
+		gcCount = new AtomicLong();
+		
+		enabled = false;
+		
+		tickStartBytes = -1L;
+		frameStartBytes = -1L;
+	}
+	
+	/**
+	 * @return True, if the virtual machine supports measuring the amount of
+	 *         bytes allocated by each thread.
+	 */
+	public synchronized boolean isSupported() {
+		resolveBeans();
+		return threadBean != null && threadBean.isThreadAllocatedMemorySupported();
+	}
+	
+	private void resolveBeans() {
+		if (!beansResolved) {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			threadBean = (bean instanceof ThreadMXBean) ? (ThreadMXBean)bean : null;
+			
+			gcBeans = ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+			
+			beansResolved = true;
+		}
+	}
+	
+	private long getAllocatedBytes() {
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Marks the beginning of a tick. This should only be invoked by the
+	 * thread which is ticking the application.
+	 */
+	public void beginTick() {
+		tickStartBytes = enabled ? getAllocatedBytes() : -1L;
+	}
+	
+	/**
+	 * Records the amount of bytes allocated since the last invocation of
+	 * {@link #beginTick()}.
+	 */
+	public void endTick() {
+		if (enabled && tickStartBytes != -1L) {
+			tickAllocations.record(getAllocatedBytes() - tickStartBytes);
+			tickStartBytes = -1L;
+		}
+	}
+
+	/**
+	 * Marks the beginning of a frame. This should only be invoked by the
+	 * thread which is rendering the application.
+	 */
+	public void beginFrame() {
+		if (enabled) {
+			frameStartBytes = getAllocatedBytes();
+			frameStartNs = System.nanoTime();
+			frameStartGcCount = getCollectionCount();
+		} else {
+			frameStartBytes = -1L;
+		}
+	}
+
+	/**
+	 * Records the amount of bytes allocated since the last invocation of
+	 * {@link #beginFrame()}. If a garbage collection occurred during the
+	 * frame, the duration of the frame is recorded as well.
+	 */
+	public void endFrame() {
+		if (enabled && frameStartBytes != -1L) {
+			frameAllocations.record(getAllocatedBytes() - frameStartBytes);
+			
+			if (getCollectionCount() != frameStartGcCount)
+				gcFrameDurations.record(System.nanoTime() - frameStartNs);
+			
+			frameStartBytes = -1L;
+		}
+	}
+	
+	private long getCollectionCount() {
+		long count = 0L;
+		for (GarbageCollectorMXBean gcBean : gcBeans)
+			count += gcBean.getCollectionCount();
+		return count;
+	}
+	
+	private void handleNotification(Notification notification, Object handback) {
+		if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()))
+			return;
+		
+		CompositeData data = (CompositeData)notification.getUserData();
+		GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(data);
+		
+		// Notifications are delivered by a single thread,
+		// which is therefore the only writer of the pauses.
+		gcPauses.record((long)(info.getGcInfo().getDuration() * NS_PER_MS));
+		gcCount.incrementAndGet();
+	}
+	
+	private void registerGcListener() {
+		for (GarbageCollectorMXBean gcBean : gcBeans) {
+			if (gcBean instanceof NotificationEmitter) {
+				NotificationEmitter emitter = (NotificationEmitter)gcBean;
+				emitter.addNotificationListener(gcListener, null, null);
+				gcEmitters.add(emitter);
+			}
+		}
+	}
+	
+	private void unregisterGcListener() {
+		for (NotificationEmitter emitter : gcEmitters) {
+			try {
+				emitter.removeNotificationListener(gcListener);
+			} catch (ListenerNotFoundException e) {
+			}
+		}
+		
+		gcEmitters.clear();
+	}
+	
+	/**
+	 * @return A histogram of the bytes allocated per tick.
+	 */
+	public Histogram getTickAllocations() {
+		return tickAllocations;
+	}
+
+	/**
+	 * @return A histogram of the bytes allocated per frame.
+	 */
+	public Histogram getFrameAllocations() {
+		return frameAllocations;
+	}
+
+	/**
+	 * @return A histogram of the durations of garbage collections, in
+	 *         nanoseconds.
+	 */
+	public Histogram getGcPauses() {
+		return gcPauses;
+	}
+	
+	/**
+	 * @return A histogram of the durations of the frames, during which a
+	 *         garbage collection occurred, in nanoseconds.
+	 */
+	public Histogram getGcFrameDurations() {
+		return gcFrameDurations;
+	}
+	
+	/**
+	 * @return The amount of garbage collections since the monitor was enabled.
+	 */
+	public long getGcCount() {
+		return gcCount.get();
+	}
+	
+	/**
+	 * Removes all the recorded allocations and garbage collections.
+	 */
+	public void reset() {
+		tickAllocations.reset();
+		frameAllocations.reset();
+		gcPauses.reset();
+		gcFrameDurations.reset();
+		gcCount.set(0L);
+	}
+	
+	/**
+	 * Prints a summary of the allocations per tick and frame, the garbage
+	 * collection pauses, and the total amount of bytes allocated by each
+	 * live thread, to the given print stream. Allocations are printed in
+	 * kilobytes, and durations in milliseconds.
+	 * 
+	 * @param out - the print stream to which the summary is printed
+	 */
+	public void printSummary(PrintStream out) {
+		out.println(String.format("%-20s %8s %8s %8s %8s %8s %8s", 
+				"allocations (kB)", "count", "mean", "p50", "p95", "p99", "max"));
+		printHistogram(out, "tick", tickAllocations, BYTES_PER_KB);
+		printHistogram(out, "frame", frameAllocations, BYTES_PER_KB);
+		
+		out.println(String.format("%-20s %8s %8s %8s %8s %8s %8s", 
+				"durations (ms)", "count", "mean", "p50", "p95", "p99", "max"));
+		printHistogram(out, "gc pause", gcPauses, NS_PER_MS);
+		printHistogram(out, "frame with gc", gcFrameDurations, NS_PER_MS);
+		
+		if (isSupported()) {
+			out.println(String.format("%-20s %12s", "thread", "total (kB)"));
+			
+			long[] threadIds = threadBean.getAllThreadIds();
+			long[] allocatedBytes = threadBean.getThreadAllocatedBytes(threadIds);
+			for (int i = 0; i < threadIds.length; i++) {
+				ThreadInfo info = threadBean.getThreadInfo(threadIds[i]);
+				if (info != null && allocatedBytes[i] != -1L) {
+					out.println(String.format("%-20s %12.1f", 
+							info.getThreadName(), allocatedBytes[i] / BYTES_PER_KB));
+				}
+			}
+		}
+	}
+	
+	private void printHistogram(PrintStream out, String name, Histogram histogram, double unit) {
+		if (histogram.getCount() == 0L)
+			return;
+		
+		out.println(String.format("%-20s %8d %8.3f %8.3f %8.3f %8.3f %8.3f", 
+				name,
+				histogram.getCount(),
+				histogram.getMean() / unit,
+				histogram.getPercentile(50.0) / unit,
+				histogram.getPercentile(95.0) / unit,
+				histogram.getPercentile(99.0) / unit,
+				histogram.getMax() / unit));
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Enables or disables the monitor. When the monitor is enabled, the
+	 * garbage collection listeners are registered, and allocations will be
+	 * recorded by the following ticks and frames. If the virtual machine does
+	 * not support measuring the allocated bytes, the monitor cannot be
+	 * enabled.
+	 * 
+	 * @param enabled - whether the monitor should be enabled
+	 * 
+	 * @throws UnsupportedOperationException if the monitor is not supported
+	 *                                       and is being enabled.
+	 * 
+	 * @see #isSupported()
+	 */
+	public synchronized void setEnabled(boolean enabled) {
+		if (enabled == this.enabled)
+			return;
+		
+		if (enabled) {
+			if (!isSupported())
+				throw new UnsupportedOperationException("Thread allocation measurement is not supported");
+			
+			if (!threadBean.isThreadAllocatedMemoryEnabled())
+				threadBean.setThreadAllocatedMemoryEnabled(true);
+
+			registerGcListener();
+		} else {
+			unregisterGcListener();
+		}
+		
+		this.enabled = enabled;
+	}
+}
@@ -0,0 +1,104 @@
+package com.g4mesoft.profile;
+
+import java.io.PrintStream;
+
+/**
+ * A profiler recording the duration of each of the phases in the main loop
+ * of the {@link com.g4mesoft.Application Application}. Each phase has its own
+ * {@link Histogram}, from which percentiles of the durations can be
+ * queried. Timing a phase is done as follows:
+ * <pre>
+ *   long startNs = profiler.start();
+ *   ...
+ *   profiler.end(ProfilerPhase.RENDER, startNs);
+ * </pre>
+ * A single phase should only be recorded by a single thread. When the ticks
+ * are performed on a separate thread, the tick phases are recorded by the
+ * ticking thread and the remaining phases by the rendering thread.
+ * 
+ * @see com.g4mesoft.Application#getProfiler()
+ */
+public class FrameProfiler {
+
+	private static final double NS_PER_MS = 1000000.0;
+	
+	private final Histogram[] histograms;
+	private volatile boolean enabled;
+	
+	public FrameProfiler() {
+		ProfilerPhase[] phases = ProfilerPhase.values();
+		
+		histograms = new Histogram[phases.length];
+		for (int i = 0; i < phases.length; i++)
+			histograms[i] = new Histogram();
+		
+		enabled = true;
+	}
+	
+	/**
+	 * @return The start time of a phase, which should be supplied to the
+	 *         function {@link #end(ProfilerPhase, long)} when the phase has
+	 *         ended. If the profiler is disabled, zero is returned.
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : 0L;
+	}
+	
+	/**
+	 * Records the duration of the given phase. If the profiler is disabled,
+	 * or was disabled when the phase started, nothing is recorded.
+	 * 
+	 * @param phase - the phase which has ended
+	 * @param startNs - the start time returned by {@link #start()}
+	 */
+	public void end(ProfilerPhase phase, long startNs) {
+		if (enabled && startNs != 0L)
+			histograms[phase.ordinal()].record(System.nanoTime() - startNs);
+	}
+	
+	public Histogram getHistogram(ProfilerPhase phase) {
+		return histograms[phase.ordinal()];
+	}
+	
+	/**
+	 * Removes all the recorded durations from the histograms of every phase.
+	 */
+	public void reset() {
+		for (Histogram histogram : histograms)
+			histogram.reset();
+	}
+	
+	/**
+	 * Prints a summary of every phase, which has been recorded at least once,
+	 * to the given print stream. All durations are printed in milliseconds.
+	 * 
+	 * @param out - the print stream to which the summary is printed
+	 */
+	public void printSummary(PrintStream out) {
+		out.println(String.format("%-20s %8s %8s %8s %8s %8s %8s", 
+				"phase", "count", "mean", "p50", "p95", "p99", "max"));
+		
+		for (ProfilerPhase phase : ProfilerPhase.values()) {
+			Histogram histogram = getHistogram(phase);
+			if (histogram.getCount() == 0L)
+				continue;
+			
+			out.println(String.format("%-20s %8d %8.3f %8.3f %8.3f %8.3f %8.3f", 
+					phase.getName(),
+					histogram.getCount(),
+					histogram.getMean() / NS_PER_MS,
+					histogram.getPercentile(50.0) / NS_PER_MS,
+					histogram.getPercentile(95.0) / NS_PER_MS,
+					histogram.getPercentile(99.0) / NS_PER_MS,
+					histogram.getMax() / NS_PER_MS));
+		}
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+}
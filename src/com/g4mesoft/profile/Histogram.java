@@ -0,0 +1,153 @@
+package com.g4mesoft.profile;
+
+/**
+ * A fixed-size histogram of non-negative integer values, such as durations or
+ * byte counts. The buckets are distributed logarithmically, such that each
+ * power of two is split into a fixed number of linear sub-buckets. This gives
+ * a relative error of at most {@code 1 / SUB_BUCKET_COUNT} for any recorded
+ * value, while only requiring a few hundred buckets to cover values from one
+ * up to roughly 10^12.
+ * <br><br>
+ * Recording a value does not allocate any memory, and can therefore be done
+ * in the hot path of the main loop. The histogram is not thread safe. It is
+ * intended to be written by a single thread. Queries performed by another
+ * thread will be approximate.
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+	
+	/* Values larger than this (2^40 units) are clamped */
+	private static final int MAX_VALUE_BITS = 40;
+	private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1L;
+	
+	private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+	
+	private final long[] buckets;
+	
+	private long count;
+	private long sum;
+	private long min;
+	private long max;
+	
+	public Histogram() {
+		buckets = new long[BUCKET_COUNT];
+		
+		reset();
+	}
+	
+	/**
+	 * Records the given value in this histogram. Negative values are recorded
+	 * as zero, and values that are larger than the supported range are
+	 * clamped.
+	 * 
+	 * @param value - the value to record
+	 */
+	public void record(long value) {
+		if (value < 0L) {
+			value = 0L;
+		} else if (value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+		
+		buckets[getBucketIndex(value)]++;
+		
+		count++;
+		sum += value;
+		
+		if (value < min)
+			min = value;
+		if (value > max)
+			max = value;
+	}
+	
+	private static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT)
+			return (int)value;
+		
+		int msb = 63 - Long.numberOfLeadingZeros(value);
+		int shift = msb - SUB_BUCKET_BITS;
+		int subBucket = (int)(value >>> shift) & SUB_BUCKET_MASK;
+		
+		return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+	
+	private static long getBucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT)
+			return index;
+		
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = index & SUB_BUCKET_MASK;
+
+		return ((SUB_BUCKET_COUNT + subBucket + 1L) << shift) - 1L;
+	}
+	
+	/**
+	 * Computes the value below which the given percentage of the recorded
+	 * values lie. The returned value is the upper bound of the bucket, which
+	 * contains the percentile, but never larger than the maximum recorded
+	 * value.
+	 * 
+	 * @param percentile - the percentile in the range 0.0 - 100.0
+	 * 
+	 * @return The value at the given percentile, or zero if no values have
+	 *         been recorded.
+	 */
+	public long getPercentile(double percentile) {
+		if (count == 0L)
+			return 0L;
+		
+		long threshold = (long)Math.ceil(count * percentile / 100.0);
+		if (threshold <= 0L)
+			return min;
+		
+		long accumulated = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			accumulated += buckets[i];
+			
+			if (accumulated >= threshold)
+				return Math.min(getBucketUpperBound(i), max);
+		}
+		
+		return max;
+	}
+	
+	/**
+	 * Removes all the recorded values from this histogram.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++)
+			buckets[i] = 0L;
+
+		count = 0L;
+		sum = 0L;
+		min = Long.MAX_VALUE;
+		max = 0L;
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	public long getTotal() {
+		return sum;
+	}
+	
+	public long getMin() {
+		return (count == 0L) ? 0L : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+	
+	public double getMean() {
+		return (count == 0L) ? 0.0 : (double)sum / count;
+	}
+	
+	public long getMedian() {
+		return getPercentile(50.0);
+	}
+}
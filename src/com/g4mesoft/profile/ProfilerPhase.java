@@ -0,0 +1,26 @@
+package com.g4mesoft.profile;
+
+public enum ProfilerPhase {
+
+	FRAME("frame"),
+	TICK("tick"),
+	JOB_BARRIER("job barrier"),
+	ASSET_COMPLETION("asset completion"),
+	SCHEDULED_TASKS("scheduled tasks"),
+	COMPOSITION_UPDATE("composition update"),
+	RENDER("render"),
+	COMPOSITION_LAYOUT("composition layout"),
+	COMPOSITION_RENDER("composition render"),
+	PRESENT("present"),
+	SLEEP("sleep");
+	
+	private final String name;
+	
+	private ProfilerPhase(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return name;
+	}
+}
@@ -0,0 +1,134 @@
+package com.g4mesoft.profile;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A report of the time spent initializing each of the subsystems of the
+ * {@link com.g4mesoft.Application Application}, and the time it took before
+ * the first frame was drawn. Steps can be recorded by any thread, such that
+ * subsystems initialized concurrently are included as well. Recording a step
+ * is done as follows:
+ * <pre>
+ *   long startNs = report.start();
+ *   ...
+ *   report.end("display", startNs);
+ * </pre>
+ * 
+ * @see com.g4mesoft.Application#getStartupReport()
+ */
+public class StartupReport {
+
+	private static final double NS_PER_MS = 1000000.0;
+	
+	private final long creationNs;
+	
+	private final List<Step> steps;
+	
+	private volatile long firstFrameNs;
+	
+	public StartupReport() {
+		creationNs = System.nanoTime();
+		
+		steps = new ArrayList<Step>();
+		
+		firstFrameNs = 0L;
+	}
+	
+	/**
+	 * @return The start time of a step, which should be supplied to the
+	 *         function {@link #end(String, long)} when the step has ended.
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a step of the startup, which was performed by the calling
+	 * thread.
+	 * 
+	 * @param name - the name of the step
+	 * @param startNs - the start time returned by {@link #start()}
+	 */
+	public void end(String name, long startNs) {
+		long endNs = System.nanoTime();
+		
+		synchronized (steps) {
+			steps.add(new Step(name, Thread.currentThread().getName(), 
+					startNs - creationNs, endNs - startNs));
+		}
+	}
+	
+	/**
+	 * Marks the first frame as drawn. Only the first invocation of this
+	 * function has an effect.
+	 * 
+	 * @return True, if this was the first frame, false otherwise.
+	 */
+	public boolean firstFrameDrawn() {
+		if (firstFrameNs != 0L)
+			return false;
+		
+		firstFrameNs = System.nanoTime();
+		return true;
+	}
+	
+	/**
+	 * @return The time, in nanoseconds, from the creation of the application
+	 *         until the first frame was drawn, or -1 if no frame has been
+	 *         drawn yet.
+	 */
+	public long getTimeToFirstFrame() {
+		long frameNs = firstFrameNs;
+		return frameNs == 0L ? -1L : (frameNs - creationNs);
+	}
+	
+	/**
+	 * Prints the recorded steps, ordered by their start time, followed by the
+	 * time to the first frame. All times are printed in milliseconds relative
+	 * to the creation of the application.
+	 * 
+	 * @param out - the print stream to which the report is printed
+	 */
+	public void printReport(PrintStream out) {
+		List<Step> sortedSteps;
+		synchronized (steps) {
+			sortedSteps = new ArrayList<Step>(steps);
+		}
+		sortedSteps.sort((a, b) -> Long.compare(a.startNs, b.startNs));
+		
+		out.println(String.format("%-24s %-20s %10s %10s", "startup step", "thread", "start", "duration"));
+		for (Step step : sortedSteps) {
+			out.println(String.format("%-24s %-20s %10.3f %10.3f", step.name, step.threadName,
+					step.startNs / NS_PER_MS, step.durationNs / NS_PER_MS));
+		}
+		
+		// The management factory is slow to initialize,
+		// and is therefore not used until the report is
+		// printed.
+		long uptimeNs = ManagementFactory.getRuntimeMXBean().getUptime() * (long)NS_PER_MS;
+		long jvmStartupNs = uptimeNs - (System.nanoTime() - creationNs);
+		out.println(String.format("JVM startup before application: %.3f ms", jvmStartupNs / NS_PER_MS));
+		
+		long timeToFirstFrame = getTimeToFirstFrame();
+		if (timeToFirstFrame != -1L)
+			out.println(String.format("Time to first frame: %.3f ms", timeToFirstFrame / NS_PER_MS));
+	}
+	
+	private static class Step {
+		
+		private final String name;
+		private final String threadName;
+		private final long startNs;
+		private final long durationNs;
+		
+		public Step(String name, String threadName, long startNs, long durationNs) {
+			this.name = name;
+			this.threadName = threadName;
+			this.startNs = startNs;
+			this.durationNs = durationNs;
+		}
+	}
+}
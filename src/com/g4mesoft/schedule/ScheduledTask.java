@@ -0,0 +1,105 @@
+package com.g4mesoft.schedule;
+
+/**
+ * A handle to a task which has been scheduled by a {@link TickScheduler}. The
+ * handle can be used for cancelling the task before it is run, or to stop a
+ * repeating task from being rescheduled.
+ * 
+ * @see TickScheduler#schedule(Runnable, int)
+ * @see TickScheduler#scheduleRepeating(Runnable, int, int)
+ */
+public final class ScheduledTask {
+
+	final TickScheduler scheduler;
+	final Runnable task;
+	final int period;
+
+	long expireTick;
+	boolean cancelled;
+	
+	/* Links in the slot list of the scheduler */
+	ScheduledTask prev;
+	ScheduledTask next;
+	
+	ScheduledTask(TickScheduler scheduler, Runnable task, int period) {
+		this.scheduler = scheduler;
+		this.task = task;
+		this.period = period;
+		
+		cancelled = false;
+		
+		prev = next = this;
+	}
+	
+	void link(ScheduledTask head) {
+		prev = head.prev;
+		next = head;
+		head.prev.next = this;
+		head.prev = this;
+	}
+	
+	void unlink() {
+		prev.next = next;
+		next.prev = prev;
+		prev = next = this;
+	}
+
+	boolean isLinked() {
+		return next != this;
+	}
+	
+	/**
+	 * Cancels this task. If the task is currently waiting to be run, it will
+	 * be removed from the scheduler in constant time. If the task is repeating
+	 * and is currently running, it will not be rescheduled.
+	 */
+	public void cancel() {
+		if (!cancelled) {
+			cancelled = true;
+			
+			if (isLinked()) {
+				unlink();
+				scheduler.taskRemoved();
+			}
+		}
+	}
+	
+	/**
+	 * @return True, if this task has been cancelled, false otherwise.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * @return True, if this task is rescheduled every time it has run.
+	 */
+	public boolean isRepeating() {
+		return period != 0;
+	}
+	
+	/**
+	 * @return The amount of ticks between each run of this task, or zero if
+	 *         the task is not repeating.
+	 */
+	public int getPeriod() {
+		return period;
+	}
+	
+	/**
+	 * @return The tick of the scheduler, at which this task will run next.
+	 * 
+	 * @see TickScheduler#getCurrentTick()
+	 */
+	public long getExpireTick() {
+		return expireTick;
+	}
+	
+	/**
+	 * @return The amount of ticks before this task is run, where a value of
+	 *         one means that the task will run in the next tick.
+	 */
+	public long getRemainingTicks() {
+		return expireTick - scheduler.getCurrentTick() + 1L;
+	}
+}
@@ -0,0 +1,248 @@
+package com.g4mesoft.schedule;
+
+/**
+ * A scheduler for running tasks after a delay, or periodically, measured in
+ * ticks. The scheduler is implemented as a hierarchical timer wheel, which
+ * makes both scheduling and cancelling a task a constant time operation.
+ * Each tick only the tasks which are due are visited, regardless of the
+ * total amount of scheduled tasks.
+ * <br><br>
+ * The wheel consists of a level with 256 slots, each holding the tasks due
+ * in a single tick, followed by four levels with 64 slots, where each slot
+ * spans an increasingly large range of ticks. When the lower levels wrap
+ * around, the tasks in the next slot of the level above are redistributed
+ * into the levels below. Tasks further than 2<sup>32</sup> ticks into the
+ * future are kept in the top level and redistributed until they are due.
+ * <br><br>
+ * The scheduler of the application is updated at the beginning of every
+ * tick, before {@link com.g4mesoft.Application#tick()} is invoked. A task
+ * scheduled with a delay of one tick during tick {@code T} will thus run in
+ * tick {@code T + 1}, just before the application is ticked.
+ * <br><br>
+ * <b>NOTE:</b><i> the scheduler is not thread-safe, and should only be used
+ * from the thread which is ticking the application.</i>
+ * 
+ * @see com.g4mesoft.Application#getScheduler()
+ */
+public class TickScheduler {
+
+	private static final int ROOT_BITS = 8;
+	private static final int LEVEL_BITS = 6;
+	private static final int NUM_LEVELS = 4;
+	
+	private static final int ROOT_SIZE = 1 << ROOT_BITS;
+	private static final int ROOT_MASK = ROOT_SIZE - 1;
+	private static final int LEVEL_SIZE = 1 << LEVEL_BITS;
+	private static final int LEVEL_MASK = LEVEL_SIZE - 1;
+	
+	private static final long MAX_DELTA = 1L << (ROOT_BITS + NUM_LEVELS * LEVEL_BITS);
+	
+	private final ScheduledTask[] root;
+	private final ScheduledTask[][] levels;
+	
+	/* List of the tasks currently being run */
+	private final ScheduledTask running;
+	
+	/* The tick which will be processed next */
+	private long currentTick;
+	private int taskCount;
+	
+	public TickScheduler() {
+		root = new ScheduledTask[ROOT_SIZE];
+		for (int i = 0; i < ROOT_SIZE; i++)
+			root[i] = createSentinel();
+		
+		levels = new ScheduledTask[NUM_LEVELS][LEVEL_SIZE];
+		for (int l = 0; l < NUM_LEVELS; l++) {
+			for (int i = 0; i < LEVEL_SIZE; i++)
+				levels[l][i] = createSentinel();
+		}
+		
+		running = createSentinel();
+		
+		currentTick = 0L;
+		taskCount = 0;
+	}
+	
+	private ScheduledTask createSentinel() {
+		return new ScheduledTask(this, null, 0);
+	}
+	
+	/**
+	 * Schedules the given task to run once, after the given amount of ticks.
+	 * 
+	 * @param task - the task to be run
+	 * @param delay - the amount of ticks before the task is run, where a
+	 *                delay of one runs the task in the next tick
+	 * 
+	 * @return A handle which can be used for cancelling the task.
+	 * 
+	 * @throws IllegalArgumentException if the delay is less than one.
+	 */
+	public ScheduledTask schedule(Runnable task, int delay) {
+		return scheduleImpl(task, delay, 0);
+	}
+	
+	/**
+	 * Schedules the given task to run after the given delay, and every
+	 * {@code period} ticks thereafter, until the task is cancelled.
+	 * 
+	 * @param task - the task to be run
+	 * @param delay - the amount of ticks before the task is run the first time
+	 * @param period - the amount of ticks between each run of the task
+	 * 
+	 * @return A handle which can be used for cancelling the task.
+	 * 
+	 * @throws IllegalArgumentException if the delay or period is less than one.
+	 */
+	public ScheduledTask scheduleRepeating(Runnable task, int delay, int period) {
+		if (period <= 0)
+			throw new IllegalArgumentException("period <= 0");
+		
+		return scheduleImpl(task, delay, period);
+	}
+	
+	private ScheduledTask scheduleImpl(Runnable task, int delay, int period) {
+		if (task == null)
+			throw new NullPointerException("task is null!");
+		if (delay <= 0)
+			throw new IllegalArgumentException("delay <= 0");
+		
+		ScheduledTask scheduledTask = new ScheduledTask(this, task, period);
+		scheduledTask.expireTick = currentTick + delay - 1L;
+		insert(scheduledTask);
+		taskCount++;
+		
+		return scheduledTask;
+	}
+	
+	private void insert(ScheduledTask task) {
+		long expireTick = task.expireTick;
+		long delta = expireTick - currentTick;
+		
+		ScheduledTask head;
+		if (delta < ROOT_SIZE) {
+			// Tasks which are overdue are run in the current tick.
+			if (delta < 0L)
+				expireTick = currentTick;
+			head = root[(int)expireTick & ROOT_MASK];
+		} else {
+			if (delta >= MAX_DELTA) {
+				// The task will be redistributed until it is due.
+				expireTick = currentTick + MAX_DELTA - 1L;
+			}
+			
+			int level = 0;
+			int shift = ROOT_BITS;
+			while ((delta >>> (shift + LEVEL_BITS)) != 0L && level < NUM_LEVELS - 1) {
+				shift += LEVEL_BITS;
+				level++;
+			}
+			
+			head = levels[level][(int)(expireTick >>> shift) & LEVEL_MASK];
+		}
+		
+		task.link(head);
+	}
+	
+	/**
+	 * Runs all the tasks which are due in the current tick, and advances the
+	 * scheduler to the next tick. Repeating tasks are rescheduled after they
+	 * have been run. If a task throws an exception, the tasks which have not
+	 * yet been run will be run in the next tick instead.
+	 */
+	public void update() {
+		int index = (int)currentTick & ROOT_MASK;
+		if (index == 0)
+			cascade(0, ROOT_BITS);
+		
+		// Move the due tasks to a separate list, such
+		// that tasks scheduled by the running tasks do
+		// not end up in the current slot.
+		ScheduledTask head = root[index];
+		while (head.next != head) {
+			ScheduledTask task = head.next;
+			task.unlink();
+			task.link(running);
+		}
+		
+		currentTick++;
+		
+		try {
+			while (running.next != running) {
+				ScheduledTask task = running.next;
+				task.unlink();
+				
+				if (task.period != 0) {
+					task.expireTick += task.period;
+					insert(task);
+				} else {
+					taskCount--;
+				}
+				
+				task.task.run();
+			}
+		} finally {
+			// Reinsert the remaining tasks, if a
+			// task threw an exception.
+			while (running.next != running) {
+				ScheduledTask task = running.next;
+				task.unlink();
+				insert(task);
+			}
+		}
+	}
+	
+	private void cascade(int level, int shift) {
+		int index = (int)(currentTick >>> shift) & LEVEL_MASK;
+		
+		// Redistribute the next level first, such
+		// that its tasks end up in the correct slots.
+		if (index == 0 && level < NUM_LEVELS - 1)
+			cascade(level + 1, shift + LEVEL_BITS);
+		
+		ScheduledTask head = levels[level][index];
+		while (head.next != head) {
+			ScheduledTask task = head.next;
+			task.unlink();
+			insert(task);
+		}
+	}
+	
+	/**
+	 * Cancels all the tasks that are currently scheduled.
+	 */
+	public void cancelAll() {
+		for (ScheduledTask head : root)
+			cancelAll(head);
+		for (ScheduledTask[] level : levels) {
+			for (ScheduledTask head : level)
+				cancelAll(head);
+		}
+		cancelAll(running);
+	}
+	
+	private void cancelAll(ScheduledTask head) {
+		while (head.next != head)
+			head.next.cancel();
+	}
+	
+	void taskRemoved() {
+		taskCount--;
+	}
+	
+	/**
+	 * @return The tick which will be processed by the next invocation of
+	 *         {@link #update()}.
+	 */
+	public long getCurrentTick() {
+		return currentTick;
+	}
+	
+	/**
+	 * @return The amount of tasks currently scheduled.
+	 */
+	public int getTaskCount() {
+		return taskCount;
+	}
+}
@@ -81,9 +81,45 @@ public final class SoundManager {
 	}
 	
 	public int loadSound(InputStream is) throws IOException, AudioParsingException {
+		return registerSound(decodeSound(is));
+	}
+	
+	/**
+	 * Decodes the audio file in the given input stream, using the audio file
+	 * providers of this sound manager, without registering it. Decoding is
+	 * thread-safe, as long as no providers are added concurrently, and can
+	 * therefore be performed on a worker thread.
+	 * 
+	 * @param is - the input stream containing the audio file
+	 * 
+	 * @return The decoded audio file
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 * @throws AudioParsingException if the audio format is unsupported
+	 * 
+	 * @see #registerSound(AudioFile)
+	 * @see com.g4mesoft.asset.AssetLoader#loadSound(String, boolean, com.g4mesoft.asset.IAssetListener)
+	 */
+	public AudioFile decodeSound(InputStream is) throws IOException, AudioParsingException {
 		AudioFile audioFile = loadAudioFile(is);
 		if (audioFile == null)
 			throw new AudioParsingException("Unsupported audio format!");
+		return audioFile;
+	}
+	
+	/**
+	 * Registers the given audio file, such that it can be played using the
+	 * returned id.
+	 * 
+	 * @param audioFile - the audio file to register
+	 * 
+	 * @return The id of the sound
+	 * 
+	 * @see #decodeSound(InputStream)
+	 */
+	public int registerSound(AudioFile audioFile) {
+		if (audioFile == null)
+			throw new NullPointerException("audioFile is null!");
 		
 		ensureAudioFileCapacity();
 		
@@ -289,7 +325,14 @@ public final class SoundManager {
 		return numAudioFiles;
 	}
 	
-	public static SoundManager getInstance() {
+	/**
+	 * Returns the instance of the sound manager. The first invocation opens
+	 * the default mixer, which can be slow. The application therefore
+	 * initializes the sound manager concurrently with the display.
+	 * 
+	 * @return The instance of the sound manager
+	 */
+	public static synchronized SoundManager getInstance() {
 		if (instance == null)
 			instance = new SoundManager();
 		return instance;
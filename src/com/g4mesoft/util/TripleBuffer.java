@@ -0,0 +1,140 @@
+package com.g4mesoft.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A lock-free triple buffer used for publishing state from a single writing
+ * thread to a single reading thread. The writer will always have a buffer
+ * available for writing, and the reader will always see the latest buffer
+ * that was published by the writer. Neither of the threads will ever block.
+ * <br><br>
+ * This is used for publishing snapshots of the simulation state from the
+ * ticking thread to the rendering thread, when the application is running
+ * with threaded ticking enabled. The following shows an example of a tick
+ * and render function publishing and reading a snapshot:
+ * <pre>
+ *   protected void tick() {
+ *       ...
+ *       GameState state = buffer.getWriteBuffer();
+ *       state.prevX = player.prevX;
+ *       state.x = player.x;
+ *       buffer.publish();
+ *   }
+ *
+ *   protected void render(IRenderer2D renderer, float dt) {
+ *       GameState state = buffer.getReadBuffer();
+ *       int xPixel = (int)(state.prevX + (state.x - state.prevX) * dt);
+ *       ...
+ *   }
+ * </pre>
+ * <b>NOTE:</b><i> the buffers are re-used, and the write buffer holds the
+ * state published two or more publishes ago, not the previous state. The
+ * writer must therefore write the entire state to the write buffer before
+ * publishing it, and every field, including the previous state used for
+ * interpolation, must be written from the simulation.</i>
+ *
+ * @param <T> - The type of the buffered state
+ *
+ * @see com.g4mesoft.Application#setThreadedTicking(boolean)
+ */
+public class TripleBuffer<T> {
+
+	/*
+	 * The state is packed into a single integer with
+	 * the following layout (from least significant):
+	 *   bits 0-1: index of the write buffer
+	 *   bits 2-3: index of the middle buffer
+	 *   bits 4-5: index of the read buffer
+	 *   bit    6: set if the middle buffer is new
+	 */
+	private static final int WRITE_SHIFT = 0;
+	private static final int MIDDLE_SHIFT = 2;
+	private static final int READ_SHIFT = 4;
+	private static final int INDEX_MASK = 0x3;
+	private static final int DIRTY_FLAG = 1 << 6;
+
+	private static final int INITIAL_STATE = (0 << WRITE_SHIFT) |
+	                                         (1 << MIDDLE_SHIFT) |
+	                                         (2 << READ_SHIFT);
+
+	private final Object[] buffers;
+	private final AtomicInteger state;
+
+	public TripleBuffer(Supplier<T> bufferFactory) {
+		buffers = new Object[3];
+		for (int i = 0; i < buffers.length; i++)
+			buffers[i] = bufferFactory.get();
+
+		state = new AtomicInteger(INITIAL_STATE);
+	}
+
+	/**
+	 * @return The buffer which is currently owned by the writing thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer() {
+		return (T)buffers[(state.get() >>> WRITE_SHIFT) & INDEX_MASK];
+	}
+
+	/**
+	 * Publishes the current write buffer, such that it will be returned by
+	 * the next call to {@link #getReadBuffer()}. After invoking this function
+	 * the writer will be handed a new buffer, which is not in use by the
+	 * reading thread.
+	 */
+	public void publish() {
+		int prev, next;
+		do {
+			prev = state.get();
+
+			int write  = (prev >>> WRITE_SHIFT) & INDEX_MASK;
+			int middle = (prev >>> MIDDLE_SHIFT) & INDEX_MASK;
+			int read   = (prev >>> READ_SHIFT) & INDEX_MASK;
+
+			// Swap write and middle buffers
+			next = (middle << WRITE_SHIFT) | (write << MIDDLE_SHIFT) |
+			       (read << READ_SHIFT) | DIRTY_FLAG;
+		} while (!state.compareAndSet(prev, next));
+	}
+
+	/**
+	 * Returns the latest published buffer. If no new buffer has been published
+	 * since the last call to this function, the previous buffer is returned.
+	 * The buffer is owned by the reading thread until the next invocation of
+	 * this function.
+	 *
+	 * @return The latest published buffer.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getReadBuffer() {
+		int prev = state.get();
+
+		if ((prev & DIRTY_FLAG) != 0) {
+			int next;
+			do {
+				prev = state.get();
+
+				int write  = (prev >>> WRITE_SHIFT) & INDEX_MASK;
+				int middle = (prev >>> MIDDLE_SHIFT) & INDEX_MASK;
+				int read   = (prev >>> READ_SHIFT) & INDEX_MASK;
+
+				// Swap read and middle buffers
+				next = (write << WRITE_SHIFT) | (read << MIDDLE_SHIFT) |
+				       (middle << READ_SHIFT);
+			} while (!state.compareAndSet(prev, next));
+
+			prev = next;
+		}
+
+		return (T)buffers[(prev >>> READ_SHIFT) & INDEX_MASK];
+	}
+
+	/**
+	 * @return True, if a buffer has been published since the last call to
+	 *         {@link #getReadBuffer()}, false otherwise.
+	 */
+	public boolean hasNewBuffer() {
+		return (state.get() & DIRTY_FLAG) != 0;
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import com.g4mesoft.job.JobSystem;
 import com.g4mesoft.world.entity.ICollidable;
 import com.g4mesoft.world.entity.Entity;
 import com.g4mesoft.world.entity.LivingEntity;
@@ -16,7 +17,9 @@ public abstract class World {
 	
 	protected List<Entity> entities;
 	private List<Entity> entitiesToAdd;
-	protected boolean updatingEntities;
+	protected volatile boolean updatingEntities;
+	
+	private JobSystem jobSystem;
 	
 	public World() {
 		worldTime = 0L;
@@ -24,11 +27,26 @@ public abstract class World {
 		entities = new ArrayList<Entity>();
 		entitiesToAdd = new ArrayList<Entity>();
 		updatingEntities = false;
+		
+		jobSystem = null;
 	}
 	
-	public synchronized void update() {
-		updateEntityList(entities);
-		incrementWorldTime(1L);
+	public void update() {
+		if (jobSystem != null) {
+			// The world can not be locked while the entities
+			// are ticked, since the workers might invoke the
+			// synchronized functions of the world.
+			updateEntityListParallel(entities);
+
+			synchronized (this) {
+				incrementWorldTime(1L);
+			}
+		} else {
+			synchronized (this) {
+				updateEntityList(entities);
+				incrementWorldTime(1L);
+			}
+		}
 	}
 	
 	protected void updateEntityList(List<Entity> entities) {
@@ -44,6 +62,49 @@ public abstract class World {
 		}
 		updatingEntities = false;
 
+		addPendingEntities(entities);
+	}
+	
+	/**
+	 * Ticks the entities in the given list in parallel, using the job system
+	 * of this world. Entities which are added or removed while ticking are
+	 * handled in the same way as {@link #updateEntityList(List)}.
+	 * 
+	 * @param entities - the list of entities to tick
+	 * 
+	 * @see #setJobSystem(JobSystem)
+	 */
+	protected void updateEntityListParallel(List<Entity> entities) {
+		Entity[] snapshot;
+		synchronized (this) {
+			updatingEntities = true;
+			synchronized (entities) {
+				snapshot = entities.toArray(new Entity[entities.size()]);
+			}
+		}
+		
+		try {
+			jobSystem.parallelFor(0, snapshot.length, (start, end) -> {
+				for (int i = start; i < end; i++)
+					snapshot[i].tick();
+			});
+		} finally {
+			synchronized (this) {
+				synchronized (entities) {
+					Iterator<Entity> entityIterator = entities.iterator();
+					while (entityIterator.hasNext()) {
+						if (entityIterator.next().isDead())
+							entityIterator.remove();
+					}
+				}
+				updatingEntities = false;
+				
+				addPendingEntities(entities);
+			}
+		}
+	}
+	
+	private void addPendingEntities(List<Entity> entities) {
 		synchronized (entitiesToAdd) {
 			if (entitiesToAdd.size() > 0) {
 				entities.addAll(entitiesToAdd);
@@ -52,6 +113,28 @@ public abstract class World {
 		}
 	}
 	
+	/**
+	 * Sets the job system used for ticking the entities of this world in
+	 * parallel. Entities ticked in parallel must not read or modify the state
+	 * of other entities, since those may be moved by other threads at the
+	 * same time. In particular, they must not query other entities using
+	 * {@link #getCollidingEntities(AABB)}, which would also serialize the
+	 * threads on the world. The world should only be accessed through
+	 * {@link #addEntity(Entity)} while ticking.
+	 * 
+	 * @param jobSystem - the job system, or null to tick the entities on the
+	 *                    thread updating the world.
+	 * 
+	 * @see com.g4mesoft.Application#getJobSystem()
+	 */
+	public void setJobSystem(JobSystem jobSystem) {
+		this.jobSystem = jobSystem;
+	}
+	
+	public JobSystem getJobSystem() {
+		return jobSystem;
+	}
+	
 	public synchronized void addEntity(Entity e) {
 		if (updatingEntities) {
 			synchronized (entitiesToAdd) {